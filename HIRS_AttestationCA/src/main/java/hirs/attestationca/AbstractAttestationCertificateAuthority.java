@@ -5,6 +5,7 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import hirs.attestationca.configuration.provisionerTpm2.ProvisionerTpm2;
 import hirs.attestationca.exceptions.CertificateProcessingException;
 import hirs.attestationca.exceptions.IdentityProcessingException;
+import hirs.attestationca.exceptions.ProvisioningCapacityException;
 import hirs.attestationca.exceptions.UnexpectedServerException;
 import hirs.attestationca.service.SupplyChainValidationService;
 import hirs.data.persist.AppraisalStatus;
@@ -32,6 +33,7 @@ import hirs.persist.CertificateManager;
 import hirs.persist.ComponentResultManager;
 import hirs.persist.DBManager;
 import hirs.persist.DeviceManager;
+import hirs.persist.ReferenceDigestIndex;
 import hirs.persist.ReferenceDigestManager;
 import hirs.persist.ReferenceEventManager;
 import hirs.persist.ReferenceManifestManager;
@@ -47,6 +49,7 @@ import hirs.structs.elements.tpm.IdentityRequest;
 import hirs.structs.elements.tpm.SymmetricKey;
 import hirs.structs.elements.tpm.SymmetricKeyParams;
 import hirs.tpm.eventlog.TCGEventLog;
+import hirs.tpm.eventlog.TCGEventLogCache;
 import hirs.tpm.eventlog.TpmPcrEvent;
 import hirs.utils.HexUtils;
 import org.apache.commons.codec.binary.Hex;
@@ -104,6 +107,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -175,7 +179,7 @@ public abstract class AbstractAttestationCertificateAuthority
      * Container wired application configuration property identifying the number of days that
      * certificates issued by this ACA are valid for.
      */
-    private Integer validDays = 1;
+    private volatile Integer validDays = 1;
 
     private final ComponentResultManager componentResultManager;
     private final CertificateManager certificateManager;
@@ -185,8 +189,8 @@ public abstract class AbstractAttestationCertificateAuthority
     private final DBManager<TPM2ProvisionerState> tpm2ProvisionerStateDBManager;
     private final ReferenceDigestManager referenceDigestManager;
     private final ReferenceEventManager referenceEventManager;
-    private String tpmQuoteHash = "";
-    private String tpmQuoteSignature = "";
+    private final ReferenceDigestIndex referenceDigestIndex;
+    private final TCGEventLogCache tcgEventLogCache;
 
     /**
      * Constructor.
@@ -203,6 +207,8 @@ public abstract class AbstractAttestationCertificateAuthority
      * @param tpm2ProvisionerStateDBManager the DBManager for persisting provisioner state
      * @param referenceDigestManager the reference digest manager
      * @param referenceEventManager the reference event manager
+     * @param referenceDigestIndex the shared reference digest index
+     * @param tcgEventLogCache the shared parsed event log cache
      */
     @SuppressWarnings("checkstyle:parameternumber")
     public AbstractAttestationCertificateAuthority(
@@ -216,7 +222,9 @@ public abstract class AbstractAttestationCertificateAuthority
             final DeviceManager deviceManager,
             final DBManager<TPM2ProvisionerState> tpm2ProvisionerStateDBManager,
             final ReferenceDigestManager referenceDigestManager,
-            final ReferenceEventManager referenceEventManager) {
+            final ReferenceEventManager referenceEventManager,
+            final ReferenceDigestIndex referenceDigestIndex,
+            final TCGEventLogCache tcgEventLogCache) {
         this.supplyChainValidationService = supplyChainValidationService;
         this.privateKey = privateKey;
         this.acaCertificate = acaCertificate;
@@ -230,6 +238,8 @@ public abstract class AbstractAttestationCertificateAuthority
         this.tpm2ProvisionerStateDBManager = tpm2ProvisionerStateDBManager;
         this.referenceDigestManager = referenceDigestManager;
         this.referenceEventManager = referenceEventManager;
+        this.referenceDigestIndex = referenceDigestIndex;
+        this.tcgEventLogCache = tcgEventLogCache;
     }
 
     /**
@@ -431,7 +441,8 @@ public abstract class AbstractAttestationCertificateAuthority
         }
 
         // attempt to deserialize Protobuf IdentityClaim
-        ProvisionerTpm2.IdentityClaim claim = parseIdentityClaim(identityClaim);
+        ProvisionerTpm2.IdentityClaim claim = runStage(IdentityClaimPipeline.Stage.PARSE,
+                () -> parseIdentityClaim(identityClaim));
 
         // parse the EK Public key from the IdentityClaim once for use in supply chain validation
         // and later tpm20MakeCredential function
@@ -439,7 +450,10 @@ public abstract class AbstractAttestationCertificateAuthority
         AppraisalStatus.Status validationResult = AppraisalStatus.Status.FAIL;
 
         try {
-            validationResult = doSupplyChainValidation(claim, ekPub);
+            validationResult = runStage(IdentityClaimPipeline.Stage.VALIDATION,
+                    () -> doSupplyChainValidation(claim, ekPub));
+        } catch (ProvisioningCapacityException ex) {
+            throw ex;
         } catch (Exception ex) {
             for (StackTraceElement ste : ex.getStackTrace()) {
                 LOG.error(ste.toString());
@@ -450,7 +464,8 @@ public abstract class AbstractAttestationCertificateAuthority
         if (validationResult == AppraisalStatus.Status.PASS) {
             RSAPublicKey akPub = parsePublicKey(claim.getAkPublicArea().toByteArray());
             byte[] nonce = generateRandomBytes(NONCE_LENGTH);
-            blobStr = tpm20MakeCredential(ekPub, akPub, nonce);
+            blobStr = runStage(IdentityClaimPipeline.Stage.CREDENTIAL,
+                    () -> tpm20MakeCredential(ekPub, akPub, nonce));
             SupplyChainPolicy scp = this.supplyChainValidationService.getPolicy();
             String pcrQuoteMask = PCR_QUOTE_MASK;
 
@@ -483,6 +498,19 @@ public abstract class AbstractAttestationCertificateAuthority
         }
     }
 
+    /**
+     * Runs one stage of identity claim processing on the calling thread.  Subclasses may run
+     * stages elsewhere, for example on an {@link IdentityClaimPipeline}.
+     *
+     * @param stage the stage being run
+     * @param task the work of the stage
+     * @param <T> the type of the stage's result
+     * @return the stage's result
+     */
+    protected <T> T runStage(final IdentityClaimPipeline.Stage stage, final Supplier<T> task) {
+        return task.get();
+    }
+
     /**
      * Performs supply chain validation.
      *
@@ -612,7 +640,7 @@ public abstract class AbstractAttestationCertificateAuthority
             // Parse through the Provisioner supplied TPM Quote and pcr values
             // these fields are optional
             if (request.getQuote() != null && !request.getQuote().isEmpty()) {
-                parseTPMQuote(request.getQuote().toStringUtf8());
+                TpmQuote tpmQuote = TpmQuote.parse(request.getQuote().toStringUtf8());
                 TPMInfo savedInfo = device.getDeviceInfo().getTPMInfo();
                 TPMInfo tpmInfo = new TPMInfo(savedInfo.getTPMMake(),
                         savedInfo.getTPMVersionMajor(),
@@ -620,8 +648,8 @@ public abstract class AbstractAttestationCertificateAuthority
                         savedInfo.getTPMVersionRevMajor(),
                         savedInfo.getTPMVersionRevMinor(),
                         savedInfo.getPcrValues(),
-                        this.tpmQuoteHash.getBytes(StandardCharsets.UTF_8),
-                        this.tpmQuoteSignature.getBytes(StandardCharsets.UTF_8));
+                        tpmQuote.getHashBytes(),
+                        tpmQuote.getSignatureBytes());
 
                 DeviceInfoReport dvReport = new DeviceInfoReport(
                         device.getDeviceInfo().getNetworkInfo(),
@@ -672,27 +700,6 @@ public abstract class AbstractAttestationCertificateAuthority
         }
     }
 
-    /**
-     * This method takes the provided TPM Quote and splits it between the PCR
-     * quote and the signature hash.
-     * @param tpmQuote contains hash values for the quote and the signature
-     */
-    private boolean parseTPMQuote(final String tpmQuote) {
-        boolean success = false;
-        if (tpmQuote != null) {
-            String[] lines = tpmQuote.split(":");
-            if (lines[1].contains("signature")) {
-                this.tpmQuoteHash = lines[1].replace("signature", "").trim();
-            } else {
-                this.tpmQuoteHash = lines[1].trim();
-            }
-            this.tpmQuoteSignature = lines[2].trim();
-            success = true;
-        }
-
-        return success;
-    }
-
     /**
      * This method splits all hashed pcr values into an array.
      * @param pcrValues contains the full list of 24 pcr values
@@ -998,8 +1005,8 @@ public abstract class AbstractAttestationCertificateAuthority
                 (short) 0,
                 (short) 0,
                 pcrValues.getBytes(StandardCharsets.UTF_8),
-                this.tpmQuoteHash.getBytes(StandardCharsets.UTF_8),
-                this.tpmQuoteSignature.getBytes(StandardCharsets.UTF_8));
+                TpmQuote.EMPTY.getHashBytes(),
+                TpmQuote.EMPTY.getSignatureBytes());
 
         // Create final report
         DeviceInfoReport dvReport = new DeviceInfoReport(nw, os, fw, hw, tpm,
@@ -1039,7 +1046,7 @@ public abstract class AbstractAttestationCertificateAuthority
         if (baseSupportRim != null
                 && referenceEventManager.getValuesByRimId(baseSupportRim).isEmpty()) {
             try {
-                TCGEventLog logProcessor = new TCGEventLog(baseSupportRim.getRimBytes());
+                TCGEventLog logProcessor = tcgEventLogCache.getEventLog(baseSupportRim);
                 ReferenceDigestValue rdv;
                 for (TpmPcrEvent tpe : logProcessor.getEventList()) {
                     rdv = new ReferenceDigestValue(baseSupportRim.getAssociatedRim(),
@@ -1052,7 +1059,7 @@ public abstract class AbstractAttestationCertificateAuthority
                 // since I have the base already I don't have to care about the backward
                 // linkage
                 for (SupportReferenceManifest supplemental : supplementalRims) {
-                    logProcessor = new TCGEventLog(supplemental.getRimBytes());
+                    logProcessor = tcgEventLogCache.getEventLog(supplemental);
                     for (TpmPcrEvent tpe : logProcessor.getEventList()) {
                         // all RDVs will have the same base rim
                         rdv = new ReferenceDigestValue(baseSupportRim.getAssociatedRim(),
@@ -1081,12 +1088,13 @@ public abstract class AbstractAttestationCertificateAuthority
                     }
                     digestValueMap.put(subRdv.getDigestValue(), subRdv);
                 }
+                referenceDigestIndex.invalidate(baseSupportRim.getAssociatedRim());
 
                 // if a patch value doesn't exist, error?
                 ReferenceDigestValue dbRdv;
                 String patchedValue;
                 for (SupportReferenceManifest patch : patchRims) {
-                    logProcessor = new TCGEventLog(patch.getRimBytes());
+                    logProcessor = tcgEventLogCache.getEventLog(patch);
                     for (TpmPcrEvent tpe : logProcessor.getEventList()) {
                         patchedValue = tpe.getEventDigestStr();
                         dbRdv = digestValueMap.get(patchedValue);
@@ -0,0 +1,255 @@
+package hirs.attestationca;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import hirs.attestationca.exceptions.ProvisioningCapacityException;
+import hirs.attestationca.exceptions.UnexpectedServerException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs the stages of identity claim processing on dedicated, bounded thread pools.
+ * <p>
+ * The ACA is deployed as a Servlet 2.5 application, so request threads cannot be released
+ * while a claim is processed.  Instead, each stage (parsing, supply chain validation and
+ * credential generation) has its own fixed-size pool and bounded queue.  This caps how many
+ * claims hit the database or perform RSA operations at once, independently of the size of
+ * the servlet container's pool.  Once a stage's queue is full, further claims are rejected
+ * immediately with a {@link ProvisioningCapacityException} rather than piling up behind the
+ * ones already queued.
+ * <p>
+ * Each stage records how long tasks waited in its queue and how long they ran.
+ */
+public class IdentityClaimPipeline {
+
+    private static final Logger LOGGER = LogManager.getLogger(IdentityClaimPipeline.class);
+
+    /**
+     * The stages of identity claim processing.
+     */
+    public enum Stage {
+        /**
+         * Deserialization of the identity claim.
+         */
+        PARSE,
+
+        /**
+         * Credential parsing, device info persistence and supply chain validation.
+         */
+        VALIDATION,
+
+        /**
+         * Generation of the wrapped credential blob.
+         */
+        CREDENTIAL
+    }
+
+    private final Map<Stage, ThreadPoolExecutor> executors = new EnumMap<>(Stage.class);
+    private final Map<Stage, StageMetrics> metrics = new EnumMap<>(Stage.class);
+    private final long timeoutSeconds;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param parseThreads number of threads parsing identity claims
+     * @param validationThreads number of threads performing supply chain validation
+     * @param credentialThreads number of threads generating credentials
+     * @param queueDepth number of tasks each stage queues before rejecting new claims
+     * @param timeoutSeconds how long a request waits for a stage to complete its task
+     */
+    public IdentityClaimPipeline(final int parseThreads, final int validationThreads,
+                                 final int credentialThreads, final int queueDepth,
+                                 final long timeoutSeconds) {
+        if (queueDepth < 1) {
+            throw new IllegalArgumentException("Queue depth must be at least 1");
+        }
+        if (timeoutSeconds < 1) {
+            throw new IllegalArgumentException("Timeout must be at least 1 second");
+        }
+        this.timeoutSeconds = timeoutSeconds;
+        createStage(Stage.PARSE, parseThreads, queueDepth);
+        createStage(Stage.VALIDATION, validationThreads, queueDepth);
+        createStage(Stage.CREDENTIAL, credentialThreads, queueDepth);
+    }
+
+    private void createStage(final Stage stage, final int threads, final int queueDepth) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Stage " + stage + " needs at least 1 thread");
+        }
+        executors.put(stage, new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueDepth),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("aca-" + stage.name().toLowerCase() + "-%d")
+                        .setDaemon(true)
+                        .build()));
+        metrics.put(stage, new StageMetrics());
+    }
+
+    /**
+     * Runs a task on the given stage and waits for its result.
+     *
+     * @param stage the stage to run the task on
+     * @param task the task to run
+     * @param <T> the type of the task's result
+     * @return the task's result
+     * @throws ProvisioningCapacityException if the stage's queue is full
+     */
+    public <T> T execute(final Stage stage, final Supplier<T> task) {
+        final StageMetrics stageMetrics = metrics.get(stage);
+        final long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executors.get(stage).submit(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    return task.get();
+                } finally {
+                    stageMetrics.record(startedAt - queuedAt, System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            stageMetrics.rejected.increment();
+            LOGGER.warn("Rejecting identity claim, {} stage queue is full", stage);
+            throw new ProvisioningCapacityException("The ACA is busy processing other "
+                    + "identity claims, try again later", ex);
+        }
+
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new UnexpectedServerException("Identity claim " + stage + " stage failed: "
+                    + cause.getMessage(), cause);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            throw new UnexpectedServerException("Identity claim " + stage
+                    + " stage timed out after " + timeoutSeconds + " seconds", ex);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new UnexpectedServerException("Interrupted while waiting for identity claim "
+                    + stage + " stage", ex);
+        }
+    }
+
+    /**
+     * Returns the latency metrics of a stage.
+     *
+     * @param stage the stage
+     * @return the stage's metrics
+     */
+    public StageMetrics getMetrics(final Stage stage) {
+        return metrics.get(stage);
+    }
+
+    /**
+     * Returns the number of tasks waiting in a stage's queue.
+     *
+     * @param stage the stage
+     * @return the number of queued tasks
+     */
+    public int getQueuedCount(final Stage stage) {
+        return executors.get(stage).getQueue().size();
+    }
+
+    /**
+     * Stops every stage.  Tasks already running are interrupted.  This method is invoked by
+     * the Spring application context on shutdown.
+     */
+    public void shutdown() {
+        for (Map.Entry<Stage, ThreadPoolExecutor> entry : executors.entrySet()) {
+            entry.getValue().shutdownNow();
+            LOGGER.info("Identity claim {} stage: {}", entry.getKey(),
+                    metrics.get(entry.getKey()));
+        }
+    }
+
+    /**
+     * Queue and execution latency of the tasks run by a stage.
+     */
+    public static final class StageMetrics {
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder queueNanos = new LongAdder();
+        private final LongAdder executionNanos = new LongAdder();
+        private final AtomicLong maxExecutionNanos = new AtomicLong();
+
+        private StageMetrics() {
+        }
+
+        private void record(final long queued, final long executed) {
+            completed.increment();
+            queueNanos.add(queued);
+            executionNanos.add(executed);
+            maxExecutionNanos.accumulateAndGet(executed, Math::max);
+        }
+
+        /**
+         * @return the number of tasks the stage has run
+         */
+        public long getCompletedCount() {
+            return completed.sum();
+        }
+
+        /**
+         * @return the number of tasks rejected because the stage's queue was full
+         */
+        public long getRejectedCount() {
+            return rejected.sum();
+        }
+
+        /**
+         * @return the average time tasks waited in the stage's queue, in milliseconds
+         */
+        public double getAverageQueueMillis() {
+            return average(queueNanos.sum());
+        }
+
+        /**
+         * @return the average time tasks took to run, in milliseconds
+         */
+        public double getAverageExecutionMillis() {
+            return average(executionNanos.sum());
+        }
+
+        /**
+         * @return the longest time a task took to run, in milliseconds
+         */
+        public double getMaxExecutionMillis() {
+            return maxExecutionNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        private double average(final long totalNanos) {
+            long count = completed.sum();
+            if (count == 0) {
+                return 0;
+            }
+            return totalNanos / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("completed=%d, rejected=%d, avgQueueMs=%.2f, avgExecMs=%.2f, "
+                    + "maxExecMs=%.2f", getCompletedCount(), getRejectedCount(),
+                    getAverageQueueMillis(), getAverageExecutionMillis(),
+                    getMaxExecutionMillis());
+        }
+    }
+}
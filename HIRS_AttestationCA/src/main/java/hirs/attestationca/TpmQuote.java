@@ -0,0 +1,58 @@
+package hirs.attestationca;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The TPM quote sent by a provisioner with a certificate request, split into the hash of the
+ * quoted PCRs and the quote signature.  Instances are immutable and belong to the request they
+ * were parsed from, so concurrent requests never see each other's quote.
+ */
+final class TpmQuote {
+
+    /**
+     * Quote used when the provisioner did not send one.
+     */
+    static final TpmQuote EMPTY = new TpmQuote("", "");
+
+    private final String hash;
+    private final String signature;
+
+    private TpmQuote(final String hash, final String signature) {
+        this.hash = hash;
+        this.signature = signature;
+    }
+
+    /**
+     * Takes the provided TPM Quote and splits it between the PCR quote and the signature hash.
+     *
+     * @param tpmQuote contains hash values for the quote and the signature
+     * @return the parsed quote, or {@link #EMPTY} if no quote was given
+     */
+    static TpmQuote parse(final String tpmQuote) {
+        if (tpmQuote == null) {
+            return EMPTY;
+        }
+        String[] lines = tpmQuote.split(":");
+        String quoteHash;
+        if (lines[1].contains("signature")) {
+            quoteHash = lines[1].replace("signature", "").trim();
+        } else {
+            quoteHash = lines[1].trim();
+        }
+        return new TpmQuote(quoteHash, lines[2].trim());
+    }
+
+    /**
+     * @return the hash of the quoted PCRs, encoded as UTF-8
+     */
+    byte[] getHashBytes() {
+        return hash.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the quote signature, encoded as UTF-8
+     */
+    byte[] getSignatureBytes() {
+        return signature.getBytes(StandardCharsets.UTF_8);
+    }
+}
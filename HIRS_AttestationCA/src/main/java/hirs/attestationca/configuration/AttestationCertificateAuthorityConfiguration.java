@@ -1,5 +1,6 @@
 package hirs.attestationca.configuration;
 
+import hirs.attestationca.IdentityClaimPipeline;
 import hirs.persist.DBDeviceGroupManager;
 import hirs.persist.DBDeviceManager;
 import hirs.persist.DBReferenceDigestManager;
@@ -8,11 +9,13 @@ import hirs.persist.DBReferenceManifestManager;
 import hirs.persist.DeviceGroupManager;
 import hirs.persist.DeviceManager;
 import hirs.persist.HibernateConfiguration;
+import hirs.persist.ReferenceDigestIndex;
 import hirs.persist.ReferenceDigestManager;
 import hirs.persist.ReferenceEventManager;
 import hirs.persist.ReferenceManifestManager;
 import hirs.structs.converters.SimpleStructConverter;
 import hirs.structs.converters.StructConverter;
+import hirs.tpm.eventlog.TCGEventLogCache;
 import hirs.utils.LogConfigurationUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -92,6 +95,21 @@ public class AttestationCertificateAuthorityConfiguration extends WebMvcConfigur
     @Value("${aca.keyStore.alias}")
     private String keyAlias;
 
+    @Value("${aca.provisioning.threads.parse:2}")
+    private int parseThreads;
+
+    @Value("${aca.provisioning.threads.validation:8}")
+    private int validationThreads;
+
+    @Value("${aca.provisioning.threads.credential:4}")
+    private int credentialThreads;
+
+    @Value("${aca.provisioning.queueDepth:100}")
+    private int provisioningQueueDepth;
+
+    @Value("${aca.provisioning.timeoutSeconds:300}")
+    private long provisioningTimeoutSeconds;
+
     @Autowired
     private Environment environment;
 
@@ -276,6 +294,38 @@ public class AttestationCertificateAuthorityConfiguration extends WebMvcConfigur
         return new DBReferenceEventManager(sessionFactory.getObject());
     }
 
+    /**
+     * Creates a {@link ReferenceDigestIndex} shared by the provisioning threads.
+     *
+     * @return {@link ReferenceDigestIndex}
+     */
+    @Bean
+    public ReferenceDigestIndex referenceDigestIndex() {
+        return new ReferenceDigestIndex(referenceEventManager());
+    }
+
+    /**
+     * Creates a {@link TCGEventLogCache} shared by the provisioning threads.
+     *
+     * @return {@link TCGEventLogCache}
+     */
+    @Bean
+    public TCGEventLogCache tcgEventLogCache() {
+        return new TCGEventLogCache();
+    }
+
+    /**
+     * Creates the {@link IdentityClaimPipeline} that bounds concurrent identity claim
+     * processing.
+     *
+     * @return {@link IdentityClaimPipeline}
+     */
+    @Bean(destroyMethod = "shutdown")
+    public IdentityClaimPipeline identityClaimPipeline() {
+        return new IdentityClaimPipeline(parseThreads, validationThreads, credentialThreads,
+                provisioningQueueDepth, provisioningTimeoutSeconds);
+    }
+
     @Override
     public void addResourceHandlers(final ResourceHandlerRegistry resourceHandlerRegistry) {
         resourceHandlerRegistry.addResourceHandler("/client-files/**")
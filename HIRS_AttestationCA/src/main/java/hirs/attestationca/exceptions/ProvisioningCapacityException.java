@@ -0,0 +1,27 @@
+package hirs.attestationca.exceptions;
+
+/**
+ * Exception thrown when a {@link hirs.attestationca.AttestationCertificateAuthority} has too
+ * many provisioning requests queued to accept another one.  Clients should retry later.
+ */
+public class ProvisioningCapacityException extends RuntimeException {
+    /**
+     * Constructs a generic instance of this exception using the specified reason.
+     *
+     * @param reason for the exception
+     */
+    public ProvisioningCapacityException(final String reason) {
+        super(reason);
+    }
+
+    /**
+     * Constructs a instance of this exception with the specified reason and backing root
+     * exception.
+     *
+     * @param reason        for this exception
+     * @param rootException causing this exception
+     */
+    public ProvisioningCapacityException(final String reason, final Throwable rootException) {
+        super(reason, rootException);
+    }
+}
@@ -3,6 +3,7 @@ package hirs.attestationca.rest;
 import hirs.attestationca.AcaRestError;
 import hirs.attestationca.exceptions.CertificateProcessingException;
 import hirs.attestationca.exceptions.IdentityProcessingException;
+import hirs.attestationca.exceptions.ProvisioningCapacityException;
 import hirs.attestationca.exceptions.UnexpectedServerException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -59,6 +60,21 @@ public class AttestationCertificateAuthorityExceptionHandler
         return handleGeneralException(ex, HttpStatus.INTERNAL_SERVER_ERROR, request);
     }
 
+    /**
+     * Method to handle errors of the type {@link ProvisioningCapacityException} that are thrown
+     * when the ACA has too many requests queued to accept another.
+     *
+     * @param ex exception that was thrown
+     * @param request the web request that started the RESTful operation
+     * @return the response entity that will form the message returned to the client
+     */
+    @ExceptionHandler(ProvisioningCapacityException.class)
+    public final ResponseEntity<Object> handleCapacityExceptions(final Exception ex,
+                                                              final WebRequest request) {
+        LOGGER.warn(String.format("The ACA is at capacity: %s", ex.getMessage()));
+        return handleGeneralException(ex, HttpStatus.SERVICE_UNAVAILABLE, request);
+    }
+
     private ResponseEntity<Object> handleGeneralException(final Exception ex,
                                                           final HttpStatus responseStatus,
                                                           final WebRequest request) {
@@ -1,17 +1,20 @@
 package hirs.attestationca.rest;
 
 import hirs.attestationca.AbstractAttestationCertificateAuthority;
+import hirs.attestationca.IdentityClaimPipeline;
 import hirs.attestationca.service.SupplyChainValidationService;
 import hirs.data.service.DeviceRegister;
 import hirs.persist.CertificateManager;
 import hirs.persist.ComponentResultManager;
 import hirs.persist.DBManager;
 import hirs.persist.DeviceManager;
+import hirs.persist.ReferenceDigestIndex;
 import hirs.persist.ReferenceDigestManager;
 import hirs.persist.ReferenceEventManager;
 import hirs.persist.ReferenceManifestManager;
 import hirs.persist.TPM2ProvisionerState;
 import hirs.structs.converters.StructConverter;
+import hirs.tpm.eventlog.TCGEventLogCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
@@ -23,6 +26,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
+import java.util.function.Supplier;
 
 /**
  * Restful implementation of the {@link hirs.attestationca.AttestationCertificateAuthority}.
@@ -33,6 +37,8 @@ import java.security.cert.X509Certificate;
 public class RestfulAttestationCertificateAuthority
                                             extends AbstractAttestationCertificateAuthority {
 
+    private final IdentityClaimPipeline identityClaimPipeline;
+
     /**
      * Constructor.
      * @param supplyChainValidationService the supply chain service
@@ -48,6 +54,9 @@ public class RestfulAttestationCertificateAuthority
      * @param tpm2ProvisionerStateDBManager the DBManager for persisting provisioner state
      * @param referenceDigestManager the reference digest manager
      * @param referenceEventManager the reference event manager
+     * @param referenceDigestIndex the shared reference digest index
+     * @param tcgEventLogCache the shared parsed event log cache
+     * @param identityClaimPipeline the pipeline that runs identity claim processing stages
      */
     @SuppressWarnings({ "checkstyle:parameternumber" })
     @Autowired
@@ -63,11 +72,16 @@ public class RestfulAttestationCertificateAuthority
             final DBManager<TPM2ProvisionerState> tpm2ProvisionerStateDBManager,
             final ReferenceDigestManager referenceDigestManager,
             final ReferenceEventManager referenceEventManager,
+            final ReferenceDigestIndex referenceDigestIndex,
+            final TCGEventLogCache tcgEventLogCache,
+            final IdentityClaimPipeline identityClaimPipeline,
             @Value("${aca.certificates.validity}") final int validDays) {
         super(supplyChainValidationService, privateKey, acaCertificate, structConverter,
                 componentResultManager, certificateManager, referenceManifestManager,
                 deviceRegister, validDays, deviceManager,
-                tpm2ProvisionerStateDBManager, referenceDigestManager, referenceEventManager);
+                tpm2ProvisionerStateDBManager, referenceDigestManager, referenceEventManager,
+                referenceDigestIndex, tcgEventLogCache);
+        this.identityClaimPipeline = identityClaimPipeline;
     }
 
     /*
@@ -116,6 +130,20 @@ public class RestfulAttestationCertificateAuthority
         return super.processCertificateRequest(request);
     }
 
+    /**
+     * Runs identity claim processing stages on the {@link IdentityClaimPipeline} so that the
+     * number of claims being validated or credentialed at once is bounded.
+     *
+     * @param stage the stage being run
+     * @param task the work of the stage
+     * @param <T> the type of the stage's result
+     * @return the stage's result
+     */
+    @Override
+    protected <T> T runStage(final IdentityClaimPipeline.Stage stage, final Supplier<T> task) {
+        return identityClaimPipeline.execute(stage, task);
+    }
+
     /*
      * (non-javadoc)
      *
@@ -7,9 +7,9 @@ import hirs.data.persist.ArchivableEntity;
 import hirs.data.persist.BaseReferenceManifest;
 import hirs.data.persist.Device;
 import hirs.data.persist.DeviceInfoReport;
+import hirs.data.persist.DigestSet;
 import hirs.data.persist.EventLogMeasurements;
 import hirs.data.persist.PCRPolicy;
-import hirs.data.persist.ReferenceDigestValue;
 import hirs.data.persist.ReferenceManifest;
 import hirs.data.persist.SupplyChainPolicy;
 import hirs.data.persist.SupplyChainValidation;
@@ -29,20 +29,22 @@ import hirs.persist.CrudManager;
 import hirs.persist.DBManagerException;
 import hirs.persist.PersistenceConfiguration;
 import hirs.persist.PolicyManager;
+import hirs.persist.ReferenceDigestIndex;
 import hirs.persist.ReferenceDigestManager;
 import hirs.persist.ReferenceEventManager;
 import hirs.persist.ReferenceManifestManager;
 import hirs.tpm.eventlog.TCGEventLog;
+import hirs.tpm.eventlog.TCGEventLogCache;
 import hirs.tpm.eventlog.TpmPcrEvent;
-import hirs.utils.BouncyCastleUtils;
 import hirs.utils.ReferenceManifestValidator;
 import hirs.validation.CredentialValidator;
+import hirs.validation.RimSignatureVerifier;
 import hirs.validation.SupplyChainCredentialValidator;
 import hirs.validation.SupplyChainValidatorException;
+import hirs.validation.TrustChainGraph;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.bouncycastle.util.encoders.Hex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
 import org.springframework.stereotype.Service;
@@ -53,9 +55,7 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -83,10 +83,14 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
     private ReferenceManifestManager referenceManifestManager;
     private ReferenceDigestManager referenceDigestManager;
     private ReferenceEventManager referenceEventManager;
+    private ReferenceDigestIndex referenceDigestIndex;
+    private TCGEventLogCache tcgEventLogCache;
     private CertificateManager certificateManager;
     private ComponentResultManager componentResultManager;
     private CredentialValidator supplyChainCredentialValidator;
     private CrudManager<SupplyChainValidationSummary> supplyChainValidatorSummaryManager;
+    private TrustChainGraph trustChainGraph;
+    private RimSignatureVerifier rimSignatureVerifier;
 
     private static final Logger LOGGER
             = LogManager.getLogger(SupplyChainValidationServiceImpl.class);
@@ -99,6 +103,8 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
      */
     public SupplyChainValidationServiceImpl(final CertificateManager certificateManager) {
         this.certificateManager = certificateManager;
+        this.trustChainGraph = new TrustChainGraph(certificateManager);
+        this.rimSignatureVerifier = new RimSignatureVerifier(certificateManager);
     }
 
     /**
@@ -113,6 +119,8 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
      * @param supplyChainCredentialValidator     the credential validator
      * @param referenceDigestManager             the digest manager
      * @param referenceEventManager              the even manager
+     * @param referenceDigestIndex               the shared reference digest index
+     * @param tcgEventLogCache                   the shared parsed event log cache
      */
     @Autowired
     @SuppressWarnings("ParameterNumberCheck")
@@ -124,7 +132,9 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
             final CrudManager<SupplyChainValidationSummary> supplyChainValidatorSummaryManager,
             final CredentialValidator supplyChainCredentialValidator,
             final ReferenceDigestManager referenceDigestManager,
-            final ReferenceEventManager referenceEventManager) {
+            final ReferenceEventManager referenceEventManager,
+            final ReferenceDigestIndex referenceDigestIndex,
+            final TCGEventLogCache tcgEventLogCache) {
         this.policyManager = policyManager;
         this.appraiserManager = appraiserManager;
         this.certificateManager = certificateManager;
@@ -134,6 +144,10 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
         this.supplyChainCredentialValidator = supplyChainCredentialValidator;
         this.referenceDigestManager = referenceDigestManager;
         this.referenceEventManager = referenceEventManager;
+        this.referenceDigestIndex = referenceDigestIndex;
+        this.tcgEventLogCache = tcgEventLogCache;
+        this.trustChainGraph = new TrustChainGraph(certificateManager);
+        this.rimSignatureVerifier = new RimSignatureVerifier(certificateManager);
     }
 
     /**
@@ -432,38 +446,31 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
             fwStatus = new AppraisalStatus(PASS,
                     SupplyChainCredentialValidator.FIRMWARE_VALID);
 
-            // verify signatures
-            ReferenceManifestValidator referenceManifestValidator =
-                    new ReferenceManifestValidator();
-            referenceManifestValidator.setRim(baseReferenceManifest);
-
             //Validate signing cert
-            Set<CertificateAuthorityCredential> allCerts =
-                    CertificateAuthorityCredential.select(certificateManager).getCertificates();
-            CertificateAuthorityCredential signingCert = null;
-            for (CertificateAuthorityCredential cert : allCerts) {
-                signingCert = cert;
+            CertificateAuthorityCredential signingCert =
+                    rimSignatureVerifier.getSigningCertificate(baseReferenceManifest);
+            if (signingCert != null) {
                 KeyStore keyStore = getCaChain(signingCert);
-                if (referenceManifestValidator.validateXmlSignature(signingCert)) {
-                    try {
-                        if (!SupplyChainCredentialValidator.verifyCertificate(
-                                signingCert.getX509Certificate(), keyStore)) {
-                            passed = false;
-                            fwStatus = new AppraisalStatus(FAIL,
-                                    "Firmware validation failed: invalid certificate path.");
-                            validationObject = baseReferenceManifest;
-                        }
-                    } catch (IOException e) {
-                        LOGGER.error("Error getting X509 cert from manager: " + e.getMessage());
-                    } catch (SupplyChainValidatorException e) {
-                        LOGGER.error("Error validating cert against keystore: " + e.getMessage());
+                try {
+                    if (!SupplyChainCredentialValidator.verifyCertificate(
+                            signingCert.getX509Certificate(), keyStore)) {
+                        passed = false;
                         fwStatus = new AppraisalStatus(FAIL,
                                 "Firmware validation failed: invalid certificate path.");
+                        validationObject = baseReferenceManifest;
                     }
-                    break;
+                } catch (IOException e) {
+                    LOGGER.error("Error getting X509 cert from manager: " + e.getMessage());
+                } catch (SupplyChainValidatorException e) {
+                    LOGGER.error("Error validating cert against keystore: " + e.getMessage());
+                    fwStatus = new AppraisalStatus(FAIL,
+                            "Firmware validation failed: invalid certificate path.");
                 }
             }
 
+            // verify support RIM hashes
+            ReferenceManifestValidator referenceManifestValidator =
+                    new ReferenceManifestValidator();
             for (SwidResource swidRes : resources) {
                 supportReferenceManifest = SupportReferenceManifest.select(referenceManifestManager)
                         .byHexDecHash(swidRes.getHashValue()).getRIM();
@@ -474,19 +481,13 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
                 }
             }
 
-            if (passed && signingCert == null) {
-                passed = false;
-                fwStatus = new AppraisalStatus(FAIL,
-                        "Firmware validation failed: signing cert not found.");
-            }
-
             if (passed && supportReferenceManifest == null) {
                 fwStatus = new AppraisalStatus(FAIL,
                         "Support Reference Integrity Manifest can not be found");
                 passed = false;
             }
 
-            if (passed && !referenceManifestValidator.isSignatureValid()) {
+            if (passed && signingCert == null) {
                 passed = false;
                 fwStatus = new AppraisalStatus(FAIL,
                         "Firmware validation failed: Signature validation "
@@ -503,7 +504,7 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
             if (passed) {
                 TCGEventLog logProcessor;
                 try {
-                    logProcessor = new TCGEventLog(supportReferenceManifest.getRimBytes());
+                    logProcessor = tcgEventLogCache.getEventLog(supportReferenceManifest);
                     baseline = logProcessor.getExpectedPCRValues();
                 } catch (CertificateException cEx) {
                     LOGGER.error(cEx);
@@ -538,19 +539,15 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
                         // find the measurement
                         TCGEventLog tcgMeasurementLog;
                         LinkedList<TpmPcrEvent> tpmPcrEvents = new LinkedList<>();
-                        List<ReferenceDigestValue> eventValue;
-                        HashMap<String, ReferenceDigestValue> eventValueMap = new HashMap<>();
+                        DigestSet eventDigests;
                         try {
                             if (measurement.getPlatformManufacturer().equals(manufacturer)) {
                                 tcgMeasurementLog = new TCGEventLog(measurement.getRimBytes());
-                                eventValue = this.referenceEventManager
-                                        .getValuesByRimId(baseReferenceManifest);
-                                for (ReferenceDigestValue rdv : eventValue) {
-                                    eventValueMap.put(rdv.getDigestValue(), rdv);
-                                }
+                                eventDigests = this.referenceDigestIndex
+                                        .getDigestSet(baseReferenceManifest.getId());
 
                                 tpmPcrEvents.addAll(pcrPolicy.validateTpmEvents(
-                                        tcgMeasurementLog, eventValueMap));
+                                        tcgMeasurementLog, eventDigests));
                             }
                         } catch (CertificateException cEx) {
                             LOGGER.error(cEx);
@@ -654,7 +651,7 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
                                             + "could be found for %s",
                                     deviceName));
                 } else {
-                    baseline = sRim.getExpectedPCRList();
+                    baseline = tcgEventLogCache.getEventLog(sRim).getExpectedPCRValues();
                     String[] storedPcrs = eventLog.getExpectedPCRList();
                     PCRPolicy pcrPolicy = policy.getPcrPolicy();
                     pcrPolicy.setBaselinePcrs(baseline);
@@ -789,8 +786,7 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
                     pc.setComponentFailures(result.getAdditionalInfo());
                     pc.setComponentFailureMessage(result.getMessage());
                     this.certificateManager.update(pc);
-                    for (ComponentResult componentResult
-                            : supplyChainCredentialValidator.getComponentResultList()) {
+                    for (ComponentResult componentResult : result.getComponentResults()) {
                         this.componentResultManager.saveResult(componentResult);
                     }
                 }
@@ -868,99 +864,26 @@ public class SupplyChainValidationServiceImpl implements SupplyChainValidationSe
     }
 
     /**
-     * This method is used to retrieve the entire CA chain (up to a trusted
-     * self-signed certificate) for the given certificate. This method will look
-     * up CA certificates that have a matching issuer organization as the given
-     * certificate, and will perform that operation recursively until all
-     * certificates for all relevant organizations have been retrieved. For that
-     * reason, the returned set of certificates may be larger than the the
-     * single trust chain for the queried certificate, but is guaranteed to
-     * include the trust chain if it exists in this class' CertificateManager.
+     * This method is used to retrieve the CA chain (up to a trusted self-signed certificate)
+     * for the given certificate from the {@link TrustChainGraph}.  The graph looks up
+     * issuers by authority key identifier, falling back to the issuer, and keeps only the
+     * issuers whose key verifies the certificate when several match.
      * Returns the certificate authority credentials in a KeyStore.
      *
      * @param credential the credential whose CA chain should be retrieved
-     * @return A keystore containing all relevant CA credentials to the given
-     * certificate's organization or null if the keystore can't be assembled
+     * @return A keystore containing the CA credentials in the given certificate's chain
+     * or null if the keystore can't be assembled
      */
     public KeyStore getCaChain(final Certificate credential) {
         KeyStore caKeyStore = null;
         try {
-            caKeyStore = caCertSetToKeystore(getCaChainRec(credential, Collections.emptySet()));
+            caKeyStore = caCertSetToKeystore(trustChainGraph.getCaChain(credential));
         } catch (KeyStoreException | IOException e) {
             LOGGER.error("Unable to assemble CA keystore", e);
         }
         return caKeyStore;
     }
 
-    /**
-     * This is a recursive method which is used to retrieve the entire CA chain
-     * (up to a trusted self-signed certificate) for the given certificate. This
-     * method will look up CA certificates that have a matching issuer
-     * organization as the given certificate, and will perform that operation
-     * recursively until all certificates for all relevant organizations have
-     * been retrieved. For that reason, the returned set of certificates may be
-     * larger than the the single trust chain for the queried certificate, but
-     * is guaranteed to include the trust chain if it exists in this class'
-     * CertificateManager.
-     * <p>
-     * Implementation notes: 1. Queries for CA certs with a subject org matching
-     * the given (argument's) issuer org 2. Add that org to
-     * queriedOrganizations, so we don't search for that organization again 3.
-     * For each returned CA cert, add that cert to the result set, and recurse
-     * with that as the argument (to go up the chain), if and only if we haven't
-     * already queried for that organization (which prevents infinite loops on
-     * certs with an identical subject and issuer org)
-     *
-     * @param credential                the credential whose CA chain should be retrieved
-     * @param previouslyQueriedSubjects a list of organizations to refrain
-     *                                  from querying
-     * @return a Set containing all relevant CA credentials to the given
-     * certificate's organization
-     */
-    private Set<CertificateAuthorityCredential> getCaChainRec(
-            final Certificate credential,
-            final Set<String> previouslyQueriedSubjects) {
-        CertificateAuthorityCredential skiCA = null;
-        Set<CertificateAuthorityCredential> certAuthsWithMatchingIssuer = new HashSet<>();
-        if (credential.getAuthKeyId() != null
-                && !credential.getAuthKeyId().isEmpty()) {
-            byte[] bytes = Hex.decode(credential.getAuthKeyId());
-            skiCA = CertificateAuthorityCredential
-                    .select(certificateManager)
-                    .bySubjectKeyIdentifier(bytes).getCertificate();
-        }
-
-        if (skiCA == null) {
-            if (credential.getIssuerSorted() == null
-                    || credential.getIssuerSorted().isEmpty()) {
-                certAuthsWithMatchingIssuer = CertificateAuthorityCredential
-                        .select(certificateManager)
-                        .bySubject(credential.getIssuer())
-                        .getCertificates();
-            } else {
-                //Get certificates by subject organization
-                certAuthsWithMatchingIssuer = CertificateAuthorityCredential
-                        .select(certificateManager)
-                        .bySubjectSorted(credential.getIssuerSorted())
-                        .getCertificates();
-            }
-        } else {
-            certAuthsWithMatchingIssuer.add(skiCA);
-        }
-        Set<String> queriedOrganizations = new HashSet<>(previouslyQueriedSubjects);
-        queriedOrganizations.add(credential.getIssuer());
-
-        HashSet<CertificateAuthorityCredential> caCreds = new HashSet<>();
-        for (CertificateAuthorityCredential cred : certAuthsWithMatchingIssuer) {
-            caCreds.add(cred);
-            if (!BouncyCastleUtils.x500NameCompare(cred.getIssuer(),
-                    cred.getSubject())) {
-                caCreds.addAll(getCaChainRec(cred, queriedOrganizations));
-            }
-        }
-        return caCreds;
-    }
-
     private KeyStore caCertSetToKeystore(final Set<CertificateAuthorityCredential> certs)
             throws KeyStoreException, IOException {
         KeyStore keyStore = KeyStore.getInstance("JKS");
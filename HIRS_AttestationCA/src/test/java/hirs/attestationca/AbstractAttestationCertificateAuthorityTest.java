@@ -132,7 +132,7 @@ public class AbstractAttestationCertificateAuthorityTest {
     public void setup() {
         aca = new AbstractAttestationCertificateAuthority(null, keyPair.getPrivate(),
                 null, null, null, null, null, null, 1,
-                null, null, null, null) {
+                null, null, null, null, null, null) {
         };
     }
 
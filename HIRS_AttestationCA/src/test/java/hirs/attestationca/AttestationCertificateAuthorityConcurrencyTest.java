@@ -0,0 +1,231 @@
+package hirs.attestationca;
+
+import com.google.protobuf.ByteString;
+import hirs.attestationca.configuration.provisionerTpm2.ProvisionerTpm2;
+import hirs.attestationca.service.SupplyChainValidationService;
+import hirs.data.persist.Device;
+import hirs.data.persist.DeviceInfoReport;
+import hirs.data.persist.DeviceInfoReportTest;
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.certificate.IssuedAttestationCertificate;
+import hirs.data.service.DeviceRegister;
+import hirs.persist.CertificateManager;
+import hirs.persist.DBManager;
+import hirs.persist.DBUtility;
+import hirs.persist.DeviceManager;
+import hirs.persist.TPM2ProvisionerState;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.security.auth.x500.X500Principal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stress test for concurrent provisioning through the
+ * {@link AbstractAttestationCertificateAuthority}.
+ */
+public class AttestationCertificateAuthorityConcurrencyTest extends SpringPersistenceTest {
+
+    private static final String EK_PUBLIC_PATH = "/tpm2/ek.pub";
+    private static final String AK_PUBLIC_PATH = "/tpm2/ak.pub";
+    private static final int DEVICE_COUNT = 2000;
+    private static final int THREAD_COUNT = 16;
+    private static final int NONCE_LENGTH = 20;
+    private static final int KEY_SIZE = 2048;
+    private static final long TIMEOUT_MINUTES = 5;
+
+    /** Name of the device each client thread is provisioning. */
+    private final ThreadLocal<String> currentDevice = new ThreadLocal<>();
+    private final Map<String, String> expectedQuotes = new ConcurrentHashMap<>();
+    private final Map<String, String> issuedQuotes = new ConcurrentHashMap<>();
+    private final AtomicInteger issuedCount = new AtomicInteger();
+
+    private AbstractAttestationCertificateAuthority aca;
+    private DBManager<TPM2ProvisionerState> stateManager;
+    private byte[] ekPublicArea;
+    private byte[] akPublicArea;
+
+    /**
+     * Reads the test EK and AK and registers Bouncy Castle for signing the issued credentials.
+     *
+     * @throws Exception if the test keys cannot be read
+     */
+    @BeforeClass
+    public void setupKeys() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        ekPublicArea = Files.readAllBytes(Paths.get(
+                getClass().getResource(EK_PUBLIC_PATH).toURI()));
+        akPublicArea = Files.readAllBytes(Paths.get(
+                getClass().getResource(AK_PUBLIC_PATH).toURI()));
+    }
+
+    /**
+     * Removes the provisioner state left behind by the test.
+     */
+    @AfterMethod
+    public void tearDown() {
+        DBUtility.removeAllInstances(sessionFactory, TPM2ProvisionerState.class);
+    }
+
+    /**
+     * Creates an ACA that persists provisioner state in the test database and whose other
+     * managers are thread-safe fakes.
+     */
+    private void createAca() throws Exception {
+        stateManager = new DBManager<>(TPM2ProvisionerState.class, sessionFactory);
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(KEY_SIZE);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        X509Certificate acaCertificate = mock(X509Certificate.class);
+        when(acaCertificate.getSubjectX500Principal())
+                .thenReturn(new X500Principal("CN=TEST, OU=TEST, O=TEST, C=TEST"));
+
+        DeviceManager deviceManager = mock(DeviceManager.class);
+        when(deviceManager.getDevice(anyString())).thenAnswer(new Answer<Device>() {
+            @Override
+            public Device answer(final InvocationOnMock invocation) {
+                return new Device((String) invocation.getArguments()[0],
+                        DeviceInfoReportTest.getTestReport());
+            }
+        });
+
+        DeviceRegister deviceRegister = mock(DeviceRegister.class);
+        when(deviceRegister.saveOrUpdateDevice(any(DeviceInfoReport.class))).thenAnswer(
+                new Answer<Device>() {
+                    @Override
+                    public Device answer(final InvocationOnMock invocation) {
+                        return new Device(currentDevice.get(),
+                                (DeviceInfoReport) invocation.getArguments()[0]);
+                    }
+                });
+
+        CertificateManager certificateManager = mock(CertificateManager.class);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                IssuedAttestationCertificate cert =
+                        (IssuedAttestationCertificate) invocation.getArguments()[0];
+                Device device = cert.getDevice();
+                issuedQuotes.put(device.getName(), new String(
+                        device.getDeviceInfo().getTPMInfo().getTpmQuoteHash(),
+                        StandardCharsets.UTF_8));
+                issuedCount.incrementAndGet();
+                return cert;
+            }
+        }).when(certificateManager).save(any(IssuedAttestationCertificate.class));
+
+        aca = new AbstractAttestationCertificateAuthority(
+                mock(SupplyChainValidationService.class), keyPair.getPrivate(),
+                acaCertificate, null, null, certificateManager, null, deviceRegister, 1,
+                deviceManager, stateManager, null, null, null, null) {
+        };
+    }
+
+    /**
+     * Provisions many devices concurrently, each with its own quote, and verifies that every
+     * issued attestation certificate belongs to a device carrying that device's own quote.
+     *
+     * @throws Exception if a provisioning request fails
+     */
+    @Test
+    public void testConcurrentCertificateRequests() throws Exception {
+        createAca();
+        ExecutorService clients = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<ProvisionerTpm2.ResponseStatus>> results = new ArrayList<>();
+            for (int i = 0; i < DEVICE_COUNT; i++) {
+                final String deviceName = "device" + i;
+                results.add(clients.submit(new Callable<ProvisionerTpm2.ResponseStatus>() {
+                    @Override
+                    public ProvisionerTpm2.ResponseStatus call() throws Exception {
+                        return provision(deviceName);
+                    }
+                }));
+            }
+            for (Future<ProvisionerTpm2.ResponseStatus> result : results) {
+                Assert.assertEquals(result.get(TIMEOUT_MINUTES, TimeUnit.MINUTES),
+                        ProvisionerTpm2.ResponseStatus.PASS);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        Assert.assertEquals(issuedCount.get(), DEVICE_COUNT);
+        Assert.assertEquals(issuedQuotes, expectedQuotes);
+        // every certificate request consumed the state left by its identity claim
+        Assert.assertTrue(stateManager.getList(TPM2ProvisionerState.class).isEmpty());
+    }
+
+    /**
+     * Saves the provisioner state an identity claim for the device would have left behind,
+     * then sends the matching certificate request with a quote unique to the device.
+     */
+    private ProvisionerTpm2.ResponseStatus provision(final String deviceName) throws Exception {
+        currentDevice.set(deviceName);
+        byte[] nonce = new byte[NONCE_LENGTH];
+        new SecureRandom().nextBytes(nonce);
+        stateManager.save(new TPM2ProvisionerState(nonce, createIdentityClaim(deviceName)));
+
+        String quoteHash = "quote-" + deviceName;
+        expectedQuotes.put(deviceName, quoteHash);
+        ProvisionerTpm2.CertificateRequest request = ProvisionerTpm2.CertificateRequest
+                .newBuilder()
+                .setNonce(ByteString.copyFrom(nonce))
+                .setQuote(ByteString.copyFromUtf8("quote:" + quoteHash
+                        + "signature:signature-" + deviceName))
+                .build();
+        return ProvisionerTpm2.CertificateResponse.parseFrom(
+                aca.processCertificateRequest(request.toByteArray())).getStatus();
+    }
+
+    private byte[] createIdentityClaim(final String deviceName) {
+        ProvisionerTpm2.DeviceInfo deviceInfo = ProvisionerTpm2.DeviceInfo.newBuilder()
+                .setFw(ProvisionerTpm2.FirmwareInfo.newBuilder()
+                        .setBiosVendor("vendor").setBiosVersion("1.0")
+                        .setBiosReleaseDate("01/01/2020"))
+                .setHw(ProvisionerTpm2.HardwareInfo.newBuilder()
+                        .setManufacturer("manufacturer").setProductName("model")
+                        .setProductVersion("1.0").setSystemSerialNumber(deviceName))
+                .setNw(ProvisionerTpm2.NetworkInfo.newBuilder()
+                        .setHostname(deviceName).setIpAddress("127.0.0.1")
+                        .setMacAddress("00:00:00:00:00:00"))
+                .setOs(ProvisionerTpm2.OsInfo.newBuilder()
+                        .setOsName("os").setOsVersion("1.0").setOsArch("x86_64")
+                        .setDistribution("distribution").setDistributionRelease("1"))
+                .build();
+        return ProvisionerTpm2.IdentityClaim.newBuilder()
+                .setDv(deviceInfo)
+                .setEkPublicArea(ByteString.copyFrom(ekPublicArea))
+                .setAkPublicArea(ByteString.copyFrom(akPublicArea))
+                .build().toByteArray();
+    }
+}
@@ -0,0 +1,117 @@
+package hirs.attestationca;
+
+import hirs.attestationca.exceptions.ProvisioningCapacityException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the {@link IdentityClaimPipeline}.
+ */
+public class IdentityClaimPipelineTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private IdentityClaimPipeline pipeline;
+    private ExecutorService clients;
+
+    /**
+     * Creates a pipeline with a single thread and a single queue slot per stage.
+     */
+    @BeforeMethod
+    public void setUp() {
+        pipeline = new IdentityClaimPipeline(1, 1, 1, 1, TIMEOUT_SECONDS);
+        clients = Executors.newCachedThreadPool();
+    }
+
+    /**
+     * Stops the pipeline and the client threads.
+     */
+    @AfterMethod
+    public void tearDown() {
+        pipeline.shutdown();
+        clients.shutdownNow();
+    }
+
+    /**
+     * Tests that a stage runs its task off the calling thread and records its latency.
+     */
+    @Test
+    public void testExecute() {
+        Thread caller = Thread.currentThread();
+        Thread worker = pipeline.execute(IdentityClaimPipeline.Stage.VALIDATION,
+                Thread::currentThread);
+
+        Assert.assertNotSame(worker, caller);
+        Assert.assertEquals(pipeline.getMetrics(IdentityClaimPipeline.Stage.VALIDATION)
+                .getCompletedCount(), 1);
+        Assert.assertEquals(pipeline.getMetrics(IdentityClaimPipeline.Stage.PARSE)
+                .getCompletedCount(), 0);
+    }
+
+    /**
+     * Tests that exceptions thrown by a stage reach the caller unchanged.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testExecutePropagatesException() {
+        pipeline.execute(IdentityClaimPipeline.Stage.PARSE, () -> {
+            throw new IllegalArgumentException("bad claim");
+        });
+    }
+
+    /**
+     * Tests that a claim is rejected once a stage's thread is busy and its queue is full.
+     *
+     * @throws Exception if the client threads fail
+     */
+    @Test
+    public void testRejectsWhenQueueFull() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch running = new CountDownLatch(1);
+        Future<Boolean> first = clients.submit(() -> pipeline.execute(
+                IdentityClaimPipeline.Stage.CREDENTIAL, () -> {
+                    running.countDown();
+                    return awaitQuietly(release);
+                }));
+        Assert.assertTrue(running.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        Future<Boolean> second = clients.submit(() -> pipeline.execute(
+                IdentityClaimPipeline.Stage.CREDENTIAL, () -> true));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (pipeline.getQueuedCount(IdentityClaimPipeline.Stage.CREDENTIAL) == 0
+                && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        try {
+            pipeline.execute(IdentityClaimPipeline.Stage.CREDENTIAL, () -> true);
+            Assert.fail("Expected the claim to be rejected");
+        } catch (ProvisioningCapacityException ex) {
+            Assert.assertEquals(pipeline.getMetrics(IdentityClaimPipeline.Stage.CREDENTIAL)
+                    .getRejectedCount(), 1);
+        } finally {
+            release.countDown();
+        }
+
+        Assert.assertTrue(first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Assert.assertTrue(second.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Assert.assertEquals(pipeline.getMetrics(IdentityClaimPipeline.Stage.CREDENTIAL)
+                .getCompletedCount(), 2);
+    }
+
+    private static boolean awaitQuietly(final CountDownLatch latch) {
+        try {
+            return latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
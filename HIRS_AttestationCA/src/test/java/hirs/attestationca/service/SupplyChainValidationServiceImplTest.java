@@ -24,8 +24,10 @@ import hirs.persist.DBDeviceManager;
 import hirs.persist.DeviceGroupManager;
 import hirs.persist.DeviceManager;
 import hirs.persist.PolicyManager;
+import hirs.persist.ReferenceDigestIndex;
 import hirs.persist.ReferenceDigestManager;
 import hirs.persist.ReferenceEventManager;
+import hirs.tpm.eventlog.TCGEventLogCache;
 import hirs.validation.CredentialValidator;
 import hirs.validation.SupplyChainCredentialValidator;
 import org.mockito.ArgumentCaptor;
@@ -101,6 +103,12 @@ public class SupplyChainValidationServiceImplTest extends SpringPersistenceTest
     @Mock
     private ReferenceEventManager referenceEventManager;
 
+    @Mock
+    private ReferenceDigestIndex referenceDigestIndex;
+
+    @Mock
+    private TCGEventLogCache tcgEventLogCache;
+
     @InjectMocks
     private SupplyChainValidationServiceImpl service;
 
@@ -458,7 +466,9 @@ public class SupplyChainValidationServiceImplTest extends SpringPersistenceTest
                 supplyChainValidationSummaryDBManager,
                 supplyChainCredentialValidator,
                 referenceDigestManager,
-                referenceEventManager
+                referenceEventManager,
+                referenceDigestIndex,
+                tcgEventLogCache
         );
 
         CertificateAuthorityCredential globalSignCaCert = new CertificateAuthorityCredential(
@@ -521,7 +531,9 @@ public class SupplyChainValidationServiceImplTest extends SpringPersistenceTest
                 supplyChainValidationSummaryDBManager,
                 supplyChainCredentialValidator,
                 referenceDigestManager,
-                referenceEventManager
+                referenceEventManager,
+                referenceDigestIndex,
+                tcgEventLogCache
         );
 
         CertificateAuthorityCredential rootCa = new CertificateAuthorityCredential(
@@ -570,7 +582,9 @@ public class SupplyChainValidationServiceImplTest extends SpringPersistenceTest
                 supplyChainValidationSummaryDBManager,
                 supplyChainCredentialValidator,
                 referenceDigestManager,
-                referenceEventManager
+                referenceEventManager,
+                referenceDigestIndex,
+                tcgEventLogCache
         );
 
         EndorsementCredential endorsementCredential = new EndorsementCredential(
@@ -609,7 +623,9 @@ public class SupplyChainValidationServiceImplTest extends SpringPersistenceTest
                 supplyChainValidationSummaryDBManager,
                 supplyChainCredentialValidator,
                 referenceDigestManager,
-                referenceEventManager
+                referenceEventManager,
+                referenceDigestIndex,
+                tcgEventLogCache
         );
 
         CertificateAuthorityCredential globalSignCaCert = new CertificateAuthorityCredential(
@@ -672,7 +688,9 @@ public class SupplyChainValidationServiceImplTest extends SpringPersistenceTest
                 supplyChainValidationSummaryDBManager,
                 supplyChainCredentialValidator,
                 referenceDigestManager,
-                referenceEventManager
+                referenceEventManager,
+                referenceDigestIndex,
+                tcgEventLogCache
         );
 
         CertificateAuthorityCredential intelCa = new CertificateAuthorityCredential(
@@ -721,7 +739,9 @@ public class SupplyChainValidationServiceImplTest extends SpringPersistenceTest
                 supplyChainValidationSummaryDBManager,
                 supplyChainCredentialValidator,
                 referenceDigestManager,
-                referenceEventManager
+                referenceEventManager,
+                referenceDigestIndex,
+                tcgEventLogCache
         );
 
         CertificateAuthorityCredential globalSignCaCert = new CertificateAuthorityCredential(
@@ -775,7 +795,9 @@ public class SupplyChainValidationServiceImplTest extends SpringPersistenceTest
                 supplyChainValidationSummaryDBManager,
                 new SupplyChainCredentialValidator(),
                 referenceDigestManager,
-                referenceEventManager
+                referenceEventManager,
+                referenceDigestIndex,
+                tcgEventLogCache
         );
 
         CertificateAuthorityCredential stmEkRootCa = new CertificateAuthorityCredential(
@@ -14,11 +14,17 @@ import hirs.data.persist.certificate.CertificateAuthorityCredential;
 import hirs.data.persist.certificate.EndorsementCredential;
 import hirs.data.persist.certificate.IssuedAttestationCertificate;
 import hirs.data.persist.certificate.PlatformCredential;
+import hirs.persist.BulkCertificateImporter;
+import hirs.persist.BulkCertificateImporter.CertificateFile;
+import hirs.persist.BulkCertificateImporter.ImportJob;
 import hirs.persist.CertificateManager;
+import hirs.persist.CertificateSelector;
 import hirs.persist.CriteriaModifier;
 import hirs.persist.CrudManager;
 import hirs.persist.DBManagerException;
 import hirs.persist.OrderedListQuerier;
+import hirs.persist.ZipExporter;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Logger;
 import org.bouncycastle.util.encoders.DecoderException;
 import org.hibernate.Criteria;
@@ -28,7 +34,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
-import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -44,12 +49,12 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import static org.apache.logging.log4j.LogManager.getLogger;
@@ -63,6 +68,8 @@ public class CertificateRequestPageController extends PageController<NoPageParam
 
     private final CertificateManager certificateManager;
     private final OrderedListQuerier<Certificate> dataTableQuerier;
+    private final BulkCertificateImporter bulkCertificateImporter;
+    private final ZipExporter zipExporter;
 
     private CertificateAuthorityCredential certificateAuthorityCredential;
 
@@ -84,15 +91,21 @@ public class CertificateRequestPageController extends PageController<NoPageParam
      * @param certificateManager the certificate manager
      * @param crudManager the CRUD manager for certificates
      * @param acaCertificate the ACA's X509 certificate
+     * @param bulkCertificateImporter the importer used by bulk uploads
+     * @param zipExporter the exporter used by bulk downloads
      */
     @Autowired
     public CertificateRequestPageController(
             final CertificateManager certificateManager,
             final CrudManager<Certificate> crudManager,
-            final X509Certificate acaCertificate) {
+            final X509Certificate acaCertificate,
+            final BulkCertificateImporter bulkCertificateImporter,
+            final ZipExporter zipExporter) {
         super(Page.TRUST_CHAIN);
         this.certificateManager = certificateManager;
         this.dataTableQuerier = crudManager;
+        this.bulkCertificateImporter = bulkCertificateImporter;
+        this.zipExporter = zipExporter;
 
         try {
             certificateAuthorityCredential
@@ -381,173 +394,104 @@ public class CertificateRequestPageController extends PageController<NoPageParam
      * Handles request to download the certs by writing it to the response stream
      * for download in bulk.
      *
+     * @param issuer the optional issuer the certificates must have
      * @param response the response object (needed to update the header with the
      * file name)
      * @throws java.io.IOException when writing to response output stream
      */
     @RequestMapping(value = "/trust-chain/bulk", method = RequestMethod.GET)
-    public void caBulkDownload(final HttpServletResponse response)
+    public void caBulkDownload(
+            @RequestParam(value = "issuer", required = false) final String issuer,
+            final HttpServletResponse response)
             throws IOException {
         LOGGER.info("Handling request to download all trust chain certificates");
-        String fileName = "trust-chain.zip";
-        String zipFileName;
-
-        // Set filename for download.
-        response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
-        response.setContentType("application/zip");
-
-        try (ZipOutputStream zipOut = new ZipOutputStream(response.getOutputStream())) {
-            // get all files
-            for (CertificateAuthorityCredential ca : CertificateAuthorityCredential
-                    .select(certificateManager)
-                    .getCertificates()) {
-                zipFileName = String.format("ca-certificates[%s].cer",
-                        Integer.toHexString(ca.getCertificateHash()));
-                // configure the zip entry, the properties of the 'file'
-                ZipEntry zipEntry = new ZipEntry(zipFileName);
-                zipEntry.setSize((long) ca.getRawBytes().length * Byte.SIZE);
-                zipEntry.setTime(System.currentTimeMillis());
-                zipOut.putNextEntry(zipEntry);
-                // the content of the resource
-                StreamUtils.copy(ca.getRawBytes(), zipOut);
-                zipOut.closeEntry();
-            }
-            zipOut.finish();
-            // write cert to output stream
-        } catch (IllegalArgumentException ex) {
-            String uuidError = "Failed to parse ID from: ";
-            LOGGER.error(uuidError, ex);
-            // send a 404 error when invalid certificate
-            response.sendError(HttpServletResponse.SC_NOT_FOUND);
-        }
+        bulkDownload(CertificateAuthorityCredential.select(certificateManager), issuer,
+                "trust-chain.zip", "ca-certificates[%s].cer", response);
     }
 
     /**
      * Handles request to download the certs by writing it to the response stream
      * for download in bulk.
      *
+     * @param issuer the optional issuer the certificates must have
      * @param response the response object (needed to update the header with the
      * file name)
      * @throws java.io.IOException when writing to response output stream
      */
     @RequestMapping(value = "/platform-credentials/bulk", method = RequestMethod.GET)
-    public void pcBulkDownload(final HttpServletResponse response)
+    public void pcBulkDownload(
+            @RequestParam(value = "issuer", required = false) final String issuer,
+            final HttpServletResponse response)
             throws IOException {
         LOGGER.info("Handling request to download all platform certificates");
-        String fileName = "platform_certificates.zip";
-        String zipFileName;
-
-        // Set filename for download.
-        response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
-        response.setContentType("application/zip");
-
-        try (ZipOutputStream zipOut = new ZipOutputStream(response.getOutputStream())) {
-            // get all files
-            for (PlatformCredential pc : PlatformCredential.select(certificateManager)
-                    .getCertificates()) {
-                zipFileName = String.format("Platform_Certificates[%s].cer",
-                        Integer.toHexString(pc.getCertificateHash()));
-                // configure the zip entry, the properties of the 'file'
-                ZipEntry zipEntry = new ZipEntry(zipFileName);
-                zipEntry.setSize((long) pc.getRawBytes().length * Byte.SIZE);
-                zipEntry.setTime(System.currentTimeMillis());
-                zipOut.putNextEntry(zipEntry);
-                // the content of the resource
-                StreamUtils.copy(pc.getRawBytes(), zipOut);
-                zipOut.closeEntry();
-            }
-            zipOut.finish();
-            // write cert to output stream
-        } catch (IllegalArgumentException ex) {
-            String uuidError = "Failed to parse ID from: ";
-            LOGGER.error(uuidError, ex);
-            // send a 404 error when invalid certificate
-            response.sendError(HttpServletResponse.SC_NOT_FOUND);
-        }
+        bulkDownload(PlatformCredential.select(certificateManager), issuer,
+                "platform_certificates.zip", "Platform_Certificates[%s].cer", response);
     }
 
     /**
      * Handles request to download the certs by writing it to the response stream
      * for download in bulk.
      *
+     * @param issuer the optional issuer the certificates must have
      * @param response the response object (needed to update the header with the
      * file name)
      * @throws java.io.IOException when writing to response output stream
      */
     @RequestMapping(value = "/issued-certificates/bulk", method = RequestMethod.GET)
-    public void icBulkDownload(final HttpServletResponse response)
+    public void icBulkDownload(
+            @RequestParam(value = "issuer", required = false) final String issuer,
+            final HttpServletResponse response)
             throws IOException {
         LOGGER.info("Handling request to download all issued certificates");
-        String fileName = "issued_certificates.zip";
-        String zipFileName;
-
-        // Set filename for download.
-        response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
-        response.setContentType("application/zip");
-
-        try (ZipOutputStream zipOut = new ZipOutputStream(response.getOutputStream())) {
-            // get all files
-            for (IssuedAttestationCertificate ic : IssuedAttestationCertificate
-                    .select(certificateManager)
-                    .getCertificates()) {
-                zipFileName = String.format("Issued_Certificates[%s].cer",
-                        Integer.toHexString(ic.getCertificateHash()));
-                // configure the zip entry, the properties of the 'file'
-                ZipEntry zipEntry = new ZipEntry(zipFileName);
-                zipEntry.setSize((long) ic.getRawBytes().length * Byte.SIZE);
-                zipEntry.setTime(System.currentTimeMillis());
-                zipOut.putNextEntry(zipEntry);
-                // the content of the resource
-                StreamUtils.copy(ic.getRawBytes(), zipOut);
-                zipOut.closeEntry();
-            }
-            zipOut.finish();
-            // write cert to output stream
-        } catch (IllegalArgumentException ex) {
-            String uuidError = "Failed to parse ID from: ";
-            LOGGER.error(uuidError, ex);
-            // send a 404 error when invalid certificate
-            response.sendError(HttpServletResponse.SC_NOT_FOUND);
-        }
+        bulkDownload(IssuedAttestationCertificate.select(certificateManager), issuer,
+                "issued_certificates.zip", "Issued_Certificates[%s].cer", response);
     }
 
     /**
      * Handles request to download the certs by writing it to the response stream
      * for download in bulk.
      *
+     * @param issuer the optional issuer the certificates must have
      * @param response the response object (needed to update the header with the
      * file name)
      * @throws java.io.IOException when writing to response output stream
      */
     @RequestMapping(value = "/endorsement-key-credentials/bulk", method = RequestMethod.GET)
-    public void ekBulkDownload(final HttpServletResponse response)
+    public void ekBulkDownload(
+            @RequestParam(value = "issuer", required = false) final String issuer,
+            final HttpServletResponse response)
             throws IOException {
         LOGGER.info("Handling request to download all endorsement certificates");
-        String fileName = "endorsement_certificates.zip";
-        String zipFileName;
+        bulkDownload(EndorsementCredential.select(certificateManager), issuer,
+                "endorsement_certificates.zip", "Endorsement_Certificates[%s].cer", response);
+    }
+
+    /**
+     * Streams the certificates matched by the selector to the response as a ZIP archive.
+     * The certificates are read and written one at a time, and no content length is set, so
+     * the archive is sent in chunks as it is written.
+     *
+     * @param selector the selector for the type of certificate to download
+     * @param issuer the issuer the certificates must have, or null or empty for any issuer
+     * @param fileName the file name of the archive
+     * @param entryNameFormat the format of the entry names, taking the certificate hash
+     * @param response the response to write the archive to
+     * @throws IOException when writing to response output stream
+     */
+    private void bulkDownload(final CertificateSelector<?> selector, final String issuer,
+                              final String fileName, final String entryNameFormat,
+                              final HttpServletResponse response) throws IOException {
+        if (StringUtils.isNotEmpty(issuer)) {
+            selector.byIssuer(issuer);
+        }
 
         // Set filename for download.
         response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
         response.setContentType("application/zip");
 
         try (ZipOutputStream zipOut = new ZipOutputStream(response.getOutputStream())) {
-            // get all files
-            for (EndorsementCredential ek : EndorsementCredential
-                    .select(certificateManager)
-                    .getCertificates()) {
-                zipFileName = String.format("Endorsement_Certificates[%s].cer",
-                        Integer.toHexString(ek.getCertificateHash()));
-                // configure the zip entry, the properties of the 'file'
-                ZipEntry zipEntry = new ZipEntry(zipFileName);
-                zipEntry.setSize((long) ek.getRawBytes().length * Byte.SIZE);
-                zipEntry.setTime(System.currentTimeMillis());
-                zipOut.putNextEntry(zipEntry);
-                // the content of the resource
-                StreamUtils.copy(ek.getRawBytes(), zipOut);
-                zipOut.closeEntry();
-            }
+            zipExporter.exportCertificates(selector, entryNameFormat, zipOut);
             zipOut.finish();
-            // write cert to output stream
         } catch (IllegalArgumentException ex) {
             String uuidError = "Failed to parse ID from: ";
             LOGGER.error(uuidError, ex);
@@ -594,6 +538,67 @@ public class CertificateRequestPageController extends PageController<NoPageParam
         return redirectTo(getCertificatePage(certificateType), new NoPageParams(), model, attr);
     }
 
+    /**
+     * Starts a bulk upload of many credentials, which are parsed in parallel and stored in
+     * batches in the background.  The returned import's id is used to poll for the result of
+     * each file with {@link #getBulkUpload(String, HttpServletResponse)}.
+     *
+     * @param certificateType String containing the certificate type
+     * @param files the files to process
+     * @param response the response object (needed to send an error)
+     * @return the started import, or null if the certificate type cannot be bulk uploaded
+     * @throws IOException if a file cannot be read or an error cannot be sent
+     */
+    @ResponseBody
+    @RequestMapping(value = "/{certificateType}/bulk-upload", method = RequestMethod.POST,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ImportJob bulkUpload(
+            @PathVariable("certificateType") final String certificateType,
+            @RequestParam("file") final MultipartFile[] files,
+            final HttpServletResponse response) throws IOException {
+        Class<? extends Certificate> certificateClass = null;
+        if (!ISSUEDCERTIFICATES.equals(certificateType)) {
+            certificateClass = getCertificateClass(certificateType);
+        }
+        if (certificateClass == null || !BulkCertificateImporter.isSupported(certificateClass)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return null;
+        }
+
+        List<CertificateFile> certificateFiles = new ArrayList<>(files.length);
+        for (MultipartFile file : files) {
+            certificateFiles.add(CertificateFile.of(file.getOriginalFilename(), file.getBytes()));
+        }
+        return bulkCertificateImporter.submit(certificateClass, certificateFiles);
+    }
+
+    /**
+     * Returns a bulk upload started by
+     * {@link #bulkUpload(String, MultipartFile[], HttpServletResponse)} with the results of the
+     * files stored so far.
+     *
+     * @param id the id of the bulk upload
+     * @param response the response object (needed to send an error)
+     * @return the bulk upload, or null if it does not exist
+     * @throws IOException if an error cannot be sent
+     */
+    @ResponseBody
+    @RequestMapping(value = "/bulk-upload/{id}", method = RequestMethod.GET,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ImportJob getBulkUpload(@PathVariable("id") final String id,
+            final HttpServletResponse response) throws IOException {
+        ImportJob job = null;
+        try {
+            job = bulkCertificateImporter.getJob(UUID.fromString(id));
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("Invalid bulk upload id: " + id, e);
+        }
+        if (job == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+        return job;
+    }
+
     /**
      * Get the page based on the certificate type.
      *
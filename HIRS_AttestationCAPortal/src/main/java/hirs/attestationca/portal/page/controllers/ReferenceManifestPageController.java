@@ -20,10 +20,12 @@ import hirs.persist.CriteriaModifier;
 import hirs.persist.DBManagerException;
 import hirs.persist.ReferenceEventManager;
 import hirs.persist.ReferenceManifestManager;
+import hirs.persist.ZipExporter;
 import hirs.tpm.eventlog.TCGEventLog;
 import hirs.tpm.eventlog.TpmPcrEvent;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.Criteria;
@@ -32,7 +34,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
-import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -60,7 +61,6 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 /**
@@ -77,6 +77,7 @@ public class ReferenceManifestPageController
     private final BiosDateValidator biosValidator;
     private final ReferenceManifestManager referenceManifestManager;
     private final ReferenceEventManager referenceEventManager;
+    private final ZipExporter zipExporter;
     private static final Logger LOGGER
             = LogManager.getLogger(ReferenceManifestPageController.class);
 
@@ -127,14 +128,17 @@ public class ReferenceManifestPageController
      *
      * @param referenceManifestManager the reference manifest manager
      * @param referenceEventManager this is the reference event manager
+     * @param zipExporter the exporter used by bulk downloads
      */
     @Autowired
     public ReferenceManifestPageController(
             final ReferenceManifestManager referenceManifestManager,
-            final ReferenceEventManager referenceEventManager) {
+            final ReferenceEventManager referenceEventManager,
+            final ZipExporter zipExporter) {
         super(Page.REFERENCE_MANIFESTS);
         this.referenceManifestManager = referenceManifestManager;
         this.referenceEventManager = referenceEventManager;
+        this.zipExporter = zipExporter;
         this.biosValidator = new BiosDateValidator(BIOS_RELEASE_DATE_FORMAT);
     }
 
@@ -359,48 +363,39 @@ public class ReferenceManifestPageController
 
     /**
      * Handles request to download bulk of RIMs by writing it to the response stream
-     * for download in bulk.
+     * for download in bulk.  The RIMs are read and written one at a time, and no content
+     * length is set, so the archive is sent in chunks as it is written.
      *
+     * @param manufacturer the optional platform manufacturer the RIMs must have
      * @param response the response object (needed to update the header with the
      * file name)
      * @throws java.io.IOException when writing to response output stream
      */
     @RequestMapping(value = "/bulk", method = RequestMethod.GET)
-    public void bulk(final HttpServletResponse response)
+    public void bulk(
+            @RequestParam(value = "manufacturer", required = false) final String manufacturer,
+            final HttpServletResponse response)
             throws IOException {
         LOGGER.info("Handling request to download all Reference Integrity Manifests");
         String fileName = "rims.zip";
-        String zipFileName;
+
+        BaseReferenceManifest.Selector baseSelector
+                = BaseReferenceManifest.select(referenceManifestManager);
+        SupportReferenceManifest.Selector supportSelector
+                = SupportReferenceManifest.select(referenceManifestManager);
+        if (StringUtils.isNotEmpty(manufacturer)) {
+            baseSelector.byManufacturer(manufacturer);
+            supportSelector.byManufacturer(manufacturer);
+        }
 
         // Set filename for download.
         response.setHeader("Content-Disposition", "attachment; filename=" + fileName);
         response.setContentType("application/zip");
 
-        List<ReferenceManifest> referenceManifestList = new LinkedList<>();
-        referenceManifestList.addAll(BaseReferenceManifest
-                .select(referenceManifestManager).getRIMs());
-        referenceManifestList.addAll(SupportReferenceManifest
-                .select(referenceManifestManager).getRIMs());
-
         try (ZipOutputStream zipOut = new ZipOutputStream(response.getOutputStream())) {
-            // get all files
-            for (ReferenceManifest rim : referenceManifestList) {
-                if (rim.getFileName().isEmpty()) {
-                    zipFileName = "";
-                } else {
-                    // configure the zip entry, the properties of the 'file'
-                    zipFileName = rim.getFileName();
-                }
-                ZipEntry zipEntry = new ZipEntry(zipFileName);
-                zipEntry.setSize((long) rim.getRimBytes().length * Byte.SIZE);
-                zipEntry.setTime(System.currentTimeMillis());
-                zipOut.putNextEntry(zipEntry);
-                // the content of the resource
-                StreamUtils.copy(rim.getRimBytes(), zipOut);
-                zipOut.closeEntry();
-            }
+            zipExporter.exportReferenceManifests(baseSelector, zipOut);
+            zipExporter.exportReferenceManifests(supportSelector, zipOut);
             zipOut.finish();
-            // write cert to output stream
         } catch (IllegalArgumentException ex) {
             String uuidError = "Failed to parse ID from: ";
             LOGGER.error(uuidError, ex);
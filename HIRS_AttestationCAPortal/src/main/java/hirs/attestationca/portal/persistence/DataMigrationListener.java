@@ -0,0 +1,69 @@
+package hirs.attestationca.portal.persistence;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import hirs.persist.CertificateManager;
+import hirs.persist.DBCertificateManager;
+import hirs.persist.DbImaBaselineRecordManager;
+import hirs.persist.ImaBaselineRecordManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.springframework.orm.hibernate4.LocalSessionFactoryBean;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/**
+ * Migrates the data stored by earlier versions when the portal starts.  The migrations run one
+ * after another on a background thread, while the data remains in use.  Each migration only
+ * selects the rows it has not migrated yet, so once it has completed it costs a single query
+ * on each start.  They are only run by the portal, so that the other applications sharing the
+ * database do not run them at the same time.
+ */
+public class DataMigrationListener implements ServletContextListener {
+
+    private static final Logger LOGGER = LogManager.getLogger(DataMigrationListener.class);
+
+    private ExecutorService executor;
+
+    @Override
+    public void contextInitialized(final ServletContextEvent event) {
+        WebApplicationContext context = WebApplicationContextUtils
+                .getRequiredWebApplicationContext(event.getServletContext());
+        SessionFactory sessionFactory = context.getBean(LocalSessionFactoryBean.class).getObject();
+        ImaBaselineRecordManager imaBaselineRecordManager =
+                new DbImaBaselineRecordManager(sessionFactory);
+        CertificateManager certificateManager = new DBCertificateManager(sessionFactory);
+
+        executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("data-migration-%d")
+                .setDaemon(true)
+                .build());
+        submit("IMA baseline records", imaBaselineRecordManager::rebucketBaselineRecords);
+        submit("certificate search tokens", certificateManager::updateSearchTokens);
+        executor.shutdown();
+    }
+
+    private void submit(final String description, final LongSupplier migration) {
+        executor.submit(() -> {
+            try {
+                LOGGER.info("Migrating {}", description);
+                LOGGER.info("Migrated {} {}", migration.getAsLong(), description);
+            } catch (RuntimeException e) {
+                LOGGER.error(String.format("Unable to migrate %s", description), e);
+            }
+        });
+    }
+
+    @Override
+    public void contextDestroyed(final ServletContextEvent event) {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package hirs.attestationca.portal.persistence;
 
 import hirs.data.persist.SupplyChainValidationSummary;
 import hirs.persist.AppraiserManager;
+import hirs.persist.BulkCertificateImporter;
 import hirs.persist.CrudManager;
 import hirs.persist.DBAppraiserManager;
 import hirs.persist.DBCertificateManager;
@@ -17,7 +18,9 @@ import hirs.persist.DeviceGroupManager;
 import hirs.persist.DeviceManager;
 import hirs.persist.HibernateConfiguration;
 import hirs.persist.PolicyManager;
+import hirs.persist.ZipExporter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -33,6 +36,9 @@ public class PersistenceConfiguration {
     @Autowired
     private LocalSessionFactoryBean sessionFactory;
 
+    @Value("${persistence.certificate.importBatchSize:"
+            + BulkCertificateImporter.DEFAULT_BATCH_SIZE + "}")
+    private int certificateImportBatchSize;
 
     /**
      * Creates a {@link PolicyManager} ready to use.
@@ -124,6 +130,29 @@ public class PersistenceConfiguration {
         return new DBDeviceGroupManager(sessionFactory.getObject());
     }
 
+    /**
+     * Creates a {@link BulkCertificateImporter} ready to use.
+     *
+     * @return {@link BulkCertificateImporter}
+     */
+    @Bean
+    public BulkCertificateImporter bulkCertificateImporter() {
+        BulkCertificateImporter importer =
+                new BulkCertificateImporter(sessionFactory.getObject());
+        importer.setBatchSize(certificateImportBatchSize);
+        return importer;
+    }
+
+    /**
+     * Creates a {@link ZipExporter} ready to use.
+     *
+     * @return {@link ZipExporter}
+     */
+    @Bean
+    public ZipExporter zipExporter() {
+        return new ZipExporter(sessionFactory.getObject());
+    }
+
     /**
      * Creates a {@link DBManager} for SupplyChainValidationSummary persistence, ready for use.
      *
@@ -4,6 +4,9 @@ import hirs.attestationca.portal.page.PageControllerTest;
 import hirs.attestationca.portal.page.PageMessages;
 import hirs.data.persist.certificate.Certificate;
 import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import com.jayway.jsonpath.JsonPath;
+import hirs.persist.BulkCertificateImporter;
+import hirs.persist.BulkCertificateImporter.ImportJob;
 import hirs.persist.CertificateManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
@@ -20,11 +23,14 @@ import org.testng.annotations.Test;
 import java.io.IOException;
 import java.security.cert.X509Certificate;
 import java.util.Set;
+import java.util.UUID;
 
 import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasSize;
 import static hirs.attestationca.portal.page.Page.TRUST_CHAIN;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -40,6 +46,9 @@ public class TrustChainManagementPageControllerTest extends PageControllerTest {
     @Autowired
     private X509Certificate acaCert;
 
+    @Autowired
+    private BulkCertificateImporter bulkCertificateImporter;
+
     // A file that contains a cert that is not an UTC Cert. Should be parsable as a general
     // cert, but should (eventually) not be stored as an UTC because it isn't one.
     private MockMultipartFile nonCaCertFile;
@@ -48,6 +57,8 @@ public class TrustChainManagementPageControllerTest extends PageControllerTest {
 
     private static final String NONCACERT = "fakeIntelIntermediateCA.pem";
     private static final String BADCERT = "badCert.pem";
+    private static final long BULK_UPLOAD_TIMEOUT_MILLIS = 10000;
+    private static final long BULK_UPLOAD_POLL_MILLIS = 50;
 
     /**
      * Constructor providing the Page's display and routing specification.
@@ -153,6 +164,47 @@ public class TrustChainManagementPageControllerTest extends PageControllerTest {
         archiveTestCert(cert);
     }
 
+    /**
+     * Tests that a bulk upload stores its certificates in the background and that the result of
+     * each file can be retrieved by the upload's id.
+     * @throws Exception if an exception occurs
+     */
+    @Test
+    @Rollback
+    public void testBulkUpload() throws Exception {
+        MvcResult result = getMockMvc().perform(MockMvcRequestBuilders
+                .fileUpload("/certificate-request/trust-chain/bulk-upload")
+                .file(nonCaCertFile)
+                .file(badCertFile))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fileCount").value(2))
+                .andReturn();
+        String id = JsonPath.read(result.getResponse().getContentAsString(), "$.id");
+
+        ImportJob job = bulkCertificateImporter.getJob(UUID.fromString(id));
+        long deadline = System.currentTimeMillis() + BULK_UPLOAD_TIMEOUT_MILLIS;
+        while (!job.isDone() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(BULK_UPLOAD_POLL_MILLIS);
+        }
+
+        getMockMvc().perform(MockMvcRequestBuilders.get("/certificate-request/bulk-upload/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.done").value(true))
+                .andExpect(jsonPath("$.results", hasSize(2)))
+                .andExpect(jsonPath("$.results[0].status").value("STORED"))
+                .andExpect(jsonPath("$.results[0].message").value(
+                        "New certificate successfully uploaded (" + NONCACERT + "): "))
+                .andExpect(jsonPath("$.results[1].status").value("INVALID"));
+
+        Set<Certificate> records =
+                certificateManager.get(CertificateAuthorityCredential.select(certificateManager));
+        Assert.assertEquals(records.size(), 1);
+
+        getMockMvc().perform(MockMvcRequestBuilders.get(
+                "/certificate-request/bulk-upload/" + UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
     private Certificate uploadTestCert() throws Exception {
         // perform upload. Attach csv file and add HTTP parameters for the baseline name and type.
         MvcResult result = getMockMvc().perform(MockMvcRequestBuilders
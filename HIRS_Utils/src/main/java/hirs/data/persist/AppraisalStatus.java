@@ -1,5 +1,10 @@
 package hirs.data.persist;
 
+import hirs.data.persist.certificate.ComponentResult;
+
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Class to capture appraisal results and corresponding messages.
  */
@@ -33,6 +38,7 @@ public class AppraisalStatus {
 
     private String message;
     private String additionalInfo;
+    private List<ComponentResult> componentResults;
 
     /**
      * Default constructor. Set appraisal status and description.
@@ -52,9 +58,24 @@ public class AppraisalStatus {
      */
     public AppraisalStatus(final Status appStatus, final String message,
                            final String additionalInfo) {
+        this(appStatus, message, additionalInfo, Collections.<ComponentResult>emptyList());
+    }
+
+    /**
+     * Constructor for the results of a platform credential attribute appraisal.
+     * @param appStatus status of appraisal
+     * @param message description of result
+     * @param additionalInfo any additional information needed to
+     *                       be passed on
+     * @param componentResults the component comparisons made during the appraisal
+     */
+    public AppraisalStatus(final Status appStatus, final String message,
+                           final String additionalInfo,
+                           final List<ComponentResult> componentResults) {
         this.appStatus = appStatus;
         this.message = message;
         this.additionalInfo = additionalInfo;
+        this.componentResults = Collections.unmodifiableList(componentResults);
     }
 
     /**
@@ -104,4 +125,13 @@ public class AppraisalStatus {
     public void setAdditionalInfo(final String additionalInfo) {
         this.additionalInfo = additionalInfo;
     }
+
+    /**
+     * Getter for the component comparisons made during the appraisal.  Each appraisal has
+     * its own list, so results from concurrent appraisals are never mixed.
+     * @return the component results, empty if no components were compared
+     */
+    public List<ComponentResult> getComponentResults() {
+        return componentResults;
+    }
 }
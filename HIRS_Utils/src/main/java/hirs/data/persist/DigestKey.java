@@ -0,0 +1,246 @@
+package hirs.data.persist;
+
+import hirs.data.persist.enums.DigestAlgorithm;
+import org.apache.commons.codec.binary.Hex;
+
+import java.util.Arrays;
+
+/**
+ * A compact, immutable key identifying a digest, for use in place of {@link Digest}s or their hex
+ * strings as the keys of in-memory sets and maps.  The first {@link #PACKED_LENGTH} bytes of the
+ * digest, which hold all of a SHA-1 or SHA-256 digest, are packed into longs and the hash code is
+ * computed when the key is created, so keys are hashed and compared without copying or encoding
+ * the digest.  The remaining bytes of longer digests are packed into an array.
+ * <p>
+ * Two keys are equal when their digests have the same algorithm and bytes, as two equal
+ * {@link AbstractDigest}s do.
+ *
+ * @see DigestSet
+ */
+public final class DigestKey {
+
+    /**
+     * The number of longs the first bytes of a digest are packed into.
+     */
+    static final int PACKED_WORDS = 4;
+
+    /**
+     * The number of bytes of a digest that are packed into the key's fields.
+     */
+    public static final int PACKED_LENGTH = PACKED_WORDS * Long.BYTES;
+
+    private static final int BITS_PER_BYTE = 8;
+    private static final int UNSIGNED_BYTE = 0xff;
+    private static final int HASH_PRIME = 31;
+    private static final int HALF_LONG_BITS = 32;
+    private static final long[] NO_WORDS = new long[0];
+
+    private final DigestAlgorithm algorithm;
+    private final int length;
+    private final long word0;
+    private final long word1;
+    private final long word2;
+    private final long word3;
+    private final long[] remainingWords;
+    private final int hash;
+
+    private DigestKey(final DigestAlgorithm algorithm, final byte[] digest) {
+        this.algorithm = algorithm;
+        this.length = digest.length;
+        int index = 0;
+        this.word0 = getWord(digest, index++);
+        this.word1 = getWord(digest, index++);
+        this.word2 = getWord(digest, index++);
+        this.word3 = getWord(digest, index);
+        this.remainingWords = getRemainingWords(digest);
+        this.hash = hash(algorithm, length, word0, word1, word2, word3, remainingWords);
+    }
+
+    /**
+     * Creates the key of the given digest.
+     *
+     * @param digest the digest
+     * @return the key of the digest
+     */
+    public static DigestKey of(final AbstractDigest digest) {
+        if (digest == null) {
+            throw new IllegalArgumentException("Cannot create the key of a null digest");
+        }
+        return new DigestKey(digest.getAlgorithm(), digest.getDigest());
+    }
+
+    /**
+     * Creates the key of the digest with the given algorithm and bytes.
+     *
+     * @param algorithm the algorithm that computed the digest
+     * @param digest the bytes of the digest
+     * @return the key of the digest
+     */
+    public static DigestKey of(final DigestAlgorithm algorithm, final byte[] digest) {
+        if (algorithm == null || digest == null) {
+            throw new IllegalArgumentException("Algorithm and digest cannot be null");
+        }
+        return new DigestKey(algorithm, digest);
+    }
+
+    /**
+     * Returns the algorithm that computed the digest.
+     *
+     * @return the digest algorithm
+     */
+    public DigestAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns a copy of the bytes of the digest.
+     *
+     * @return the digest
+     */
+    public byte[] getDigest() {
+        byte[] digest = new byte[length];
+        long[] words = {word0, word1, word2, word3};
+        for (int i = 0; i < length; i++) {
+            long word;
+            int wordIndex = i / Long.BYTES;
+            if (wordIndex < PACKED_WORDS) {
+                word = words[wordIndex];
+            } else {
+                word = remainingWords[wordIndex - PACKED_WORDS];
+            }
+            int shift = (Long.BYTES - 1 - i % Long.BYTES) * BITS_PER_BYTE;
+            digest[i] = (byte) (word >>> shift);
+        }
+        return digest;
+    }
+
+    /**
+     * Returns the digest this key identifies.
+     *
+     * @return a new {@link Digest}
+     */
+    public Digest toDigest() {
+        return new Digest(algorithm, getDigest());
+    }
+
+    /**
+     * Returns the number of bytes in the digest.
+     */
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns one of the longs the first {@link #PACKED_LENGTH} bytes of the digest are packed
+     * into.
+     */
+    long getPackedWord(final int index) {
+        switch (index) {
+            case 0:
+                return word0;
+            case 1:
+                return word1;
+            case 2:
+                return word2;
+            default:
+                return word3;
+        }
+    }
+
+    /**
+     * Returns whether this key identifies a digest with the given algorithm and packed bytes.
+     */
+    boolean matches(final int otherLength, final DigestAlgorithm otherAlgorithm,
+                    final long otherWord0, final long otherWord1, final long otherWord2,
+                    final long otherWord3) {
+        return length == otherLength && algorithm == otherAlgorithm && word0 == otherWord0
+                && word1 == otherWord1 && word2 == otherWord2 && word3 == otherWord3;
+    }
+
+    /**
+     * Returns the given 8 bytes of a digest as a big-endian long, padded with zeros past the end
+     * of the digest.
+     *
+     * @param digest the digest
+     * @param index the index of the long
+     * @return the packed bytes
+     */
+    static long getWord(final byte[] digest, final int index) {
+        long word = 0;
+        int start = index * Long.BYTES;
+        for (int i = start; i < start + Long.BYTES; i++) {
+            word <<= BITS_PER_BYTE;
+            if (i < digest.length) {
+                word |= digest[i] & UNSIGNED_BYTE;
+            }
+        }
+        return word;
+    }
+
+    private static long[] getRemainingWords(final byte[] digest) {
+        if (digest.length <= PACKED_LENGTH) {
+            return NO_WORDS;
+        }
+        long[] words = new long[(digest.length - 1) / Long.BYTES + 1 - PACKED_WORDS];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = getWord(digest, PACKED_WORDS + i);
+        }
+        return words;
+    }
+
+    /**
+     * Computes the hash code of the key of a digest of at most {@link #PACKED_LENGTH} bytes.
+     */
+    static int hash(final DigestAlgorithm algorithm, final int length, final long word0,
+                    final long word1, final long word2, final long word3) {
+        return hash(algorithm, length, word0, word1, word2, word3, NO_WORDS);
+    }
+
+    /**
+     * Computes the hash code of the key with the given fields.
+     */
+    static int hash(final DigestAlgorithm algorithm, final int length, final long word0,
+                    final long word1, final long word2, final long word3,
+                    final long[] remainingWords) {
+        long result = HASH_PRIME * algorithm.ordinal() + length;
+        result = HASH_PRIME * result + word0;
+        result = HASH_PRIME * result + word1;
+        result = HASH_PRIME * result + word2;
+        result = HASH_PRIME * result + word3;
+        for (long word : remainingWords) {
+            result = HASH_PRIME * result + word;
+        }
+        return (int) (result ^ (result >>> HALF_LONG_BITS));
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof DigestKey)) {
+            return false;
+        }
+        DigestKey other = (DigestKey) obj;
+        return hash == other.hash
+                && other.matches(length, algorithm, word0, word1, word2, word3)
+                && Arrays.equals(remainingWords, other.remainingWords);
+    }
+
+    /**
+     * Returns the standard algorithm name and a hexadecimal representation of the digest, as
+     * {@link AbstractDigest#toString()} does.
+     *
+     * @return string representation
+     */
+    @Override
+    public String toString() {
+        return String.format("%s - 0x%s", algorithm.getStandardAlgorithmName(),
+                Hex.encodeHexString(getDigest()));
+    }
+}
@@ -0,0 +1,313 @@
+package hirs.data.persist;
+
+import hirs.data.persist.enums.DigestAlgorithm;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A set of digests stored in open-addressed primitive arrays.  Matching looks up millions of
+ * digests; a <code>HashSet&lt;Digest&gt;</code> holds an entry, a digest and a byte array per
+ * element and copies the digest's bytes every time it is hashed or compared.  This set instead
+ * packs each digest's bytes into longs, as {@link DigestKey} does, stores them with their hash
+ * codes in arrays probed linearly, and looks up digests without creating keys or entries.
+ * <p>
+ * Digests longer than {@link DigestKey#PACKED_LENGTH} bytes, such as SHA-384 and SHA-512
+ * digests, are rare in baselines and are kept as {@link DigestKey}s in a separate set.
+ * <p>
+ * Elements cannot be removed.  This class is not thread-safe while digests are being added,
+ * but a set that is no longer modified may be read by multiple threads.
+ */
+public final class DigestSet {
+
+    private static final int WORDS = DigestKey.PACKED_WORDS;
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final int MINIMUM_CAPACITY = 4;
+    private static final int SPREAD_SHIFT = 16;
+
+    /**
+     * The largest fraction of slots that may be used before the table is doubled.  Lookups of
+     * digests that are not in the set, which are most lookups during matching, probe until an
+     * empty slot, so the table is kept half empty.
+     */
+    private static final double MAX_LOAD_FACTOR = 0.5;
+
+    private long[] words;
+    private int[] hashes;
+    private DigestAlgorithm[] algorithms;
+    private byte[] lengths;
+    private int size;
+    private final Set<DigestKey> longDigests = new HashSet<>();
+
+    /**
+     * Creates an empty set.
+     */
+    public DigestSet() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * Creates an empty set that holds the given number of digests without being resized.
+     *
+     * @param expectedSize the number of digests expected to be added
+     */
+    public DigestSet(final int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative");
+        }
+        allocate(getCapacity(expectedSize));
+    }
+
+    /**
+     * Creates a set holding the given digests.  Null digests are ignored.
+     *
+     * @param digests the digests to add
+     * @return the new set
+     */
+    public static DigestSet of(final Collection<? extends AbstractDigest> digests) {
+        if (digests == null) {
+            throw new IllegalArgumentException("Digests cannot be null");
+        }
+        DigestSet set = new DigestSet(digests.size());
+        for (AbstractDigest digest : digests) {
+            if (digest != null) {
+                set.add(digest);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Adds the given digest to the set.
+     *
+     * @param digest the digest to add
+     * @return true if the set did not already hold the digest
+     */
+    public boolean add(final AbstractDigest digest) {
+        if (digest == null) {
+            throw new IllegalArgumentException("Cannot add a null digest");
+        }
+        return add(digest.getAlgorithm(), digest.getDigest());
+    }
+
+    /**
+     * Adds the digest with the given key to the set.
+     *
+     * @param key the key of the digest to add
+     * @return true if the set did not already hold the digest
+     */
+    public boolean add(final DigestKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot add a null digest");
+        }
+        if (key.getLength() > DigestKey.PACKED_LENGTH) {
+            return addLongDigest(key);
+        }
+        int index = 0;
+        return add(key.getAlgorithm(), key.getLength(), key.getPackedWord(index++),
+                key.getPackedWord(index++), key.getPackedWord(index++), key.getPackedWord(index),
+                key.hashCode());
+    }
+
+    /**
+     * Adds the digest with the given algorithm and bytes to the set.
+     *
+     * @param algorithm the algorithm that computed the digest
+     * @param digest the bytes of the digest
+     * @return true if the set did not already hold the digest
+     */
+    public boolean add(final DigestAlgorithm algorithm, final byte[] digest) {
+        if (algorithm == null || digest == null) {
+            throw new IllegalArgumentException("Algorithm and digest cannot be null");
+        }
+        if (digest.length > DigestKey.PACKED_LENGTH) {
+            return addLongDigest(DigestKey.of(algorithm, digest));
+        }
+
+        int index = 0;
+        long word0 = DigestKey.getWord(digest, index++);
+        long word1 = DigestKey.getWord(digest, index++);
+        long word2 = DigestKey.getWord(digest, index++);
+        long word3 = DigestKey.getWord(digest, index);
+        return add(algorithm, digest.length, word0, word1, word2, word3,
+                DigestKey.hash(algorithm, digest.length, word0, word1, word2, word3));
+    }
+
+    private boolean add(final DigestAlgorithm algorithm, final int length, final long word0,
+                        final long word1, final long word2, final long word3, final int hash) {
+        int slot = find(algorithm, length, word0, word1, word2, word3, hash);
+        if (slot >= 0) {
+            return false;
+        }
+
+        if (size - longDigests.size() + 1 > MAX_LOAD_FACTOR * hashes.length) {
+            resize();
+            slot = find(algorithm, length, word0, word1, word2, word3, hash);
+        }
+        store(-slot - 1, algorithm, length, word0, word1, word2, word3, hash);
+        size++;
+        return true;
+    }
+
+    private boolean addLongDigest(final DigestKey key) {
+        boolean added = longDigests.add(key);
+        if (added) {
+            size++;
+        }
+        return added;
+    }
+
+    /**
+     * Returns whether the set holds the given digest.
+     *
+     * @param digest the digest to look up
+     * @return true if the set holds the digest, or false if it does not or the digest is null
+     */
+    public boolean contains(final AbstractDigest digest) {
+        if (digest == null) {
+            return false;
+        }
+        return contains(digest.getAlgorithm(), digest.getDigest());
+    }
+
+    /**
+     * Returns whether the set holds the digest with the given key.
+     *
+     * @param key the key of the digest to look up
+     * @return true if the set holds the digest, or false if it does not or the key is null
+     */
+    public boolean contains(final DigestKey key) {
+        if (key == null) {
+            return false;
+        }
+        if (key.getLength() > DigestKey.PACKED_LENGTH) {
+            return longDigests.contains(key);
+        }
+        int index = 0;
+        return find(key.getAlgorithm(), key.getLength(), key.getPackedWord(index++),
+                key.getPackedWord(index++), key.getPackedWord(index++), key.getPackedWord(index),
+                key.hashCode()) >= 0;
+    }
+
+    /**
+     * Returns whether the set holds the digest with the given algorithm and bytes.
+     *
+     * @param algorithm the algorithm that computed the digest
+     * @param digest the bytes of the digest
+     * @return true if the set holds the digest, or false if it does not or either argument is
+     *         null
+     */
+    public boolean contains(final DigestAlgorithm algorithm, final byte[] digest) {
+        if (algorithm == null || digest == null) {
+            return false;
+        }
+        if (digest.length > DigestKey.PACKED_LENGTH) {
+            return longDigests.contains(DigestKey.of(algorithm, digest));
+        }
+
+        int index = 0;
+        long word0 = DigestKey.getWord(digest, index++);
+        long word1 = DigestKey.getWord(digest, index++);
+        long word2 = DigestKey.getWord(digest, index++);
+        long word3 = DigestKey.getWord(digest, index);
+        return find(algorithm, digest.length, word0, word1, word2, word3,
+                DigestKey.hash(algorithm, digest.length, word0, word1, word2, word3)) >= 0;
+    }
+
+    /**
+     * Returns the number of digests in the set.
+     *
+     * @return the size of the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the set holds no digests.
+     *
+     * @return true if the set is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the slot holding the given digest, or <code>-(slot + 1)</code> for the empty slot
+     * it would be stored in.
+     */
+    private int find(final DigestAlgorithm algorithm, final int length, final long word0,
+                     final long word1, final long word2, final long word3, final int hash) {
+        int mask = hashes.length - 1;
+        int slot = spread(hash) & mask;
+        while (algorithms[slot] != null) {
+            int offset = slot * WORDS;
+            if (hashes[slot] == hash && algorithms[slot] == algorithm && lengths[slot] == length
+                    && words[offset++] == word0 && words[offset++] == word1
+                    && words[offset++] == word2 && words[offset] == word3) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -slot - 1;
+    }
+
+    private void store(final int slot, final DigestAlgorithm algorithm, final int length,
+                       final long word0, final long word1, final long word2, final long word3,
+                       final int hash) {
+        int offset = slot * WORDS;
+        words[offset++] = word0;
+        words[offset++] = word1;
+        words[offset++] = word2;
+        words[offset] = word3;
+        hashes[slot] = hash;
+        algorithms[slot] = algorithm;
+        lengths[slot] = (byte) length;
+    }
+
+    private void resize() {
+        long[] oldWords = words;
+        int[] oldHashes = hashes;
+        DigestAlgorithm[] oldAlgorithms = algorithms;
+        byte[] oldLengths = lengths;
+        allocate(oldHashes.length * 2);
+        for (int slot = 0; slot < oldHashes.length; slot++) {
+            if (oldAlgorithms[slot] != null) {
+                int offset = slot * WORDS;
+                long word0 = oldWords[offset++];
+                long word1 = oldWords[offset++];
+                long word2 = oldWords[offset++];
+                long word3 = oldWords[offset];
+                int newSlot = -find(oldAlgorithms[slot], oldLengths[slot], word0, word1, word2,
+                        word3, oldHashes[slot]) - 1;
+                store(newSlot, oldAlgorithms[slot], oldLengths[slot], word0, word1, word2, word3,
+                        oldHashes[slot]);
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        words = new long[capacity * WORDS];
+        hashes = new int[capacity];
+        algorithms = new DigestAlgorithm[capacity];
+        lengths = new byte[capacity];
+    }
+
+    private static int getCapacity(final int expectedSize) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity * MAX_LOAD_FACTOR < expectedSize) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> SPREAD_SHIFT);
+    }
+
+    @Override
+    public String toString() {
+        return "DigestSet{size=" + size + '}';
+    }
+}
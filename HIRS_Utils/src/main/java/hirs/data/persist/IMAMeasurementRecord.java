@@ -1,5 +1,6 @@
 package hirs.data.persist;
 
+import hirs.data.persist.baseline.AbstractImaBaselineRecord;
 import hirs.data.persist.enums.DigestAlgorithm;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.apache.logging.log4j.LogManager;
@@ -15,6 +16,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -56,6 +58,9 @@ public class IMAMeasurementRecord extends ExaminableRecord {
     @JsonIgnore
     private IMAReport report;
 
+    @Transient
+    private transient String partialPath;
+
     /**
      * Creates a new <code>IMAMeasurementRecord</code>. The record contains the
      * file path and its hash.
@@ -105,6 +110,22 @@ public class IMAMeasurementRecord extends ExaminableRecord {
         return this.path;
     }
 
+    /**
+     * Returns the partial path (file name) of this record's path.  The partial path is computed
+     * the first time it is requested and kept for the life of the record, so matching a report
+     * against several baselines with partial paths enabled only computes it once.
+     *
+     * @return the file name of this record's path
+     * @see AbstractImaBaselineRecord#getPartialPath(String)
+     */
+    @JsonIgnore
+    public final String getPartialPath() {
+        if (partialPath == null) {
+            partialPath = AbstractImaBaselineRecord.getPartialPath(path);
+        }
+        return partialPath;
+    }
+
     /**
      * Returns the SHA1 hash of the file associated with IMA baseline record.
      *
@@ -22,7 +22,9 @@ import javax.persistence.ManyToOne;
 @Entity
 public class ImaBlacklistRecord extends AbstractImaBaselineRecord {
     /**
-     * Referenced in DbImaBlacklistBaselineRecordManager.iterateOverBaselineRecords().
+     * Referenced in DbImaBlacklistBaselineRecordManager.iterateOverBaselineRecords() as the
+     * number of ranges of {@link hirs.data.persist.baseline.IMABaselineRecord} buckets that are
+     * retrieved simultaneously.
      */
     public static final int FILENAME_HASH_BUCKET_COUNT = 4;
 
@@ -17,6 +17,7 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 import static org.apache.logging.log4j.LogManager.getLogger;
 
@@ -128,6 +129,28 @@ public final class PCRPolicy extends Policy {
      */
     public List<TpmPcrEvent> validateTpmEvents(final TCGEventLog tcgMeasurementLog,
                 final Map<String, ReferenceDigestValue> eventValueMap) {
+        return validateTpmEvents(tcgMeasurementLog,
+                tpe -> eventValueMap.containsKey(tpe.getEventDigestStr()));
+    }
+
+    /**
+     * Checks that the expected FM events occurring. There are policy options that
+     * will ignore certin PCRs, Event Types and Event Variables present.  The event digests are
+     * looked up in the given set without being encoded as hex strings.
+     * @param tcgMeasurementLog Measurement log from the client
+     * @param eventDigests The digests of the events stored as baseline to compare
+     * @return the events that didn't pass
+     */
+    public List<TpmPcrEvent> validateTpmEvents(final TCGEventLog tcgMeasurementLog,
+                final DigestSet eventDigests) {
+        return validateTpmEvents(tcgMeasurementLog, tpe -> {
+            byte[] digest = tpe.getEventDigest();
+            return eventDigests.contains(AbstractDigest.getDigestAlgorithm(digest), digest);
+        });
+    }
+
+    private List<TpmPcrEvent> validateTpmEvents(final TCGEventLog tcgMeasurementLog,
+                final Predicate<TpmPcrEvent> isBaselineEvent) {
         List<TpmPcrEvent> tpmPcrEvents = new LinkedList<>();
         for (TpmPcrEvent tpe : tcgMeasurementLog.getEventList()) {
             if (enableIgnoreIma && tpe.getPcrIndex() == IMA_PCR) {
@@ -148,7 +171,7 @@ public final class PCRPolicy extends Policy {
                         && tpe.getEventContentStr().contains("SecureBoot"))) {
                     LOGGER.info(String.format("OS Evt Config Ignored -> %s", tpe));
                 } else {
-                    if (!eventValueMap.containsKey(tpe.getEventDigestStr())) {
+                    if (!isBaselineEvent.test(tpe)) {
                         tpmPcrEvents.add(tpe);
                     }
                 }
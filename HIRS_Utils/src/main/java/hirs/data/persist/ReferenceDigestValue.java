@@ -7,6 +7,7 @@ import javax.persistence.Access;
 import javax.persistence.AccessType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.Table;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -19,7 +20,11 @@ import java.util.UUID;
  * Digest Value, Event Type, index, RIM Tagid
  */
 @Entity
-@Table(name = "ReferenceDigestValue")
+@Table(name = "ReferenceDigestValue", indexes = {
+        @Index(name = "rdv_manufacturer_model_index", columnList = "manufacturer, model"),
+        @Index(name = "rdv_base_rim_index", columnList = "baseRimId"),
+        @Index(name = "rdv_support_rim_index", columnList = "supportRimId"),
+        @Index(name = "rdv_digest_value_index", columnList = "digestValue") })
 @XmlRootElement(name = "ReferenceDigestValue")
 @XmlAccessorType(XmlAccessType.FIELD)
 @Access(AccessType.FIELD)
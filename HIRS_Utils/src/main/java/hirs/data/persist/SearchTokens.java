@@ -0,0 +1,84 @@
+package hirs.data.persist;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits the values of a {@link SearchableEntity}'s searchable fields, and the text searched
+ * for, into the lowercase words that are indexed and looked up.  A value matches a search word
+ * if one of its words starts with the search word, so the index answers searches with range
+ * scans rather than with a scan of every row.
+ * <p>
+ * Words are separated by anything other than a letter, a digit or a hyphen.  Hyphenated words,
+ * such as host names, are indexed both whole and as their parts, so that <code>host-1</code>
+ * and <code>1</code> both match <code>host-1.example</code>.
+ */
+public final class SearchTokens {
+
+    /**
+     * The maximum length of a token.  Longer words are truncated, which still allows them to be
+     * found by any search word of up to this length.
+     */
+    public static final int MAX_TOKEN_LENGTH = 64;
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}-]+");
+    private static final String HYPHEN = "-";
+
+    private SearchTokens() {
+        // do not construct
+    }
+
+    /**
+     * Returns the tokens to index for the given field values.  Null values are ignored.
+     *
+     * @param values the values of an entity's searchable fields
+     * @return the distinct tokens of the values
+     */
+    public static Set<String> getTokens(final Collection<?> values) {
+        Set<String> tokens = new HashSet<>();
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            for (String word : getWords(value.toString())) {
+                tokens.add(word);
+                if (word.contains(HYPHEN)) {
+                    tokens.addAll(getWords(word.replace(HYPHEN, " ")));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the words of the given search text.  An entity matches the search if each of the
+     * words is the start of one of its tokens.
+     *
+     * @param search the text searched for, which may be null
+     * @return the distinct words of the search text, in the order they appear
+     */
+    public static Set<String> getSearchWords(final String search) {
+        Set<String> words = new LinkedHashSet<>();
+        if (search != null) {
+            words.addAll(getWords(search));
+        }
+        return words;
+    }
+
+    private static Set<String> getWords(final String text) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            String stripped = StringUtils.strip(word, HYPHEN);
+            if (!stripped.isEmpty()) {
+                words.add(StringUtils.left(stripped, MAX_TOKEN_LENGTH));
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,21 @@
+package hirs.data.persist;
+
+/**
+ * An entity whose tables in the portal are searched through an index of the words in its
+ * searchable fields, rather than by scanning every row for the search text.  The words are
+ * stored as {@link SearchTokens} alongside the entity and must be recomputed whenever the
+ * searchable fields change, which {@link hirs.persist.DBManager} does each time the entity is
+ * saved or updated.
+ */
+public interface SearchableEntity {
+
+    /**
+     * The name of the field holding an entity's search tokens.
+     */
+    String SEARCH_TOKENS_FIELD = "searchTokens";
+
+    /**
+     * Recomputes the entity's search tokens from the current values of its searchable fields.
+     */
+    void updateSearchTokens();
+}
@@ -47,6 +47,20 @@ public abstract class AbstractImaBaselineRecord {
     @Column(name = PATH_FIELD, nullable = true, length = 2048)
     private final String path;
 
+    /**
+     * Holds the name of the 'partialPath' field.
+     */
+    public static final String PARTIAL_PATH_FIELD = "partialPath";
+
+    /**
+     * The longest partial path that is stored.  File names are at most NAME_MAX (255) bytes
+     * long, and a column of this length is short enough to index.
+     */
+    public static final int MAX_PARTIAL_PATH_LENGTH = 255;
+
+    @Column(name = PARTIAL_PATH_FIELD, nullable = true, length = MAX_PARTIAL_PATH_LENGTH)
+    private String partialPath;
+
     /**
      * Holds the name of the 'hash' field.
      */
@@ -83,6 +97,9 @@ public abstract class AbstractImaBaselineRecord {
         if (path != null && StringUtils.isBlank(path)) {
             throw new IllegalArgumentException("Path is blank");
         }
+        if (path != null) {
+            this.partialPath = getStoredPartialPath(path);
+        }
         if (hash != null) {
             this.hash = hash.asOptionalDigest();
         } else {
@@ -135,7 +152,9 @@ public abstract class AbstractImaBaselineRecord {
     }
 
     /**
-     * Get the partial path associated with this baseline record; may be null.
+     * Get the partial path associated with this baseline record; may be null.  The partial path
+     * is computed when the record is created and persisted with it, so it is only computed here
+     * for records stored before the partial path was, or whose partial path is too long to store.
      *
      * @return the partial path associated with this baseline record; may be null.
      */
@@ -143,7 +162,26 @@ public abstract class AbstractImaBaselineRecord {
         if (path == null) {
             return null;
         }
-        return getPartialPath(path);
+        if (partialPath == null) {
+            return getPartialPath(path);
+        }
+        return partialPath;
+    }
+
+    /**
+     * Returns the partial path of the given path as it is stored: null if it is longer than
+     * {@link #MAX_PARTIAL_PATH_LENGTH}.  Such a partial path cannot be the name of a measured
+     * file, so the record is never looked up by it.
+     *
+     * @param path the path for which to generate a partial path
+     * @return the file name to store, or null
+     */
+    public static String getStoredPartialPath(final String path) {
+        String storedPartialPath = getPartialPath(path);
+        if (storedPartialPath.length() > MAX_PARTIAL_PATH_LENGTH) {
+            return null;
+        }
+        return storedPartialPath;
     }
 
     /**
@@ -4,9 +4,11 @@ import hirs.persist.RepositoryManager;
 import hirs.repository.Repository;
 import hirs.repository.RepoPackage;
 import org.hibernate.Criteria;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -118,7 +120,24 @@ public class BroadRepoImaBaseline extends QueryableRecordImaBaseline
     }
 
     @Override
-    public void configureCriteriaForBaselineRecords(final Criteria criteria, final int bucket) {
+    public void configureCriteriaForBaselineRecords(final Criteria criteria, final int fromBucket,
+                                                    final int toBucket) {
+        String bucketField = getRecordFieldName(IMABaselineRecord.BUCKET_FIELD);
+        configureCriteriaForBaselineRecords(criteria, Restrictions.and(
+                Restrictions.ge(bucketField, fromBucket),
+                Restrictions.lt(bucketField, toBucket)));
+    }
+
+    @Override
+    public void configureCriteriaForBaselineRecords(final Criteria criteria,
+                                                    final String recordField,
+                                                    final Collection<?> values) {
+        configureCriteriaForBaselineRecords(criteria,
+                Restrictions.in(getRecordFieldName(recordField), values));
+    }
+
+    private void configureCriteriaForBaselineRecords(final Criteria criteria,
+                                                     final Criterion recordRestriction) {
         criteria.add(Restrictions.eq("id", getId()))
                 .setProjection(Projections.projectionList()
                         .add(Projections.property(
@@ -133,12 +152,7 @@ public class BroadRepoImaBaseline extends QueryableRecordImaBaseline
                                 ), IMABaselineRecord.HASH_FIELD)
                 );
 
-        criteria.add(Restrictions.eq(
-                String.format("%s.%s",
-                        RepoPackage.PACKAGE_RECORDS_FIELD,
-                        IMABaselineRecord.BUCKET_FIELD),
-                bucket)
-        );
+        criteria.add(recordRestriction);
         criteria.createAlias(REPO_PACKAGES_FIELD, REPO_PACKAGES_FIELD);
         criteria.createAlias(
                 String.format("%s.%s", REPO_PACKAGES_FIELD, RepoPackage.PACKAGE_RECORDS_FIELD),
@@ -146,6 +160,10 @@ public class BroadRepoImaBaseline extends QueryableRecordImaBaseline
         );
     }
 
+    private static String getRecordFieldName(final String recordField) {
+        return String.format("%s.%s", RepoPackage.PACKAGE_RECORDS_FIELD, recordField);
+    }
+
     /**
      * Get the <code>Set</code> of <code>RepoPackage</code>s associated with this baseline.
      *
@@ -14,6 +14,7 @@ import javax.persistence.Transient;
 
 import com.google.common.base.Preconditions;
 import hirs.data.persist.Digest;
+import org.apache.commons.codec.digest.DigestUtils;
 
 /**
  * An <code>IMABaselineRecord</code> represents a single entry in an
@@ -22,15 +23,20 @@ import hirs.data.persist.Digest;
  * sets via ImaAcceptableRecordBaselines.
  */
 @Entity
-@Table(indexes = { @Index(columnList = "bucket") })
+@Table(indexes = { @Index(columnList = "bucket"), @Index(columnList = "digest"),
+        @Index(columnList = "partialPath"), @Index(columnList = "pathDigest") })
 public class IMABaselineRecord extends AbstractImaBaselineRecord {
     /**
      * IMABaselineRecords are randomly assigned buckets based on a hash of their path.  These
      * bucket values are used to artificially segment the baseline into equal divisions for
      * simultaneous multithreaded retrieval.  This defines the number of distinct bucket values that
-     * will be used in this process.
+     * will be used in this process.  There are many more buckets than threads retrieving them;
+     * each thread retrieves a contiguous range of buckets, so that the number of threads can be
+     * changed without reassigning the records' buckets.
+     *
+     * @see #getFirstBucketOfPartition(int, int)
      */
-    public static final int FILENAME_HASH_BUCKET_COUNT = 4;
+    public static final int FILENAME_HASH_BUCKET_COUNT = 1024;
 
     /**
      * Holds the name of the 'bucket' field.
@@ -40,6 +46,22 @@ public class IMABaselineRecord extends AbstractImaBaselineRecord {
     @Column(name = BUCKET_FIELD, nullable = false)
     private final int bucket;
 
+    /**
+     * Holds the name of the 'pathDigest' field.
+     */
+    public static final String PATH_DIGEST_FIELD = "pathDigest";
+
+    /**
+     * The length of a path digest, a hex encoded SHA-1 digest.
+     */
+    private static final int PATH_DIGEST_LENGTH = 40;
+
+    /**
+     * A fixed-width digest of the path, which unlike the path itself is short enough to index.
+     */
+    @Column(name = PATH_DIGEST_FIELD, nullable = true, length = PATH_DIGEST_LENGTH)
+    private final String pathDigest;
+
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "ima_baseline_id")
     private SimpleImaBaseline baseline;
@@ -59,6 +81,7 @@ public class IMABaselineRecord extends AbstractImaBaselineRecord {
         Preconditions.checkNotNull(path, "Path cannot be null.");
         Preconditions.checkNotNull(hash, "Hash cannot be null.");
         this.bucket = getBucket(path);
+        this.pathDigest = getPathDigest(path);
     }
 
     /**
@@ -87,11 +110,56 @@ public class IMABaselineRecord extends AbstractImaBaselineRecord {
      * @param path the path to hash
      * @return the hash of the path
      */
-    private static int getBucket(final String path) {
+    public static int getBucket(final String path) {
         if (path == null) {
             throw new IllegalArgumentException("Cannot get bucket for null value");
         }
-        return Math.abs(getPartialPath(path).hashCode()) % FILENAME_HASH_BUCKET_COUNT;
+        return Math.floorMod(getPartialPath(path).hashCode(), FILENAME_HASH_BUCKET_COUNT);
+    }
+
+    /**
+     * Returns the digest of the given path that records are stored and looked up by.  Distinct
+     * paths may share a digest, so records found by it must be compared by path.
+     *
+     * @param path the path to digest
+     * @return the hex encoded SHA-1 digest of the path
+     */
+    public static String getPathDigest(final String path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Cannot get path digest for null value");
+        }
+        return DigestUtils.sha1Hex(path);
+    }
+
+    /**
+     * Returns the first bucket of the given partition when the buckets are divided into the
+     * given number of contiguous, nearly equal ranges.  The partition holds the buckets from its
+     * first bucket up to, but not including, the first bucket of the next partition.
+     *
+     * @param partition the partition, from 0 to partitionCount; partitionCount returns
+     *                  {@link #FILENAME_HASH_BUCKET_COUNT}, the end of the last partition
+     * @param partitionCount the number of partitions, from 1 to
+     *                       {@link #FILENAME_HASH_BUCKET_COUNT}
+     * @return the first bucket of the partition
+     */
+    public static int getFirstBucketOfPartition(final int partition, final int partitionCount) {
+        Preconditions.checkArgument(
+                partitionCount > 0 && partitionCount <= FILENAME_HASH_BUCKET_COUNT,
+                "Partition count must be between 1 and %s", FILENAME_HASH_BUCKET_COUNT);
+        Preconditions.checkArgument(partition >= 0 && partition <= partitionCount,
+                "Partition must be between 0 and the partition count");
+        return (int) ((long) partition * FILENAME_HASH_BUCKET_COUNT / partitionCount);
+    }
+
+    /**
+     * Returns the bucket this record is stored in.  Records saved before
+     * {@link #FILENAME_HASH_BUCKET_COUNT} changed may be stored in a different bucket than
+     * {@link #getBucket(String)} returns for their path until they are migrated.
+     *
+     * @return the record's bucket
+     */
+    public int getStoredBucket() {
+        return bucket;
     }
 
     /**
@@ -100,6 +168,7 @@ public class IMABaselineRecord extends AbstractImaBaselineRecord {
     protected IMABaselineRecord() {
         super();
         this.bucket = 0;
+        this.pathDigest = null;
     }
 
     /**
@@ -61,23 +61,18 @@ public abstract class QueryableRecordImaBaseline extends ImaAcceptableRecordBase
         final Collection<String> pathsToFind = new HashSet<>();
         for (IMAMeasurementRecord record : records) {
             if (record != null) {
-                pathsToFind.addAll(ImaRecordMatcher.getMatchingPaths(imaPolicy, record.getPath()));
+                pathsToFind.addAll(ImaRecordMatcher.getMatchingPaths(imaPolicy, record.getPath(),
+                        record.getPartialPath()));
             }
         }
 
-        Collection<IMABaselineRecord> retrievedRecords = recordManager.iterateOverBaselineRecords(
-                this, new Callback<IMABaselineRecord, IMABaselineRecord>() {
-                    @Override
-                    public IMABaselineRecord call(final IMABaselineRecord baselineRecord) {
-                        if (pathsToFind.contains(baselineRecord.getPath())) {
-                            return baselineRecord;
-                        } else if (imaPolicy.isPartialPathEnable()
-                                && pathsToFind.contains(baselineRecord.getPartialPath())) {
-                            return baselineRecord;
-                        }
-                        return null;
-                    }
-        });
+        Collection<IMABaselineRecord> retrievedRecords;
+        if (imaPolicy.isPartialPathEnable()) {
+            retrievedRecords = recordManager.getBaselineRecordsByPathOrPartialPath(
+                    this, pathsToFind);
+        } else {
+            retrievedRecords = recordManager.getBaselineRecordsByPath(this, pathsToFind);
+        }
 
         return new ImaAcceptablePathAndHashRecordMatcher(retrievedRecords, imaPolicy, this)
                 .batchMatch(records);
@@ -105,16 +100,8 @@ public abstract class QueryableRecordImaBaseline extends ImaAcceptableRecordBase
                 .map(IMAMeasurementRecord::getHash)
                 .collect(Collectors.toSet());
 
-        Collection<IMABaselineRecord> retrievedRecords = recordManager.iterateOverBaselineRecords(
-                this, new Callback<IMABaselineRecord, IMABaselineRecord>() {
-                    @Override
-                    public IMABaselineRecord call(final IMABaselineRecord baselineRecord) {
-                        if (hashesToFind.contains(baselineRecord.getHash())) {
-                            return baselineRecord;
-                        }
-                        return null;
-                    }
-                });
+        Collection<IMABaselineRecord> retrievedRecords =
+                recordManager.getBaselineRecordsByHash(this, hashesToFind);
 
         return new ImaAcceptableHashRecordMatcher(retrievedRecords, imaPolicy, this)
                 .batchMatch(records);
@@ -146,11 +133,27 @@ public abstract class QueryableRecordImaBaseline extends ImaAcceptableRecordBase
 
     /**
      * This method configures the provided criteria to retrieve all of its component
-     * {@link IMABaselineRecord}s.  The given bucket should be used by the receiving code
-     * to only retrieve {@link IMABaselineRecord}s that are in the given bucket.
+     * {@link IMABaselineRecord}s.  The given buckets should be used by the receiving code
+     * to only retrieve {@link IMABaselineRecord}s whose bucket is in the given range.
+     *
+     * @param criteria the criteria to configure
+     * @param fromBucket the first bucket that should be configured on the criteria
+     * @param toBucket the bucket after the last bucket that should be configured on the criteria
+     */
+    public abstract void configureCriteriaForBaselineRecords(Criteria criteria, int fromBucket,
+                                                             int toBucket);
+
+    /**
+     * This method configures the provided criteria to retrieve the component
+     * {@link IMABaselineRecord}s whose given field holds one of the given values.  This is used
+     * to look up the records matching a report through the indexes on their fields, rather than
+     * retrieving every record in the baseline.
      *
      * @param criteria the criteria to configure
-     * @param bucket the bucket that should be configured on the criteria
+     * @param recordField the name of the {@link IMABaselineRecord} field to restrict
+     * @param values the values the field may hold
      */
-    public abstract void configureCriteriaForBaselineRecords(Criteria criteria, int bucket);
+    public abstract void configureCriteriaForBaselineRecords(Criteria criteria,
+                                                             String recordField,
+                                                             Collection<?> values);
 }
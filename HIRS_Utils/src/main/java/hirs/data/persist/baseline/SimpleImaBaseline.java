@@ -5,6 +5,7 @@ import com.google.common.base.Preconditions;
 import hirs.data.persist.IMAMeasurementRecord;
 import hirs.data.persist.IMAPolicy;
 import hirs.ima.matching.BatchImaMatchStatus;
+import hirs.ima.matching.CompiledImaBaseline;
 import hirs.ima.matching.ImaAcceptableHashRecordMatcher;
 import hirs.ima.matching.ImaAcceptablePathAndHashRecordMatcher;
 import hirs.persist.ImaBaselineRecordManager;
@@ -179,6 +180,11 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
         Preconditions.checkArgument(records != null, "Records cannot be null");
         Preconditions.checkArgument(imaPolicy != null, "IMA policy cannot be null");
 
+        CompiledImaBaseline compiledBaseline = getCompiledBaseline(recordManager);
+        if (compiledBaseline != null) {
+            return new ImaAcceptablePathAndHashRecordMatcher(compiledBaseline, imaPolicy, this)
+                    .batchMatch(records);
+        }
         return new ImaAcceptablePathAndHashRecordMatcher(imaRecords, imaPolicy, this)
                 .batchMatch(records);
     }
@@ -192,10 +198,27 @@ public class SimpleImaBaseline extends ImaAcceptableRecordBaseline {
         Preconditions.checkArgument(records != null, "Records cannot be null");
         Preconditions.checkArgument(imaPolicy != null, "IMA policy cannot be null");
 
+        CompiledImaBaseline compiledBaseline = getCompiledBaseline(recordManager);
+        if (compiledBaseline != null) {
+            return new ImaAcceptableHashRecordMatcher(compiledBaseline, imaPolicy, this)
+                    .batchMatch(records);
+        }
         return new ImaAcceptableHashRecordMatcher(imaRecords, imaPolicy, this)
                 .batchMatch(records);
     }
 
+    /**
+     * Returns the compiled copy of this baseline's records kept by the given record manager, if
+     * it keeps one, so that matching does not build lookups of every record on the heap.
+     */
+    private CompiledImaBaseline getCompiledBaseline(
+            final ImaBaselineRecordManager recordManager) {
+        if (recordManager == null || getId() == null) {
+            return null;
+        }
+        return recordManager.getCompiledBaseline(getId());
+    }
+
     @Override
     public Collection<IMABaselineRecord> getRecordsExcept(
             final ImaBaselineRecordManager recordManager,
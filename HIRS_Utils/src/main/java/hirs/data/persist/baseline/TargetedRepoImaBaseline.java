@@ -9,6 +9,7 @@ import hirs.repository.Repository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.Criteria;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.springframework.util.CollectionUtils;
@@ -141,7 +142,24 @@ public class TargetedRepoImaBaseline extends QueryableRecordImaBaseline
     }
 
     @Override
-    public void configureCriteriaForBaselineRecords(final Criteria criteria, final int bucket) {
+    public void configureCriteriaForBaselineRecords(final Criteria criteria, final int fromBucket,
+                                                    final int toBucket) {
+        String bucketField = getRecordFieldName(IMABaselineRecord.BUCKET_FIELD);
+        configureCriteriaForBaselineRecords(criteria, Restrictions.and(
+                Restrictions.ge(bucketField, fromBucket),
+                Restrictions.lt(bucketField, toBucket)));
+    }
+
+    @Override
+    public void configureCriteriaForBaselineRecords(final Criteria criteria,
+                                                    final String recordField,
+                                                    final Collection<?> values) {
+        configureCriteriaForBaselineRecords(criteria,
+                Restrictions.in(getRecordFieldName(recordField), values));
+    }
+
+    private void configureCriteriaForBaselineRecords(final Criteria criteria,
+                                                     final Criterion recordRestriction) {
         criteria.add(Restrictions.eq("id", getId()))
                 .setProjection(Projections.projectionList()
                         .add(Projections.property(
@@ -156,12 +174,7 @@ public class TargetedRepoImaBaseline extends QueryableRecordImaBaseline
                         ), IMABaselineRecord.HASH_FIELD)
                 );
 
-        criteria.add(Restrictions.eq(
-                String.format("%s.%s",
-                        RepoPackage.PACKAGE_RECORDS_FIELD,
-                        IMABaselineRecord.BUCKET_FIELD),
-                bucket)
-        );
+        criteria.add(recordRestriction);
         criteria.createAlias(REPO_PACKAGES_FIELD, REPO_PACKAGES_FIELD);
         criteria.createAlias(
                 String.format("%s.%s", REPO_PACKAGES_FIELD, RepoPackage.PACKAGE_RECORDS_FIELD),
@@ -169,6 +182,10 @@ public class TargetedRepoImaBaseline extends QueryableRecordImaBaseline
         );
     }
 
+    private static String getRecordFieldName(final String recordField) {
+        return String.format("%s.%s", RepoPackage.PACKAGE_RECORDS_FIELD, recordField);
+    }
+
     /**
      * Get the <code>Set</code> of <code>RepoPackage</code>s associated with this baseline.
      *
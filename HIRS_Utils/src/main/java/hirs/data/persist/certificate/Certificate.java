@@ -3,6 +3,8 @@ package hirs.data.persist.certificate;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.base.Preconditions;
 import hirs.data.persist.ArchivableEntity;
+import hirs.data.persist.SearchTokens;
+import hirs.data.persist.SearchableEntity;
 import hirs.utils.HexUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -37,10 +39,13 @@ import org.bouncycastle.cert.X509AttributeCertificateHolder;
 import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.util.encoders.Base64;
 
+import javax.persistence.CollectionTable;
 import javax.persistence.Column;
+import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
 import javax.persistence.Transient;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
@@ -55,7 +60,6 @@ import java.security.Signature;
 import java.security.SignatureException;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
 import java.security.cert.CertificateParsingException;
 import java.security.cert.X509Certificate;
 import java.text.ParseException;
@@ -63,9 +67,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Objects;
+import java.util.Set;
 
 
 /**
@@ -74,7 +80,7 @@ import java.util.Objects;
  * those attributes.
  */
 @Entity
-public abstract class Certificate extends ArchivableEntity {
+public abstract class Certificate extends ArchivableEntity implements SearchableEntity {
     private static final String PEM_HEADER = "-----BEGIN CERTIFICATE-----";
     private static final String PEM_FOOTER = "-----END CERTIFICATE-----";
     private static final String PEM_ATTRIBUTE_HEADER = "-----BEGIN ATTRIBUTE CERTIFICATE-----";
@@ -255,6 +261,9 @@ public abstract class Certificate extends ArchivableEntity {
     @Transient
     private X509Certificate parsedX509Cert = null;
 
+    @Transient
+    private AttributeCertificate parsedAttributeCert = null;
+
     private String signatureAlgorithm;
     private String publicKeyAlgorithm;
     private String keyUsage;
@@ -269,6 +278,29 @@ public abstract class Certificate extends ArchivableEntity {
     private String crlPoints;
     private int publicKeySize;
 
+    /**
+     * Holds the name of the table storing the search tokens of certificates.
+     */
+    public static final String SEARCH_TOKEN_TABLE = "CertificateSearchToken";
+
+    /**
+     * Holds the name of the search token table's column referencing the certificate.
+     */
+    public static final String SEARCH_TOKEN_CERTIFICATE_COLUMN = "certificate_id";
+
+    /**
+     * Holds the name of the search token table's column storing the token.
+     */
+    public static final String SEARCH_TOKEN_COLUMN = "token";
+
+    @ElementCollection
+    @CollectionTable(name = SEARCH_TOKEN_TABLE,
+            joinColumns = @JoinColumn(name = SEARCH_TOKEN_CERTIFICATE_COLUMN),
+            indexes = @Index(columnList = SEARCH_TOKEN_COLUMN))
+    @Column(name = SEARCH_TOKEN_COLUMN, nullable = false,
+            length = SearchTokens.MAX_TOKEN_LENGTH)
+    private Set<String> searchTokens = new HashSet<>();
+
     /**
      * Default constructor necessary for Hibernate.
      */
@@ -844,13 +876,8 @@ private String getAuthorityInfoAccess(final byte[] authoInfoAccess) {
             return parsedX509Cert;
         }
 
-        try (ByteArrayInputStream certInputStream = new ByteArrayInputStream(certificateBytes)) {
-            CertificateFactory cf = CertificateFactory.getInstance("X.509");
-            parsedX509Cert = (X509Certificate) cf.generateCertificate(certInputStream);
-            return parsedX509Cert;
-        } catch (CertificateException e) {
-            throw new IOException("Cannot construct X509Certificate from the input stream", e);
-        }
+        parsedX509Cert = ParsedCertificateCache.getInstance().getX509Certificate(certificateBytes);
+        return parsedX509Cert;
     }
 
     /**
@@ -862,7 +889,7 @@ private String getAuthorityInfoAccess(final byte[] authoInfoAccess) {
      */
     @JsonIgnore
     public X509AttributeCertificateHolder getX509AttributeCertificateHolder() throws IOException {
-        return new X509AttributeCertificateHolder(certificateBytes);
+        return new X509AttributeCertificateHolder(getAttributeCertificate());
     }
 
     /**
@@ -874,9 +901,13 @@ private String getAuthorityInfoAccess(final byte[] authoInfoAccess) {
      */
     @JsonIgnore
     public AttributeCertificate getAttributeCertificate() throws IOException {
-        AttributeCertificate attCertificate = AttributeCertificate
-                .getInstance(ASN1Primitive.fromByteArray(certificateBytes));
-        return attCertificate;
+        if (parsedAttributeCert != null) {
+            return parsedAttributeCert;
+        }
+
+        parsedAttributeCert = ParsedCertificateCache.getInstance()
+                .getAttributeCertificate(certificateBytes);
+        return parsedAttributeCert;
     }
 
     /**
@@ -1078,6 +1109,34 @@ private String getAuthorityInfoAccess(final byte[] authoInfoAccess) {
         return null;
     }
 
+    /**
+     * Returns the values of the fields this certificate's table in the portal can be searched
+     * by.  Subclasses whose tables show further fields add their values to the list.  The
+     * validity dates are not searchable in any of the tables, so they are not included.
+     *
+     * @return a modifiable list of the searchable values, which may contain nulls
+     */
+    protected List<Object> getSearchableValues() {
+        return new ArrayList<>(Arrays.asList(issuer, subject));
+    }
+
+    @Override
+    public void updateSearchTokens() {
+        // replaced rather than modified, as the tokens of a detached certificate are not loaded
+        searchTokens = SearchTokens.getTokens(getSearchableValues());
+    }
+
+    /**
+     * Returns the search tokens of this certificate, as of when it was loaded or they were last
+     * updated.  The tokens of a certificate loaded in an earlier session are not available.
+     *
+     * @return an unmodifiable view of the search tokens
+     */
+    @JsonIgnore
+    public Set<String> getSearchTokens() {
+        return Collections.unmodifiableSet(searchTokens);
+    }
+
     @Override
     public String toString() {
         return String.format("Certificate{%s, AuthID=%s, serialNumber=%s, "
@@ -7,6 +7,7 @@ import javax.persistence.ManyToOne;
 import javax.persistence.MappedSuperclass;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 
 /**
  * A Certificate that is associated with a single device.
@@ -71,6 +72,15 @@ public abstract class DeviceAssociatedCertificate extends Certificate {
         this.device = device;
     }
 
+    @Override
+    protected List<Object> getSearchableValues() {
+        List<Object> values = super.getSearchableValues();
+        if (device != null) {
+            values.add(device.getName());
+        }
+        return values;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
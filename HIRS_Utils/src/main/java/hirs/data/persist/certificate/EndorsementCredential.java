@@ -46,9 +46,11 @@ import java.nio.file.Path;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.text.ParseException;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -677,6 +679,13 @@ public class EndorsementCredential extends DeviceAssociatedCertificate {
         return version;
     }
 
+    @Override
+    protected List<Object> getSearchableValues() {
+        List<Object> values = super.getSearchableValues();
+        values.addAll(Arrays.asList(credentialType, manufacturer, model, version));
+        return values;
+    }
+
     /**
      * Get the TPM specification.
      * @return the TPM specification.
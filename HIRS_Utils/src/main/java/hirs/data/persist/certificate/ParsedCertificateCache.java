@@ -0,0 +1,194 @@
+package hirs.data.persist.certificate;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.x509.AttributeCertificate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A bounded cache of parsed certificates shared by every {@link Certificate} in the JVM, keyed by
+ * the certificate's hash and a SHA-256 digest of its bytes.  A {@link Certificate} only keeps
+ * what it parsed for as long as the object lives, and each query through a
+ * {@link hirs.persist.CertificateSelector} returns new objects, so without this cache validation
+ * and chain building decode the same CA, endorsement and platform credentials again for every
+ * device.
+ * <p>
+ * The cache is bounded by the total size of the raw certificates it holds and evicts the least
+ * recently used certificates once that bound is reached.  Its values are softly referenced, so
+ * the garbage collector may also reclaim them when memory runs low.  Cached certificates are
+ * shared between threads and must be treated as read-only by callers.
+ */
+public final class ParsedCertificateCache {
+
+    /**
+     * The default maximum number of raw certificate bytes held by the cache (16 MiB).
+     */
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    private static final ParsedCertificateCache INSTANCE = new ParsedCertificateCache();
+
+    private final Cache<Key, Object> certificates;
+
+    /**
+     * Creates a cache bounded by {@link #DEFAULT_MAX_BYTES}.
+     */
+    public ParsedCertificateCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a cache bounded by the given number of raw certificate bytes.
+     *
+     * @param maxBytes the maximum total size of the raw certificates held by the cache
+     */
+    public ParsedCertificateCache(final long maxBytes) {
+        this.certificates = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Object certificate) -> key.size)
+                .softValues()
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cache shared by every {@link Certificate}.
+     *
+     * @return the shared cache
+     */
+    public static ParsedCertificateCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the X509 certificate encoded by the given bytes, parsing it only if it is not
+     * already cached.
+     *
+     * @param certificateBytes the encoded certificate
+     * @return the parsed certificate, which must not be modified
+     * @throws IOException if the bytes cannot be parsed as an X509 certificate
+     */
+    public X509Certificate getX509Certificate(final byte[] certificateBytes)
+            throws IOException {
+        return (X509Certificate) get(new Key(Kind.X509, certificateBytes), () -> {
+            try (ByteArrayInputStream certInputStream =
+                         new ByteArrayInputStream(certificateBytes)) {
+                CertificateFactory cf = CertificateFactory.getInstance("X.509");
+                return cf.generateCertificate(certInputStream);
+            } catch (CertificateException e) {
+                throw new IOException("Cannot construct X509Certificate from the input stream",
+                        e);
+            }
+        });
+    }
+
+    /**
+     * Returns the attribute certificate encoded by the given bytes, parsing it only if it is not
+     * already cached.
+     *
+     * @param certificateBytes the encoded certificate
+     * @return the parsed certificate, which must not be modified
+     * @throws IOException if the bytes cannot be parsed as an attribute certificate
+     */
+    public AttributeCertificate getAttributeCertificate(final byte[] certificateBytes)
+            throws IOException {
+        return (AttributeCertificate) get(new Key(Kind.ATTRIBUTE, certificateBytes),
+                () -> AttributeCertificate.getInstance(
+                        ASN1Primitive.fromByteArray(certificateBytes)));
+    }
+
+    private Object get(final Key key, final Callable<Object> parser) throws IOException {
+        try {
+            return certificates.get(key, parser);
+        } catch (ExecutionException | UncheckedExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Unable to parse certificate", cause);
+        }
+    }
+
+    /**
+     * Discards every parsed certificate in the cache.
+     */
+    public void invalidateAll() {
+        certificates.invalidateAll();
+    }
+
+    /**
+     * Returns the number of parsed certificates in the cache.
+     *
+     * @return the approximate number of cached certificates
+     */
+    public long size() {
+        return certificates.size();
+    }
+
+    /**
+     * Returns the hit, miss, load and eviction counts recorded by the cache.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats getStats() {
+        return certificates.stats();
+    }
+
+    /**
+     * The form a certificate was parsed into.
+     */
+    private enum Kind {
+        X509,
+        ATTRIBUTE
+    }
+
+    /**
+     * Identifies a certificate by the same hash as {@link Certificate#getCertificateHash()},
+     * with a digest of its bytes to tell apart certificates whose hashes collide.
+     */
+    private static final class Key {
+        private final Kind kind;
+        private final int certificateHash;
+        private final byte[] digest;
+        private final int size;
+
+        private Key(final Kind kind, final byte[] certificateBytes) {
+            this.kind = kind;
+            this.certificateHash = Arrays.hashCode(certificateBytes);
+            this.digest = DigestUtils.sha256(certificateBytes);
+            this.size = certificateBytes.length;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return kind == that.kind && certificateHash == that.certificateHash
+                    && Arrays.equals(digest, that.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, certificateHash);
+        }
+    }
+}
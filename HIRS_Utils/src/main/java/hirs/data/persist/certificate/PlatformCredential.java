@@ -1,5 +1,6 @@
 package hirs.data.persist.certificate;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.base.Preconditions;
 import hirs.data.persist.certificate.attributes.ComponentIdentifier;
 import hirs.data.persist.certificate.attributes.PlatformConfiguration;
@@ -40,6 +41,7 @@ import javax.persistence.Entity;
 import javax.persistence.Transient;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -209,6 +211,10 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
     @Column
     private String credentialType = null;
 
+    /**
+     * Holds the name of the 'platformBase' field.
+     */
+    public static final String PLATFORM_BASE_FIELD = "platformBase";
     @Column
     private boolean platformBase = false;
 
@@ -224,7 +230,10 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
     @Column
     private String version = null;
 
-    private static final String PLATFORM_SERIAL_FIELD = "platformSerial";
+    /**
+     * Holds the name of the 'platformSerial' field.
+     */
+    public static final String PLATFORM_SERIAL_FIELD = "platformSerial";
     @Column
     private String platformSerial = null;
 
@@ -261,6 +270,10 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
     @Transient
     private EndorsementCredential endorsementCredential = null;
 
+    // parsed from the certificate when first needed, as listing credentials does not need them
+    @Transient
+    private volatile Map<String, Object> parsedAttributes = null;
+
     private String platformChainType = Strings.EMPTY;
     private boolean isDeltaChain = false;
 
@@ -446,6 +459,14 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
         return platformSerial;
     }
 
+    @Override
+    protected List<Object> getSearchableValues() {
+        List<Object> values = super.getSearchableValues();
+        values.addAll(Arrays.asList(credentialType, manufacturer, model, version,
+                platformSerial));
+        return values;
+    }
+
     /**
      * Get the Platform Chassis Serial number.
      *
@@ -712,6 +733,7 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
      * @return cPSuri from the CertificatePolicies.
      * @throws IOException when reading the certificate.
      */
+    @JsonIgnore
     public String getCPSuri() throws IOException {
         Map<String, String> policyQualifier
                 = getPolicyQualifier(getAttributeCertificate().getAcinfo());
@@ -755,13 +777,25 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
     }
 
     /**
-     * Get the Platform Configuration Attribute from the Platform Certificate.
-     * @return a map with all the attributes
+     * Get the Platform Configuration Attribute from the Platform Certificate.  The attributes
+     * are parsed when first requested and kept for later calls.
+     * @return an unmodifiable map with all the attributes
      * @throws IllegalArgumentException when there is a parsing error
      * @throws IOException when reading the certificate.
      */
+    @JsonIgnore
     public Map<String, Object> getAllAttributes()
             throws IllegalArgumentException, IOException {
+        Map<String, Object> attributes = parsedAttributes;
+        if (attributes == null) {
+            attributes = Collections.unmodifiableMap(parseAllAttributes());
+            parsedAttributes = attributes;
+        }
+        return attributes;
+    }
+
+    private Map<String, Object> parseAllAttributes()
+            throws IllegalArgumentException, IOException {
         Map<String, Object> attributes = new HashMap<>();
         ASN1Sequence attributeSequence;
         // Check all attributes for Platform Configuration
@@ -822,12 +856,12 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
      * @throws IllegalArgumentException when there is a parsing error
      * @throws IOException when reading the certificate.
      */
+    @JsonIgnore
     public PlatformConfiguration getPlatformConfiguration()
             throws IllegalArgumentException, IOException {
-
-        if (getAttribute("platformConfiguration") != null
-                && getAttribute("platformConfiguration") instanceof PlatformConfiguration) {
-            return (PlatformConfiguration) getAttribute("platformConfiguration");
+        Object platformConfiguration = getAttribute("platformConfiguration");
+        if (platformConfiguration instanceof PlatformConfiguration) {
+            return (PlatformConfiguration) platformConfiguration;
         }
 
         return null;
@@ -839,11 +873,12 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
      * @throws IllegalArgumentException when there is a parsing error
      * @throws IOException when reading the certificate.
      */
+    @JsonIgnore
     public URIReference getPlatformConfigurationURI()
             throws IllegalArgumentException, IOException {
-        if (getAttribute("platformConfigurationURI") != null
-                && getAttribute("platformConfigurationURI") instanceof URIReference) {
-            return (URIReference) getAttribute("platformConfigurationURI");
+        Object platformConfigurationUri = getAttribute("platformConfigurationURI");
+        if (platformConfigurationUri instanceof URIReference) {
+            return (URIReference) platformConfigurationUri;
         }
         return null;
     }
@@ -854,11 +889,12 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
      * @throws IllegalArgumentException when there is a parsing error
      * @throws IOException when reading the certificate.
      */
+    @JsonIgnore
     public TBBSecurityAssertion getTBBSecurityAssertion()
             throws IllegalArgumentException, IOException {
-        if (getAttribute("tbbSecurityAssertion") != null
-                && getAttribute("tbbSecurityAssertion") instanceof TBBSecurityAssertion) {
-            return (TBBSecurityAssertion) getAttribute("tbbSecurityAssertion");
+        Object tbbSecurityAssertion = getAttribute("tbbSecurityAssertion");
+        if (tbbSecurityAssertion instanceof TBBSecurityAssertion) {
+            return (TBBSecurityAssertion) tbbSecurityAssertion;
         }
         return null;
     }
@@ -894,14 +930,16 @@ public class PlatformCredential extends DeviceAssociatedCertificate {
     }
 
     /**
-     * Get the list of component identifiers if there are any.
+     * Get the list of component identifiers if there are any.  Unlike the platform
+     * configuration, the identifiers are parsed again on each call, as validation modifies them.
      * @return the list of component identifiers if there are any
      */
+    @JsonIgnore
     public List<ComponentIdentifier> getComponentIdentifiers() {
         try {
-            PlatformConfiguration platformConfig = getPlatformConfiguration();
-            if (platformConfig != null) {
-                return platformConfig.getComponentIdentifier();
+            Object platformConfig = parseAllAttributes().get("platformConfiguration");
+            if (platformConfig instanceof PlatformConfiguration) {
+                return ((PlatformConfiguration) platformConfig).getComponentIdentifier();
             }
         } catch (IOException e) {
             LOGGER.error("Unable to parse Platform Configuration from Credential or find"
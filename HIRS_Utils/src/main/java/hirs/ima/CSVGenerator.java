@@ -22,6 +22,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.HashMap;
 
 /**
@@ -49,8 +51,28 @@ public final class CSVGenerator {
      */
     public static String imaRecordsToCsv(final ImaAcceptableRecordBaseline imaBaseline) {
         LOGGER.info("Retrieved and parsing all records");
-        StringBuilder sb = new StringBuilder();
-        for (IMABaselineRecord record : imaBaseline.getBaselineRecords()) {
+        StringWriter writer = new StringWriter();
+        try {
+            imaRecordsToCsv(imaBaseline.getBaselineRecords(), writer);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write to a StringWriter", e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the given IMA records as CSV, one row at a time, in the format returned by
+     * {@link #imaRecordsToCsv(ImaAcceptableRecordBaseline)}.  The writer is neither flushed nor
+     * closed.
+     *
+     * @param records the records to write, which may be read from the database as they are
+     *                written
+     * @param writer the writer to write the CSV to
+     * @throws IOException if the CSV cannot be written
+     */
+    public static void imaRecordsToCsv(final Iterable<IMABaselineRecord> records,
+                                       final Writer writer) throws IOException {
+        for (IMABaselineRecord record : records) {
             String stringHashValue;
             Digest theHash = record.getHash();
             if (theHash == null) {
@@ -61,13 +83,12 @@ public final class CSVGenerator {
                 stringHashValue = String.valueOf(hash);
             }
 
-            sb.append("\"")
+            writer.append("\"")
                     .append(record.getPath().replace("\"", "\"\""))
                     .append("\",")
                     .append(stringHashValue)
                     .append(System.lineSeparator());
         }
-        return sb.toString();
     }
 
     /**
@@ -78,15 +99,33 @@ public final class CSVGenerator {
      */
     public static String ignoreSetToCsv(final ImaIgnoreSetBaseline ignoreSetBaseline) {
         LOGGER.info("Retrieved and parsing all records");
-        StringBuilder sb = new StringBuilder();
-        for (ImaIgnoreSetRecord record : ignoreSetBaseline.getImaIgnoreRecords()) {
-            sb.append(record.getPath())
+        StringWriter writer = new StringWriter();
+        try {
+            ignoreSetToCsv(ignoreSetBaseline.getImaIgnoreRecords(), writer);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write to a StringWriter", e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the given ignore set records as CSV, one row at a time, in the format returned by
+     * {@link #ignoreSetToCsv(ImaIgnoreSetBaseline)}.  The writer is neither flushed nor closed.
+     *
+     * @param records the records to write, which may be read from the database as they are
+     *                written
+     * @param writer the writer to write the CSV to
+     * @throws IOException if the CSV cannot be written
+     */
+    public static void ignoreSetToCsv(final Iterable<ImaIgnoreSetRecord> records,
+                                      final Writer writer) throws IOException {
+        for (ImaIgnoreSetRecord record : records) {
+            writer.append(record.getPath())
                     .append(",")
                     .append(StringUtils.defaultString(record.getDescription()))
                     .append(",")
                     .append(System.lineSeparator());
         }
-        return sb.toString();
     }
 
     /**
@@ -97,26 +136,40 @@ public final class CSVGenerator {
      * @return the resulting CSV in a String
      */
     public static String blacklistToCsv(final ImaBlacklistBaseline blacklistBaseline) {
-        StringBuilder sb = new StringBuilder();
-        CSVPrinter csvPrinter;
+        StringWriter writer = new StringWriter();
         try {
-            csvPrinter = CSVFormat.DEFAULT.withRecordSeparator(System.lineSeparator()).print(sb);
-            for (ImaBlacklistRecord record : blacklistBaseline.getRecords()) {
-                String digest = "";
-                Digest hash = record.getHash();
-                if (hash != null) {
-                    digest = hash.toString();
-                }
-                csvPrinter.printRecord(
-                        nullToEmpty(record.getPath()),
-                        digest,
-                        nullToEmpty(record.getDescription())
-                );
-            }
+            blacklistToCsv(blacklistBaseline.getRecords(), writer);
         } catch (IOException e) {
             throw new RuntimeException("Could not instantiate CSV printer");
         }
-        return sb.toString();
+        return writer.toString();
+    }
+
+    /**
+     * Writes the given blacklist records as CSV, one row at a time, in the format returned by
+     * {@link #blacklistToCsv(ImaBlacklistBaseline)}.  The writer is neither flushed nor closed.
+     *
+     * @param records the records to write, which may be read from the database as they are
+     *                written
+     * @param writer the writer to write the CSV to
+     * @throws IOException if the CSV cannot be written
+     */
+    public static void blacklistToCsv(final Iterable<ImaBlacklistRecord> records,
+                                      final Writer writer) throws IOException {
+        CSVPrinter csvPrinter =
+                CSVFormat.DEFAULT.withRecordSeparator(System.lineSeparator()).print(writer);
+        for (ImaBlacklistRecord record : records) {
+            String digest = "";
+            Digest hash = record.getHash();
+            if (hash != null) {
+                digest = hash.toString();
+            }
+            csvPrinter.printRecord(
+                    nullToEmpty(record.getPath()),
+                    digest,
+                    nullToEmpty(record.getDescription())
+            );
+        }
     }
 
     /**
@@ -127,7 +180,25 @@ public final class CSVGenerator {
      */
     public static String tpmRecordsToCsv(final TPMBaseline tpmBaseline) {
         LOGGER.info("Retrieved and parsing all records");
-        StringBuilder sb = new StringBuilder();
+        StringWriter writer = new StringWriter();
+        try {
+            tpmRecordsToCsv(tpmBaseline, writer);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write to a StringWriter", e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the TPM records in the TPMBaseline as CSV, in the format returned by
+     * {@link #tpmRecordsToCsv(TPMBaseline)}.  The writer is neither flushed nor closed.
+     *
+     * @param tpmBaseline tpmBaseline
+     * @param writer the writer to write the CSV to
+     * @throws IOException if the CSV cannot be written
+     */
+    public static void tpmRecordsToCsv(final TPMBaseline tpmBaseline, final Writer writer)
+            throws IOException {
         // Add device info records to the map
         HashMap<TPMBaselineFields, String> map = new HashMap<TPMBaselineFields, String>();
         final FirmwareInfo firmwareInfo = tpmBaseline.getFirmwareInfo();
@@ -154,18 +225,17 @@ public final class CSVGenerator {
         map.put(TPMBaselineFields.TPM_VERSION_REV_MAJOR, "" + tpmInfo.getTPMVersionRevMajor());
         map.put(TPMBaselineFields.TPM_VERSION_REV_MINOR, "" + tpmInfo.getTPMVersionRevMinor());
         // Add device info records to the CSV file
-        sb.append(TPMBaselineFields.toCSV(map));
+        writer.append(TPMBaselineFields.toCSV(map));
 
         // Add measurement records to the CSV file
         for (TPMMeasurementRecord record : tpmBaseline.getPcrRecords()) {
             final byte[] digest = record.getHash().getDigest();
             final char[] hash = Hex.encodeHex(digest);
-            sb.append(record.getPcrId())
+            writer.append(String.valueOf(record.getPcrId()))
                     .append(",")
                     .append(String.valueOf(hash))
                     .append(System.lineSeparator());
         }
-        return sb.toString();
     }
 
     /**
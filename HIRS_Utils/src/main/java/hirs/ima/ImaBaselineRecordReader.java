@@ -0,0 +1,110 @@
+package hirs.ima;
+
+import hirs.data.persist.baseline.AbstractImaBaselineRecord;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the records of an IMA baseline from a CSV file one row at a time, so that baselines can
+ * be imported without holding all of their records in memory.  Rows are numbered from 1 in the
+ * order they are read; the number of the row a record was read from can be used to resume an
+ * import that failed after that row.
+ *
+ * @param <R> the type of IMA baseline record read
+ */
+public abstract class ImaBaselineRecordReader<R extends AbstractImaBaselineRecord>
+        implements Closeable {
+
+    /**
+     * Reads the next record, skipping rows that do not hold one.
+     *
+     * @return the next record, or null at the end of the input
+     * @throws IOException if the input cannot be read or a row is malformed
+     */
+    public abstract R read() throws IOException;
+
+    /**
+     * Returns the number of the last row read, which is the row that the last record returned by
+     * {@link #read()} was read from.
+     *
+     * @return the number of rows read so far
+     */
+    public abstract long getRowNumber();
+
+    /**
+     * Parses one line of a CSV file into an IMA baseline record.
+     *
+     * @param <R> the type of IMA baseline record parsed
+     */
+    public interface LineParser<R extends AbstractImaBaselineRecord> {
+        /**
+         * Parses a line that is not blank.
+         *
+         * @param line the line to parse
+         * @return the parsed record, or null if the line does not hold one that should be read
+         * @throws Exception if the line is malformed
+         */
+        R parse(String line) throws Exception;
+    }
+
+    /**
+     * Creates a reader for CSV files holding one record per line.  Blank lines are skipped.
+     *
+     * @param inputStream the UTF-8 encoded CSV input, which is closed with the reader
+     * @param parser the parser of each line
+     * @param <R> the type of IMA baseline record read
+     * @return the reader
+     */
+    public static <R extends AbstractImaBaselineRecord> ImaBaselineRecordReader<R> fromLines(
+            final InputStream inputStream, final LineParser<R> parser) {
+        if (inputStream == null) {
+            throw new NullPointerException("inputStream");
+        }
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        return new ImaBaselineRecordReader<R>() {
+            private long rowNumber;
+
+            @Override
+            public R read() throws IOException {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    rowNumber++;
+                    if (StringUtils.isBlank(line)) {
+                        continue;
+                    }
+                    R record;
+                    try {
+                        record = parser.parse(line);
+                    } catch (IOException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new IOException(String.format("Row %d is malformed: %s",
+                                rowNumber, e.getMessage()), e);
+                    }
+                    if (record != null) {
+                        return record;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public long getRowNumber() {
+                return rowNumber;
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+}
@@ -14,6 +14,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Iterator;
 
 /**
  * This class provides methods for generating {@link ImaBlacklistBaseline}s as serialized
@@ -72,22 +73,8 @@ public final class ImaBlacklistBaselineGenerator {
         CSVParser parser = CSVFormat.DEFAULT.parse(buffReader);
 
         try {
-            for (CSVRecord record : parser.getRecords()) {
-                if (record.size() != NUM_CSV_FIELDS) {
-                    throw new IOException(String.format(
-                            "Expected %d fields for record %s", NUM_CSV_FIELDS, record.toString()
-                    ));
-                }
-
-                String path = StringUtils.defaultIfBlank(record.get(0), null);
-                String description = StringUtils.defaultIfBlank(record.get(2), null);
-                Digest digest = null;
-
-                if (!StringUtils.isBlank(record.get(1))) {
-                    digest = Digest.fromString(record.get(1));
-                }
-
-                baseline.addToBaseline(new ImaBlacklistRecord(path, digest, description));
+            for (CSVRecord record : parser) {
+                baseline.addToBaseline(parseCSVRecord(record));
             }
         } catch (IOException e) {
             throw e;
@@ -96,4 +83,66 @@ public final class ImaBlacklistBaselineGenerator {
             buffReader.close();
         }
     }
+
+    /**
+     * Creates a reader of the blacklist records in the provided CSV input, which reads one
+     * record at a time rather than adding every record to a baseline in memory.
+     *
+     * @param inputStream input stream containing the CSV data, which is closed with the reader
+     * @return the reader of the records
+     * @throws IOException if the CSV input cannot be read
+     */
+    public static ImaBaselineRecordReader<ImaBlacklistRecord> newCSVReader(
+            final InputStream inputStream) throws IOException {
+        Preconditions.checkNotNull(inputStream, "Cannot read from null input");
+        final CSVParser parser = CSVFormat.DEFAULT.parse(new BufferedReader(
+                new InputStreamReader(inputStream, Charsets.UTF_8)));
+        final Iterator<CSVRecord> records = parser.iterator();
+
+        return new ImaBaselineRecordReader<ImaBlacklistRecord>() {
+            @Override
+            public ImaBlacklistRecord read() throws IOException {
+                try {
+                    if (!records.hasNext()) {
+                        return null;
+                    }
+                    return parseCSVRecord(records.next());
+                } catch (IllegalStateException e) {
+                    // the parser's iterator wraps the errors reading the input
+                    throw new IOException(e.getMessage(), e.getCause());
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(String.format("Row %d is malformed: %s",
+                            parser.getRecordNumber(), e.getMessage()), e);
+                }
+            }
+
+            @Override
+            public long getRowNumber() {
+                return parser.getRecordNumber();
+            }
+
+            @Override
+            public void close() throws IOException {
+                parser.close();
+            }
+        };
+    }
+
+    private static ImaBlacklistRecord parseCSVRecord(final CSVRecord record) throws IOException {
+        if (record.size() != NUM_CSV_FIELDS) {
+            throw new IOException(String.format(
+                    "Expected %d fields for record %s", NUM_CSV_FIELDS, record.toString()
+            ));
+        }
+
+        String path = StringUtils.defaultIfBlank(record.get(0), null);
+        String description = StringUtils.defaultIfBlank(record.get(2), null);
+        Digest digest = null;
+
+        if (!StringUtils.isBlank(record.get(1))) {
+            digest = Digest.fromString(record.get(1));
+        }
+
+        return new ImaBlacklistRecord(path, digest, description);
+    }
 }
@@ -29,6 +29,10 @@ public class ImaIgnoreSetBaselineGenerator {
     private static final int PATH_INDEX = 0;
     private static final int DESCRIPTION_INDEX = 1;
 
+    // (tmmcgil) I realize this is not the most robust way to parse, but it works
+    // better than what was here before and it doesn't require a lot of changes.
+    private static final Pattern CSV_ROW_PATTERN = Pattern.compile("\"?(.*?)\"?,(.*)");
+
     /**
      * Method generates an IMA measurement baseline from a .csv file containing
      * IMA baseline records. An IMA record consists of properties associated
@@ -96,11 +100,6 @@ public class ImaIgnoreSetBaselineGenerator {
             throw new NullPointerException("in");
         }
 
-        // (tmmcgil) I realize this is not the most robust way to parse, but it works
-        // better than what was here before and it doesn't require a lot of changes.
-        String regex = "\"?(.*?)\"?,(.*)";
-        Pattern p = Pattern.compile(regex);
-
         BufferedReader reader = new BufferedReader(new InputStreamReader(
                 inStream, "UTF8"));
         String dataRow;
@@ -109,26 +108,52 @@ public class ImaIgnoreSetBaselineGenerator {
             if (StringUtils.isBlank(dataRow)) {
                 continue;
             }
-            Matcher m = p.matcher(dataRow);
-            if (!m.matches() || m.groupCount() != 2) {
-                final String msg = "row does not match regex: " + dataRow;
-                LOGGER.error(msg);
-                throw new ImaIgnoreSetBaselineGeneratorException(msg);
-            }
-
-            String path = m.group(1);
-            path = path.replace("\"\"", "\"");
-
-            String description = m.group(2);
-            if (StringUtils.defaultString(description).equalsIgnoreCase("")) {
-                description = null;
-            }
-            final ImaIgnoreSetRecord imaRecord = new ImaIgnoreSetRecord(path,
-                    description);
+            final ImaIgnoreSetRecord imaRecord = parseCSVRow(dataRow);
             baseline.addToBaseline(imaRecord);
             final String msg = String.format("added record %s", imaRecord);
             LOGGER.debug(msg);
         }
         reader.close();
     }
+
+    /**
+     * Creates a reader of the IMA ignore set records in a .csv file in the format read by
+     * {@link #updateBaselineFromCSVFile(ImaIgnoreSetBaseline, InputStream)}, which reads one
+     * record at a time rather than adding every record to a baseline in memory.
+     *
+     * @param inStream
+     *            containing file contents to be read, which is closed with the reader
+     * @return the reader of the records
+     */
+    public static ImaBaselineRecordReader<ImaIgnoreSetRecord> newCSVReader(
+            final InputStream inStream) {
+        return ImaBaselineRecordReader.fromLines(inStream,
+                ImaIgnoreSetBaselineGenerator::parseCSVRow);
+    }
+
+    /**
+     * Parses a row of a .csv file containing IMA ignore set records.
+     *
+     * @param dataRow the row to parse
+     * @return the record
+     * @throws ImaIgnoreSetBaselineGeneratorException if the row is malformed
+     */
+    private static ImaIgnoreSetRecord parseCSVRow(final String dataRow)
+            throws ImaIgnoreSetBaselineGeneratorException {
+        Matcher m = CSV_ROW_PATTERN.matcher(dataRow);
+        if (!m.matches() || m.groupCount() != 2) {
+            final String msg = "row does not match regex: " + dataRow;
+            LOGGER.error(msg);
+            throw new ImaIgnoreSetBaselineGeneratorException(msg);
+        }
+
+        String path = m.group(1);
+        path = path.replace("\"\"", "\"");
+
+        String description = m.group(2);
+        if (StringUtils.defaultString(description).equalsIgnoreCase("")) {
+            description = null;
+        }
+        return new ImaIgnoreSetRecord(path, description);
+    }
 }
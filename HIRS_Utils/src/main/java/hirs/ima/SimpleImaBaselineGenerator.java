@@ -34,6 +34,8 @@ public class SimpleImaBaselineGenerator {
 
     private static final Logger LOGGER
             = LogManager.getLogger(ImaBaseline.class);
+    private static final Pattern CSV_ROW_PATTERN =
+            Pattern.compile("\"?(.*?)\"?,([a-fA-F0-9]{40})");
 
     /**
      * Method generates an IMA measurement baseline from a .csv file containing
@@ -219,9 +221,6 @@ public class SimpleImaBaselineGenerator {
             throw new NullPointerException("in");
         }
 
-        String regex = "\"?(.*?)\"?,([a-fA-F0-9]{40})";
-        Pattern p = Pattern.compile(regex);
-
         BufferedReader reader = new BufferedReader(new InputStreamReader(
                 inStream, "UTF8"));
         String dataRow;
@@ -230,30 +229,60 @@ public class SimpleImaBaselineGenerator {
             if (StringUtils.isBlank(dataRow)) {
                 continue;
             }
-            Matcher m = p.matcher(dataRow);
-            if (!m.matches() || m.groupCount() != 2) {
-                final String msg = "row does not match regex: " + dataRow;
-                LOGGER.error(msg);
-                throw new IMABaselineGeneratorException(msg);
-            }
-
-            String path = m.group(1);
-            path = path.replace("\"\"", "\"");
-
-            try {
-                final byte[] hash = Hex.decodeHex(m.group(2).toCharArray());
-                final Digest digest = new Digest(DigestAlgorithm.SHA1, hash);
-                final IMABaselineRecord imaRecord = new IMABaselineRecord(path,
-                        digest);
+            final IMABaselineRecord imaRecord = parseCSVRow(dataRow);
+            if (imaRecord != null) {
                 baseline.addToBaseline(imaRecord);
                 final String msg = String.format("added record %s", imaRecord);
                 LOGGER.debug(msg);
-            } catch (DecoderException e) {
-                String msg = "File " + path + " has invalid hash sting.  "
-                        + "Record not added to baseline";
-                LOGGER.error(msg, e);
             }
         }
         reader.close();
     }
+
+    /**
+     * Creates a reader of the IMA baseline records in a .csv file in the format read by
+     * {@link #updateBaselineFromCSVFile(SimpleImaBaseline, InputStream)}, which reads one
+     * record at a time rather than adding every record to a baseline in memory.  As when
+     * updating a baseline, rows with an invalid hash are logged and skipped.
+     *
+     * @param inStream
+     *            containing file contents to be read, which is closed with the reader
+     * @return the reader of the records
+     */
+    public static ImaBaselineRecordReader<IMABaselineRecord> newCSVReader(
+            final InputStream inStream) {
+        return ImaBaselineRecordReader.fromLines(inStream,
+                SimpleImaBaselineGenerator::parseCSVRow);
+    }
+
+    /**
+     * Parses a row of a .csv file containing IMA baseline records.
+     *
+     * @param dataRow the row to parse
+     * @return the record, or null if the row's hash is invalid
+     * @throws IMABaselineGeneratorException if the row is malformed
+     */
+    private static IMABaselineRecord parseCSVRow(final String dataRow)
+            throws IMABaselineGeneratorException {
+        Matcher m = CSV_ROW_PATTERN.matcher(dataRow);
+        if (!m.matches() || m.groupCount() != 2) {
+            final String msg = "row does not match regex: " + dataRow;
+            LOGGER.error(msg);
+            throw new IMABaselineGeneratorException(msg);
+        }
+
+        String path = m.group(1);
+        path = path.replace("\"\"", "\"");
+
+        try {
+            final byte[] hash = Hex.decodeHex(m.group(2).toCharArray());
+            final Digest digest = new Digest(DigestAlgorithm.SHA1, hash);
+            return new IMABaselineRecord(path, digest);
+        } catch (DecoderException e) {
+            String msg = "File " + path + " has invalid hash sting.  "
+                    + "Record not added to baseline";
+            LOGGER.error(msg, e);
+            return null;
+        }
+    }
 }
@@ -0,0 +1,446 @@
+package hirs.ima.matching;
+
+import com.google.common.collect.Multimap;
+import hirs.data.persist.Digest;
+import hirs.data.persist.IMAPolicy;
+import hirs.data.persist.baseline.IMABaselineRecord;
+import hirs.data.persist.enums.DigestAlgorithm;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A read-only, memory-mapped copy of the records of an IMA acceptable record baseline.
+ * <p>
+ * Large baselines hold millions of records, and building the lookup maps of an
+ * {@link ImaRecordMatcher} from them keeps every record, its path string and its digest on the
+ * heap.  A compiled baseline instead stores the records in a file that is mapped into memory,
+ * so the records are paged in by the operating system as they are probed and shared by every
+ * matcher reading the same file.  The file holds:
+ * <ul>
+ *     <li>an interned table of the distinct paths, sorted by their UTF-8 bytes</li>
+ *     <li>the ids of the full paths, sorted by file name, for partial path matching</li>
+ *     <li>fixed-width (digest, path id) entries sorted by digest</li>
+ *     <li>fixed-width (path id, digest) entries sorted by path id</li>
+ * </ul>
+ * Every lookup is a binary search over one of these sections, and {@link IMABaselineRecord}s
+ * are only created for the records that are found.  Only SHA-1 digests are stored, which is
+ * the only algorithm IMA baseline records use.
+ * <p>
+ * Instances are immutable and may be used by multiple threads.
+ */
+public final class CompiledImaBaseline {
+
+    private static final int MAGIC = 0x48494d41;
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 6;
+    private static final int HEADER_SIZE = HEADER_INTS * Integer.BYTES;
+    private static final int DIGEST_LENGTH = DigestAlgorithm.SHA1.getLengthInBytes();
+    private static final int ENTRY_SIZE = DIGEST_LENGTH + Integer.BYTES;
+    private static final int UNSIGNED_BYTE = 0xff;
+    private static final String FULL_PATH_PREFIX = "/";
+
+    private final ByteBuffer buffer;
+    private final int recordCount;
+    private final int pathCount;
+    private final int fileNameCount;
+    private final int pathOffsetsStart;
+    private final int pathBytesStart;
+    private final int fileNamesStart;
+    private final int byHashStart;
+    private final int byPathStart;
+
+    private CompiledImaBaseline(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a compiled IMA baseline");
+        }
+        int version = buffer.getInt(Integer.BYTES);
+        if (version != VERSION) {
+            throw new IOException("Unsupported compiled IMA baseline version: " + version);
+        }
+
+        int index = 2;
+        recordCount = buffer.getInt(index++ * Integer.BYTES);
+        pathCount = buffer.getInt(index++ * Integer.BYTES);
+        fileNameCount = buffer.getInt(index++ * Integer.BYTES);
+        int pathBytesLength = buffer.getInt(index * Integer.BYTES);
+
+        pathOffsetsStart = HEADER_SIZE;
+        pathBytesStart = pathOffsetsStart + (pathCount + 1) * Integer.BYTES;
+        fileNamesStart = pathBytesStart + pathBytesLength;
+        byHashStart = fileNamesStart + fileNameCount * Integer.BYTES;
+        byPathStart = byHashStart + recordCount * ENTRY_SIZE;
+        if (recordCount < 0 || pathCount < 0 || fileNameCount < 0 || pathBytesLength < 0
+                || byPathStart + recordCount * ENTRY_SIZE != buffer.capacity()) {
+            throw new IOException("Compiled IMA baseline is truncated or corrupt");
+        }
+    }
+
+    /**
+     * Compiles the given records into the given file.  The file is written next to its final
+     * location and then moved into place, so a file being read by matchers is never seen
+     * partially written.  Duplicate records are only stored once.
+     *
+     * @param records the records to compile
+     * @param file the file to write
+     * @throws IOException if the file cannot be written or the records are too large to be
+     *                     mapped into memory
+     */
+    public static void write(final Collection<IMABaselineRecord> records, final Path file)
+            throws IOException {
+        if (records == null) {
+            throw new IllegalArgumentException("Cannot compile null records");
+        }
+
+        List<IMABaselineRecord> unique = new ArrayList<>(new LinkedHashSet<>(records));
+        Map<String, byte[]> encodedPaths = new HashMap<>();
+        for (IMABaselineRecord record : unique) {
+            if (record.getHash().getAlgorithm() != DigestAlgorithm.SHA1) {
+                throw new IllegalArgumentException("Only SHA-1 records can be compiled: "
+                        + record);
+            }
+            encodedPaths.computeIfAbsent(record.getPath(),
+                    path -> path.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // intern the paths in the same order that lookups search them in
+        List<String> paths = new ArrayList<>(encodedPaths.keySet());
+        paths.sort((first, second) ->
+                compareUnsigned(encodedPaths.get(first), encodedPaths.get(second)));
+        Map<String, Integer> pathIds = new HashMap<>();
+        long pathBytesLength = 0;
+        for (String path : paths) {
+            pathIds.put(path, pathIds.size());
+            pathBytesLength += encodedPaths.get(path).length;
+        }
+
+        List<Integer> fileNameIds = new ArrayList<>();
+        for (String path : paths) {
+            if (path.startsWith(FULL_PATH_PREFIX)) {
+                fileNameIds.add(pathIds.get(path));
+            }
+        }
+        fileNameIds.sort(Comparator.comparing(
+                (Integer pathId) -> IMABaselineRecord.getPartialPath(paths.get(pathId)))
+                .thenComparing(Comparator.naturalOrder()));
+
+        Comparator<IMABaselineRecord> byPathId = Comparator.comparing(
+                (IMABaselineRecord record) -> pathIds.get(record.getPath()));
+        Comparator<IMABaselineRecord> byDigest = (first, second) ->
+                compareUnsigned(first.getHash().getDigest(), second.getHash().getDigest());
+        List<IMABaselineRecord> byHash = new ArrayList<>(unique);
+        byHash.sort(byDigest.thenComparing(byPathId));
+        List<IMABaselineRecord> byPath = new ArrayList<>(unique);
+        byPath.sort(byPathId.thenComparing(byDigest));
+
+        long size = HEADER_SIZE + (paths.size() + 1L) * Integer.BYTES + pathBytesLength
+                + (long) fileNameIds.size() * Integer.BYTES
+                + 2L * unique.size() * ENTRY_SIZE;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Baseline of " + unique.size()
+                    + " records is too large to compile");
+        }
+
+        Path absoluteFile = file.toAbsolutePath();
+        Path tempFile = Files.createTempFile(absoluteFile.getParent(),
+                absoluteFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(unique.size());
+                out.writeInt(paths.size());
+                out.writeInt(fileNameIds.size());
+                out.writeInt((int) pathBytesLength);
+
+                int offset = 0;
+                for (String path : paths) {
+                    out.writeInt(offset);
+                    offset += encodedPaths.get(path).length;
+                }
+                out.writeInt(offset);
+                for (String path : paths) {
+                    out.write(encodedPaths.get(path));
+                }
+                for (Integer pathId : fileNameIds) {
+                    out.writeInt(pathId);
+                }
+                for (IMABaselineRecord record : byHash) {
+                    out.write(record.getHash().getDigest());
+                    out.writeInt(pathIds.get(record.getPath()));
+                }
+                for (IMABaselineRecord record : byPath) {
+                    out.writeInt(pathIds.get(record.getPath()));
+                    out.write(record.getHash().getDigest());
+                }
+            }
+            Files.move(tempFile, absoluteFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Maps the given compiled baseline file into memory.  The mapping stays valid after the
+     * file is replaced or deleted; replacing the file requires loading it again to see the new
+     * records.
+     *
+     * @param file the file written by {@link #write(Collection, Path)}
+     * @return the compiled baseline
+     * @throws IOException if the file cannot be read or is not a compiled baseline
+     */
+    public static CompiledImaBaseline load(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Compiled IMA baseline is too large: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new CompiledImaBaseline(mapped);
+        }
+    }
+
+    /**
+     * Returns the number of distinct records in this baseline.
+     *
+     * @return the number of records
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the records with the given hash.
+     *
+     * @param hash the hash to look up
+     * @return the records with the hash, possibly empty
+     */
+    public Set<IMABaselineRecord> getRecordsByHash(final Digest hash) {
+        Set<IMABaselineRecord> found = new HashSet<>();
+        if (hash == null || hash.getAlgorithm() != DigestAlgorithm.SHA1) {
+            return found;
+        }
+
+        byte[] digest = hash.getDigest();
+        int low = 0;
+        int high = recordCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareDigest(byHashStart + mid * ENTRY_SIZE, digest) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < recordCount; i++) {
+            int entry = byHashStart + i * ENTRY_SIZE;
+            if (compareDigest(entry, digest) != 0) {
+                break;
+            }
+            found.add(new IMABaselineRecord(getPath(buffer.getInt(entry + DIGEST_LENGTH)),
+                    hash));
+        }
+        return found;
+    }
+
+    /**
+     * Returns the records with exactly the given path.
+     *
+     * @param path the path to look up
+     * @return the records with the path, possibly empty
+     */
+    public Set<IMABaselineRecord> getRecordsByPath(final String path) {
+        Set<IMABaselineRecord> found = new HashSet<>();
+        if (path != null) {
+            int pathId = findPath(path.getBytes(StandardCharsets.UTF_8));
+            if (pathId >= 0) {
+                addRecordsByPathId(pathId, path, found);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the records that the given IMA policy considers to match the given path, which
+     * are the records for which {@link ImaRecordMatcher#getMatchingPaths(IMAPolicy, String)}
+     * includes the path.  This is the set of records an {@link ImaRecordMatcher} built from the
+     * same records would index under the path.
+     *
+     * @param imaPolicy the IMA policy whose path equivalence and partial path settings apply
+     * @param path the path to look up
+     * @return the records matching the path, possibly empty
+     */
+    public Set<IMABaselineRecord> getRecordsMatchingPath(final IMAPolicy imaPolicy,
+                                                         final String path) {
+        Set<IMABaselineRecord> found = getRecordsByPath(path);
+        if (path == null) {
+            return found;
+        }
+
+        // a record at A is indexed under B + suffix when A starts with a path equivalent to B
+        Multimap<String, String> pathEquivalences = imaPolicy.getPathEquivalences();
+        for (Map.Entry<String, String> equivalence : pathEquivalences.entries()) {
+            String equivalentPath = equivalence.getValue();
+            if (path.startsWith(equivalentPath)) {
+                String candidatePath = equivalence.getKey()
+                        + path.substring(equivalentPath.length());
+                for (IMABaselineRecord record : getRecordsByPath(candidatePath)) {
+                    if (ImaRecordMatcher.getMatchingPaths(imaPolicy, record.getPath())
+                            .contains(path)) {
+                        found.add(record);
+                    }
+                }
+            }
+        }
+
+        if (imaPolicy.isPartialPathEnable()) {
+            addRecordsByFileName(path, found);
+        }
+        return found;
+    }
+
+    /**
+     * Adds the records whose full path ends with the given file name.
+     */
+    private void addRecordsByFileName(final String fileName, final Set<IMABaselineRecord> found) {
+        int low = 0;
+        int high = fileNameCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getFileName(mid).compareTo(fileName) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < fileNameCount; i++) {
+            int pathId = buffer.getInt(fileNamesStart + i * Integer.BYTES);
+            String path = getPath(pathId);
+            if (!IMABaselineRecord.getPartialPath(path).equals(fileName)) {
+                break;
+            }
+            addRecordsByPathId(pathId, path, found);
+        }
+    }
+
+    private String getFileName(final int index) {
+        return IMABaselineRecord.getPartialPath(
+                getPath(buffer.getInt(fileNamesStart + index * Integer.BYTES)));
+    }
+
+    private void addRecordsByPathId(final int pathId, final String path,
+                                    final Set<IMABaselineRecord> found) {
+        int low = 0;
+        int high = recordCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getInt(byPathStart + mid * ENTRY_SIZE) < pathId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < recordCount; i++) {
+            int entry = byPathStart + i * ENTRY_SIZE;
+            if (buffer.getInt(entry) != pathId) {
+                break;
+            }
+            byte[] digest = new byte[DIGEST_LENGTH];
+            for (int j = 0; j < DIGEST_LENGTH; j++) {
+                digest[j] = buffer.get(entry + Integer.BYTES + j);
+            }
+            found.add(new IMABaselineRecord(path, new Digest(DigestAlgorithm.SHA1, digest)));
+        }
+    }
+
+    /**
+     * Finds the id of the given UTF-8 encoded path, or returns -1 if it is not in the table.
+     */
+    private int findPath(final byte[] path) {
+        int low = 0;
+        int high = pathCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = comparePath(mid, path);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private String getPath(final int pathId) {
+        int start = buffer.getInt(pathOffsetsStart + pathId * Integer.BYTES);
+        int end = buffer.getInt(pathOffsetsStart + (pathId + 1) * Integer.BYTES);
+        byte[] path = new byte[end - start];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = buffer.get(pathBytesStart + start + i);
+        }
+        return new String(path, StandardCharsets.UTF_8);
+    }
+
+    private int comparePath(final int pathId, final byte[] path) {
+        int start = buffer.getInt(pathOffsetsStart + pathId * Integer.BYTES);
+        int end = buffer.getInt(pathOffsetsStart + (pathId + 1) * Integer.BYTES);
+        int length = end - start;
+        for (int i = 0; i < length && i < path.length; i++) {
+            int comparison = Integer.compare(buffer.get(pathBytesStart + start + i)
+                    & UNSIGNED_BYTE, path[i] & UNSIGNED_BYTE);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, path.length);
+    }
+
+    private int compareDigest(final int entry, final byte[] digest) {
+        for (int i = 0; i < DIGEST_LENGTH; i++) {
+            int comparison = Integer.compare(buffer.get(entry + i) & UNSIGNED_BYTE,
+                    digest[i] & UNSIGNED_BYTE);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    private static int compareUnsigned(final byte[] first, final byte[] second) {
+        for (int i = 0; i < first.length && i < second.length; i++) {
+            int comparison = Integer.compare(first[i] & UNSIGNED_BYTE, second[i] & UNSIGNED_BYTE);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(first.length, second.length);
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledImaBaseline{records=" + recordCount + ", paths=" + pathCount + '}';
+    }
+}
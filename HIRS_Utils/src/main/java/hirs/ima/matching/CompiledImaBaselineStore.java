@@ -0,0 +1,164 @@
+package hirs.ima.matching;
+
+import hirs.data.persist.baseline.IMABaselineRecord;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the {@link CompiledImaBaseline}s of IMA acceptable record baselines in a directory,
+ * one file per revision of a baseline's records, named after the baseline's id and revision.
+ * <p>
+ * The revision of a baseline is made of the number of its stored records and their highest id,
+ * which the caller reads from the database.  Records are never updated in place and are given
+ * increasing ids, so any record added to or removed from a baseline, however it was saved,
+ * changes the revision.  A baseline is compiled again the first time it is looked up with a new
+ * revision, replacing the files of its earlier revisions, and a revision compiled by another
+ * process sharing the directory is loaded rather than compiled.  The baseline's records are
+ * only retrieved to compile it.  Lookups may run concurrently.
+ */
+public class CompiledImaBaselineStore {
+
+    private static final Logger LOGGER = LogManager.getLogger(CompiledImaBaselineStore.class);
+
+    /**
+     * The extension of compiled baseline files.
+     */
+    public static final String FILE_EXTENSION = ".imab";
+
+    private final Path directory;
+    private final ConcurrentMap<UUID, Loaded> loaded = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a store of the compiled baselines in the given directory.
+     *
+     * @param directory the directory holding the compiled baselines
+     */
+    public CompiledImaBaselineStore(final Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the revision of a baseline with the given stored records.
+     *
+     * @param recordCount the number of records stored in the baseline
+     * @param maxRecordId the highest id of the records stored in the baseline, or null if it has
+     *                    none
+     * @return the revision of the baseline
+     */
+    public static String getRevision(final long recordCount, final Long maxRecordId) {
+        long maxId = 0;
+        if (maxRecordId != null) {
+            maxId = maxRecordId;
+        }
+        return recordCount + "-" + maxId;
+    }
+
+    /**
+     * Returns the compiled copy of the given revision of a baseline, compiling it first from the
+     * supplied records if that revision has not been compiled.
+     *
+     * @param baselineId the id of the baseline
+     * @param revision the current revision of the baseline, from {@link #getRevision}
+     * @param records supplies the records of the baseline if it has to be compiled
+     * @return the compiled baseline
+     * @throws IOException if the compiled baseline cannot be written or read
+     */
+    public CompiledImaBaseline get(final UUID baselineId, final String revision,
+                                   final Supplier<Collection<IMABaselineRecord>> records)
+            throws IOException {
+        if (baselineId == null || revision == null || records == null) {
+            throw new IllegalArgumentException("Baseline id, revision and records cannot be null");
+        }
+        Loaded current = loaded.get(baselineId);
+        if (current != null && current.revision.equals(revision)) {
+            return current.baseline;
+        }
+
+        synchronized (this) {
+            current = loaded.get(baselineId);
+            if (current != null && current.revision.equals(revision)) {
+                return current.baseline;
+            }
+            Path file = getFile(baselineId, revision);
+            if (Files.exists(file)) {
+                LOGGER.debug("Loading compiled IMA baseline {}", file);
+            } else {
+                Files.createDirectories(directory);
+                CompiledImaBaseline.write(records.get(), file);
+                LOGGER.info("Compiled revision {} of IMA baseline {}", revision, baselineId);
+            }
+            current = new Loaded(revision, CompiledImaBaseline.load(file));
+            loaded.put(baselineId, current);
+            deleteFiles(baselineId, file);
+            return current.baseline;
+        }
+    }
+
+    /**
+     * Deletes the compiled copies of the baseline with the given id, if there are any.
+     *
+     * @param baselineId the id of the baseline
+     * @throws IOException if the compiled baseline cannot be deleted
+     */
+    public synchronized void remove(final UUID baselineId) throws IOException {
+        if (baselineId == null) {
+            throw new IllegalArgumentException("Baseline id cannot be null");
+        }
+        loaded.remove(baselineId);
+        deleteFiles(baselineId, null);
+    }
+
+    /**
+     * Deletes the compiled files of a baseline other than the given one.  A file that cannot be
+     * deleted, such as one mapped by another process on some platforms, is left to be replaced
+     * by a later compilation.
+     */
+    private void deleteFiles(final UUID baselineId, final Path keep) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                baselineId + "-*" + FILE_EXTENSION)) {
+            for (Path file : files) {
+                if (file.equals(keep)) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    LOGGER.warn("Unable to delete compiled IMA baseline {}", file, e);
+                }
+            }
+        }
+    }
+
+    private Path getFile(final UUID baselineId, final String revision) {
+        return directory.resolve(baselineId + "-" + revision + FILE_EXTENSION);
+    }
+
+    /**
+     * A compiled baseline along with the revision of the records it was compiled from.
+     */
+    private static final class Loaded {
+        private final String revision;
+        private final CompiledImaBaseline baseline;
+
+        private Loaded(final String revision, final CompiledImaBaseline baseline) {
+            this.revision = revision;
+            this.baseline = baseline;
+        }
+    }
+}
@@ -16,6 +16,8 @@ import java.util.Set;
  * based solely on their hashes.
  */
 public class ImaAcceptableHashRecordMatcher extends ImaRecordMatcher<IMABaselineRecord> {
+    private final CompiledImaBaseline compiledBaseline;
+
     /**
      * Construct a new ImaAcceptablePathAndHashRecordMatcher.
      *
@@ -29,6 +31,42 @@ public class ImaAcceptableHashRecordMatcher extends ImaRecordMatcher<IMABaseline
             final IMAPolicy imaPolicy,
             final ImaBaseline imaBaseline) {
         super(records, imaPolicy, imaBaseline);
+        this.compiledBaseline = null;
+    }
+
+    /**
+     * Construct a new ImaAcceptableHashRecordMatcher that looks up records in a compiled copy of
+     * the baseline instead of holding them on the heap.
+     *
+     * @param compiledBaseline the compiled baseline records to use for matching
+     * @param imaPolicy        the IMA policy to reference during matching
+     * @param imaBaseline      the IMA baseline these records were sourced from; this is only used
+     *                         to record references to matched records
+     */
+    public ImaAcceptableHashRecordMatcher(
+            final CompiledImaBaseline compiledBaseline,
+            final IMAPolicy imaPolicy,
+            final ImaBaseline imaBaseline) {
+        super(null, imaPolicy, imaBaseline);
+        Preconditions.checkArgument(compiledBaseline != null, "Compiled baseline is null.");
+        this.compiledBaseline = compiledBaseline;
+    }
+
+    /**
+     * Gets the records with the same hash as the given record, from the compiled baseline if
+     * there is one.
+     *
+     * @param record the record for which all matching IMA baseline records should be returned
+     * @return the resulting set of IMA baseline records
+     */
+    @Override
+    protected Set<IMABaselineRecord> getRelatedBaselineRecordsByHash(
+            final IMAMeasurementRecord record) {
+        if (compiledBaseline == null) {
+            return super.getRelatedBaselineRecordsByHash(record);
+        }
+        Preconditions.checkArgument(record != null, "Cannot match on null record.");
+        return compiledBaseline.getRecordsByHash(record.getHash());
     }
 
     /**
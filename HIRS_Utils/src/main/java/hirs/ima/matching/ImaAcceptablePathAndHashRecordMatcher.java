@@ -23,6 +23,8 @@ import static org.apache.logging.log4j.LogManager.getLogger;
 public class ImaAcceptablePathAndHashRecordMatcher extends ImaRecordMatcher<IMABaselineRecord> {
     private static final Logger LOGGER = getLogger(ImaAcceptablePathAndHashRecordMatcher.class);
 
+    private final CompiledImaBaseline compiledBaseline;
+
     /**
      * Construct a new ImaAcceptablePathAndHashRecordMatcher.
      *
@@ -36,6 +38,60 @@ public class ImaAcceptablePathAndHashRecordMatcher extends ImaRecordMatcher<IMAB
             final IMAPolicy imaPolicy,
             final ImaBaseline imaBaseline) {
         super(records, imaPolicy, imaBaseline);
+        this.compiledBaseline = null;
+    }
+
+    /**
+     * Construct a new ImaAcceptablePathAndHashRecordMatcher that looks up records in a
+     * compiled copy of the baseline instead of holding them on the heap.
+     *
+     * @param compiledBaseline the compiled baseline records to use for matching
+     * @param imaPolicy        the IMA policy to reference during matching; its partial path and
+     *                         path equivalence settings influence matching behavior
+     * @param imaBaseline      the IMA baseline these records were sourced from; this is only used
+     *                         to record references to mismatched records
+     */
+    public ImaAcceptablePathAndHashRecordMatcher(
+            final CompiledImaBaseline compiledBaseline,
+            final IMAPolicy imaPolicy,
+            final ImaBaseline imaBaseline) {
+        super(null, imaPolicy, imaBaseline);
+        Preconditions.checkArgument(compiledBaseline != null, "Compiled baseline is null.");
+        this.compiledBaseline = compiledBaseline;
+    }
+
+    /**
+     * Gets the related records from the compiled baseline, if there is one, in the same way as
+     * {@link ImaRecordMatcher#getRelatedBaselineRecordsByPath(IMAMeasurementRecord)}.
+     *
+     * @param record the record for which all matching IMA baseline records should be returned
+     * @return the resulting set of IMA baseline records
+     */
+    @Override
+    protected Set<IMABaselineRecord> getRelatedBaselineRecordsByPath(
+            final IMAMeasurementRecord record) {
+        if (compiledBaseline == null) {
+            return super.getRelatedBaselineRecordsByPath(record);
+        }
+        Preconditions.checkArgument(record != null, "Cannot match on null record.");
+
+        final IMAPolicy imaPolicy = getImaPolicy();
+        final String path = record.getPath();
+        final Set<IMABaselineRecord> matchingRecords =
+                compiledBaseline.getRecordsMatchingPath(imaPolicy, path);
+
+        if (imaPolicy.isPartialPathEnable() && isFullPath(path)) {
+            for (IMABaselineRecord matchingPartialRecord : compiledBaseline
+                    .getRecordsMatchingPath(imaPolicy, record.getPartialPath())) {
+                // ensure that we're not about to match two unequal full paths
+                if (!isFullPath(matchingPartialRecord.getPath())
+                        || matchingPartialRecord.getPath().equals(path)) {
+                    matchingRecords.add(matchingPartialRecord);
+                }
+            }
+        }
+
+        return matchingRecords;
     }
 
     /**
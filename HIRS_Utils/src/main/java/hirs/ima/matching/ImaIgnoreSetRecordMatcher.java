@@ -5,7 +5,7 @@ import hirs.data.persist.IMAPolicy;
 import hirs.data.persist.baseline.ImaBaseline;
 import hirs.data.persist.ImaIgnoreSetRecord;
 import hirs.data.persist.enums.ReportMatchStatus;
-import hirs.utils.RegexFilePathMatcher;
+import hirs.utils.MultiRegexFilePathMatcher;
 
 import java.util.Collection;
 import java.util.HashMap;
@@ -17,7 +17,7 @@ import java.util.Set;
  * compare {@link IMAMeasurementRecord}s against a collection of {@link ImaIgnoreSetRecord}s.
  */
 public class ImaIgnoreSetRecordMatcher extends ImaRecordMatcher<ImaIgnoreSetRecord> {
-    private Map<ImaIgnoreSetRecord, RegexFilePathMatcher> matchers = new HashMap<>();
+    private final MultiRegexFilePathMatcher<ImaIgnoreSetRecord> matcher;
 
     /**
      * Construct a new ImaBlacklistRecordMatcher.
@@ -33,9 +33,11 @@ public class ImaIgnoreSetRecordMatcher extends ImaRecordMatcher<ImaIgnoreSetReco
             final ImaBaseline imaBaseline) {
         super(records, imaPolicy, imaBaseline);
 
+        Map<ImaIgnoreSetRecord, String> patterns = new HashMap<>();
         for (ImaIgnoreSetRecord ignoreRecord : records) {
-            matchers.put(ignoreRecord, new RegexFilePathMatcher(ignoreRecord.getPath()));
+            patterns.put(ignoreRecord, ignoreRecord.getPath());
         }
+        matcher = new MultiRegexFilePathMatcher<>(patterns);
     }
 
     /**
@@ -65,12 +67,7 @@ public class ImaIgnoreSetRecordMatcher extends ImaRecordMatcher<ImaIgnoreSetReco
 
         Set<ImaIgnoreSetRecord> matchingRecords = getRelatedBaselineRecordsByPath(record);
 
-        for (Map.Entry<ImaIgnoreSetRecord, RegexFilePathMatcher> recordMatcher
-                : matchers.entrySet()) {
-            if (recordMatcher.getValue().isMatch(record.getPath())) {
-                matchingRecords.add(recordMatcher.getKey());
-            }
-        }
+        matchingRecords.addAll(matcher.getMatches(record.getPath()));
 
         if (matchingRecords.isEmpty()) {
             return new IMAMatchStatus<>(record, ReportMatchStatus.UNKNOWN, getImaBaseline());
@@ -1,8 +1,11 @@
 package hirs.ima.matching;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.Multimap;
 import hirs.data.persist.Digest;
+import hirs.data.persist.DigestKey;
 import hirs.data.persist.baseline.IMABaselineRecord;
 import hirs.data.persist.IMAMeasurementRecord;
 import hirs.data.persist.IMAPolicy;
@@ -14,23 +17,34 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * This class contains the logic used to match IMA measurement records against
  * IMA baseline records.  Given a collection of IMABaselineRecords, an IMAPolicy,
  * and an ImaBaseline, it is able to determine which measurement records should be considered
  * matches, mismatches, or unknown to the given set of baseline records.
+ * <p>
+ * The lookup maps are built at most once, on first use, and are immutable, so a matcher may be
+ * used by multiple threads.  Large batches are matched in parallel; see
+ * {@link #batchMatch(Collection, ForkJoinPool)}.
  *
  * @param <T> the type of IMA baseline record that this class matches against
  */
 public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
+    /**
+     * The number of measurement records each task matches when a batch is matched in parallel.
+     * Batches smaller than twice this size are matched on the calling thread.
+     */
+    public static final int BATCH_PARTITION_SIZE = 1024;
+
     private final IMAPolicy imaPolicy;
     private final ImaBaseline imaBaseline;
-    private final Collection<T> records;
 
     // lookup maps
-    private Multimap<String, T> pathMap = null;
-    private Multimap<String, T> hashMap = null;
+    private final Supplier<Multimap<String, T>> pathMap;
+    private final Supplier<Multimap<DigestKey, T>> hashMap;
 
     /**
      * Construct a new IMARecordMatcher.
@@ -45,9 +59,10 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
             final Collection<T> records,
             final IMAPolicy imaPolicy,
             final ImaBaseline imaBaseline) {
-        this.records = records;
         this.imaPolicy = imaPolicy;
         this.imaBaseline = imaBaseline;
+        this.pathMap = Suppliers.memoize(() -> createPathMap(records));
+        this.hashMap = Suppliers.memoize(() -> createHashMap(records));
     }
 
     /**
@@ -59,6 +74,15 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
         return this.imaBaseline;
     }
 
+    /**
+     * Retrieve the IMA policy associated with this record matcher.
+     *
+     * @return the associated IMA policy
+     */
+    protected IMAPolicy getImaPolicy() {
+        return this.imaPolicy;
+    }
+
     /**
      * Returns an IMAMatchStatus indicating whether the given {@link IMAMeasurementRecord} is
      * contained within the originally provided baseline records.
@@ -72,14 +96,47 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
     /**
      * Given a collection of measurement records, populate and return a BatchImaMatchStatus
      * instance containing the match results according to this ImaRecordMatcher's matching
-     * behavior and the given IMA policy, baseline, and baseline records.
+     * behavior and the given IMA policy, baseline, and baseline records.  Large batches are
+     * matched in parallel on the common fork-join pool.
      *
      * @param records the measurement records to match to baseline records
      * @return a BatchImaMatchStatus containing the match status of all the given records
      */
     public BatchImaMatchStatus<T> batchMatch(final Collection<IMAMeasurementRecord> records) {
-        List<IMAMatchStatus<T>> matchStatuses = new ArrayList<>();
-        for (IMAMeasurementRecord record : records) {
+        return batchMatch(records, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Given a collection of measurement records, populate and return a BatchImaMatchStatus
+     * instance containing the match results according to this ImaRecordMatcher's matching
+     * behavior and the given IMA policy, baseline, and baseline records.
+     * <p>
+     * The records are split into partitions of {@link #BATCH_PARTITION_SIZE} records that are
+     * matched by the given pool's workers, each into its own BatchImaMatchStatus, which are then
+     * merged.  Batches too small to be worth splitting, or a pool with a single worker, are
+     * matched on the calling thread.
+     *
+     * @param records the measurement records to match to baseline records
+     * @param pool the pool to match the records on
+     * @return a BatchImaMatchStatus containing the match status of all the given records
+     */
+    public BatchImaMatchStatus<T> batchMatch(final Collection<IMAMeasurementRecord> records,
+                                             final ForkJoinPool pool) {
+        List<IMAMeasurementRecord> recordList = new ArrayList<>(records);
+        if (pool.getParallelism() < 2 || recordList.size() < 2 * BATCH_PARTITION_SIZE) {
+            // forking off the pool's workers would run the tasks on the common pool
+            return batchMatch(recordList, 0, recordList.size());
+        }
+        return pool.invoke(new BatchMatchTask(recordList, 0, recordList.size()));
+    }
+
+    /**
+     * Matches a range of a batch of records on the calling thread.
+     */
+    private BatchImaMatchStatus<T> batchMatch(final List<IMAMeasurementRecord> records,
+                                              final int from, final int to) {
+        List<IMAMatchStatus<T>> matchStatuses = new ArrayList<>(to - from);
+        for (IMAMeasurementRecord record : records.subList(from, to)) {
             matchStatuses.add(contains(record));
         }
         return new BatchImaMatchStatus<>(matchStatuses);
@@ -98,16 +155,12 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
             throw new IllegalArgumentException("Cannot match on null record.");
         }
 
-        if (pathMap == null) {
-            pathMap = createPathMap(this.records);
-        }
-
+        final Multimap<String, T> recordsByPath = pathMap.get();
         final Set<T> matchingRecords = new HashSet<>();
-        matchingRecords.addAll(pathMap.get(record.getPath()));
+        matchingRecords.addAll(recordsByPath.get(record.getPath()));
 
         if (imaPolicy.isPartialPathEnable() && isFullPath(record.getPath())) {
-            for (T matchingPartialRecord
-                    : pathMap.get(IMABaselineRecord.getPartialPath(record.getPath()))) {
+            for (T matchingPartialRecord : recordsByPath.get(record.getPartialPath())) {
 
                 // ensure that we're not about to match two unequal full paths
                 if (isFullPath(matchingPartialRecord.getPath())
@@ -134,11 +187,7 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
             throw new IllegalArgumentException("Cannot match on null record.");
         }
 
-        if (hashMap == null) {
-            hashMap = createHashMap(this.records);
-        }
-
-        return new HashSet<>(hashMap.get(record.getHash().toString()));
+        return new HashSet<>(hashMap.get().get(DigestKey.of(record.getHash())));
     }
 
     private Multimap<String, T> createPathMap(
@@ -148,7 +197,8 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
 
         for (T record : imaBaselineRecords) {
             if (record.getPath() != null) {
-                for (String matchingPath : getMatchingPaths(imaPolicy, record.getPath())) {
+                for (String matchingPath : getMatchingPaths(imaPolicy, record.getPath(),
+                        record.getPartialPath())) {
                     mapBuilder.put(matchingPath, record);
                 }
             }
@@ -157,15 +207,15 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
         return mapBuilder.build();
     }
 
-    private Multimap<String, T> createHashMap(
+    private Multimap<DigestKey, T> createHashMap(
             final Collection<T> imaBaselineRecords) {
-        ImmutableListMultimap.Builder<String, T> mapBuilder =
+        ImmutableListMultimap.Builder<DigestKey, T> mapBuilder =
                 ImmutableListMultimap.builder();
 
         for (T record : imaBaselineRecords) {
             Digest hash = record.getHash();
             if (hash != null) {
-                mapBuilder.put(hash.toString(), record);
+                mapBuilder.put(DigestKey.of(hash), record);
             }
         }
 
@@ -186,6 +236,28 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
     public static Collection<String> getMatchingPaths(
             final IMAPolicy imaPolicy,
             final String targetPath) {
+        String partialPath = null;
+        if (imaPolicy.isPartialPathEnable() && isFullPath(targetPath)) {
+            partialPath = IMABaselineRecord.getPartialPath(targetPath);
+        }
+        return getMatchingPaths(imaPolicy, targetPath, partialPath);
+    }
+
+    /**
+     * Calculates all paths that should be considered as 'matching' the given path, as
+     * {@link #getMatchingPaths(IMAPolicy, String)} does, using the given partial path of the path
+     * rather than computing it again.
+     *
+     * @param imaPolicy the IMAPolicy to use in calculating matching paths
+     * @param targetPath the original path whose matching paths will calculated and returned
+     * @param partialPath the partial path of the target path, which may be null if partial paths
+     *                    are not enabled
+     * @return a collection of paths that this IMAPolicy would consider as matching the path
+     */
+    public static Collection<String> getMatchingPaths(
+            final IMAPolicy imaPolicy,
+            final String targetPath,
+            final String partialPath) {
         Multimap<String, String> pathEquivalences = imaPolicy.getPathEquivalences();
         Set<String> pathsToFind = new HashSet<>();
 
@@ -199,13 +271,52 @@ public abstract class ImaRecordMatcher<T extends AbstractImaBaselineRecord> {
         }
 
         if (imaPolicy.isPartialPathEnable() && isFullPath(targetPath)) {
-            pathsToFind.add(IMABaselineRecord.getPartialPath(targetPath));
+            pathsToFind.add(partialPath);
         }
 
         return pathsToFind;
     }
 
-    private static boolean isFullPath(final String path) {
+    /**
+     * Returns whether the given path is a full path rather than a partial path.
+     *
+     * @param path the path to check
+     * @return true if the path is a full path
+     */
+    static boolean isFullPath(final String path) {
         return path.startsWith("/");
     }
+
+    /**
+     * Matches a range of a batch of records, splitting it in half while it holds more than
+     * {@link #BATCH_PARTITION_SIZE} records.
+     */
+    private final class BatchMatchTask extends RecursiveTask<BatchImaMatchStatus<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<IMAMeasurementRecord> records;
+        private final int from;
+        private final int to;
+
+        private BatchMatchTask(final List<IMAMeasurementRecord> records, final int from,
+                               final int to) {
+            this.records = records;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BatchImaMatchStatus<T> compute() {
+            if (to - from <= BATCH_PARTITION_SIZE) {
+                return batchMatch(records, from, to);
+            }
+
+            int middle = (from + to) >>> 1;
+            BatchMatchTask second = new BatchMatchTask(records, middle, to);
+            second.fork();
+            BatchImaMatchStatus<T> status = new BatchMatchTask(records, from, middle).compute();
+            status.merge(second.join());
+            return status;
+        }
+    }
 }
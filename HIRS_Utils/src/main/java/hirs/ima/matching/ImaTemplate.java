@@ -0,0 +1,160 @@
+package hirs.ima.matching;
+
+import hirs.data.persist.Digest;
+import hirs.data.persist.IMAMeasurementRecord;
+import hirs.data.persist.enums.DigestAlgorithm;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * The IMA templates whose template hashes can be recalculated from {@link IMAMeasurementRecord}s.
+ * The template hash of a measurement is the SHA-1 hash of the template's fields, and is the value
+ * IMA extends into the IMA PCR.  Templates with fields that measurement records do not hold, such
+ * as the file signatures of ima-sig, are not supported.
+ */
+public enum ImaTemplate {
+    /**
+     * The original template, used by kernels before 3.13 and by those booted with
+     * ima_template=ima.  Its fields are the SHA-1 digest of the file and the file name in a zero
+     * padded, zero terminated field of 256 bytes.
+     */
+    IMA("ima") {
+        @Override
+        void updateTemplateHash(final MessageDigest sha1, final Digest digest,
+                                final byte[] name) {
+            if (digest.getAlgorithm() != DigestAlgorithm.SHA1) {
+                throw new IllegalArgumentException(
+                        "The ima template only holds SHA-1 digests, not " + digest.getAlgorithm());
+            }
+            byte[] nameField = new byte[NAME_FIELD_LENGTH];
+            System.arraycopy(name, 0, nameField, 0, Math.min(name.length, NAME_FIELD_LENGTH - 1));
+            sha1.update(digest.getDigest());
+            sha1.update(nameField);
+        }
+    },
+
+    /**
+     * The default template since kernel 3.13.  Its d-ng field holds the name of the digest
+     * algorithm, a colon and a zero byte followed by the file's digest, and its n-ng field holds
+     * the whole, zero terminated file name.  Each field is preceded by its length as a
+     * little-endian 32-bit integer, as on x86 and ARM hosts or when IMA uses its canonical format.
+     */
+    IMA_NG("ima-ng") {
+        @Override
+        void updateTemplateHash(final MessageDigest sha1, final Digest digest,
+                                final byte[] name) {
+            byte[] prefix = (getKernelAlgorithmName(digest.getAlgorithm()) + ":")
+                    .getBytes(StandardCharsets.US_ASCII);
+            updateField(sha1, prefix, new byte[1], digest.getDigest());
+            updateField(sha1, name, new byte[1]);
+        }
+    };
+
+    private static final int NAME_FIELD_LENGTH = 256;
+    private static final int TEMPLATE_HASH_LENGTH = DigestAlgorithm.SHA1.getLengthInBytes();
+    private static final byte VIOLATION_FILL = (byte) 0xff;
+
+    private final String name;
+
+    ImaTemplate(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name IMA gives this template in its measurement lists.
+     *
+     * @return the name of the template
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the template with the given name, as it appears in IMA measurement lists.
+     *
+     * @param name the name of the template
+     * @return the template
+     * @throws IllegalArgumentException if the template is not supported
+     */
+    public static ImaTemplate forName(final String name) {
+        for (ImaTemplate template : values()) {
+            if (template.name.equals(name)) {
+                return template;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported IMA template: " + name);
+    }
+
+    /**
+     * Calculates the value IMA extended into the IMA PCR for the given record.  Records with an
+     * all-zero digest are violations, for which IMA extends the PCR with all ones.
+     *
+     * @param record the measurement record
+     * @return the template hash of the record
+     * @throws IllegalArgumentException if this template cannot hold the record's digest
+     */
+    public byte[] getTemplateHash(final IMAMeasurementRecord record) {
+        Digest digest = record.getHash();
+        if (isViolation(digest.getDigest())) {
+            byte[] ones = new byte[TEMPLATE_HASH_LENGTH];
+            Arrays.fill(ones, VIOLATION_FILL);
+            return ones;
+        }
+        MessageDigest sha1 = DigestUtils.getSha1Digest();
+        updateTemplateHash(sha1, digest, record.getPath().getBytes(StandardCharsets.UTF_8));
+        return sha1.digest();
+    }
+
+    /**
+     * Updates the template hash with the fields of a measurement.
+     *
+     * @param sha1 the template hash to update
+     * @param digest the digest of the file
+     * @param name the name of the file
+     */
+    abstract void updateTemplateHash(MessageDigest sha1, Digest digest, byte[] name);
+
+    private static boolean isViolation(final byte[] digest) {
+        for (byte b : digest) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void updateField(final MessageDigest sha1, final byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        sha1.update(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(length).array());
+        for (byte[] part : parts) {
+            sha1.update(part);
+        }
+    }
+
+    private static String getKernelAlgorithmName(final DigestAlgorithm algorithm) {
+        switch (algorithm) {
+            case MD5:
+                return "md5";
+            case SHA1:
+                return "sha1";
+            case SHA256:
+                return "sha256";
+            case SHA384:
+                return "sha384";
+            case SHA512:
+                return "sha512";
+            default:
+                throw new IllegalArgumentException(
+                        "IMA does not support " + algorithm + " digests");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package hirs.ima.matching;
+
+import hirs.data.persist.baseline.AbstractImaBaselineRecord;
+
+import java.util.Arrays;
+
+/**
+ * The result of matching an IMA report with an {@link IncrementalImaMatcher}.  It holds the match
+ * statuses of the measurement records that had not been appraised before, along with how many
+ * records were skipped because earlier reports of the same boot cycle had been appraised with
+ * them and the result of verifying the IMA PCR.
+ *
+ * @param <T> the type of IMA baseline record that the records were matched against
+ */
+public class IncrementalImaMatchStatus<T extends AbstractImaBaselineRecord> {
+    private final BatchImaMatchStatus<T> matchStatus;
+    private final boolean fullReportRequired;
+    private final int startIndex;
+    private final int carriedForwardCount;
+    private final byte[] pcrValue;
+    private final Boolean pcrVerified;
+
+    /**
+     * Creates the result of matching a report.
+     *
+     * @param matchStatus the match statuses of the newly appraised records
+     * @param startIndex the index of the first newly appraised record in the IMA log
+     * @param carriedForwardCount the number of records in the report that were appraised before
+     * @param pcrValue the IMA PCR value recalculated over every record of the boot cycle, or null
+     *                 if it is unknown
+     * @param pcrVerified whether the recalculated PCR value equals the PCR value reported by the
+     *                    TPM, or null if it was not verified
+     */
+    IncrementalImaMatchStatus(
+            final BatchImaMatchStatus<T> matchStatus,
+            final int startIndex,
+            final int carriedForwardCount,
+            final byte[] pcrValue,
+            final Boolean pcrVerified) {
+        this.matchStatus = matchStatus;
+        this.fullReportRequired = false;
+        this.startIndex = startIndex;
+        this.carriedForwardCount = carriedForwardCount;
+        this.pcrValue = copy(pcrValue);
+        this.pcrVerified = pcrVerified;
+    }
+
+    /**
+     * Creates the result of a delta report that could not be matched because it does not continue
+     * from the last appraised record.
+     */
+    IncrementalImaMatchStatus() {
+        this.matchStatus = new BatchImaMatchStatus<>();
+        this.fullReportRequired = true;
+        this.startIndex = 0;
+        this.carriedForwardCount = 0;
+        this.pcrValue = null;
+        this.pcrVerified = null;
+    }
+
+    /**
+     * Returns the match statuses of the records that were appraised for the first time.
+     *
+     * @return the match statuses of the newly appraised records
+     */
+    public BatchImaMatchStatus<T> getMatchStatus() {
+        return matchStatus;
+    }
+
+    /**
+     * Returns whether the report could not be matched because it is a delta report that does not
+     * continue from the last appraised record, in which case the device's state has been reset
+     * and a full report should be requested.
+     *
+     * @return true if a full report is required
+     */
+    public boolean isFullReportRequired() {
+        return fullReportRequired;
+    }
+
+    /**
+     * Returns the index in the IMA log of the first newly appraised record.
+     *
+     * @return the index of the first newly appraised record
+     */
+    public int getStartIndex() {
+        return startIndex;
+    }
+
+    /**
+     * Returns the number of records in the report that were skipped because they had been
+     * appraised in an earlier report of the same boot cycle.  Their match statuses are not part
+     * of this result; they were returned when that earlier report was matched.
+     *
+     * @return the number of records carried forward
+     */
+    public int getCarriedForwardCount() {
+        return carriedForwardCount;
+    }
+
+    /**
+     * Returns the IMA PCR value recalculated over every record of the boot cycle appraised so
+     * far.
+     *
+     * @return the recalculated PCR value, or null if it is unknown
+     */
+    public byte[] getPcrValue() {
+        return copy(pcrValue);
+    }
+
+    /**
+     * Returns whether the recalculated IMA PCR value equals the PCR value reported by the TPM.
+     *
+     * @return true or false if the PCR was verified, or null if it was not verified
+     */
+    public Boolean isPcrVerified() {
+        return pcrVerified;
+    }
+
+    private static byte[] copy(final byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        return Arrays.copyOf(bytes, bytes.length);
+    }
+}
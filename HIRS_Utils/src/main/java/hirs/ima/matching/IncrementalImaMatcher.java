@@ -0,0 +1,186 @@
+package hirs.ima.matching;
+
+import hirs.data.persist.Device;
+import hirs.data.persist.IMADeviceState;
+import hirs.data.persist.IMAMeasurementRecord;
+import hirs.data.persist.IMAReport;
+import hirs.data.persist.baseline.AbstractImaBaselineRecord;
+import hirs.data.persist.enums.DigestAlgorithm;
+import hirs.persist.IMADeviceStateManager;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Matches IMA reports incrementally, using the {@link IMADeviceState} of the reporting device as a
+ * checkpoint.
+ * <p>
+ * The IMA log of a device only grows until it reboots, so every record up to the index saved in
+ * the device's state was already appraised by an earlier report of the same boot cycle.  Those
+ * records are skipped, as their results were returned with the earlier report; only the records
+ * after the checkpoint are matched, and the IMA PCR is recalculated by extending the PCR value
+ * saved with the checkpoint with the new records only.  Steady-state reports from long-running
+ * devices therefore cost time proportional to the number of new measurements rather than the
+ * size of the log.
+ * <p>
+ * The checkpoint is discarded, and the whole log appraised again, when the device reports a new
+ * boot cycle.  A delta report that does not continue from the checkpoint cannot be appraised;
+ * the state is reset so that a full report is requested instead.
+ * <p>
+ * The template hashes extended into the PCR are recalculated with the {@link ImaTemplate} the
+ * devices' IMA logs use, which kernels since 3.13 default to ima-ng.
+ */
+public class IncrementalImaMatcher {
+
+    private static final Logger LOGGER = LogManager.getLogger(IncrementalImaMatcher.class);
+
+    private static final int PCR_LENGTH = DigestAlgorithm.SHA1.getLengthInBytes();
+
+    private final IMADeviceStateManager stateManager;
+    private final ImaTemplate template;
+
+    /**
+     * Creates a matcher that keeps its checkpoints in the given state manager.
+     *
+     * @param stateManager the manager of the devices' IMA states
+     * @param template the template of the IMA logs that are reported
+     */
+    public IncrementalImaMatcher(final IMADeviceStateManager stateManager,
+                                 final ImaTemplate template) {
+        if (stateManager == null) {
+            throw new IllegalArgumentException("IMADeviceStateManager cannot be null");
+        }
+        if (template == null) {
+            throw new IllegalArgumentException("IMA template cannot be null");
+        }
+        this.stateManager = stateManager;
+        this.template = template;
+    }
+
+    /**
+     * Matches the records of the given report that have not been appraised before, and moves the
+     * device's checkpoint past them.  The report's records must be in the order they appear in
+     * the IMA log, as they are in a report that has just been received.
+     * <p>
+     * If the recalculated IMA PCR does not equal the given PCR value reported by the TPM, the
+     * device's state is reset so that the next report is appraised from the start of the log.
+     * <p>
+     * The records that were appraised before are not matched again, and their results are not
+     * part of the returned status; they were returned when the earlier report was matched.
+     *
+     * @param device the device that sent the report
+     * @param report the IMA report to match
+     * @param matcher the matcher to match the new records with
+     * @param reportedPcr the IMA PCR value reported by the TPM, or null to skip PCR verification
+     * @param <T> the type of IMA baseline record that the matcher matches against
+     * @return the match statuses of the new records along with the result of verifying the PCR
+     * @throws IllegalArgumentException if the template cannot hold the digest of a new record
+     */
+    public <T extends AbstractImaBaselineRecord> IncrementalImaMatchStatus<T> match(
+            final Device device,
+            final IMAReport report,
+            final ImaRecordMatcher<T> matcher,
+            final byte[] reportedPcr) {
+        if (device == null || report == null || matcher == null) {
+            throw new IllegalArgumentException("Device, report, and matcher cannot be null");
+        }
+
+        IMADeviceState state = stateManager.getState(device);
+        final boolean savedState = state != null;
+        if (!savedState) {
+            state = new IMADeviceState(device);
+        }
+
+        int appraisedIndex = 0;
+        byte[] pcr = null;
+        if (continuesCheckpoint(state, report)) {
+            appraisedIndex = state.getIndex();
+            pcr = state.getPcrState();
+        } else if (report.isFullReport()) {
+            state.resetState();
+            state.setBootcycleId(report.getBootcycleId());
+            state.setMostRecentFullReportDate(new Date());
+        }
+        // a report starting after the last appraised record would leave records unappraised
+        if (report.getIndex() > appraisedIndex) {
+            LOGGER.info("Delta report from {} starting at {} does not continue from the last "
+                    + "appraised record; a full report is required", device.getName(),
+                    report.getIndex());
+            state.resetState();
+            saveState(state, savedState);
+            return new IncrementalImaMatchStatus<>();
+        }
+        if (pcr == null) {
+            pcr = new byte[PCR_LENGTH];
+        }
+
+        List<IMAMeasurementRecord> records = new ArrayList<>(report.getRecords());
+        int carriedForward = Math.min(appraisedIndex - report.getIndex(), records.size());
+        List<IMAMeasurementRecord> newRecords = records.subList(carriedForward, records.size());
+        LOGGER.debug("Matching {} new IMA records from {}, carrying forward {}",
+                newRecords.size(), device.getName(), carriedForward);
+
+        // calculated first, so that records the template cannot hold leave the state unchanged
+        for (IMAMeasurementRecord record : newRecords) {
+            pcr = extend(pcr, template.getTemplateHash(record));
+        }
+        BatchImaMatchStatus<T> matchStatus = matcher.batchMatch(newRecords);
+
+        Boolean pcrVerified = null;
+        if (reportedPcr != null) {
+            pcrVerified = Arrays.equals(pcr, reportedPcr);
+        }
+        if (Boolean.FALSE.equals(pcrVerified)) {
+            LOGGER.warn("IMA PCR of {} does not match its IMA log", device.getName());
+            state.resetState();
+        } else {
+            state.setIndex(Math.max(appraisedIndex, report.getIndex() + records.size()));
+            state.setPcrState(pcr);
+        }
+        saveState(state, savedState);
+
+        return new IncrementalImaMatchStatus<>(matchStatus, report.getIndex() + carriedForward,
+                carriedForward, pcr, pcrVerified);
+    }
+
+    /**
+     * Returns whether the given report belongs to the boot cycle of the checkpoint and starts at
+     * or before it, and the PCR value at the checkpoint is known.
+     */
+    private static boolean continuesCheckpoint(final IMADeviceState state,
+                                               final IMAReport report) {
+        return report.getBootcycleId() != null
+                && Objects.equals(report.getBootcycleId(), state.getBootcycleId())
+                && report.getIndex() <= state.getIndex()
+                && (state.getIndex() == 0 || state.getPcrState() != null);
+    }
+
+    private void saveState(final IMADeviceState state, final boolean savedState) {
+        if (savedState) {
+            stateManager.updateState(state);
+        } else {
+            stateManager.saveState(state);
+        }
+    }
+
+    /**
+     * Extends the given PCR value with the given template hash.
+     *
+     * @param pcr the current PCR value
+     * @param templateHash the template hash to extend the PCR with
+     * @return the extended PCR value
+     */
+    static byte[] extend(final byte[] pcr, final byte[] templateHash) {
+        MessageDigest sha1 = DigestUtils.getSha1Digest();
+        sha1.update(pcr);
+        sha1.update(templateHash);
+        return sha1.digest();
+    }
+}
@@ -4,6 +4,8 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import hirs.FilteredRecordsList;
+import hirs.data.persist.SearchTokens;
+import hirs.data.persist.SearchableEntity;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -17,11 +19,13 @@ import org.hibernate.Transaction;
 import org.hibernate.criterion.Conjunction;
 import org.hibernate.criterion.CriteriaSpecification;
 import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Disjunction;
 import org.hibernate.criterion.MatchMode;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.criterion.Subqueries;
 import org.hibernate.internal.SessionFactoryImpl;
 
 import javax.persistence.Column;
@@ -427,6 +431,7 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
         Session session = factory.getCurrentSession();
         try {
             LOGGER.debug("saving object in db");
+            updateSearchTokens(object);
             tx = session.beginTransaction();
             final Serializable id = session.save(object);
             Object o = session.get(object.getClass(), id);
@@ -461,6 +466,7 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
         Session session = factory.getCurrentSession();
         try {
             LOGGER.debug("updating object in db");
+            updateSearchTokens(object);
             tx = session.beginTransaction();
             session.merge(object);
             tx.commit();
@@ -740,6 +746,8 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
      * direction (ASC, DESC) that is provided by the user. This method helps
      * support the server-side processing in the JQuery DataTables. For entities that support
      * soft-deletes, the returned list does not contain <code>T</code>s that have been soft-deleted.
+     * {@link SearchableEntity}s are searched through their indexed search tokens instead of the
+     * given searchable columns.
      *
      * @param clazz class type of <code>T</code>s to search for (may be null to
      * use Class&lt;T&gt;)
@@ -794,8 +802,13 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
             Conjunction and = Restrictions.conjunction();
             if (totalResultCount != 0) {
                 LOGGER.info("Total result count greater than 0");
-                //Builds the search criteria from all of the searchable columns
-                if (searchableColumns != null && !searchableColumns.isEmpty()) {
+                if (SearchableEntity.class.isAssignableFrom(searchClass)) {
+                    // Every word must start one of the entity's indexed search tokens
+                    for (String word : SearchTokens.getSearchWords(search)) {
+                        and.add(searchTokenStartsWith(searchClass, word));
+                    }
+                } else if (searchableColumns != null && !searchableColumns.isEmpty()) {
+                    //Builds the search criteria from all of the searchable columns
                     // Search for all words in all searchable columns
                     String[] searchWords = search.split(" ");
                     for (String word : searchWords) {
@@ -905,6 +918,36 @@ public abstract class AbstractDbManager<T> implements CrudManager<T> {
     }
 
 
+    /**
+     * Recomputes the search tokens of the given object before it is stored, if it is a
+     * {@link SearchableEntity}.
+     *
+     * @param object the object being saved or updated
+     */
+    private static void updateSearchTokens(final Object object) {
+        if (object instanceof SearchableEntity) {
+            ((SearchableEntity) object).updateSearchTokens();
+        }
+    }
+
+    /**
+     * Builds a restriction to the entities with a search token starting with the given word.
+     * The tokens are looked up through their index, so unlike the <code>like '%word%'</code>
+     * restrictions built for entities that are not searchable, it does not scan every row.
+     *
+     * @param searchClass the class of {@link SearchableEntity} being searched
+     * @param word a search word returned by {@link SearchTokens#getSearchWords(String)}
+     * @return Criterion object used in a hibernate query
+     */
+    private static Criterion searchTokenStartsWith(final Class<?> searchClass,
+                                                  final String word) {
+        DetachedCriteria matchingIds = DetachedCriteria.forClass(searchClass)
+                .createAlias(SearchableEntity.SEARCH_TOKENS_FIELD, "token")
+                .add(Restrictions.like("token.elements", word, MatchMode.START))
+                .setProjection(Projections.id());
+        return Subqueries.propertyIn("id", matchingIds);
+    }
+
     /**
      * Helper method in order to properly cast columns that are not Strings into
      * characters for search comparison.
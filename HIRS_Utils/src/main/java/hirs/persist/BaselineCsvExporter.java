@@ -0,0 +1,327 @@
+package hirs.persist;
+
+import hirs.data.persist.Digest;
+import hirs.data.persist.ImaBlacklistRecord;
+import hirs.data.persist.ImaIgnoreSetRecord;
+import hirs.data.persist.OptionalDigest;
+import hirs.data.persist.baseline.AbstractImaBaselineRecord;
+import hirs.data.persist.baseline.Baseline;
+import hirs.data.persist.baseline.IMABaselineRecord;
+import hirs.data.persist.baseline.ImaAcceptableRecordBaseline;
+import hirs.data.persist.baseline.ImaBlacklistBaseline;
+import hirs.data.persist.baseline.ImaIgnoreSetBaseline;
+import hirs.data.persist.baseline.QueryableRecordImaBaseline;
+import hirs.data.persist.baseline.SimpleImaBaseline;
+import hirs.data.persist.baseline.TPMBaseline;
+import hirs.ima.CSVGenerator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Criteria;
+import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.ProjectionList;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.transform.Transformers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Exports baselines as CSV, in the formats produced by {@link CSVGenerator}, directly to an
+ * output stream such as a servlet response.  The records of IMA baselines are read with a
+ * forward-only scrolling query and written as they are read, so the memory used by an export
+ * does not grow with the size of the baseline.
+ * <p>
+ * The records are written in order of their paths.  A record that a baseline holds more than
+ * once, such as one measured in several packages of a repository, is written once, as it is
+ * when the baseline's records are retrieved as a set.
+ */
+public class BaselineCsvExporter {
+
+    private static final Logger LOGGER = LogManager.getLogger(BaselineCsvExporter.class);
+    private static final String BASELINE_FIELD = "baseline";
+    private static final String DESCRIPTION_FIELD = "description";
+
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Creates a new exporter.
+     *
+     * @param sessionFactory session factory used to access database connections
+     */
+    public BaselineCsvExporter(final SessionFactory sessionFactory) {
+        if (sessionFactory == null) {
+            throw new IllegalArgumentException("SessionFactory cannot be null");
+        }
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Writes the records of the given saved IMA baseline to the given stream as UTF-8 encoded
+     * CSV.  The stream is flushed but not closed.
+     *
+     * @param baseline the baseline to export
+     * @param outputStream the stream to write the CSV to
+     * @throws IOException if the CSV cannot be written or the records cannot be read
+     */
+    public void exportImaRecords(final ImaAcceptableRecordBaseline baseline,
+                                 final OutputStream outputStream) throws IOException {
+        checkSaved(baseline);
+        final Class<?> criteriaClass;
+        final CriteriaConfigurer configurer;
+        if (baseline instanceof QueryableRecordImaBaseline) {
+            final QueryableRecordImaBaseline queryable = (QueryableRecordImaBaseline) baseline;
+            criteriaClass = queryable.getClass();
+            configurer = criteria -> queryable.configureCriteriaForBaselineRecords(criteria, 0,
+                    IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT);
+        } else if (baseline instanceof SimpleImaBaseline) {
+            criteriaClass = IMABaselineRecord.class;
+            configurer = criteria -> configureCriteriaForRecords(criteria, baseline, false);
+        } else {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot export records of baseline type %s",
+                    baseline.getClass().getSimpleName()));
+        }
+
+        export(baseline.getName(), criteriaClass, configurer,
+                entry -> new IMABaselineRecord(getPath(entry), getHash(entry)),
+                CSVGenerator::imaRecordsToCsv, outputStream);
+    }
+
+    /**
+     * Writes the records of the given saved ignore set baseline to the given stream as UTF-8
+     * encoded CSV.  The stream is flushed but not closed.
+     *
+     * @param baseline the baseline to export
+     * @param outputStream the stream to write the CSV to
+     * @throws IOException if the CSV cannot be written or the records cannot be read
+     */
+    public void exportIgnoreSet(final ImaIgnoreSetBaseline baseline,
+                                final OutputStream outputStream) throws IOException {
+        checkSaved(baseline);
+        export(baseline.getName(), ImaIgnoreSetRecord.class,
+                criteria -> configureCriteriaForRecords(criteria, baseline, true),
+                entry -> new ImaIgnoreSetRecord(getPath(entry), getDescription(entry)),
+                CSVGenerator::ignoreSetToCsv, outputStream);
+    }
+
+    /**
+     * Writes the records of the given saved blacklist baseline to the given stream as UTF-8
+     * encoded CSV.  The stream is flushed but not closed.
+     *
+     * @param baseline the baseline to export
+     * @param outputStream the stream to write the CSV to
+     * @throws IOException if the CSV cannot be written or the records cannot be read
+     */
+    public void exportBlacklist(final ImaBlacklistBaseline baseline,
+                                final OutputStream outputStream) throws IOException {
+        checkSaved(baseline);
+        export(baseline.getName(), ImaBlacklistRecord.class,
+                criteria -> configureCriteriaForRecords(criteria, baseline, true),
+                entry -> new ImaBlacklistRecord(getPath(entry), getHash(entry),
+                        getDescription(entry)),
+                CSVGenerator::blacklistToCsv, outputStream);
+    }
+
+    /**
+     * Writes the given TPM baseline to the given stream as UTF-8 encoded CSV.  A TPM baseline
+     * only holds the acceptable values of its PCRs, so its records are written from the
+     * baseline itself.  The stream is flushed but not closed.
+     *
+     * @param baseline the baseline to export
+     * @param outputStream the stream to write the CSV to
+     * @throws IOException if the CSV cannot be written
+     */
+    public void exportTpmRecords(final TPMBaseline baseline, final OutputStream outputStream)
+            throws IOException {
+        if (baseline == null || outputStream == null) {
+            throw new IllegalArgumentException("Baseline and output stream cannot be null");
+        }
+        Writer writer = newWriter(outputStream);
+        CSVGenerator.tpmRecordsToCsv(baseline, writer);
+        writer.flush();
+    }
+
+    private <R extends AbstractImaBaselineRecord> void export(
+            final String baselineName,
+            final Class<?> criteriaClass,
+            final CriteriaConfigurer configurer,
+            final Function<Map, R> toRecord,
+            final CsvWriter<R> csvWriter,
+            final OutputStream outputStream) throws IOException {
+        if (outputStream == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        LOGGER.info("Exporting baseline {}", baselineName);
+
+        StatelessSession session = sessionFactory.openStatelessSession();
+        Transaction tx = null;
+        try {
+            tx = session.beginTransaction();
+            Criteria criteria = session.createCriteria(criteriaClass);
+            configurer.configure(criteria);
+            criteria.addOrder(Order.asc(AbstractImaBaselineRecord.PATH_FIELD));
+            criteria.setResultTransformer(Transformers.ALIAS_TO_ENTITY_MAP);
+            criteria.setReadOnly(true);
+            criteria.setFetchSize(getFetchSize());
+            ScrollableResults results = criteria.scroll(ScrollMode.FORWARD_ONLY);
+
+            ScrollingRecordIterator<R> records = new ScrollingRecordIterator<>(results, toRecord);
+            Writer writer = newWriter(outputStream);
+            csvWriter.write(() -> records, writer);
+            writer.flush();
+            results.close();
+            tx.commit();
+            LOGGER.info("Exported {} records of baseline {}", records.getCount(), baselineName);
+        } catch (HibernateException e) {
+            LOGGER.error(String.format("Unable to export baseline %s", baselineName), e);
+            throw new IOException("Unable to read the records of baseline " + baselineName, e);
+        } finally {
+            if (tx != null && tx.isActive()) {
+                LOGGER.debug("Rolling back transaction");
+                tx.rollback();
+            }
+            session.close();
+        }
+    }
+
+    private static void configureCriteriaForRecords(final Criteria criteria,
+                                                    final Object baseline,
+                                                    final boolean withDescription) {
+        ProjectionList projections = Projections.projectionList()
+                .add(Projections.property(AbstractImaBaselineRecord.PATH_FIELD),
+                        AbstractImaBaselineRecord.PATH_FIELD)
+                .add(Projections.property(AbstractImaBaselineRecord.HASH_FIELD),
+                        AbstractImaBaselineRecord.HASH_FIELD);
+        if (withDescription) {
+            projections.add(Projections.property(DESCRIPTION_FIELD), DESCRIPTION_FIELD);
+        }
+        criteria.add(Restrictions.eq(BASELINE_FIELD, baseline)).setProjection(projections);
+    }
+
+    private int getFetchSize() {
+        if (((SessionFactoryImpl) sessionFactory).getDialect() instanceof MySQLDialect) {
+            // provides a hint to the JDBC connector that records should be streamed
+            return Integer.MIN_VALUE;
+        }
+        return 1;
+    }
+
+    private static void checkSaved(final Baseline baseline) {
+        if (baseline == null) {
+            throw new IllegalArgumentException("Baseline cannot be null");
+        }
+        if (baseline.getId() == null) {
+            throw new IllegalArgumentException("Baseline must be saved before exporting records");
+        }
+    }
+
+    private static Writer newWriter(final OutputStream outputStream) {
+        return new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    private static String getPath(final Map entry) {
+        return (String) entry.get(AbstractImaBaselineRecord.PATH_FIELD);
+    }
+
+    private static Digest getHash(final Map entry) {
+        OptionalDigest digest = (OptionalDigest) entry.get(AbstractImaBaselineRecord.HASH_FIELD);
+        if (digest == null) {
+            return null;
+        }
+        return digest.asDigest();
+    }
+
+    private static String getDescription(final Map entry) {
+        return (String) entry.get(DESCRIPTION_FIELD);
+    }
+
+    /**
+     * Configures a criteria to retrieve the path, hash and description of a baseline's records.
+     */
+    private interface CriteriaConfigurer {
+        void configure(Criteria criteria);
+    }
+
+    /**
+     * Writes records as CSV, as the writer-based methods of {@link CSVGenerator} do.
+     *
+     * @param <R> the type of record written
+     */
+    private interface CsvWriter<R> {
+        void write(Iterable<R> records, Writer writer) throws IOException;
+    }
+
+    /**
+     * Iterates once over the records of a scrolling query, skipping the records repeated in the
+     * results.  As the results are ordered by path, only the records with the current path are
+     * remembered.
+     *
+     * @param <R> the type of record iterated over
+     */
+    private static final class ScrollingRecordIterator<R extends AbstractImaBaselineRecord>
+            implements Iterator<R> {
+        private final ScrollableResults results;
+        private final Function<Map, R> toRecord;
+        private final Set<R> recordsWithPath = new HashSet<>();
+        private String path;
+        private R next;
+        private long count;
+
+        private ScrollingRecordIterator(final ScrollableResults results,
+                                        final Function<Map, R> toRecord) {
+            this.results = results;
+            this.toRecord = toRecord;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && results.next()) {
+                // get(0) guarantees other rows won't be initialized
+                R record = toRecord.apply((Map) results.get(0));
+                if (!Objects.equals(record.getPath(), path)) {
+                    path = record.getPath();
+                    recordsWithPath.clear();
+                }
+                if (recordsWithPath.add(record)) {
+                    next = record;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public R next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            R record = next;
+            next = null;
+            count++;
+            return record;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,737 @@
+package hirs.persist;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import hirs.data.persist.certificate.Certificate;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import hirs.data.persist.certificate.EndorsementCredential;
+import hirs.data.persist.certificate.PlatformCredential;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Criteria;
+import org.hibernate.HibernateException;
+import org.hibernate.SQLQuery;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Imports large numbers of certificates of one type, such as a vendor's platform credentials.
+ * Saving certificates one at a time through a {@link CertificateManager} queries for an identical
+ * certificate and saves each certificate in its own transaction.  This importer instead parses a
+ * batch of certificates in parallel, removes certificates repeated within the import, looks up
+ * the certificates of the batch that are already stored with one query, and inserts the new
+ * certificates through a {@link StatelessSession} in a single transaction.  The inserts are sent
+ * to the database in JDBC batches when <code>hibernate.jdbc.batch_size</code> is set.
+ * <p>
+ * Each file is stored, restored or rejected as it would be when uploaded through the portal: an
+ * identical archived certificate is restored, an identical unarchived certificate is rejected,
+ * and a base platform credential is rejected if its platform already has a base credential.
+ * The result of each file is given to a listener as each batch is committed.  Imports may also
+ * be submitted to run in the background, and their results retrieved while they run.
+ */
+public class BulkCertificateImporter {
+
+    private static final Logger LOGGER = LogManager.getLogger(BulkCertificateImporter.class);
+
+    /**
+     * The default number of certificates parsed, inserted and committed together.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * The most values bound to a single IN restriction, which keeps queries within the bind
+     * parameter limits of the supported databases.
+     */
+    private static final int IN_RESTRICTION_CHUNK_SIZE = 1000;
+    private static final long JOB_EXPIRATION_HOURS = 1;
+
+    private final SessionFactory sessionFactory;
+    private final Cache<UUID, ImportJob> jobs = CacheBuilder.newBuilder()
+            .expireAfterAccess(JOB_EXPIRATION_HOURS, TimeUnit.HOURS)
+            .build();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private ForkJoinPool parsePool = ForkJoinPool.commonPool();
+    private volatile ExecutorService jobExecutor;
+
+    /**
+     * Creates a new importer.
+     *
+     * @param sessionFactory session factory used to access database connections
+     */
+    public BulkCertificateImporter(final SessionFactory sessionFactory) {
+        if (sessionFactory == null) {
+            throw new IllegalArgumentException("SessionFactory cannot be null");
+        }
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Sets the number of certificates parsed, inserted and committed together.
+     *
+     * @param batchSize the number of certificates per batch
+     */
+    public void setBatchSize(final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the pool the certificates of a batch are parsed on.
+     *
+     * @param parsePool the pool, which is not shut down by this importer
+     */
+    public void setParsePool(final ForkJoinPool parsePool) {
+        if (parsePool == null) {
+            throw new IllegalArgumentException("Parse pool cannot be null");
+        }
+        this.parsePool = parsePool;
+    }
+
+    /**
+     * Sets the executor that runs submitted imports.
+     *
+     * @param jobExecutor the executor, which is not shut down by this importer, or null to run
+     *                    submitted imports one at a time on a thread created when needed
+     */
+    public void setJobExecutor(final ExecutorService jobExecutor) {
+        this.jobExecutor = jobExecutor;
+    }
+
+    /**
+     * Returns whether certificates of the given type can be imported.
+     *
+     * @param certificateClass the type of certificate
+     * @return true if the type can be imported
+     */
+    public static boolean isSupported(final Class<? extends Certificate> certificateClass) {
+        return certificateClass == PlatformCredential.class
+                || certificateClass == EndorsementCredential.class
+                || certificateClass == CertificateAuthorityCredential.class;
+    }
+
+    /**
+     * Imports the given files as certificates of the given type.
+     *
+     * @param certificateClass the type of the certificates
+     * @param files the files holding the certificates
+     * @param resultListener the listener given the result of each file once its batch has been
+     *                       committed, or null
+     * @return the result of each file, in the order the files were given
+     */
+    public List<ImportResult> importCertificates(
+            final Class<? extends Certificate> certificateClass,
+            final Collection<CertificateFile> files,
+            final Consumer<ImportResult> resultListener) {
+        if (!isSupported(certificateClass)) {
+            throw new IllegalArgumentException("Cannot import certificates of type "
+                    + certificateClass);
+        }
+        if (files == null) {
+            throw new IllegalArgumentException("Files cannot be null");
+        }
+        LOGGER.info("Importing {} files as {}", files.size(), certificateClass.getSimpleName());
+
+        ImportState state = new ImportState();
+        List<ImportResult> results = new ArrayList<>();
+        for (List<CertificateFile> batch : Lists.partition(new ArrayList<>(files), batchSize)) {
+            List<ImportResult> batchResults = importBatch(certificateClass, batch, state);
+            results.addAll(batchResults);
+            if (resultListener != null) {
+                batchResults.forEach(resultListener);
+            }
+        }
+
+        LOGGER.info("Imported {} files as {}", results.size(), certificateClass.getSimpleName());
+        return results;
+    }
+
+    /**
+     * Submits an import of the given files as certificates of the given type to run in the
+     * background.  The import can be retrieved with {@link #getJob(UUID)} for an hour after its
+     * results were last retrieved.
+     *
+     * @param certificateClass the type of the certificates
+     * @param files the files holding the certificates
+     * @return the submitted import
+     */
+    public ImportJob submit(final Class<? extends Certificate> certificateClass,
+                            final Collection<CertificateFile> files) {
+        if (!isSupported(certificateClass)) {
+            throw new IllegalArgumentException("Cannot import certificates of type "
+                    + certificateClass);
+        }
+        final ImportJob job = new ImportJob(certificateClass, files.size());
+        jobs.put(job.getId(), job);
+        final List<CertificateFile> fileList = new ArrayList<>(files);
+        getJobExecutor().submit(() -> {
+            try {
+                importCertificates(certificateClass, fileList, job.results::add);
+            } catch (RuntimeException e) {
+                LOGGER.error("Certificate import " + job.getId() + " failed", e);
+                job.failure = e.getMessage();
+            } finally {
+                job.done = true;
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Returns the submitted import with the given id.
+     *
+     * @param id the id of the import
+     * @return the import, or null if there is no such import or it has expired
+     */
+    public ImportJob getJob(final UUID id) {
+        return jobs.getIfPresent(id);
+    }
+
+    private ExecutorService getJobExecutor() {
+        ExecutorService executor = jobExecutor;
+        if (executor == null) {
+            executor = DefaultJobExecutorHolder.EXECUTOR;
+        }
+        return executor;
+    }
+
+    private List<ImportResult> importBatch(final Class<? extends Certificate> certificateClass,
+                                           final List<CertificateFile> batch,
+                                           final ImportState state) {
+        List<ParsedFile> parsedFiles = parsePool.submit(() -> batch.parallelStream()
+                .map(file -> parse(certificateClass, file))
+                .collect(Collectors.toList())).join();
+
+        Map<Integer, ParsedFile> uniqueFiles = new HashMap<>();
+        for (ParsedFile parsedFile : parsedFiles) {
+            if (parsedFile.certificate != null) {
+                int hash = parsedFile.certificate.getCertificateHash();
+                if (state.importedHashes.contains(hash) || uniqueFiles.containsKey(hash)) {
+                    parsedFile.result = duplicate(parsedFile.file.getName());
+                } else {
+                    uniqueFiles.put(hash, parsedFile);
+                }
+            }
+        }
+
+        Set<String> acceptedBaseSerials = new HashSet<>();
+        Transaction tx = null;
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            tx = session.beginTransaction();
+            Map<Integer, StoredCertificate> storedCertificates =
+                    getStoredCertificates(session, certificateClass, uniqueFiles.keySet());
+            Set<String> storedBaseSerials = getStoredBaseSerials(session, uniqueFiles.values());
+
+            for (ParsedFile parsedFile : parsedFiles) {
+                if (parsedFile.result != null) {
+                    continue;
+                }
+                String fileName = parsedFile.file.getName();
+                Certificate certificate = parsedFile.certificate;
+                StoredCertificate stored =
+                        storedCertificates.get(certificate.getCertificateHash());
+                if (stored == null) {
+                    String baseSerial = getBaseSerial(certificate);
+                    if (baseSerial != null && (storedBaseSerials.contains(baseSerial)
+                            || state.importedBaseSerials.contains(baseSerial)
+                            || !acceptedBaseSerials.add(baseSerial))) {
+                        parsedFile.result = new ImportResult(fileName, ImportStatus.REJECTED,
+                                "Storing certificate failed: platform credential chain ("
+                                        + baseSerial + ") base already exists in this chain ("
+                                        + fileName + ")");
+                        continue;
+                    }
+                    session.insert(certificate);
+                    insertSearchTokens(session, certificate);
+                    parsedFile.result = new ImportResult(fileName, ImportStatus.STORED,
+                            String.format("New certificate successfully uploaded (%s): ",
+                                    fileName));
+                } else if (stored.archived) {
+                    Certificate existing =
+                            (Certificate) session.get(certificateClass, stored.id);
+                    existing.restore();
+                    existing.resetCreateTime();
+                    session.update(existing);
+                    parsedFile.result = new ImportResult(fileName, ImportStatus.RESTORED,
+                            String.format("Pre-existing certificate found and unarchived (%s): ",
+                                    fileName));
+                } else {
+                    parsedFile.result = duplicate(fileName);
+                }
+            }
+            tx.commit();
+        } catch (HibernateException e) {
+            LOGGER.error("Unable to store a batch of certificates", e);
+            if (tx != null && tx.isActive()) {
+                LOGGER.debug("Rolling back transaction");
+                tx.rollback();
+            }
+            return failBatch(parsedFiles, uniqueFiles.values(), e);
+        } finally {
+            session.close();
+        }
+
+        state.importedHashes.addAll(uniqueFiles.keySet());
+        state.importedBaseSerials.addAll(acceptedBaseSerials);
+        return parsedFiles.stream().map(parsedFile -> parsedFile.result)
+                .collect(Collectors.toList());
+    }
+
+    private static List<ImportResult> failBatch(final List<ParsedFile> parsedFiles,
+                                                final Collection<ParsedFile> uniqueFiles,
+                                                final HibernateException e) {
+        List<ImportResult> results = new ArrayList<>();
+        for (ParsedFile parsedFile : parsedFiles) {
+            if (uniqueFiles.contains(parsedFile)) {
+                String fileName = parsedFile.file.getName();
+                results.add(new ImportResult(fileName, ImportStatus.FAILED,
+                        String.format("Storing new certificate failed (%s): ", fileName)
+                                + e.getMessage()));
+            } else {
+                results.add(parsedFile.result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the id and archived state of the stored certificates of the given type, including
+     * archived certificates, whose hash is one of the given hashes.
+     */
+    private static Map<Integer, StoredCertificate> getStoredCertificates(
+            final StatelessSession session,
+            final Class<? extends Certificate> certificateClass,
+            final Set<Integer> hashes) {
+        Map<Integer, StoredCertificate> storedCertificates = new HashMap<>();
+        for (List<Integer> chunk : Lists.partition(new ArrayList<>(hashes),
+                IN_RESTRICTION_CHUNK_SIZE)) {
+            Criteria criteria = session.createCriteria(certificateClass)
+                    .add(Restrictions.in(Certificate.CERTIFICATE_HASH_FIELD, chunk))
+                    .setProjection(Projections.projectionList()
+                            .add(Projections.id())
+                            .add(Projections.property(Certificate.CERTIFICATE_HASH_FIELD))
+                            .add(Projections.property(Certificate.ARCHIVE_FIELD)));
+            for (Object row : criteria.list()) {
+                Object[] columns = (Object[]) row;
+                int index = 0;
+                UUID id = (UUID) columns[index++];
+                Integer hash = (Integer) columns[index++];
+                Date archivedTime = (Date) columns[index];
+                storedCertificates.put(hash, new StoredCertificate(id, archivedTime != null));
+            }
+        }
+        return storedCertificates;
+    }
+
+    /**
+     * Returns the platform serials of the given base platform credentials that already have an
+     * unarchived base platform credential stored.
+     */
+    private static Set<String> getStoredBaseSerials(final StatelessSession session,
+                                                    final Collection<ParsedFile> parsedFiles) {
+        Set<String> serials = new HashSet<>();
+        for (ParsedFile parsedFile : parsedFiles) {
+            String baseSerial = getBaseSerial(parsedFile.certificate);
+            if (baseSerial != null) {
+                serials.add(baseSerial);
+            }
+        }
+
+        Set<String> storedSerials = new HashSet<>();
+        for (List<String> chunk : Lists.partition(new ArrayList<>(serials),
+                IN_RESTRICTION_CHUNK_SIZE)) {
+            Criteria criteria = session.createCriteria(PlatformCredential.class)
+                    .add(Restrictions.in(PlatformCredential.PLATFORM_SERIAL_FIELD, chunk))
+                    .add(Restrictions.eq(PlatformCredential.PLATFORM_BASE_FIELD, true))
+                    .add(Restrictions.isNull(Certificate.ARCHIVE_FIELD))
+                    .setProjection(Projections.property(
+                            PlatformCredential.PLATFORM_SERIAL_FIELD));
+            for (Object serial : criteria.list()) {
+                storedSerials.add((String) serial);
+            }
+        }
+        return storedSerials;
+    }
+
+    private static void insertSearchTokens(final StatelessSession session,
+                                           final Certificate certificate) {
+        // a stateless session does not store collections, so the tokens are inserted directly
+        Set<String> tokens = certificate.getSearchTokens();
+        if (tokens.isEmpty()) {
+            return;
+        }
+        String values = String.join(", ", Collections.nCopies(tokens.size(), "(?, ?)"));
+        SQLQuery insert = session.createSQLQuery(String.format("insert into %s (%s, %s) values %s",
+                Certificate.SEARCH_TOKEN_TABLE, Certificate.SEARCH_TOKEN_CERTIFICATE_COLUMN,
+                Certificate.SEARCH_TOKEN_COLUMN, values));
+        int position = 0;
+        String id = certificate.getId().toString();
+        for (String token : tokens) {
+            insert.setString(position++, id);
+            insert.setString(position++, token);
+        }
+        insert.executeUpdate();
+    }
+
+    private static String getBaseSerial(final Certificate certificate) {
+        if (certificate instanceof PlatformCredential) {
+            PlatformCredential platformCredential = (PlatformCredential) certificate;
+            if (platformCredential.isBase()) {
+                return platformCredential.getPlatformSerial();
+            }
+        }
+        return null;
+    }
+
+    private static ImportResult duplicate(final String fileName) {
+        return new ImportResult(fileName, ImportStatus.DUPLICATE, String.format(
+                "Storing certificate failed: an identical certificate already exists (%s): ",
+                fileName));
+    }
+
+    private static ParsedFile parse(final Class<? extends Certificate> certificateClass,
+                                    final CertificateFile file) {
+        String fileName = file.getName();
+        byte[] fileBytes;
+        try {
+            fileBytes = file.getBytes();
+        } catch (IOException e) {
+            final String failMessage = String.format(
+                    "Failed to read uploaded file (%s): ", fileName);
+            LOGGER.error(failMessage, e);
+            return new ParsedFile(file, new ImportResult(fileName, ImportStatus.INVALID,
+                    failMessage + e.getMessage()));
+        }
+
+        try {
+            Certificate certificate;
+            if (certificateClass == PlatformCredential.class) {
+                certificate = new PlatformCredential(fileBytes);
+            } else if (certificateClass == EndorsementCredential.class) {
+                certificate = new EndorsementCredential(fileBytes);
+            } else {
+                certificate = new CertificateAuthorityCredential(fileBytes);
+            }
+            certificate.updateSearchTokens();
+            return new ParsedFile(file, certificate);
+        } catch (IOException | RuntimeException e) {
+            final String failMessage = String.format(
+                    "Failed to parse uploaded file (%s): ", fileName);
+            LOGGER.error(failMessage, e);
+            return new ParsedFile(file, new ImportResult(fileName, ImportStatus.INVALID,
+                    failMessage + e.getMessage()));
+        }
+    }
+
+    /**
+     * The certificates and base platform serials stored by earlier batches of an import.
+     */
+    private static final class ImportState {
+        private final Set<Integer> importedHashes = new HashSet<>();
+        private final Set<String> importedBaseSerials = new HashSet<>();
+    }
+
+    /**
+     * A file of a batch with its certificate, once parsed, and its result, once known.
+     */
+    private static final class ParsedFile {
+        private final CertificateFile file;
+        private final Certificate certificate;
+        private ImportResult result;
+
+        private ParsedFile(final CertificateFile file, final Certificate certificate) {
+            this.file = file;
+            this.certificate = certificate;
+        }
+
+        private ParsedFile(final CertificateFile file, final ImportResult result) {
+            this.file = file;
+            this.certificate = null;
+            this.result = result;
+        }
+    }
+
+    /**
+     * The id and archived state of a stored certificate.
+     */
+    private static final class StoredCertificate {
+        private final UUID id;
+        private final boolean archived;
+
+        private StoredCertificate(final UUID id, final boolean archived) {
+            this.id = id;
+            this.archived = archived;
+        }
+    }
+
+    /**
+     * Holds the executor used when none has been set, which is only created once it is needed.
+     */
+    private static final class DefaultJobExecutorHolder {
+        private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(
+                runnable -> {
+                    Thread thread = new Thread(runnable, "certificate-import");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        private DefaultJobExecutorHolder() {
+        }
+    }
+
+    /**
+     * A file holding a certificate to import.
+     */
+    public static final class CertificateFile {
+        private final String name;
+        private final byte[] bytes;
+        private final Path path;
+
+        private CertificateFile(final String name, final byte[] bytes, final Path path) {
+            this.name = name;
+            this.bytes = bytes;
+            this.path = path;
+        }
+
+        /**
+         * Creates a file with the given name and contents.
+         *
+         * @param name the name of the file
+         * @param bytes the contents of the file
+         * @return the file
+         */
+        public static CertificateFile of(final String name, final byte[] bytes) {
+            if (bytes == null) {
+                throw new IllegalArgumentException("File contents cannot be null");
+            }
+            return new CertificateFile(name, Arrays.copyOf(bytes, bytes.length), null);
+        }
+
+        /**
+         * Creates a file that is read from the given path when its certificate is parsed.
+         *
+         * @param path the path of the file
+         * @return the file
+         */
+        public static CertificateFile of(final Path path) {
+            if (path == null) {
+                throw new IllegalArgumentException("Path cannot be null");
+            }
+            return new CertificateFile(path.toString(), null, path);
+        }
+
+        /**
+         * Returns the name of the file.
+         *
+         * @return the file name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the contents of the file.
+         *
+         * @return the file's bytes
+         * @throws IOException if the file cannot be read
+         */
+        public byte[] getBytes() throws IOException {
+            if (path != null) {
+                return Files.readAllBytes(path);
+            }
+            return Arrays.copyOf(bytes, bytes.length);
+        }
+    }
+
+    /**
+     * What was done with an imported file.
+     */
+    public enum ImportStatus {
+        /**
+         * The certificate was stored.
+         */
+        STORED,
+
+        /**
+         * An identical archived certificate was restored.
+         */
+        RESTORED,
+
+        /**
+         * An identical certificate is already stored or was earlier in the import.
+         */
+        DUPLICATE,
+
+        /**
+         * The certificate was not stored because its platform already has a base credential.
+         */
+        REJECTED,
+
+        /**
+         * The file could not be read or parsed as a certificate.
+         */
+        INVALID,
+
+        /**
+         * The certificate could not be stored.
+         */
+        FAILED
+    }
+
+    /**
+     * The result of importing a file.
+     */
+    public static final class ImportResult {
+        private final String fileName;
+        private final ImportStatus status;
+        private final String message;
+
+        private ImportResult(final String fileName, final ImportStatus status,
+                             final String message) {
+            this.fileName = fileName;
+            this.status = status;
+            this.message = message;
+        }
+
+        /**
+         * Returns the name of the file.
+         *
+         * @return the file name
+         */
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * Returns what was done with the file.
+         *
+         * @return the status of the file
+         */
+        public ImportStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * Returns a message describing what was done with the file.
+         *
+         * @return the message
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * Returns whether the file's certificate was stored or restored.
+         *
+         * @return true if the certificate is now stored and unarchived because of the import
+         */
+        public boolean isSuccess() {
+            return status == ImportStatus.STORED || status == ImportStatus.RESTORED;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s", status, message);
+        }
+    }
+
+    /**
+     * An import running in the background.
+     */
+    public static final class ImportJob {
+        private final UUID id = UUID.randomUUID();
+        private final String certificateType;
+        private final int fileCount;
+        private final Collection<ImportResult> results = new ConcurrentLinkedQueue<>();
+        private volatile boolean done;
+        private volatile String failure;
+
+        private ImportJob(final Class<? extends Certificate> certificateClass,
+                          final int fileCount) {
+            this.certificateType = certificateClass.getSimpleName();
+            this.fileCount = fileCount;
+        }
+
+        /**
+         * Returns the id of the import.
+         *
+         * @return the id
+         */
+        public UUID getId() {
+            return id;
+        }
+
+        /**
+         * Returns the name of the type of certificate being imported.
+         *
+         * @return the certificate type
+         */
+        public String getCertificateType() {
+            return certificateType;
+        }
+
+        /**
+         * Returns the number of files being imported.
+         *
+         * @return the number of files
+         */
+        public int getFileCount() {
+            return fileCount;
+        }
+
+        /**
+         * Returns the results of the files whose batches have been committed so far.
+         *
+         * @return the results, in the order the files were given
+         */
+        public List<ImportResult> getResults() {
+            return Collections.unmodifiableList(new ArrayList<>(results));
+        }
+
+        /**
+         * Returns whether the import has finished.
+         *
+         * @return true if every file has a result or the import failed
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * Returns the message of the error that stopped the import.
+         *
+         * @return the message, or null if the import has not failed
+         */
+        public String getFailure() {
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package hirs.persist;
+
+import hirs.data.persist.ImaBlacklistRecord;
+import hirs.data.persist.ImaIgnoreSetRecord;
+import hirs.data.persist.baseline.AbstractImaBaselineRecord;
+import hirs.data.persist.baseline.IMABaselineRecord;
+import hirs.data.persist.baseline.ImaBaseline;
+import hirs.data.persist.baseline.ImaBlacklistBaseline;
+import hirs.data.persist.baseline.ImaIgnoreSetBaseline;
+import hirs.data.persist.baseline.SimpleImaBaseline;
+import hirs.ima.ImaBaselineRecordReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Imports the records of large IMA baselines directly into the database.  Rather than building a
+ * baseline with all of its records in memory and saving it through a session, the records are
+ * read one at a time and inserted through a {@link StatelessSession} in batches, each committed
+ * in its own transaction.  The inserts of a batch are sent to the database in JDBC batches when
+ * <code>hibernate.jdbc.batch_size</code> is set and the database generates the records' ids
+ * without an identity column.
+ * <p>
+ * Because every batch is committed, an import that fails leaves the records of the batches
+ * before the failure in the baseline.  The failure reports the last row that was committed, so
+ * the import can be resumed from the same input by skipping that many rows.
+ * <p>
+ * Duplicate records are only removed within a batch.  A record repeated in different batches is
+ * stored twice, but a baseline's records are retrieved as a set, so this does not change how
+ * the baseline appraises.
+ */
+public class BulkImaBaselineImporter {
+
+    private static final Logger LOGGER = LogManager.getLogger(BulkImaBaselineImporter.class);
+
+    /**
+     * The default number of records inserted and committed together.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final SessionFactory sessionFactory;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private Consumer<ImportProgress> progressListener;
+
+    /**
+     * Creates a new importer.
+     *
+     * @param sessionFactory session factory used to access database connections
+     */
+    public BulkImaBaselineImporter(final SessionFactory sessionFactory) {
+        if (sessionFactory == null) {
+            throw new IllegalArgumentException("SessionFactory cannot be null");
+        }
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Sets the number of records inserted and committed together.
+     *
+     * @param batchSize the number of records per batch
+     */
+    public void setBatchSize(final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the listener that is given the progress of an import after every committed batch.
+     *
+     * @param progressListener the listener, or null to only log the progress
+     */
+    public void setProgressListener(final Consumer<ImportProgress> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Imports the records read by the given reader into the given saved baseline.
+     *
+     * @param baseline the baseline to add the records to, which must have been saved
+     * @param reader the reader of the records, which is closed by this method
+     * @param resumeAfterRow the number of rows that an earlier import of the same input
+     *                       committed, which are skipped, or 0 to import every row
+     * @return the progress of the completed import
+     * @throws ImaBaselineImportException if the input cannot be read or the records cannot be
+     *                                    saved
+     */
+    public ImportProgress importRecords(final SimpleImaBaseline baseline,
+                                        final ImaBaselineRecordReader<IMABaselineRecord> reader,
+                                        final long resumeAfterRow)
+            throws ImaBaselineImportException {
+        return importRecords(baseline, reader, resumeAfterRow,
+                record -> record.setBaselineForRecordManager(baseline));
+    }
+
+    /**
+     * Imports the records read by the given reader into the given saved ignore set baseline.
+     *
+     * @param baseline the baseline to add the records to, which must have been saved
+     * @param reader the reader of the records, which is closed by this method
+     * @param resumeAfterRow the number of rows that an earlier import of the same input
+     *                       committed, which are skipped, or 0 to import every row
+     * @return the progress of the completed import
+     * @throws ImaBaselineImportException if the input cannot be read or the records cannot be
+     *                                    saved
+     */
+    public ImportProgress importRecords(final ImaIgnoreSetBaseline baseline,
+                                        final ImaBaselineRecordReader<ImaIgnoreSetRecord> reader,
+                                        final long resumeAfterRow)
+            throws ImaBaselineImportException {
+        return importRecords(baseline, reader, resumeAfterRow,
+                record -> record.setOnlyBaseline(baseline));
+    }
+
+    /**
+     * Imports the records read by the given reader into the given saved blacklist baseline.
+     *
+     * @param baseline the baseline to add the records to, which must have been saved
+     * @param reader the reader of the records, which is closed by this method
+     * @param resumeAfterRow the number of rows that an earlier import of the same input
+     *                       committed, which are skipped, or 0 to import every row
+     * @return the progress of the completed import
+     * @throws ImaBaselineImportException if the input cannot be read or the records cannot be
+     *                                    saved
+     */
+    public ImportProgress importRecords(final ImaBlacklistBaseline baseline,
+                                        final ImaBaselineRecordReader<ImaBlacklistRecord> reader,
+                                        final long resumeAfterRow)
+            throws ImaBaselineImportException {
+        return importRecords(baseline, reader, resumeAfterRow,
+                record -> record.setBaseline(baseline));
+    }
+
+    private <R extends AbstractImaBaselineRecord> ImportProgress importRecords(
+            final ImaBaseline<R> baseline,
+            final ImaBaselineRecordReader<R> reader,
+            final long resumeAfterRow,
+            final Consumer<R> setBaseline) throws ImaBaselineImportException {
+        if (baseline == null || reader == null) {
+            throw new IllegalArgumentException("Baseline and reader cannot be null");
+        }
+        if (baseline.getId() == null) {
+            throw new IllegalArgumentException("Baseline must be saved before importing records");
+        }
+        LOGGER.info("Importing records into baseline {}, resuming after row {}",
+                baseline.getName(), resumeAfterRow);
+
+        ImportProgress progress = new ImportProgress(resumeAfterRow, 0);
+        StatelessSession session = sessionFactory.openStatelessSession();
+        Transaction tx = null;
+        try {
+            Set<R> batch = new LinkedHashSet<>();
+            R record;
+            while ((record = reader.read()) != null) {
+                if (reader.getRowNumber() <= resumeAfterRow) {
+                    continue;
+                }
+                setBaseline.accept(record);
+                batch.add(record);
+                if (batch.size() >= batchSize) {
+                    tx = session.beginTransaction();
+                    insert(session, batch);
+                    tx.commit();
+                    progress = reportProgress(baseline.getName(), progress,
+                            reader.getRowNumber(), batch);
+                }
+            }
+            if (!batch.isEmpty()) {
+                tx = session.beginTransaction();
+                insert(session, batch);
+                tx.commit();
+                progress = reportProgress(baseline.getName(), progress, reader.getRowNumber(),
+                        batch);
+            }
+        } catch (IOException | HibernateException e) {
+            LOGGER.error(String.format("Unable to import baseline %s after row %d",
+                    baseline.getName(), progress.getLastCommittedRow()), e);
+            if (tx != null && tx.isActive()) {
+                LOGGER.debug("Rolling back transaction");
+                tx.rollback();
+            }
+            throw new ImaBaselineImportException(e, progress.getLastCommittedRow());
+        } finally {
+            session.close();
+            try {
+                reader.close();
+            } catch (IOException e) {
+                LOGGER.warn("Unable to close baseline record reader", e);
+            }
+        }
+
+        LOGGER.info("Imported {} records into baseline {}", progress.getImportedRecordCount(),
+                baseline.getName());
+        return progress;
+    }
+
+    private static <R> void insert(final StatelessSession session, final Set<R> batch) {
+        for (R record : batch) {
+            session.insert(record);
+        }
+    }
+
+    private ImportProgress reportProgress(final String baselineName,
+                                          final ImportProgress progress,
+                                          final long lastCommittedRow,
+                                          final Set<?> batch) {
+        ImportProgress next = new ImportProgress(lastCommittedRow,
+                progress.getImportedRecordCount() + batch.size());
+        batch.clear();
+        LOGGER.debug("Imported {} records into baseline {} up to row {}",
+                next.getImportedRecordCount(), baselineName, next.getLastCommittedRow());
+        if (progressListener != null) {
+            progressListener.accept(next);
+        }
+        return next;
+    }
+
+    /**
+     * The progress of an import.
+     */
+    public static final class ImportProgress {
+        private final long lastCommittedRow;
+        private final long importedRecordCount;
+
+        private ImportProgress(final long lastCommittedRow, final long importedRecordCount) {
+            this.lastCommittedRow = lastCommittedRow;
+            this.importedRecordCount = importedRecordCount;
+        }
+
+        /**
+         * Returns the number of the last row of the input whose record has been committed.  An
+         * import resumed after this row imports the remaining records.
+         *
+         * @return the last committed row
+         */
+        public long getLastCommittedRow() {
+            return lastCommittedRow;
+        }
+
+        /**
+         * Returns the number of records committed by this import, excluding the rows skipped
+         * when it was resumed.
+         *
+         * @return the number of imported records
+         */
+        public long getImportedRecordCount() {
+            return importedRecordCount;
+        }
+    }
+}
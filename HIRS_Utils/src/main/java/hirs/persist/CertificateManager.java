@@ -39,4 +39,23 @@ public interface CertificateManager {
      * @return true if the deletion succeeded, false otherwise
      */
     boolean delete(Certificate certificate);
+
+    /**
+     * Returns a value that changes whenever a certificate of the given type is saved, deleted,
+     * archived or restored.  Callers that keep certificates in memory can compare it against
+     * the value they loaded with to tell whether their copy is stale.
+     *
+     * @param certificateClass the type of certificate
+     * @return an opaque version string
+     */
+    String getVersion(Class<? extends Certificate> certificateClass);
+
+    /**
+     * Stores the search tokens of every certificate saved without them, such as certificates
+     * saved by an earlier version.  Certificates saved or updated through this manager have
+     * their search tokens stored with them.
+     *
+     * @return the number of certificates whose search tokens were stored
+     */
+    long updateSearchTokens();
 }
@@ -1,14 +1,24 @@
 package hirs.persist;
 
+import hirs.data.persist.SearchableEntity;
 import hirs.data.persist.certificate.Certificate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Criteria;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
 
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * This class is used to persist and retrieve {@link Certificate}s into and from a database.
@@ -17,6 +27,7 @@ public class DBCertificateManager extends DBManager<Certificate>
         implements CertificateManager {
 
     private static final Logger LOGGER = LogManager.getLogger(DBCertificateManager.class);
+    private static final int SEARCH_TOKEN_PAGE_SIZE = 100;
 
     /**
      * Creates a new {@link DBCertificateManager} that uses the default
@@ -68,4 +79,95 @@ public class DBCertificateManager extends DBManager<Certificate>
     public boolean deleteCertificate(final Certificate certificate) {
         return delete(certificate);
     }
+
+    /**
+     * Returns the number of certificates of the given type along with their latest creation
+     * and archive times.  Restoring an archived certificate resets its creation time, so every
+     * save, delete, archive and restore changes the result.
+     *
+     * @param certificateClass the type of certificate
+     * @return an opaque version string
+     */
+    @Override
+    public String getVersion(final Class<? extends Certificate> certificateClass) {
+        Object[] version;
+        Transaction tx = null;
+        Session session = getFactory().getCurrentSession();
+        try {
+            tx = session.beginTransaction();
+            version = (Object[]) session.createCriteria(certificateClass)
+                    .setProjection(Projections.projectionList()
+                            .add(Projections.rowCount())
+                            .add(Projections.max("createTime"))
+                            .add(Projections.max(Certificate.ARCHIVE_FIELD)))
+                    .uniqueResult();
+            tx.commit();
+        } catch (Exception ex) {
+            final String msg = "unable to retrieve certificate version";
+            LOGGER.error(msg, ex);
+            if (tx != null) {
+                LOGGER.debug("rolling back transaction");
+                tx.rollback();
+            }
+            throw new DBManagerException(msg, ex);
+        }
+        StringBuilder versionString = new StringBuilder();
+        for (Object value : version) {
+            if (value instanceof Date) {
+                versionString.append(((Date) value).getTime());
+            } else {
+                versionString.append(value);
+            }
+            versionString.append(';');
+        }
+        return versionString.toString();
+    }
+
+    /**
+     * Stores the search tokens of every certificate that has none, such as certificates saved
+     * before search tokens were stored.  Certificates are indexed a page at a time in short
+     * transactions, so they may be used while they are indexed; until a certificate is indexed,
+     * it is not found by searches of the portal's tables.
+     *
+     * @return the number of certificates that were indexed
+     */
+    @Override
+    public long updateSearchTokens() {
+        long indexed = 0;
+        UUID lastId = null;
+        int rowCount;
+        do {
+            Transaction tx = null;
+            Session session = getFactory().getCurrentSession();
+            try {
+                tx = session.beginTransaction();
+                Criteria criteria = session.createCriteria(Certificate.class)
+                        .add(Restrictions.isEmpty(SearchableEntity.SEARCH_TOKENS_FIELD))
+                        .addOrder(Order.asc(Certificate.ID_FIELD))
+                        .setMaxResults(SEARCH_TOKEN_PAGE_SIZE);
+                if (lastId != null) {
+                    criteria.add(Restrictions.gt(Certificate.ID_FIELD, lastId));
+                }
+                List<?> certificates = criteria.list();
+                rowCount = certificates.size();
+                for (Object certificate : certificates) {
+                    ((Certificate) certificate).updateSearchTokens();
+                    lastId = ((Certificate) certificate).getId();
+                }
+                tx.commit();
+                indexed += rowCount;
+            } catch (HibernateException e) {
+                final String msg = "unable to store certificate search tokens";
+                LOGGER.error(msg, e);
+                if (tx != null) {
+                    LOGGER.debug("rolling back transaction");
+                    tx.rollback();
+                }
+                throw new DBManagerException(msg, e);
+            }
+        } while (rowCount == SEARCH_TOKEN_PAGE_SIZE);
+
+        LOGGER.info("Stored the search tokens of {} certificates", indexed);
+        return indexed;
+    }
 }
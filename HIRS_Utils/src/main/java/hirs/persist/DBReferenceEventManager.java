@@ -10,6 +10,7 @@ import org.apache.logging.log4j.Logger;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Restrictions;
 
 import java.util.ArrayList;
@@ -171,18 +172,7 @@ public class DBReferenceEventManager extends DBManager<ReferenceDigestValue>
             throw new NullPointerException("null manufacturer parameter");
         }
 
-        List<ReferenceDigestValue> dbDigestValues = new ArrayList<>();
-        try {
-            List<ReferenceDigestValue> dbTempList = super.getList(ReferenceDigestValue.class);
-            for (ReferenceDigestValue rdv : dbTempList) {
-                if (rdv.getManufacturer().equals(manufacturer)) {
-                    dbDigestValues.add(rdv);
-                }
-            }
-        } catch (DBManagerException dbMEx) {
-            throw new RuntimeException(dbMEx);
-        }
-        return dbDigestValues;
+        return getValuesWithRestriction(Restrictions.eq("manufacturer", manufacturer));
     }
 
     @Override
@@ -192,18 +182,7 @@ public class DBReferenceEventManager extends DBManager<ReferenceDigestValue>
             throw new NullPointerException("null model parameter");
         }
 
-        List<ReferenceDigestValue> dbDigestValues = new ArrayList<>();
-        try {
-            List<ReferenceDigestValue> dbTempList = super.getList(ReferenceDigestValue.class);
-            for (ReferenceDigestValue rdv : dbTempList) {
-                if (rdv.getModel().equals(model)) {
-                    dbDigestValues.add(rdv);
-                }
-            }
-        } catch (DBManagerException dbMEx) {
-            throw new RuntimeException(dbMEx);
-        }
-        return dbDigestValues;
+        return getValuesWithRestriction(Restrictions.eq("model", model));
     }
 
     @Override
@@ -218,19 +197,9 @@ public class DBReferenceEventManager extends DBManager<ReferenceDigestValue>
             throw new NullPointerException("null manufacturer parameter");
         }
 
-        List<ReferenceDigestValue> dbDigestValues = new ArrayList<>();
-        try {
-            List<ReferenceDigestValue> dbTempList = super.getList(ReferenceDigestValue.class);
-            for (ReferenceDigestValue rdv : dbTempList) {
-                if (rdv.getManufacturer().equals(manufacturer)
-                        && rdv.getModel().equals(model)) {
-                    dbDigestValues.add(rdv);
-                }
-            }
-        } catch (DBManagerException dbMEx) {
-            throw new RuntimeException(dbMEx);
-        }
-        return dbDigestValues;
+        return getValuesWithRestriction(Restrictions.and(
+                Restrictions.eq("manufacturer", manufacturer),
+                Restrictions.eq("model", model)));
     }
 
     @Override
@@ -254,26 +223,25 @@ public class DBReferenceEventManager extends DBManager<ReferenceDigestValue>
             throw new NullPointerException("null referenceManifest ID");
         }
 
-        List<ReferenceDigestValue> dbDigestValues = new ArrayList<>();
         UUID uuid = referenceManifest.getId();
-        UUID rdvUuid = UUID.randomUUID();
-        try {
-            final List<ReferenceDigestValue> dbTempList
-                    = super.getList(ReferenceDigestValue.class);
-            for (ReferenceDigestValue rdv : dbTempList) {
-                if (referenceManifest instanceof BaseReferenceManifest) {
-                    rdvUuid = rdv.getBaseRimId();
-                } else if (referenceManifest instanceof SupportReferenceManifest) {
-                    rdvUuid = rdv.getSupportRimId();
-                }
-                if (rdvUuid.equals(uuid)) {
-                    dbDigestValues.add(rdv);
-                }
-            }
-        } catch (DBManagerException dbMEx) {
-            throw new RuntimeException(dbMEx);
+        if (referenceManifest instanceof BaseReferenceManifest) {
+            return getValuesByBaseRimId(uuid);
+        } else if (referenceManifest instanceof SupportReferenceManifest) {
+            return getValuesWithRestriction(Restrictions.eq("supportRimId", uuid));
         }
-        return dbDigestValues;
+
+        return new ArrayList<>(0);
+    }
+
+    @Override
+    public List<ReferenceDigestValue> getValuesByBaseRimId(final UUID baseRimId) {
+        LOGGER.debug("Getting digest values for base RIM {}", baseRimId);
+        if (baseRimId == null) {
+            LOGGER.error("null base RIM ID argument");
+            throw new NullPointerException("null base RIM ID");
+        }
+
+        return getValuesWithRestriction(Restrictions.eq("baseRimId", baseRimId));
     }
 
     @Override
@@ -284,19 +252,7 @@ public class DBReferenceEventManager extends DBManager<ReferenceDigestValue>
             throw new NullPointerException("null event type");
         }
 
-        List<ReferenceDigestValue> dbDigestValues = new ArrayList<>();
-        try {
-            final List<ReferenceDigestValue> dbTempList
-                    = super.getList(ReferenceDigestValue.class);
-            for (ReferenceDigestValue rdv : dbTempList) {
-                if (rdv.getEventType().equals(eventType)) {
-                    dbDigestValues.add(rdv);
-                }
-            }
-        } catch (DBManagerException dbMEx) {
-            throw new RuntimeException(dbMEx);
-        }
-        return dbDigestValues;
+        return getValuesWithRestriction(Restrictions.eq("eventType", eventType));
     }
 
     @Override
@@ -320,4 +276,19 @@ public class DBReferenceEventManager extends DBManager<ReferenceDigestValue>
         }
         return result;
     }
+
+    /**
+     * Retrieves the {@link ReferenceDigestValue}s matching the given restriction.  The
+     * restriction is applied by the database so that only the matching rows are loaded.
+     *
+     * @param restriction the criterion to filter the values by
+     * @return the list of matching values
+     */
+    private List<ReferenceDigestValue> getValuesWithRestriction(final Criterion restriction) {
+        try {
+            return super.getList(ReferenceDigestValue.class, restriction);
+        } catch (DBManagerException dbMEx) {
+            throw new RuntimeException(dbMEx);
+        }
+    }
 }
@@ -1,35 +1,59 @@
 package hirs.persist;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import hirs.data.persist.Digest;
+import hirs.data.persist.DigestSet;
 import hirs.data.persist.baseline.IMABaselineRecord;
 import hirs.data.persist.OptionalDigest;
+import hirs.data.persist.enums.DigestAlgorithm;
 import hirs.data.persist.baseline.QueryableRecordImaBaseline;
 import hirs.data.persist.baseline.SimpleImaBaseline;
+import hirs.ima.matching.CompiledImaBaseline;
+import hirs.ima.matching.CompiledImaBaselineStore;
 
 import hirs.utils.Callback;
-import hirs.utils.Job;
-import hirs.utils.JobExecutor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.Criteria;
 import org.hibernate.HibernateException;
+import org.hibernate.Query;
 import org.hibernate.ScrollMode;
 import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.transform.Transformers;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  *
@@ -41,6 +65,49 @@ public class DbImaBaselineRecordManager extends DBManager<IMABaselineRecord>
             LogManager.getLogger(DbImaBaselineRecordManager.class);
     private static final int LOGGING_INTERVAL = 500;
 
+    /**
+     * The default largest fraction of a baseline's size that the number of paths or hashes
+     * looked up may be before the whole baseline is iterated over instead.
+     */
+    public static final double DEFAULT_INDEXED_LOOKUP_MAX_FRACTION = 0.05;
+
+    /**
+     * The most values bound to a single IN restriction, which keeps queries within the bind
+     * parameter limits of the supported databases.
+     */
+    private static final int IN_RESTRICTION_CHUNK_SIZE = 1000;
+    private static final long BASELINE_SIZE_EXPIRATION_MINUTES = 5;
+    private static final String DIGEST_FIELD = "digest";
+    private static final String ID_FIELD = "id";
+    private static final String ALGORITHM_FIELD = "algorithm";
+    private static final String BASELINE_ID_FIELD = "baseline.id";
+
+    /**
+     * The number of threads of the executor that iterates over baseline records when no
+     * executor has been set.
+     */
+    public static final int DEFAULT_ITERATION_THREADS = 4;
+
+    /**
+     * The fewest records a baseline must have per partition for its iteration to be split into
+     * that many partitions.  Smaller baselines are iterated over by fewer threads, as each
+     * partition costs a query and a database connection.
+     */
+    private static final int DEFAULT_MIN_RECORDS_PER_PARTITION = 1000;
+    private static final int REBUCKET_PAGE_SIZE = 1000;
+
+    private final Cache<UUID, Long> baselineSizes = CacheBuilder.newBuilder()
+            .expireAfterWrite(BASELINE_SIZE_EXPIRATION_MINUTES, TimeUnit.MINUTES)
+            .build();
+    private final ConcurrentMap<List<Integer>, IterationMetrics> iterationMetrics =
+            new ConcurrentHashMap<>();
+    private volatile double indexedLookupMaxFraction = DEFAULT_INDEXED_LOOKUP_MAX_FRACTION;
+    private volatile ExecutorService iterationExecutor;
+    private volatile int iterationPartitions = DEFAULT_ITERATION_THREADS;
+    private volatile int minRecordsPerPartition = DEFAULT_MIN_RECORDS_PER_PARTITION;
+    private volatile boolean pathDigestsStored;
+    private volatile CompiledImaBaselineStore compiledBaselineStore;
+
     /**
      * Creates a new <code>DBImaBaselineRecordManager</code> that uses the default
      * database. The default database is used to store all of the
@@ -52,6 +119,113 @@ public class DbImaBaselineRecordManager extends DBManager<IMABaselineRecord>
         super(IMABaselineRecord.class, sessionFactory);
     }
 
+    /**
+     * Sets the largest fraction of a baseline's size that the number of paths or hashes looked
+     * up by {@link #getBaselineRecordsByPath} and {@link #getBaselineRecordsByHash} may be
+     * before the whole baseline is iterated over instead of being queried through the indexes
+     * on the record fields.
+     *
+     * @param indexedLookupMaxFraction the fraction, where 0 always iterates over the baseline
+     */
+    public void setIndexedLookupMaxFraction(final double indexedLookupMaxFraction) {
+        if (indexedLookupMaxFraction < 0) {
+            throw new IllegalArgumentException("Indexed lookup fraction cannot be negative");
+        }
+        this.indexedLookupMaxFraction = indexedLookupMaxFraction;
+    }
+
+    /**
+     * Sets the executor that iterates over the partitions of a baseline's records.  The executor
+     * is shared by every iteration and is not shut down by this manager; it should have no more
+     * threads than there are database connections available to it.  Callbacks given to
+     * {@link #iterateOverBaselineRecords} must not iterate over baseline records themselves, as
+     * they run on this executor.
+     *
+     * @param iterationExecutor the executor, or null to use a shared executor with
+     *                          {@link #DEFAULT_ITERATION_THREADS} threads
+     */
+    public void setIterationExecutor(final ExecutorService iterationExecutor) {
+        this.iterationExecutor = iterationExecutor;
+    }
+
+    /**
+     * Sets the largest number of partitions of contiguous buckets that a baseline's records are
+     * split into when iterating over them.  Each partition is retrieved by its own task on the
+     * iteration executor.  Baselines with fewer than a thousand records per partition are split
+     * into fewer partitions.
+     *
+     * @param iterationPartitions the number of partitions, from 1 to
+     *                            {@link IMABaselineRecord#FILENAME_HASH_BUCKET_COUNT}
+     */
+    public void setIterationPartitions(final int iterationPartitions) {
+        if (iterationPartitions < 1
+                || iterationPartitions > IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT) {
+            throw new IllegalArgumentException(String.format(
+                    "Iteration partitions must be between 1 and %d",
+                    IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT));
+        }
+        this.iterationPartitions = iterationPartitions;
+    }
+
+    /**
+     * Sets the store of compiled baselines returned by {@link #getCompiledBaseline}.
+     *
+     * @param compiledBaselineStore the store, or null to match against the records on the heap
+     */
+    public void setCompiledBaselineStore(final CompiledImaBaselineStore compiledBaselineStore) {
+        this.compiledBaselineStore = compiledBaselineStore;
+    }
+
+    /**
+     * Sets the fewest records a baseline must have per partition for its iteration to be split
+     * into that many partitions.
+     *
+     * @param minRecordsPerPartition the fewest records per partition
+     */
+    void setMinRecordsPerPartition(final int minRecordsPerPartition) {
+        this.minRecordsPerPartition = minRecordsPerPartition;
+    }
+
+    /**
+     * Returns the executor that iterates over the partitions of a baseline's records.
+     *
+     * @return the iteration executor
+     */
+    public ExecutorService getIterationExecutor() {
+        ExecutorService executor = iterationExecutor;
+        if (executor == null) {
+            return DefaultIterationExecutorHolder.EXECUTOR;
+        }
+        return executor;
+    }
+
+    /**
+     * Creates an executor for iterating over baseline records, whose threads are daemon threads
+     * that do not keep the application running.
+     *
+     * @param threads the number of threads
+     * @return the executor
+     */
+    public static ExecutorService newIterationExecutor(final int threads) {
+        return Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setNameFormat("ima-record-iteration-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * Returns the throughput of iterating over each range of buckets that baseline records have
+     * been iterated over in, ordered by their first bucket.
+     *
+     * @return the metrics of each range of buckets
+     */
+    public List<IterationMetrics> getIterationMetrics() {
+        List<IterationMetrics> metrics = new ArrayList<>(iterationMetrics.values());
+        metrics.sort(Comparator.comparingInt(IterationMetrics::getFromBucket)
+                .thenComparingInt(IterationMetrics::getToBucket));
+        return metrics;
+    }
+
     /**
      * Stores a new <code>IMABaselineRecord</code>. This stores a new
      * <code>IMABaselineRecord</code> to be managed by the <code>IMABaselineRecordManager</code>.
@@ -249,41 +423,40 @@ public class DbImaBaselineRecordManager extends DBManager<IMABaselineRecord>
         Collection<Callable<Void>> tasks = new ArrayList<>();
 
         int fetchSize;
-        switch (getConfiguredImplementation()) {
-            case MYSQL:
-                fetchSize = Integer.MIN_VALUE;
-                break;
-            case HSQL:
-            default:
-                fetchSize = 1;
-        }
-
         DBImpl impl = getConfiguredImplementation();
         if (impl == DBImpl.MYSQL) {
             // provides a hint to the JDBC connector that records should be streamed
             fetchSize = Integer.MIN_VALUE;
-        } else if (impl == DBImpl.HSQL) {
+        } else {
             fetchSize = 1;
         }
 
+        final int partitionCount = getPartitionCount(baseline);
         final AtomicInteger recCounter = new AtomicInteger();
-        for (int i = 0; i < IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT; i++) {
-            final int bucket = i;
+        for (int i = 0; i < partitionCount; i++) {
+            final int partition = i;
+            final int fromBucket =
+                    IMABaselineRecord.getFirstBucketOfPartition(partition, partitionCount);
+            final int toBucket =
+                    IMABaselineRecord.getFirstBucketOfPartition(partition + 1, partitionCount);
             final int finalFetchSize = fetchSize;
             tasks.add(new Callable<Void>() {
                 @Override
                 public Void call() throws Exception {
                     LOGGER.debug(String.format(
-                            "IMA record iteration: starting examiner thread %d",
-                            bucket
+                            "IMA record iteration: starting examiner for buckets %d to %d",
+                            fromBucket, toBucket - 1
                     ));
                     List<T> results = new LinkedList<>();
+                    long startedAt = System.nanoTime();
+                    long examined = 0;
 
                     StatelessSession statelessSession = getStatelessSession();
                     try {
                         Transaction tx = statelessSession.beginTransaction();
                         Criteria criteria = statelessSession.createCriteria(baseline.getClass());
-                        baseline.configureCriteriaForBaselineRecords(criteria, bucket);
+                        baseline.configureCriteriaForBaselineRecords(criteria, fromBucket,
+                                toBucket);
                         criteria.setResultTransformer(Transformers.ALIAS_TO_ENTITY_MAP);
                         criteria.setReadOnly(true);
                         criteria.setFetchSize(finalFetchSize);
@@ -294,14 +467,12 @@ public class DbImaBaselineRecordManager extends DBManager<IMABaselineRecord>
                         while (records.next()) {
                             // get(0) guarantees other rows won't be initialized
                             entry = (Map) records.get(0);
-                            String path = (String) entry.get(IMABaselineRecord.PATH_FIELD);
-                            OptionalDigest digest =
-                                    (OptionalDigest) entry.get(IMABaselineRecord.HASH_FIELD);
-                            baselineRecord = new IMABaselineRecord(path, digest.asDigest());
+                            baselineRecord = toBaselineRecord(entry);
                             T result = callback.call(baselineRecord);
                             if (result != null) {
                                 results.add(result);
                             }
+                            examined++;
                             int count = recCounter.incrementAndGet();
                             if (count % LOGGING_INTERVAL == 0) {
                                 LOGGER.debug(String.format(
@@ -310,10 +481,10 @@ public class DbImaBaselineRecordManager extends DBManager<IMABaselineRecord>
                             }
                         }
                         tx.commit();
-                    } catch (Exception e) {
-                        throw e;
                     } finally {
                         statelessSession.close();
+                        getPartitionMetrics(partition, partitionCount)
+                                .record(examined, System.nanoTime() - startedAt);
                     }
 
                     allResults.addAll(results);
@@ -322,23 +493,537 @@ public class DbImaBaselineRecordManager extends DBManager<IMABaselineRecord>
             });
         }
 
-        JobExecutor executor = new JobExecutor();
-        Job<Void> job = new Job<>(tasks);
-        executor.scheduleJob(job);
-
+        List<Future<Void>> futures;
         try {
-            executor.shutdown();
+            futures = getIterationExecutor().invokeAll(tasks);
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new DBManagerException(e);
         }
 
-        if (job.getState() != Job.State.COMPLETED) {
-            LOGGER.error("Appraisal job finished in state {}", job.getState().toString());
-            for (String s : job.getAllFailures()) {
-                throw new DBManagerException(s);
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DBManagerException(e);
+            } catch (ExecutionException e) {
+                LOGGER.error("IMA record iteration failed", e.getCause());
+                throw new DBManagerException(e.getCause());
             }
         }
 
         return allResults;
     }
+
+    /**
+     * Returns the number of partitions to split the iteration over the given baseline's records
+     * into: the configured number, unless the baseline is too small to benefit from them.
+     */
+    private int getPartitionCount(final QueryableRecordImaBaseline baseline) {
+        int partitions = iterationPartitions;
+        if (baseline.getId() != null) {
+            long sizedPartitions = getBaselineSize(baseline) / minRecordsPerPartition + 1;
+            partitions = (int) Math.min(partitions, sizedPartitions);
+        }
+        return partitions;
+    }
+
+    private IterationMetrics getPartitionMetrics(final int partition, final int partitionCount) {
+        int fromBucket = IMABaselineRecord.getFirstBucketOfPartition(partition, partitionCount);
+        int toBucket = IMABaselineRecord.getFirstBucketOfPartition(partition + 1, partitionCount);
+        return iterationMetrics.computeIfAbsent(Arrays.asList(fromBucket, toBucket),
+                key -> new IterationMetrics(fromBucket, toBucket));
+    }
+
+    /**
+     * Migrates every stored {@link IMABaselineRecord} saved before path digests were stored:
+     * each is moved into the bucket {@link IMABaselineRecord#getBucket(String)} returns for its
+     * path, as records saved before {@link IMABaselineRecord#FILENAME_HASH_BUCKET_COUNT} changed
+     * may be in another bucket, and its partial path and path digest are stored.  Records are
+     * migrated a page at a time in short transactions, so baselines may be used while they are
+     * migrated; iterating over a baseline returns each of its records whichever bucket it is in,
+     * but its partitions are unbalanced until the migration completes, and paths are looked up
+     * by iterating over the baseline rather than through the index on the path digest column.
+     * <p>
+     * Only records without a path digest are read, through the index on the path digest column,
+     * and each page read is migrated.  Once every record has been migrated, this is a single
+     * query returning no records.
+     *
+     * @return the number of records that were updated
+     */
+    @Override
+    public long rebucketBaselineRecords() {
+        long moved = 0;
+        Long lastId = null;
+        int rowCount;
+        do {
+            Transaction tx = null;
+            StatelessSession session = getStatelessSession();
+            try {
+                tx = session.beginTransaction();
+                Criteria criteria = session.createCriteria(IMABaselineRecord.class)
+                        .add(Restrictions.isNull(IMABaselineRecord.PATH_DIGEST_FIELD))
+                        .setProjection(Projections.projectionList()
+                                .add(Projections.id())
+                                .add(Projections.property(IMABaselineRecord.PATH_FIELD)))
+                        .addOrder(Order.asc(ID_FIELD))
+                        .setMaxResults(REBUCKET_PAGE_SIZE);
+                if (lastId != null) {
+                    criteria.add(Restrictions.gt(ID_FIELD, lastId));
+                }
+                List<?> rows = criteria.list();
+                rowCount = rows.size();
+
+                Query update = session.createQuery(String.format(
+                        "update %s set %s = :bucket, %s = :partialPath, %s = :pathDigest"
+                                + " where %s = :id",
+                        IMABaselineRecord.class.getSimpleName(), IMABaselineRecord.BUCKET_FIELD,
+                        IMABaselineRecord.PARTIAL_PATH_FIELD, IMABaselineRecord.PATH_DIGEST_FIELD,
+                        ID_FIELD));
+                for (Object row : rows) {
+                    Object[] columns = (Object[]) row;
+                    lastId = (Long) columns[0];
+                    String path = (String) columns[1];
+                    update.setInteger("bucket", IMABaselineRecord.getBucket(path));
+                    update.setString("partialPath", IMABaselineRecord.getStoredPartialPath(path));
+                    update.setString("pathDigest", IMABaselineRecord.getPathDigest(path));
+                    update.setLong("id", lastId);
+                    moved += update.executeUpdate();
+                }
+                tx.commit();
+            } catch (HibernateException e) {
+                LOGGER.error("Unable to migrate baseline records", e);
+                if (tx != null) {
+                    LOGGER.debug("Rolling back transaction");
+                    tx.rollback();
+                }
+                throw new DBManagerException(e);
+            } finally {
+                session.close();
+            }
+        } while (rowCount == REBUCKET_PAGE_SIZE);
+
+        LOGGER.info("Migrated {} IMA baseline records", moved);
+        return moved;
+    }
+
+    /**
+     * Retrieves the {@link IMABaselineRecord}s in the given baseline whose path is one of the
+     * given paths.  The paths are looked up in batches through the index on the path digest
+     * column, unless there are more of them than the configured fraction of the baseline's size
+     * or some records have not yet had their path digests stored by
+     * {@link #rebucketBaselineRecords()}, in which case the whole baseline is iterated over.
+     *
+     * @param baseline the baseline whose {@link IMABaselineRecord}s should be searched
+     * @param paths    the paths of the records to retrieve
+     * @return the matching records
+     */
+    @Override
+    public Collection<IMABaselineRecord> getBaselineRecordsByPath(
+            final QueryableRecordImaBaseline baseline, final Collection<String> paths) {
+        final Set<String> pathsToFind = new HashSet<>(paths);
+        if (!isIndexedPathLookup(baseline, pathsToFind.size())) {
+            return iterateOverBaselineRecords(baseline,
+                    new Callback<IMABaselineRecord, IMABaselineRecord>() {
+                        @Override
+                        public IMABaselineRecord call(final IMABaselineRecord baselineRecord) {
+                            if (pathsToFind.contains(baselineRecord.getPath())) {
+                                return baselineRecord;
+                            }
+                            return null;
+                        }
+                    });
+        }
+
+        return getBaselineRecordsByPathDigest(baseline, pathsToFind);
+    }
+
+    /**
+     * Retrieves the {@link IMABaselineRecord}s in the given baseline whose path or partial path
+     * is one of the given paths.  Partial paths and path digests are stored and indexed with the
+     * records, so the paths are looked up through the indexes on the path digest and partial path
+     * columns, unless there are more of them than the configured fraction of the baseline's size
+     * or some records have not yet had their path digests stored by
+     * {@link #rebucketBaselineRecords()}, in which case the whole baseline is iterated over.
+     *
+     * @param baseline the baseline whose {@link IMABaselineRecord}s should be searched
+     * @param paths    the paths and partial paths of the records to retrieve
+     * @return the matching records
+     */
+    @Override
+    public Collection<IMABaselineRecord> getBaselineRecordsByPathOrPartialPath(
+            final QueryableRecordImaBaseline baseline, final Collection<String> paths) {
+        final Set<String> pathsToFind = new HashSet<>(paths);
+        if (!isIndexedPathLookup(baseline, pathsToFind.size())) {
+            return iterateOverBaselineRecords(baseline,
+                    new Callback<IMABaselineRecord, IMABaselineRecord>() {
+                        @Override
+                        public IMABaselineRecord call(final IMABaselineRecord baselineRecord) {
+                            if (pathsToFind.contains(baselineRecord.getPath())
+                                    || pathsToFind.contains(baselineRecord.getPartialPath())) {
+                                return baselineRecord;
+                            }
+                            return null;
+                        }
+                    });
+        }
+
+        List<String> partialPaths = new ArrayList<>();
+        for (String path : pathsToFind) {
+            // longer partial paths are not stored
+            if (path != null && path.length() <= IMABaselineRecord.MAX_PARTIAL_PATH_LENGTH) {
+                partialPaths.add(path);
+            }
+        }
+        Set<IMABaselineRecord> records = new HashSet<>(
+                getBaselineRecordsByPathDigest(baseline, pathsToFind));
+        records.addAll(getBaselineRecords(baseline, IMABaselineRecord.PARTIAL_PATH_FIELD,
+                partialPaths));
+        return records;
+    }
+
+    /**
+     * Retrieves the {@link IMABaselineRecord}s in the given baseline whose hash is one of the
+     * given hashes.  The hashes are looked up in batches through the index on the digest
+     * column, unless there are more of them than the configured fraction of the baseline's
+     * size, in which case the whole baseline is iterated over.
+     *
+     * @param baseline the baseline whose {@link IMABaselineRecord}s should be searched
+     * @param hashes   the hashes of the records to retrieve
+     * @return the matching records
+     */
+    @Override
+    public Collection<IMABaselineRecord> getBaselineRecordsByHash(
+            final QueryableRecordImaBaseline baseline, final Collection<Digest> hashes) {
+        final DigestSet hashesToFind = new DigestSet(hashes.size());
+        final List<byte[]> digests = new ArrayList<>();
+        for (Digest hash : hashes) {
+            if (hash != null && hashesToFind.add(hash)) {
+                digests.add(hash.getDigest());
+            }
+        }
+        if (!isIndexedLookup(baseline, hashesToFind.size())) {
+            return iterateOverBaselineRecords(baseline,
+                    new Callback<IMABaselineRecord, IMABaselineRecord>() {
+                        @Override
+                        public IMABaselineRecord call(final IMABaselineRecord baselineRecord) {
+                            if (hashesToFind.contains(baselineRecord.getHash())) {
+                                return baselineRecord;
+                            }
+                            return null;
+                        }
+                    });
+        }
+
+        List<IMABaselineRecord> records = getBaselineRecords(baseline,
+                String.format("%s.%s", IMABaselineRecord.HASH_FIELD, DIGEST_FIELD), digests);
+        // the digest column alone does not distinguish algorithms
+        records.removeIf(record -> !hashesToFind.contains(record.getHash()));
+        return records;
+    }
+
+    /**
+     * Returns the compiled copy of the baseline with the given id from the store set by
+     * {@link #setCompiledBaselineStore}.  The revision of the baseline is queried from its stored
+     * records, and its records are only retrieved, as plain path and hash values, when that
+     * revision has not been compiled yet.  If the baseline cannot be compiled, null is returned
+     * so that matching uses the records instead.
+     *
+     * @param baselineId the id of the simple baseline whose records should be compiled
+     * @return the compiled baseline, or null if there is no store or the baseline could not be
+     *         compiled
+     */
+    @Override
+    public CompiledImaBaseline getCompiledBaseline(final UUID baselineId) {
+        CompiledImaBaselineStore store = compiledBaselineStore;
+        if (store == null || baselineId == null) {
+            return null;
+        }
+        try {
+            return store.get(baselineId, getStoredRevision(baselineId),
+                    () -> getStoredRecords(baselineId));
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Unable to compile IMA baseline %s", baselineId), e);
+            return null;
+        }
+    }
+
+    private String getStoredRevision(final UUID baselineId) {
+        StatelessSession session = getStatelessSession();
+        try {
+            Object[] row = (Object[]) session.createCriteria(IMABaselineRecord.class)
+                    .add(Restrictions.eq(BASELINE_ID_FIELD, baselineId))
+                    .setProjection(Projections.projectionList()
+                            .add(Projections.rowCount())
+                            .add(Projections.max(ID_FIELD)))
+                    .uniqueResult();
+            return CompiledImaBaselineStore.getRevision((Long) row[0], (Long) row[1]);
+        } catch (HibernateException e) {
+            LOGGER.error("Unable to count baseline records", e);
+            throw new DBManagerException(e);
+        } finally {
+            session.close();
+        }
+    }
+
+    private List<IMABaselineRecord> getStoredRecords(final UUID baselineId) {
+        List<IMABaselineRecord> records = new ArrayList<>();
+        StatelessSession session = getStatelessSession();
+        try {
+            ScrollableResults results = session.createCriteria(IMABaselineRecord.class)
+                    .add(Restrictions.eq(BASELINE_ID_FIELD, baselineId))
+                    .setProjection(Projections.projectionList()
+                            .add(Projections.property(IMABaselineRecord.PATH_FIELD))
+                            .add(Projections.property(String.format("%s.%s",
+                                    IMABaselineRecord.HASH_FIELD, DIGEST_FIELD)))
+                            .add(Projections.property(String.format("%s.%s",
+                                    IMABaselineRecord.HASH_FIELD, ALGORITHM_FIELD))))
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            while (results.next()) {
+                records.add(new IMABaselineRecord((String) results.get(0),
+                        new Digest((DigestAlgorithm) results.get(2), (byte[]) results.get(1))));
+            }
+            results.close();
+        } catch (HibernateException e) {
+            LOGGER.error("Unable to retrieve baseline records", e);
+            throw new DBManagerException(e);
+        } finally {
+            session.close();
+        }
+        return records;
+    }
+
+    private boolean isIndexedLookup(final QueryableRecordImaBaseline baseline,
+                                    final int valueCount) {
+        return valueCount <= indexedLookupMaxFraction * getBaselineSize(baseline);
+    }
+
+    private boolean isIndexedPathLookup(final QueryableRecordImaBaseline baseline,
+                                        final int valueCount) {
+        return isIndexedLookup(baseline, valueCount) && arePathDigestsStored();
+    }
+
+    /**
+     * Returns whether every stored record has its path digest.  Records are always saved with
+     * their path digests, so once every record has one this is not queried again.  The path
+     * digests and partial paths of earlier records are stored together, so until this returns
+     * true, lookups by partial path would miss records too.
+     */
+    private boolean arePathDigestsStored() {
+        if (pathDigestsStored) {
+            return true;
+        }
+        Transaction tx = null;
+        StatelessSession session = getStatelessSession();
+        try {
+            tx = session.beginTransaction();
+            Object unmigratedId = session.createCriteria(IMABaselineRecord.class)
+                    .add(Restrictions.isNull(IMABaselineRecord.PATH_DIGEST_FIELD))
+                    .setProjection(Projections.id())
+                    .setMaxResults(1)
+                    .uniqueResult();
+            tx.commit();
+            pathDigestsStored = unmigratedId == null;
+        } catch (HibernateException e) {
+            LOGGER.error("Unable to find baseline records without path digests", e);
+            if (tx != null) {
+                LOGGER.debug("Rolling back transaction");
+                tx.rollback();
+            }
+            throw new DBManagerException(e);
+        } finally {
+            session.close();
+        }
+        if (!pathDigestsStored) {
+            LOGGER.debug("Iterating over baselines until every record has its path digest");
+        }
+        return pathDigestsStored;
+    }
+
+    /**
+     * Retrieves the records in the given baseline whose path is one of the given paths through
+     * the index on the path digest column.
+     */
+    private List<IMABaselineRecord> getBaselineRecordsByPathDigest(
+            final QueryableRecordImaBaseline baseline, final Set<String> paths) {
+        List<String> pathDigests = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            if (path != null) {
+                pathDigests.add(IMABaselineRecord.getPathDigest(path));
+            }
+        }
+        List<IMABaselineRecord> records = getBaselineRecords(baseline,
+                IMABaselineRecord.PATH_DIGEST_FIELD, pathDigests);
+        // distinct paths may share a digest
+        records.removeIf(record -> !paths.contains(record.getPath()));
+        return records;
+    }
+
+    /**
+     * Returns the number of records in the given baseline.  Sizes are cached for a few minutes
+     * so that they are not counted for every report.
+     */
+    private long getBaselineSize(final QueryableRecordImaBaseline baseline) {
+        if (baseline.getId() == null) {
+            return countBaselineRecords(baseline);
+        }
+        try {
+            return baselineSizes.get(baseline.getId(), () -> countBaselineRecords(baseline));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new DBManagerException(e.getCause());
+        }
+    }
+
+    private long countBaselineRecords(final QueryableRecordImaBaseline baseline) {
+        long count = 0;
+        Transaction tx = null;
+        StatelessSession session = getStatelessSession();
+        try {
+            tx = session.beginTransaction();
+            Criteria criteria = session.createCriteria(baseline.getClass());
+            baseline.configureCriteriaForBaselineRecords(criteria, 0,
+                    IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT);
+            criteria.setProjection(Projections.rowCount());
+            count = ((Number) criteria.uniqueResult()).longValue();
+            tx.commit();
+        } catch (HibernateException e) {
+            LOGGER.error("Unable to count baseline records", e);
+            if (tx != null) {
+                LOGGER.debug("Rolling back transaction");
+                tx.rollback();
+            }
+            throw new DBManagerException(e);
+        } finally {
+            session.close();
+        }
+        return count;
+    }
+
+    /**
+     * Retrieves the records in the given baseline whose field holds one of the given values,
+     * querying the values in chunks.
+     */
+    private List<IMABaselineRecord> getBaselineRecords(final QueryableRecordImaBaseline baseline,
+                                                       final String recordField,
+                                                       final List<?> values) {
+        List<IMABaselineRecord> records = new ArrayList<>();
+        if (values.isEmpty()) {
+            return records;
+        }
+
+        Transaction tx = null;
+        StatelessSession session = getStatelessSession();
+        try {
+            tx = session.beginTransaction();
+            for (List<?> chunk : Lists.partition(values, IN_RESTRICTION_CHUNK_SIZE)) {
+                Criteria criteria = session.createCriteria(baseline.getClass());
+                baseline.configureCriteriaForBaselineRecords(criteria, recordField, chunk);
+                criteria.setResultTransformer(Transformers.ALIAS_TO_ENTITY_MAP);
+                criteria.setReadOnly(true);
+                for (Object entry : criteria.list()) {
+                    records.add(toBaselineRecord((Map) entry));
+                }
+            }
+            tx.commit();
+        } catch (HibernateException e) {
+            LOGGER.error("Unable to retrieve baseline records", e);
+            if (tx != null) {
+                LOGGER.debug("Rolling back transaction");
+                tx.rollback();
+            }
+            throw new DBManagerException(e);
+        } finally {
+            session.close();
+        }
+        LOGGER.debug("Retrieved {} records matching {} values of {}", records.size(),
+                values.size(), recordField);
+        return records;
+    }
+
+    private static IMABaselineRecord toBaselineRecord(final Map entry) {
+        String path = (String) entry.get(IMABaselineRecord.PATH_FIELD);
+        OptionalDigest digest = (OptionalDigest) entry.get(IMABaselineRecord.HASH_FIELD);
+        return new IMABaselineRecord(path, digest.asDigest());
+    }
+
+    /**
+     * Holds the executor used when none has been set, which is only created once it is needed.
+     */
+    private static final class DefaultIterationExecutorHolder {
+        private static final ExecutorService EXECUTOR =
+                newIterationExecutor(DEFAULT_ITERATION_THREADS);
+
+        private DefaultIterationExecutorHolder() {
+        }
+    }
+
+    /**
+     * The throughput of iterating over the baseline records in a range of buckets.
+     */
+    public static final class IterationMetrics {
+        private final int fromBucket;
+        private final int toBucket;
+        private final LongAdder iterations = new LongAdder();
+        private final LongAdder records = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private IterationMetrics(final int fromBucket, final int toBucket) {
+            this.fromBucket = fromBucket;
+            this.toBucket = toBucket;
+        }
+
+        private void record(final long examined, final long elapsedNanos) {
+            iterations.increment();
+            records.add(examined);
+            nanos.add(elapsedNanos);
+        }
+
+        /**
+         * @return the first bucket of the range
+         */
+        public int getFromBucket() {
+            return fromBucket;
+        }
+
+        /**
+         * @return the bucket after the last bucket of the range
+         */
+        public int getToBucket() {
+            return toBucket;
+        }
+
+        /**
+         * @return the number of times the range has been iterated over
+         */
+        public long getIterationCount() {
+            return iterations.sum();
+        }
+
+        /**
+         * @return the number of records examined in the range
+         */
+        public long getRecordCount() {
+            return records.sum();
+        }
+
+        /**
+         * @return the average number of records examined per second while iterating over the
+         *         range, including the time taken by the callbacks
+         */
+        public double getRecordsPerSecond() {
+            long totalNanos = nanos.sum();
+            if (totalNanos == 0) {
+                return 0;
+            }
+            return records.sum() / (double) totalNanos * TimeUnit.SECONDS.toNanos(1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("buckets=%d-%d, iterations=%d, records=%d, recordsPerSec=%.1f",
+                    fromBucket, toBucket - 1, getIterationCount(), getRecordCount(),
+                    getRecordsPerSecond());
+        }
+    }
 }
@@ -3,6 +3,7 @@ package hirs.persist;
 import hirs.data.persist.Digest;
 import hirs.data.persist.ImaBlacklistRecord;
 import hirs.data.persist.OptionalDigest;
+import hirs.data.persist.baseline.IMABaselineRecord;
 import hirs.data.persist.baseline.QueryableRecordImaBaseline;
 import hirs.data.persist.baseline.ImaBlacklistBaseline;
 
@@ -269,6 +270,10 @@ public class DbImaBlacklistBaselineRecordManager extends DBManager<ImaBlacklistR
         final AtomicInteger recCounter = new AtomicInteger();
         for (int i = 0; i < ImaBlacklistRecord.FILENAME_HASH_BUCKET_COUNT; i++) {
             final int bucket = i;
+            final int fromBucket = IMABaselineRecord.getFirstBucketOfPartition(
+                    i, ImaBlacklistRecord.FILENAME_HASH_BUCKET_COUNT);
+            final int toBucket = IMABaselineRecord.getFirstBucketOfPartition(
+                    i + 1, ImaBlacklistRecord.FILENAME_HASH_BUCKET_COUNT);
             final int finalFetchSize = fetchSize;
             tasks.add(new Callable<Void>() {
                 @Override
@@ -283,7 +288,8 @@ public class DbImaBlacklistBaselineRecordManager extends DBManager<ImaBlacklistR
                     try {
                         Transaction tx = statelessSession.beginTransaction();
                         Criteria criteria = statelessSession.createCriteria(baseline.getClass());
-                        baseline.configureCriteriaForBaselineRecords(criteria, bucket);
+                        baseline.configureCriteriaForBaselineRecords(criteria, fromBucket,
+                                toBucket);
                         criteria.setResultTransformer(Transformers.ALIAS_TO_ENTITY_MAP);
                         criteria.setReadOnly(true);
                         criteria.setFetchSize(finalFetchSize);
@@ -30,6 +30,11 @@ import java.util.Properties;
 })
 public class HibernateConfiguration {
 
+    /**
+     * The default number of statements sent to the database together in a JDBC batch.
+     */
+    public static final int DEFAULT_JDBC_BATCH_SIZE = 50;
+
     @Value("${persistence.db.url}")
     private String url;
 
@@ -63,6 +68,10 @@ public class HibernateConfiguration {
     @Value("${persistence.hibernate.provider}")
     private String provider;
 
+    @Value("${persistence.hibernate.jdbcBatchSize:"
+            + HibernateConfiguration.DEFAULT_JDBC_BATCH_SIZE + "}")
+    private String jdbcBatchSize;
+
     @Value("${persistence.db.maxTransactionRetryAttempts}")
     private int maxTransactionRetryAttempts;
 
@@ -108,6 +117,8 @@ public class HibernateConfiguration {
         properties.put("hibernate.hbm2ddl.auto", ddl);
         properties.put("hibernate.dialect", dialect);
         properties.put("hibernate.current_session_context_class", "thread");
+        properties.put("hibernate.jdbc.batch_size", jdbcBatchSize);
+        properties.put("hibernate.order_inserts", "true");
         return properties;
     }
 
@@ -0,0 +1,38 @@
+package hirs.persist;
+
+/**
+ * This class represents an <code>Exception</code> generated by a
+ * <code>BulkImaBaselineImporter</code> when an import fails.  It holds the last row of the input
+ * whose record was committed, after which the import can be resumed.
+ */
+public class ImaBaselineImportException extends Exception {
+
+    private static final long serialVersionUID = -3470826581235873409L;
+
+    private final long lastCommittedRow;
+
+    /**
+     * Creates a new <code>ImaBaselineImportException</code> that wraps the given
+     * <code>Throwable</code>.
+     *
+     * @param t
+     *            root cause
+     * @param lastCommittedRow
+     *            the last row of the input whose record was committed
+     */
+    ImaBaselineImportException(final Throwable t, final long lastCommittedRow) {
+        super(String.format("Import failed after row %d: %s", lastCommittedRow, t.getMessage()),
+                t);
+        this.lastCommittedRow = lastCommittedRow;
+    }
+
+    /**
+     * Returns the last row of the input whose record was committed before the import failed.
+     * Importing the same input again, resuming after this row, imports the remaining records.
+     *
+     * @return the last committed row
+     */
+    public long getLastCommittedRow() {
+        return lastCommittedRow;
+    }
+}
@@ -4,9 +4,11 @@ import hirs.data.persist.Digest;
 import hirs.data.persist.baseline.IMABaselineRecord;
 import hirs.data.persist.baseline.QueryableRecordImaBaseline;
 import hirs.data.persist.baseline.SimpleImaBaseline;
+import hirs.ima.matching.CompiledImaBaseline;
 import hirs.utils.Callback;
 
 import java.util.Collection;
+import java.util.UUID;
 
 /**
  * A <code>ImaBaselineRecordManager</code> manages <code>IMABaselineRecord</code>s. It has support
@@ -87,4 +89,59 @@ public interface ImaBaselineRecordManager {
      */
     <T> Collection<T> iterateOverBaselineRecords(QueryableRecordImaBaseline baseline,
                                                  Callback<IMABaselineRecord, T> callback);
+
+    /**
+     * Migrates every stored {@link IMABaselineRecord} saved before path digests were stored,
+     * moving it into the bucket of its path, as the number of buckets has since changed, and
+     * storing its partial path and path digest.  Records already migrated are not read again,
+     * so this may be run whenever an application starts.
+     *
+     * @return the number of records that were updated
+     */
+    long rebucketBaselineRecords();
+
+    /**
+     * Retrieves the {@link IMABaselineRecord}s in the given baseline whose path is one of the
+     * given paths.
+     *
+     * @param baseline the baseline whose {@link IMABaselineRecord}s should be searched
+     * @param paths    the paths of the records to retrieve
+     * @return the matching records
+     */
+    Collection<IMABaselineRecord> getBaselineRecordsByPath(QueryableRecordImaBaseline baseline,
+                                                           Collection<String> paths);
+
+    /**
+     * Retrieves the {@link IMABaselineRecord}s in the given baseline whose path or partial path
+     * is one of the given paths, as matching with partial paths enabled requires.
+     *
+     * @param baseline the baseline whose {@link IMABaselineRecord}s should be searched
+     * @param paths    the paths and partial paths of the records to retrieve
+     * @return the matching records
+     */
+    Collection<IMABaselineRecord> getBaselineRecordsByPathOrPartialPath(
+            QueryableRecordImaBaseline baseline, Collection<String> paths);
+
+    /**
+     * Retrieves the {@link IMABaselineRecord}s in the given baseline whose hash is one of the
+     * given hashes.
+     *
+     * @param baseline the baseline whose {@link IMABaselineRecord}s should be searched
+     * @param hashes   the hashes of the records to retrieve
+     * @return the matching records
+     */
+    Collection<IMABaselineRecord> getBaselineRecordsByHash(QueryableRecordImaBaseline baseline,
+                                                           Collection<Digest> hashes);
+
+    /**
+     * Returns a compiled copy of the current records of the simple baseline with the given id,
+     * which matchers can probe instead of building lookups of the records on the heap.  The
+     * baseline is compiled again whenever its stored records have changed since it was last
+     * compiled; neither the baseline nor its records need to be loaded to look it up.
+     *
+     * @param baselineId the id of the simple baseline whose records should be compiled
+     * @return the compiled baseline, or null if this manager does not keep compiled baselines or
+     *         the baseline could not be compiled
+     */
+    CompiledImaBaseline getCompiledBaseline(UUID baselineId);
 }
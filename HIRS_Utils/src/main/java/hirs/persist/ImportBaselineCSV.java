@@ -1,6 +1,9 @@
 package hirs.persist;
 
 import hirs.data.persist.baseline.Baseline;
+import hirs.data.persist.baseline.ImaBlacklistBaseline;
+import hirs.data.persist.baseline.ImaIgnoreSetBaseline;
+import hirs.data.persist.baseline.SimpleImaBaseline;
 import hirs.ima.IMABaselineGeneratorException;
 import hirs.ima.ImaIgnoreSetBaselineGenerator;
 import hirs.ima.ImaIgnoreSetBaselineGeneratorException;
@@ -15,6 +18,7 @@ import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
+import java.util.function.Function;
 
 /**
  * This class imports a baseline from a csv file uploaded to the HIRS portal.
@@ -81,4 +85,79 @@ public final class ImportBaselineCSV {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Imports a new baseline, streaming the records of IMA baselines into the database in
+     * batches instead of building the whole baseline in memory.  Other baselines are created
+     * by {@link #createBaseline(String, InputStream, String)} and saved.
+     * <p>
+     * If the import of an IMA baseline fails, the baseline keeps the records committed before the
+     * failure.  Importing the same input again with the last committed row held by the
+     * exception resumes the import into the existing baseline.
+     *
+     * @param name            User defined name of baseline
+     * @param inputStream     Input stream to the CSV file, which is closed by this method
+     * @param type            Represents the type of Baseline being created (IMA, TPM)
+     * @param baselineManager manager that saves the baseline
+     * @param importer        importer that saves the records of IMA baselines
+     * @param resumeAfterRow  the last row committed by a failed import of the same IMA baseline,
+     *                        or 0 to create a new baseline
+     * @return the saved baseline
+     * @throws ImaBaselineImportException if the import of an IMA baseline fails
+     */
+    public static Baseline importBaseline(final String name, final InputStream inputStream,
+            final String type, final BaselineManager baselineManager,
+            final BulkImaBaselineImporter importer, final long resumeAfterRow)
+            throws ImaBaselineImportException {
+        LOGGER.debug("streaming csv import started");
+
+        try {
+            if (type.equalsIgnoreCase("IMA")) {
+                SimpleImaBaseline baseline = getImportBaseline(name, SimpleImaBaseline.class,
+                        SimpleImaBaseline::new, baselineManager, resumeAfterRow);
+                importer.importRecords(baseline,
+                        SimpleImaBaselineGenerator.newCSVReader(inputStream), resumeAfterRow);
+                return baseline;
+            } else if (type.equalsIgnoreCase("Ignore")) {
+                ImaIgnoreSetBaseline baseline = getImportBaseline(name,
+                        ImaIgnoreSetBaseline.class, ImaIgnoreSetBaseline::new, baselineManager,
+                        resumeAfterRow);
+                importer.importRecords(baseline,
+                        ImaIgnoreSetBaselineGenerator.newCSVReader(inputStream), resumeAfterRow);
+                return baseline;
+            } else if (type.equalsIgnoreCase("IMABlack")) {
+                ImaBlacklistBaseline baseline = getImportBaseline(name,
+                        ImaBlacklistBaseline.class, ImaBlacklistBaseline::new, baselineManager,
+                        resumeAfterRow);
+                importer.importRecords(baseline,
+                        ImaBlacklistBaselineGenerator.newCSVReader(inputStream), resumeAfterRow);
+                return baseline;
+            }
+        } catch (IOException e) {
+            throw new ImaBaselineImportException(e, resumeAfterRow);
+        }
+
+        return baselineManager.saveBaseline(createBaseline(name, inputStream, type));
+    }
+
+    /**
+     * Returns the saved baseline to import records into: a new baseline with the given name, or
+     * the existing one if a failed import is being resumed.
+     */
+    private static <T extends Baseline> T getImportBaseline(final String name,
+            final Class<T> baselineClass, final Function<String, T> constructor,
+            final BaselineManager baselineManager, final long resumeAfterRow) {
+        if (resumeAfterRow <= 0) {
+            return baselineClass.cast(baselineManager.saveBaseline(constructor.apply(name)));
+        }
+
+        Baseline baseline = baselineManager.getBaseline(name);
+        if (!baselineClass.isInstance(baseline)) {
+            String error = String.format("cannot resume import: no %s named %s",
+                    baselineClass.getSimpleName(), name);
+            LOGGER.error(error);
+            throw new BaselineManagerException(error);
+        }
+        return baselineClass.cast(baseline);
+    }
 }
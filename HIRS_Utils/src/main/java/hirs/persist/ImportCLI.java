@@ -42,8 +42,10 @@ public final class ImportCLI {
     private static final String IMA = "ima";
     private static final String CSV = "csv";
     private static final String XML = "xml";
+    private static final String RESUME = "resume";
 
     private static BaselineManager baselineManager;
+    private static BulkImaBaselineImporter baselineImporter;
 
     /**
      * Default constructor that is private to prevent this class from being
@@ -104,8 +106,13 @@ public final class ImportCLI {
                 LOGGER.debug("specified IMA import");
                 final SimpleImaBaselineGenerator generator = new SimpleImaBaselineGenerator();
                 if (line.hasOption("csv")) {
-                    LOGGER.debug("importing csv file");
-                    baseline = generator.generateBaselineFromCSVFile(name, istream);
+                    LOGGER.debug("streaming csv file");
+                    long resumeAfterRow = 0;
+                    if (line.hasOption(RESUME)) {
+                        resumeAfterRow = Long.parseLong(line.getOptionValue(RESUME));
+                    }
+                    importImaBaseline(name, istream, resumeAfterRow);
+                    return;
                 } else {
                     LOGGER.debug("importing IMA baseline from intgerity report xml file");
                     IntegrityReport report;
@@ -155,11 +162,13 @@ public final class ImportCLI {
         context.registerShutdownHook();
 
         baselineManager = context.getBean(BaselineManager.class);
+        baselineImporter = context.getBean(BulkImaBaselineImporter.class);
     }
 
     private static void printHelp(final Options options) {
         HelpFormatter formatter = new HelpFormatter();
-        formatter.printHelp("import-cli {--tpm | --ima} {--csv | --xml} file name", options);
+        formatter.printHelp("import-cli {--tpm | --ima} {--csv | --xml} [--resume row] file name",
+                options);
     }
 
     private static Options getOptions() {
@@ -179,13 +188,31 @@ public final class ImportCLI {
         formatGroup.addOption(csv);
         formatGroup.addOption(xml);
 
+        final Option resume = new Option("r", RESUME, true,
+                "resume a failed IMA CSV import after the given row");
+
         final Options options = new Options();
         options.addOption(help);
+        options.addOption(resume);
         options.addOptionGroup(typeGroup);
         options.addOptionGroup(formatGroup);
         return options;
     }
 
+    private static void importImaBaseline(final String name, final InputStream istream,
+            final long resumeAfterRow) {
+        baselineImporter.setProgressListener(progress -> LOGGER.info(
+                "imported {} records up to row {}", progress.getImportedRecordCount(),
+                progress.getLastCommittedRow()));
+        try {
+            ImportBaselineCSV.importBaseline(name, istream, IMA, baselineManager,
+                    baselineImporter, resumeAfterRow);
+        } catch (ImaBaselineImportException e) {
+            LOGGER.error("unable to import baseline; rerun with --{} {} to resume", RESUME,
+                    e.getLastCommittedRow(), e);
+        }
+    }
+
     private static void saveBaseline(final Baseline baseline)
             throws BaselineManagerException {
         if (baseline == null) {
@@ -0,0 +1,149 @@
+package hirs.persist;
+
+import hirs.data.persist.certificate.Certificate;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import hirs.data.persist.certificate.EndorsementCredential;
+import hirs.data.persist.certificate.PlatformCredential;
+import hirs.persist.BulkCertificateImporter.CertificateFile;
+import hirs.persist.BulkCertificateImporter.ImportResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.OptionGroup;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * This class is a command-line interface (CLI) for importing many certificates of one type into
+ * a database, such as the platform credentials of a shipment of devices.  This takes files and
+ * directories of certificates and stores them with a <code>BulkCertificateImporter</code>.
+ */
+public final class ImportCertificatesCLI {
+    private static final Logger LOGGER = LogManager.getLogger(ImportCertificatesCLI.class);
+    private static final String HELP = "help";
+    private static final String PLATFORM = "platform";
+    private static final String ENDORSEMENT = "endorsement";
+    private static final String TRUST_CHAIN = "trust-chain";
+
+    private static BulkCertificateImporter certificateImporter;
+
+    /**
+     * Default constructor that is private to prevent this class from being
+     * initialized.
+     */
+    private ImportCertificatesCLI() {
+        /* do nothing */
+    }
+
+    /**
+     * Imports the certificates.
+     *
+     * @param args command-line arguments
+     */
+    public static void main(final String[] args) {
+        LOGGER.debug("import certificates cli started");
+        final Options options = getOptions();
+        final CommandLineParser parser = new DefaultParser();
+        try {
+            final CommandLine line = parser.parse(options, args);
+            if (line.hasOption(HELP)) {
+                printHelp(options);
+                return;
+            }
+
+            final String[] extraArgs = line.getArgs();
+            if (extraArgs.length == 0) {
+                LOGGER.error("no files or directories given");
+                printHelp(options);
+                return;
+            }
+
+            Class<? extends Certificate> certificateClass = CertificateAuthorityCredential.class;
+            if (line.hasOption(PLATFORM)) {
+                certificateClass = PlatformCredential.class;
+            } else if (line.hasOption(ENDORSEMENT)) {
+                certificateClass = EndorsementCredential.class;
+            }
+
+            List<CertificateFile> files = getFiles(extraArgs);
+            loadBeansFromSpringContext();
+            List<ImportResult> results = certificateImporter.importCertificates(
+                    certificateClass, files, result -> LOGGER.info("{}", result));
+            long stored = results.stream().filter(ImportResult::isSuccess).count();
+            LOGGER.info("stored {} of {} certificates", stored, results.size());
+        } catch (ParseException e) {
+            LOGGER.error("error parsing options");
+            LOGGER.error(e.getMessage());
+            printHelp(options);
+        } catch (Exception e) {
+            LOGGER.error("unable to import certificates", e);
+        }
+    }
+
+    private static List<CertificateFile> getFiles(final String[] fileNames) throws IOException {
+        List<CertificateFile> files = new ArrayList<>();
+        for (String fileName : fileNames) {
+            Path path = Paths.get(fileName);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> children = Files.list(path)) {
+                    files.addAll(children.filter(Files::isRegularFile).sorted()
+                            .map(CertificateFile::of)
+                            .collect(Collectors.toList()));
+                }
+            } else {
+                files.add(CertificateFile.of(path));
+            }
+        }
+        return files;
+    }
+
+    private static void loadBeansFromSpringContext() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.register(PersistenceConfiguration.class);
+        context.refresh();
+
+        // register a shutdown hook such that components are properly shutdown when JVM is closing
+        context.registerShutdownHook();
+
+        certificateImporter = context.getBean(BulkCertificateImporter.class);
+    }
+
+    private static void printHelp(final Options options) {
+        HelpFormatter formatter = new HelpFormatter();
+        formatter.printHelp("import-certificates-cli {--platform | --endorsement | --trust-chain}"
+                + " file|directory...", options);
+    }
+
+    private static Options getOptions() {
+        final Option help = new Option("h", HELP, false, "print this help menu");
+
+        final OptionGroup typeGroup = new OptionGroup();
+        typeGroup.setRequired(true);
+        typeGroup.addOption(new Option("p", PLATFORM, false, "import platform credentials"));
+        typeGroup.addOption(new Option("e", ENDORSEMENT, false,
+                "import endorsement credentials"));
+        typeGroup.addOption(new Option("t", TRUST_CHAIN, false,
+                "import certificate authority credentials"));
+
+        final Options options = new Options();
+        options.addOption(help);
+        options.addOptionGroup(typeGroup);
+        return options;
+    }
+}
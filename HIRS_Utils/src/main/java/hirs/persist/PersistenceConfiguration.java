@@ -1,12 +1,18 @@
 package hirs.persist;
 
 import hirs.data.persist.SupplyChainValidationSummary;
+import hirs.data.persist.baseline.IMABaselineRecord;
+import hirs.ima.matching.CompiledImaBaselineStore;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.orm.hibernate4.LocalSessionFactoryBean;
 
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Persistence Configuration for Spring enabled applications. Constructs a Hibernate SessionFactory
@@ -33,6 +39,30 @@ public class PersistenceConfiguration {
     @Autowired
     private int maxTransactionRetryAttempts;
 
+    @Value("${persistence.ima.indexedLookupMaxFraction:"
+            + DbImaBaselineRecordManager.DEFAULT_INDEXED_LOOKUP_MAX_FRACTION + "}")
+    private double imaIndexedLookupMaxFraction;
+
+    @Value("${persistence.db.maximumPoolSize}")
+    private int maximumPoolSize;
+
+    @Value("${persistence.ima.iterationThreads:0}")
+    private int imaIterationThreads;
+
+    @Value("${persistence.ima.iterationPartitions:0}")
+    private int imaIterationPartitions;
+
+    @Value("${persistence.ima.compiledBaselineDirectory:}")
+    private String imaCompiledBaselineDirectory;
+
+    @Value("${persistence.ima.importBatchSize:"
+            + BulkImaBaselineImporter.DEFAULT_BATCH_SIZE + "}")
+    private int imaImportBatchSize;
+
+    @Value("${persistence.certificate.importBatchSize:"
+            + BulkCertificateImporter.DEFAULT_BATCH_SIZE + "}")
+    private int certificateImportBatchSize;
+
     /**
      * Creates a {@link AppraiserManager} ready to use.
      *
@@ -261,10 +291,86 @@ public class PersistenceConfiguration {
     public ImaBaselineRecordManager imaBaselineRecordManager() {
         DbImaBaselineRecordManager manager =
                 new DbImaBaselineRecordManager(sessionFactory.getObject());
+        manager.setIndexedLookupMaxFraction(imaIndexedLookupMaxFraction);
+        manager.setIterationExecutor(imaRecordIterationExecutor());
+        int partitions = imaIterationPartitions;
+        if (partitions <= 0) {
+            partitions = getImaIterationThreads();
+        }
+        manager.setIterationPartitions(
+                Math.min(partitions, IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT));
+        if (StringUtils.isNotBlank(imaCompiledBaselineDirectory)) {
+            manager.setCompiledBaselineStore(new CompiledImaBaselineStore(
+                    Paths.get(imaCompiledBaselineDirectory.trim())));
+        }
         setDbManagerRetrySettings(manager);
         return manager;
     }
 
+    /**
+     * Creates the executor shared by every iteration over IMA baseline records.  Unless
+     * configured otherwise, it has one thread fewer than the database connection pool, leaving a
+     * connection for other work.
+     *
+     * @return the IMA baseline record iteration executor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService imaRecordIterationExecutor() {
+        return DbImaBaselineRecordManager.newIterationExecutor(getImaIterationThreads());
+    }
+
+    private int getImaIterationThreads() {
+        if (imaIterationThreads > 0) {
+            return imaIterationThreads;
+        }
+        return Math.max(1, maximumPoolSize - 1);
+    }
+
+    /**
+     * Creates a {@link BulkImaBaselineImporter} ready to use.
+     *
+     * @return {@link BulkImaBaselineImporter}
+     */
+    @Bean
+    public BulkImaBaselineImporter bulkImaBaselineImporter() {
+        BulkImaBaselineImporter importer = new BulkImaBaselineImporter(sessionFactory.getObject());
+        importer.setBatchSize(imaImportBatchSize);
+        return importer;
+    }
+
+    /**
+     * Creates a {@link BulkCertificateImporter} ready to use.
+     *
+     * @return {@link BulkCertificateImporter}
+     */
+    @Bean
+    public BulkCertificateImporter bulkCertificateImporter() {
+        BulkCertificateImporter importer =
+                new BulkCertificateImporter(sessionFactory.getObject());
+        importer.setBatchSize(certificateImportBatchSize);
+        return importer;
+    }
+
+    /**
+     * Creates a {@link BaselineCsvExporter} ready to use.
+     *
+     * @return {@link BaselineCsvExporter}
+     */
+    @Bean
+    public BaselineCsvExporter baselineCsvExporter() {
+        return new BaselineCsvExporter(sessionFactory.getObject());
+    }
+
+    /**
+     * Creates a {@link ZipExporter} ready to use.
+     *
+     * @return {@link ZipExporter}
+     */
+    @Bean
+    public ZipExporter zipExporter() {
+        return new ZipExporter(sessionFactory.getObject());
+    }
+
     /**
      * Creates a {@link ImaBlacklistBaselineRecordManager} ready to use.
      *
@@ -0,0 +1,166 @@
+package hirs.persist;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import hirs.data.persist.AbstractDigest;
+import hirs.data.persist.DigestSet;
+import hirs.data.persist.ReferenceDigestValue;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A shared, read-mostly index of the {@link ReferenceDigestValue}s associated with each base
+ * RIM.  The digest values for a base RIM are loaded from the database the first time they are
+ * requested and every subsequent lookup is served from memory, so devices that share a
+ * manufacturer and model do not each rebuild the same digest map during firmware validation.
+ * <p>
+ * The maps handed out are immutable and can be read concurrently without locking.  Entries
+ * should be invalidated whenever the digest values of a base RIM are added or modified.  Since
+ * the portal writes digest values from a separate application, entries also expire after a
+ * fixed period so that uploads made there are eventually picked up.
+ */
+public class ReferenceDigestIndex {
+
+    private static final Logger LOGGER = LogManager.getLogger(ReferenceDigestIndex.class);
+
+    /**
+     * The default maximum number of base RIMs held in the index.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /**
+     * The default number of minutes after which an entry is reloaded from the database.
+     */
+    public static final long DEFAULT_EXPIRY_MINUTES = 5;
+
+    private final LoadingCache<UUID, DigestValues> digestsByBaseRim;
+
+    /**
+     * Creates an index with the default size and expiry.
+     *
+     * @param referenceEventManager the manager used to load digest values
+     */
+    public ReferenceDigestIndex(final ReferenceEventManager referenceEventManager) {
+        this(referenceEventManager, DEFAULT_MAX_ENTRIES,
+                DEFAULT_EXPIRY_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Creates an index.
+     *
+     * @param referenceEventManager the manager used to load digest values
+     * @param maxEntries the maximum number of base RIMs held in the index
+     * @param expiry how long an entry is kept before it is reloaded
+     * @param expiryUnit the unit of <code>expiry</code>
+     */
+    public ReferenceDigestIndex(final ReferenceEventManager referenceEventManager,
+                                final int maxEntries, final long expiry,
+                                final TimeUnit expiryUnit) {
+        if (referenceEventManager == null) {
+            throw new IllegalArgumentException("ReferenceEventManager cannot be null");
+        }
+        this.digestsByBaseRim = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(expiry, expiryUnit)
+                .build(new CacheLoader<UUID, DigestValues>() {
+                    @Override
+                    public DigestValues load(final UUID baseRimId) {
+                        LOGGER.debug("Loading digest values for base RIM {}", baseRimId);
+                        return new DigestValues(
+                                referenceEventManager.getValuesByBaseRimId(baseRimId));
+                    }
+                });
+    }
+
+    /**
+     * Returns the digest values associated with the given base RIM, keyed by digest.
+     *
+     * @param baseRimId the id of the base RIM
+     * @return an immutable map of digest to {@link ReferenceDigestValue}
+     */
+    public Map<String, ReferenceDigestValue> getDigestValues(final UUID baseRimId) {
+        return getEntry(baseRimId).digestMap;
+    }
+
+    /**
+     * Returns the digests of the digest values associated with the given base RIM, for matching
+     * event digests without encoding them as hex strings.  Each digest's algorithm is
+     * determined from its length, as {@link AbstractDigest#getDigestAlgorithm(byte[])} does for
+     * event digests.
+     *
+     * @param baseRimId the id of the base RIM
+     * @return a set of the digests, which must not be modified
+     */
+    public DigestSet getDigestSet(final UUID baseRimId) {
+        return getEntry(baseRimId).digestSet;
+    }
+
+    private DigestValues getEntry(final UUID baseRimId) {
+        if (baseRimId == null) {
+            throw new IllegalArgumentException("Base RIM id cannot be null");
+        }
+
+        try {
+            return digestsByBaseRim.get(baseRimId);
+        } catch (ExecutionException | UncheckedExecutionException ex) {
+            throw new DBManagerException("Unable to load digest values for base RIM "
+                    + baseRimId, ex.getCause());
+        }
+    }
+
+    /**
+     * Discards the entry for the given base RIM so it is reloaded on the next lookup.
+     *
+     * @param baseRimId the id of the base RIM whose digest values changed
+     */
+    public void invalidate(final UUID baseRimId) {
+        if (baseRimId != null) {
+            digestsByBaseRim.invalidate(baseRimId);
+        }
+    }
+
+    /**
+     * Discards every entry in the index.
+     */
+    public void invalidateAll() {
+        digestsByBaseRim.invalidateAll();
+    }
+
+    /**
+     * The digest values of a base RIM, keyed by their hex digests and as a set of digests.
+     */
+    private static final class DigestValues {
+        private final Map<String, ReferenceDigestValue> digestMap;
+        private final DigestSet digestSet;
+
+        private DigestValues(final List<ReferenceDigestValue> values) {
+            Map<String, ReferenceDigestValue> map = new HashMap<>(values.size());
+            digestSet = new DigestSet(values.size());
+            for (ReferenceDigestValue rdv : values) {
+                map.put(rdv.getDigestValue(), rdv);
+                if (rdv.getDigestValue() == null) {
+                    continue;
+                }
+                try {
+                    byte[] digest = Hex.decodeHex(rdv.getDigestValue().toCharArray());
+                    digestSet.add(AbstractDigest.getDigestAlgorithm(digest), digest);
+                } catch (DecoderException ex) {
+                    LOGGER.warn("Ignoring malformed digest value {}", rdv.getDigestValue());
+                }
+            }
+            digestMap = Collections.unmodifiableMap(map);
+        }
+    }
+}
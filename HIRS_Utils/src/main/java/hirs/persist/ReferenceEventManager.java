@@ -6,6 +6,7 @@ import hirs.data.persist.ReferenceManifest;
 
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * This class facilitates the persistence of {@link hirs.data.persist.ReferenceDigestValue}s
@@ -85,6 +86,14 @@ public interface ReferenceEventManager extends OrderedListQuerier<ReferenceDiges
      */
     List<ReferenceDigestValue> getValuesByRimId(ReferenceManifest referenceManifest);
 
+    /**
+     * Gets the values associated with the base RIM of the given id.
+     *
+     * @param baseRimId the id of the base RIM
+     * @return the persisted list of ReferenceDigestValue
+     */
+    List<ReferenceDigestValue> getValuesByBaseRimId(UUID baseRimId);
+
     /**
      * Persists a new Reference Digest value.
      *
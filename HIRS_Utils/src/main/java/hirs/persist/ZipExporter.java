@@ -0,0 +1,166 @@
+package hirs.persist;
+
+import hirs.data.persist.certificate.Certificate;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.Criteria;
+import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Projection;
+import org.hibernate.criterion.Projections;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.internal.SessionFactoryImpl;
+
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes the raw bytes of certificates and reference manifests as the entries of a ZIP archive,
+ * directly to a {@link ZipOutputStream} such as one wrapping a servlet response.  Only the
+ * columns needed to name and fill each entry are queried, and the rows are read with a
+ * forward-only scrolling query and written as they are read, so the memory used by an export
+ * does not grow with the number of certificates or manifests exported.
+ * <p>
+ * The rows exported are those matched by a {@link CertificateSelector} or
+ * {@link ReferenceManifestSelector}, which by default exclude archived entities.
+ */
+public class ZipExporter {
+
+    private static final Logger LOGGER = LogManager.getLogger(ZipExporter.class);
+    private static final String CERTIFICATE_BYTES_FIELD = "certificateBytes";
+    private static final String RIM_BYTES_FIELD = "rimBytes";
+
+    private final SessionFactory sessionFactory;
+
+    /**
+     * Creates a new exporter.
+     *
+     * @param sessionFactory session factory used to access database connections
+     */
+    public ZipExporter(final SessionFactory sessionFactory) {
+        if (sessionFactory == null) {
+            throw new IllegalArgumentException("SessionFactory cannot be null");
+        }
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Writes each certificate matched by the given selector to the given stream as an entry
+     * named by formatting the hexadecimal certificate hash with the given format, for example
+     * <code>"ca-certificates[%s].cer"</code>.  The stream is neither finished nor closed, so
+     * the certificates of several selectors may be written to the same archive.
+     *
+     * @param selector the selector matching the certificates to export
+     * @param entryNameFormat the format of the entry names, taking the certificate hash
+     * @param zipOut the stream to write the entries to
+     * @return the number of certificates written
+     * @throws IOException if the entries cannot be written or the certificates cannot be read
+     */
+    public long exportCertificates(final CertificateSelector<?> selector,
+                                   final String entryNameFormat,
+                                   final ZipOutputStream zipOut) throws IOException {
+        if (selector == null || entryNameFormat == null) {
+            throw new IllegalArgumentException("Selector and entry name format cannot be null");
+        }
+        return export(selector.getCertificateClass(), selector.getCriterion(),
+                Projections.property(Certificate.CERTIFICATE_HASH_FIELD),
+                Projections.property(CERTIFICATE_BYTES_FIELD),
+                hash -> String.format(entryNameFormat, Integer.toHexString((Integer) hash)),
+                zipOut);
+    }
+
+    /**
+     * Writes each reference manifest matched by the given selector to the given stream as an
+     * entry named by the manifest's file name.  The stream is neither finished nor closed, so
+     * the manifests of several selectors may be written to the same archive.
+     *
+     * @param selector the selector matching the reference manifests to export
+     * @param zipOut the stream to write the entries to
+     * @return the number of reference manifests written
+     * @throws IOException if the entries cannot be written or the manifests cannot be read
+     */
+    public long exportReferenceManifests(final ReferenceManifestSelector<?> selector,
+                                         final ZipOutputStream zipOut) throws IOException {
+        if (selector == null) {
+            throw new IllegalArgumentException("Selector cannot be null");
+        }
+        return export(selector.getReferenceManifestClass(), selector.getCriterion(),
+                Projections.property(ReferenceManifestSelector.RIM_FILENAME_FIELD),
+                Projections.property(RIM_BYTES_FIELD),
+                fileName -> {
+                    if (fileName == null) {
+                        return "";
+                    }
+                    return (String) fileName;
+                },
+                zipOut);
+    }
+
+    private long export(final Class<?> entityClass,
+                        final Criterion criterion,
+                        final Projection nameProjection,
+                        final Projection bytesProjection,
+                        final Function<Object, String> toEntryName,
+                        final ZipOutputStream zipOut) throws IOException {
+        if (zipOut == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        String typeName = entityClass.getSimpleName();
+        LOGGER.info("Exporting {} entities as ZIP entries", typeName);
+
+        long count = 0;
+        StatelessSession session = sessionFactory.openStatelessSession();
+        Transaction tx = null;
+        try {
+            tx = session.beginTransaction();
+            Criteria criteria = session.createCriteria(entityClass)
+                    .add(criterion)
+                    .setProjection(Projections.projectionList()
+                            .add(nameProjection)
+                            .add(bytesProjection));
+            criteria.setReadOnly(true);
+            criteria.setFetchSize(getFetchSize());
+            ScrollableResults results = criteria.scroll(ScrollMode.FORWARD_ONLY);
+
+            while (results.next()) {
+                String entryName = toEntryName.apply(results.get(0));
+                byte[] bytes = (byte[]) results.get(1);
+                ZipEntry zipEntry = new ZipEntry(entryName);
+                zipEntry.setSize(bytes.length);
+                zipEntry.setTime(System.currentTimeMillis());
+                zipOut.putNextEntry(zipEntry);
+                zipOut.write(bytes);
+                zipOut.closeEntry();
+                count++;
+            }
+            results.close();
+            tx.commit();
+            LOGGER.info("Exported {} {} entities as ZIP entries", count, typeName);
+        } catch (HibernateException e) {
+            LOGGER.error(String.format("Unable to export %s entities", typeName), e);
+            throw new IOException("Unable to read the " + typeName + " entities to export", e);
+        } finally {
+            if (tx != null && tx.isActive()) {
+                LOGGER.debug("Rolling back transaction");
+                tx.rollback();
+            }
+            session.close();
+        }
+        return count;
+    }
+
+    private int getFetchSize() {
+        if (((SessionFactoryImpl) sessionFactory).getDialect() instanceof MySQLDialect) {
+            // provides a hint to the JDBC connector that records should be streamed
+            return Integer.MIN_VALUE;
+        }
+        return 1;
+    }
+}
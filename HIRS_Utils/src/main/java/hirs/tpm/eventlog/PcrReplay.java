@@ -0,0 +1,235 @@
+package hirs.tpm.eventlog;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replays the digests of a TCG Event Log into one or more banks of PCRs.
+ * <p>
+ * Each bank keeps its own {@link MessageDigest} and extends its PCRs in place, so replaying a
+ * log does not allocate per event.  Events are extended one at a time, which lets callers
+ * compare the running PCR values against a quote while the log is being walked.
+ * <p>
+ * Instances hold mutable digest state and must be confined to a single thread.
+ */
+public final class PcrReplay {
+
+    /** Value of the reset PCRs that are not in locality 4. */
+    private static final byte INIT_VALUE = 0x00;
+    /** Value of the reset PCRs in locality 4. */
+    private static final byte LOCALITY4_INIT_VALUE = (byte) 0xFF;
+
+    private final Map<Integer, Bank> banks = new LinkedHashMap<>();
+
+    /**
+     * Creates a replay with one bank per given TCG algorithm identifier.
+     *
+     * @param algIds TCG algorithm identifiers, see {@link TcgTpmtHa}
+     * @throws NoSuchAlgorithmException if an algorithm is not a supported hash
+     */
+    public PcrReplay(final int... algIds) throws NoSuchAlgorithmException {
+        if (algIds.length == 0) {
+            throw new IllegalArgumentException("At least one PCR bank is required");
+        }
+        for (int algId : algIds) {
+            banks.put(algId, new Bank(algId));
+        }
+        reset();
+    }
+
+    /**
+     * Resets every PCR of every bank to its power-on value.
+     */
+    public void reset() {
+        for (Bank bank : banks.values()) {
+            bank.reset();
+        }
+    }
+
+    /**
+     * Returns true if this replay has a bank for the given algorithm.
+     *
+     * @param algId TCG algorithm identifier
+     * @return true if the bank exists
+     */
+    public boolean hasBank(final int algId) {
+        return banks.containsKey(algId);
+    }
+
+    /**
+     * Extends an event into every bank it holds a digest for.  Events that are not associated
+     * with a PCR and EV_NO_ACTION events are ignored.
+     *
+     * @param event the event to extend
+     * @return true if the event was extended into at least one bank
+     */
+    public boolean extend(final TpmPcrEvent event) {
+        if (!isExtended(event.getPcrIndex(), event.getEventType())) {
+            return false;
+        }
+        boolean extended = false;
+        if (event instanceof TpmPcrEvent2) {
+            for (TcgTpmtHa hash : ((TpmPcrEvent2) event).getDigestList()) {
+                Bank bank = banks.get(hash.getAlgId());
+                if (bank != null) {
+                    bank.extend(event.getPcrIndex(), hash.getDigest(), 0);
+                    extended = true;
+                }
+            }
+        } else {
+            Bank bank = banks.get(TcgTpmtHa.TPM_ALG_SHA1);
+            if (bank != null) {
+                bank.extend(event.getPcrIndex(), event.getEventDigest(), 0);
+                extended = true;
+            }
+        }
+        return extended;
+    }
+
+    /**
+     * Extends an event view from a {@link TCGEventLogReader} into every bank it holds a digest
+     * for.  Events that are not associated with a PCR and EV_NO_ACTION events are ignored.
+     *
+     * @param event the event to extend
+     * @return true if the event was extended into at least one bank
+     */
+    public boolean extend(final TpmPcrEventView event) {
+        if (!isExtended(event.getPcrIndex(), event.getEventType())) {
+            return false;
+        }
+        boolean extended = false;
+        for (int i = 0; i < event.getDigestCount(); i++) {
+            Bank bank = banks.get(event.getDigestAlgId(i));
+            if (bank != null) {
+                event.copyDigest(i, bank.scratch, 0);
+                bank.extend(event.getPcrIndex(), bank.scratch, 0);
+                extended = true;
+            }
+        }
+        return extended;
+    }
+
+    /**
+     * Extends a single digest into a PCR of a bank.
+     *
+     * @param algId TCG algorithm identifier of the bank
+     * @param pcrIndex the PCR to extend
+     * @param digest array holding the digest
+     * @param offset position of the digest within <code>digest</code>
+     */
+    public void extend(final int algId, final int pcrIndex, final byte[] digest,
+                       final int offset) {
+        getBank(algId).extend(pcrIndex, digest, offset);
+    }
+
+    /**
+     * Returns a copy of the current value of a PCR.
+     *
+     * @param algId TCG algorithm identifier of the bank
+     * @param pcrIndex the PCR to read
+     * @return the PCR value
+     */
+    public byte[] getPcrValue(final int algId, final int pcrIndex) {
+        Bank bank = getBank(algId);
+        return Arrays.copyOf(bank.pcrs[checkPcrIndex(pcrIndex)], bank.length);
+    }
+
+    /**
+     * Compares the current value of a PCR without copying it.
+     *
+     * @param algId TCG algorithm identifier of the bank
+     * @param pcrIndex the PCR to compare
+     * @param expected the expected PCR value
+     * @return true if the PCR holds the expected value
+     */
+    public boolean pcrMatches(final int algId, final int pcrIndex, final byte[] expected) {
+        return Arrays.equals(getBank(algId).pcrs[checkPcrIndex(pcrIndex)], expected);
+    }
+
+    private Bank getBank(final int algId) {
+        Bank bank = banks.get(algId);
+        if (bank == null) {
+            throw new IllegalArgumentException("No PCR bank for algorithm "
+                    + TcgTpmtHa.tcgAlgIdtoString(algId));
+        }
+        return bank;
+    }
+
+    private static boolean isExtended(final int pcrIndex, final long eventType) {
+        // Ignore NO_EVENTS which can have a PCR=-1 and EV_NO_ACTION events
+        return pcrIndex >= 0 && pcrIndex < TCGEventLog.PCR_COUNT
+                && eventType != TCGEventLog.NO_ACTION_EVENT;
+    }
+
+    private static int checkPcrIndex(final int pcrIndex) {
+        if (pcrIndex < 0 || pcrIndex >= TCGEventLog.PCR_COUNT) {
+            throw new IndexOutOfBoundsException("Invalid PCR index " + pcrIndex);
+        }
+        return pcrIndex;
+    }
+
+    /**
+     * Returns the JCA name of the hash algorithm with the given TCG identifier.
+     *
+     * @param algId TCG algorithm identifier
+     * @return the JCA algorithm name
+     * @throws NoSuchAlgorithmException if the algorithm is not a supported hash
+     */
+    private static String jcaAlgorithm(final int algId) throws NoSuchAlgorithmException {
+        switch (algId) {
+            case TcgTpmtHa.TPM_ALG_SHA1:
+                return "SHA-1";
+            case TcgTpmtHa.TPM_ALG_SHA256:
+                return "SHA-256";
+            case TcgTpmtHa.TPM_ALG_SHA384:
+                return "SHA-384";
+            case TcgTpmtHa.TPM_ALG_SHA_512:
+                return "SHA-512";
+            default:
+                throw new NoSuchAlgorithmException("Unsupported PCR bank algorithm "
+                        + TcgTpmtHa.tcgAlgIdtoString(algId));
+        }
+    }
+
+    /**
+     * The PCRs and digest state of a single algorithm.
+     */
+    private static final class Bank {
+        private final MessageDigest digest;
+        private final int length;
+        private final byte[][] pcrs;
+        private final byte[] scratch;
+
+        private Bank(final int algId) throws NoSuchAlgorithmException {
+            this.digest = MessageDigest.getInstance(jcaAlgorithm(algId));
+            this.length = TcgTpmtHa.tcgAlgLength(algId);
+            this.pcrs = new byte[TCGEventLog.PCR_COUNT][length];
+            this.scratch = new byte[length];
+        }
+
+        private void reset() {
+            for (int i = 0; i < TCGEventLog.PCR_COUNT; i++) {
+                if (i >= TCGEventLog.PCR_LOCALITY4_MIN && i < TCGEventLog.PCR_LOCALITY4_MAX) {
+                    Arrays.fill(pcrs[i], LOCALITY4_INIT_VALUE);
+                } else {
+                    Arrays.fill(pcrs[i], INIT_VALUE);
+                }
+            }
+        }
+
+        private void extend(final int pcrIndex, final byte[] eventDigest, final int offset) {
+            byte[] pcr = pcrs[checkPcrIndex(pcrIndex)];
+            digest.update(pcr);
+            digest.update(eventDigest, offset, length);
+            try {
+                digest.digest(pcr, 0, length);
+            } catch (DigestException ex) {
+                throw new IllegalStateException("Unable to extend PCR " + pcrIndex, ex);
+            }
+        }
+    }
+}
@@ -4,7 +4,6 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.Collection;
@@ -13,7 +12,6 @@ import java.util.LinkedHashMap;
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 
-import hirs.data.persist.AbstractDigest;
 import hirs.data.persist.Digest;
 import hirs.data.persist.TPMMeasurementRecord;
 import hirs.data.persist.baseline.TpmWhiteListBaseline;
@@ -204,46 +202,67 @@ public final class TCGEventLog {
      * Uses the algorithm and eventList passed into the constructor,
      */
     private void calculatePcrValues() {
-        byte[] extendedPCR;
         initPcrList();
-        for (TpmPcrEvent currentEvent : eventList.values()) {
-            if (currentEvent.getPcrIndex() >= 0) {   // Ignore NO_EVENTS which can have a PCR=-1
-                try {
-                    if (currentEvent.getEventType() != NO_ACTION_EVENT) {
-                        // Don't include EV_NO_ACTION event
-                        extendedPCR = extendPCR(pcrList[currentEvent.getPcrIndex()],
-                                currentEvent.getEventDigest());
-                        System.arraycopy(extendedPCR, 0, pcrList[currentEvent.getPcrIndex()],
-                                0, currentEvent.getDigestLength());
-                    }
-                } catch (NoSuchAlgorithmException e) {
-                    LOGGER.error(e);
-                }
+        try {
+            PcrReplay replay = new PcrReplay(getEventLogHashAlgorithmID());
+            for (TpmPcrEvent currentEvent : eventList.values()) {
+                replay.extend(currentEvent);
+            }
+            for (int i = 0; i < PCR_COUNT; i++) {
+                pcrList[i] = replay.getPcrValue(getEventLogHashAlgorithmID(), i);
             }
+        } catch (NoSuchAlgorithmException e) {
+            LOGGER.error(e);
         }
     }
 
     /**
-     * Extends a hash with a hash of new data.
+     * Replays the log against a set of quoted PCR values and returns the first event that
+     * causes the replay to diverge from the quote.  For each PCR that does not match the
+     * quote at the end of the log, the divergent event is the first event extended into that
+     * PCR after the last point at which the replayed value matched the quoted value, or the
+     * first event extended into that PCR if it never matched.
      *
-     * @param currentValue value to extend
-     * @param newEvent     value to extend with
-     * @return new hash resultant hash
-     * @throws NoSuchAlgorithmException if hash algorithm not supported
+     * @param quotedPcrs the 24 quoted PCR values as hex strings, in the algorithm of the log.
+     *                   Null or empty entries are not compared.
+     * @return the number of the first divergent event, or -1 if the replay matches the quote
+     * @throws NoSuchAlgorithmException if the algorithm of the log is not supported
      */
-    private byte[] extendPCR(final byte[] currentValue, final byte[] newEvent)
+    public int findFirstDivergentEvent(final String[] quotedPcrs)
             throws NoSuchAlgorithmException {
-        MessageDigest md = MessageDigest.getInstance(hashType);
-        StringBuilder sb = new StringBuilder(AbstractDigest.SHA512_DIGEST_LENGTH);
-        sb.append(Hex.encodeHexString(currentValue).toCharArray());
-        sb.append(Hex.encodeHexString(newEvent).toCharArray());
+        if (quotedPcrs == null || quotedPcrs.length != PCR_COUNT) {
+            throw new IllegalArgumentException("Expected " + PCR_COUNT + " quoted PCR values");
+        }
+        int algId = getEventLogHashAlgorithmID();
+        byte[][] quoted = new byte[PCR_COUNT][];
+        int[] candidates = new int[PCR_COUNT];
+        for (int i = 0; i < PCR_COUNT; i++) {
+            if (quotedPcrs[i] != null && !quotedPcrs[i].isEmpty()) {
+                quoted[i] = HexUtils.hexStringToByteArray(quotedPcrs[i]);
+            }
+            candidates[i] = -1;
+        }
 
-        try {
-            md.update(Hex.decodeHex(sb.toString().toCharArray()));
-        } catch (DecoderException deEx) {
-            LOGGER.error(deEx);
+        PcrReplay replay = new PcrReplay(algId);
+        for (TpmPcrEvent currentEvent : eventList.values()) {
+            int pcr = currentEvent.getPcrIndex();
+            if (replay.extend(currentEvent) && quoted[pcr] != null) {
+                if (candidates[pcr] < 0) {
+                    candidates[pcr] = currentEvent.getEventNumber();
+                }
+                if (replay.pcrMatches(algId, pcr, quoted[pcr])) {
+                    candidates[pcr] = -1;
+                }
+            }
+        }
+
+        int divergentEvent = -1;
+        for (int i = 0; i < PCR_COUNT; i++) {
+            if (candidates[i] >= 0 && (divergentEvent < 0 || candidates[i] < divergentEvent)) {
+                divergentEvent = candidates[i];
+            }
         }
-        return md.digest();
+        return divergentEvent;
     }
 
     /**
@@ -0,0 +1,138 @@
+package hirs.tpm.eventlog;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import hirs.data.persist.ReferenceManifest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A bounded cache of parsed {@link TCGEventLog}s, keyed by the hash of the RIM they were parsed
+ * from.  Support RIMs are shared by every device of the same manufacturer and model, so caching
+ * the parsed log means a support RIM is only parsed once no matter how many devices are
+ * validated against it.
+ * <p>
+ * The cache is bounded by the total size of the raw logs it holds and evicts the least recently
+ * used logs once that bound is reached.  Cached logs are shared between threads and must be
+ * treated as read-only by callers.
+ */
+public class TCGEventLogCache {
+
+    private static final Logger LOGGER = LogManager.getLogger(TCGEventLogCache.class);
+
+    /**
+     * The default maximum number of raw log bytes held by the cache (64 MiB).
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final Cache<String, CachedEventLog> eventLogs;
+
+    /**
+     * Creates a cache bounded by {@link #DEFAULT_MAX_BYTES}.
+     */
+    public TCGEventLogCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a cache bounded by the given number of raw log bytes.
+     *
+     * @param maxBytes the maximum total size of the raw logs held by the cache
+     */
+    public TCGEventLogCache(final long maxBytes) {
+        this.eventLogs = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher(new Weigher<String, CachedEventLog>() {
+                    @Override
+                    public int weigh(final String hash, final CachedEventLog entry) {
+                        return entry.size;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the parsed event log contained in the given RIM, parsing it only if it is not
+     * already cached.  RIMs without a hash are parsed every time.
+     *
+     * @param rim the support RIM or event log measurement to parse
+     * @return the parsed event log, which must not be modified
+     * @throws CertificateException if a certificate in the log cannot be parsed
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered
+     * @throws IOException if an event cannot be parsed
+     */
+    public TCGEventLog getEventLog(final ReferenceManifest rim)
+            throws CertificateException, NoSuchAlgorithmException, IOException {
+        final String hash = rim.getHexDecHash();
+        if (hash == null || hash.isEmpty()) {
+            return new TCGEventLog(rim.getRimBytes());
+        }
+
+        try {
+            return eventLogs.get(hash, () -> {
+                LOGGER.debug("Parsing event log for RIM {}", hash);
+                byte[] rimBytes = rim.getRimBytes();
+                return new CachedEventLog(new TCGEventLog(rimBytes), rimBytes.length);
+            }).eventLog;
+        } catch (ExecutionException | UncheckedExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof CertificateException) {
+                throw (CertificateException) cause;
+            } else if (cause instanceof NoSuchAlgorithmException) {
+                throw (NoSuchAlgorithmException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Unable to parse event log for RIM " + hash, cause);
+        }
+    }
+
+    /**
+     * Discards the parsed log for the RIM with the given hash.
+     *
+     * @param hash the hash of the RIM
+     */
+    public void invalidate(final String hash) {
+        eventLogs.invalidate(hash);
+    }
+
+    /**
+     * Discards every parsed log in the cache.
+     */
+    public void invalidateAll() {
+        eventLogs.invalidateAll();
+    }
+
+    /**
+     * Returns the hit, miss, load and eviction counts recorded by the cache.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats getStats() {
+        return eventLogs.stats();
+    }
+
+    /**
+     * Holds a parsed log together with the size of the raw log it was parsed from.
+     */
+    private static final class CachedEventLog {
+        private final TCGEventLog eventLog;
+        private final int size;
+
+        private CachedEventLog(final TCGEventLog eventLog, final int size) {
+            this.eventLog = eventLog;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package hirs.tpm.eventlog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import hirs.tpm.eventlog.uefi.UefiConstants;
+
+/**
+ * Streaming reader for TCG Event Logs held in a {@link ByteBuffer}.
+ * <p>
+ * Unlike {@link TCGEventLog}, which parses and keeps every event of the log, this reader walks
+ * the log in place and hands out a single reused {@link TpmPcrEventView} per iteration.  Heap
+ * and memory-mapped buffers are both supported, so large measured boot logs can be validated
+ * without copying them or materializing every event.
+ * <p>
+ * Each call to {@link #iterator()} walks the log from the start and iterators are not thread
+ * safe, although separate iterators over the same reader may be used from different threads.
+ */
+public final class TCGEventLogReader implements Iterable<TpmPcrEventView> {
+
+    /** Offset of the signature within the Spec ID event. */
+    private static final int SIG_OFFSET = 32;
+    /** Size of the Spec ID event signature, including the null terminator. */
+    private static final int SIG_SIZE = 16;
+    /** Spec ID event signature for crypto agile logs. */
+    private static final String CRYPTO_AGILE_SIGNATURE = "Spec ID Event03";
+
+    private final ByteBuffer log;
+    private final boolean cryptoAgile;
+
+    /**
+     * Creates a reader over the remaining bytes of the given buffer.  The buffer's position,
+     * limit and byte order are not modified.
+     *
+     * @param rawLog buffer holding the event log
+     */
+    public TCGEventLogReader(final ByteBuffer rawLog) {
+        if (rawLog == null) {
+            throw new IllegalArgumentException("Event log cannot be null");
+        }
+        this.log = rawLog.slice().order(ByteOrder.LITTLE_ENDIAN);
+        this.cryptoAgile = isLogCryptoAgile(log);
+    }
+
+    /**
+     * Creates a reader over the given event log bytes.  The array is wrapped, not copied.
+     *
+     * @param rawLog data for the event log file
+     */
+    public TCGEventLogReader(final byte[] rawLog) {
+        this(ByteBuffer.wrap(rawLog));
+    }
+
+    /**
+     * Creates a reader over a memory-mapped event log file.
+     *
+     * @param logFile path to the event log file
+     * @return a reader over the mapped file
+     * @throws IOException if the file cannot be mapped
+     */
+    public static TCGEventLogReader open(final Path logFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            return new TCGEventLogReader(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns a flag which is set if the event log follows the "Crypto Agile" Format Type.
+     *
+     * @return true if log follows the Crypto Agile format
+     */
+    public boolean isCryptoAgile() {
+        return cryptoAgile;
+    }
+
+    /**
+     * Returns an iterator over the events of the log.  The same view instance is returned by
+     * every call to <code>next()</code>.
+     *
+     * @return a streaming iterator over the events
+     */
+    @Override
+    public Iterator<TpmPcrEventView> iterator() {
+        return new EventIterator(log.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * Determines if the first event is an EfiSpecIdEvent indicating that the log format is
+     * crypto agile.
+     *
+     * @param buffer the event log
+     * @return true if the EfiSpecIdEvent is found and indicates the crypto agile format
+     */
+    private static boolean isLogCryptoAgile(final ByteBuffer buffer) {
+        if (buffer.remaining() < SIG_OFFSET + SIG_SIZE
+                || buffer.getInt(UefiConstants.SIZE_4) != TCGEventLog.NO_ACTION_EVENT) {
+            return false;
+        }
+        byte[] signature = new byte[SIG_SIZE - 1];
+        ByteBuffer sig = buffer.duplicate();
+        sig.position(SIG_OFFSET);
+        sig.get(signature);
+        return CRYPTO_AGILE_SIGNATURE.equals(new String(signature, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Iterator that repositions a single view over each event in turn.
+     */
+    private final class EventIterator implements Iterator<TpmPcrEventView> {
+        private final ByteBuffer buffer;
+        private final TpmPcrEventView view = new TpmPcrEventView();
+        private int eventNumber = 0;
+
+        private EventIterator(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public boolean hasNext() {
+            // events shorter than the fixed header are ignored, as in TpmPcrEvent1 and 2
+            return buffer.remaining() > UefiConstants.SIZE_32;
+        }
+
+        @Override
+        public TpmPcrEventView next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            // the first event is always in the SHA1 format, per the spec
+            view.reset(buffer, cryptoAgile && eventNumber > 0, eventNumber);
+            eventNumber++;
+            return view;
+        }
+    }
+}
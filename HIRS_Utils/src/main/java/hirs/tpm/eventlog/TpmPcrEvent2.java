@@ -5,6 +5,8 @@ import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import hirs.tpm.eventlog.events.EvConstants;
 import hirs.tpm.eventlog.uefi.UefiConstants;
@@ -132,4 +134,13 @@ public class TpmPcrEvent2 extends TpmPcrEvent {
             this.processEvent(event, eventContent, eventNumber, hashName);
         }
     }
+
+    /**
+     * Returns the digests held by the event, one per algorithm found in the event.
+     *
+     * @return unmodifiable list of the TPMT_HA structures of the event
+     */
+    public List<TcgTpmtHa> getDigestList() {
+        return Collections.unmodifiableList(hashlist);
+    }
 }
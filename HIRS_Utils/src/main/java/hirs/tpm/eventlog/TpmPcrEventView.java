@@ -0,0 +1,293 @@
+package hirs.tpm.eventlog;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.util.Arrays;
+
+import hirs.tpm.eventlog.events.EvConstants;
+
+/**
+ * Flyweight, read-only view of a single TCG_PCR_EVENT or TCG_PCR_EVENT2 structure held in a
+ * {@link ByteBuffer}.
+ * <p>
+ * A view only records the offsets of the fields within the underlying log, so walking a log
+ * with a view does not copy the digests or the event content.  The event content is only
+ * decoded when {@link #toTpmPcrEvent()} or {@link #toString()} is called.
+ * <p>
+ * Views handed out by {@link TCGEventLogReader} are reused for every event, so a view is only
+ * valid until the iterator is advanced.  Callers that need to keep an event should use
+ * {@link #toTpmPcrEvent()}.
+ */
+public final class TpmPcrEventView {
+
+    /** Number of digests a crypto agile event is expected to hold in the common case. */
+    private static final int INITIAL_DIGEST_CAPACITY = 4;
+
+    private ByteBuffer log;
+    private boolean cryptoAgile;
+    private int eventNumber;
+    private int start;
+    private int end;
+    private int pcrIndex;
+    private long eventType;
+    private int digestCount;
+    private int[] algIds = new int[INITIAL_DIGEST_CAPACITY];
+    private int[] digestOffsets = new int[INITIAL_DIGEST_CAPACITY];
+    private int[] digestLengths = new int[INITIAL_DIGEST_CAPACITY];
+    private int contentOffset;
+    private int contentSize;
+
+    /**
+     * Package-private constructor, views are created by {@link TCGEventLogReader}.
+     */
+    TpmPcrEventView() {
+    }
+
+    /**
+     * Points this view at the event starting at the current position of the given buffer and
+     * advances the buffer past the event.
+     *
+     * @param buffer little-endian buffer holding the event log
+     * @param agile true if the event uses the TCG_PCR_EVENT2 (crypto agile) layout
+     * @param number position of the event within the event log
+     */
+    void reset(final ByteBuffer buffer, final boolean agile, final int number) {
+        try {
+            parse(buffer, agile, number);
+        } catch (BufferUnderflowException ex) {
+            throw new IllegalArgumentException("Event " + number
+                    + " is truncated or malformed", ex);
+        }
+    }
+
+    private void parse(final ByteBuffer buffer, final boolean agile, final int number) {
+        this.log = buffer;
+        this.cryptoAgile = agile;
+        this.eventNumber = number;
+        this.start = buffer.position();
+        this.pcrIndex = buffer.getInt();
+        this.eventType = Integer.toUnsignedLong(buffer.getInt());
+        this.digestCount = 0;
+
+        if (agile) {
+            int count = buffer.getInt();
+            if (count < 0 || count > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid digest count " + count
+                        + " in event " + number);
+            }
+            for (int i = 0; i < count; i++) {
+                int algId = Short.toUnsignedInt(buffer.getShort());
+                int length = TcgTpmtHa.tcgAlgLength(algId);
+                addDigest(algId, buffer.position(), length);
+                skip(buffer, length);
+            }
+        } else {
+            addDigest(TcgTpmtHa.TPM_ALG_SHA1, buffer.position(), EvConstants.SHA1_LENGTH);
+            skip(buffer, EvConstants.SHA1_LENGTH);
+        }
+
+        this.contentSize = buffer.getInt();
+        this.contentOffset = buffer.position();
+        skip(buffer, contentSize);
+        this.end = buffer.position();
+    }
+
+    private void addDigest(final int algId, final int offset, final int length) {
+        if (digestCount == algIds.length) {
+            int capacity = digestCount * 2;
+            algIds = Arrays.copyOf(algIds, capacity);
+            digestOffsets = Arrays.copyOf(digestOffsets, capacity);
+            digestLengths = Arrays.copyOf(digestLengths, capacity);
+        }
+        algIds[digestCount] = algId;
+        digestOffsets[digestCount] = offset;
+        digestLengths[digestCount] = length;
+        digestCount++;
+    }
+
+    private void skip(final ByteBuffer buffer, final int length) {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Event " + eventNumber
+                    + " is truncated or malformed");
+        }
+        buffer.position(buffer.position() + length);
+    }
+
+    /**
+     * Returns the position of the event within the event log.
+     *
+     * @return the event number
+     */
+    public int getEventNumber() {
+        return eventNumber;
+    }
+
+    /**
+     * Returns the PCR index the event was extended into.
+     *
+     * @return the PCR index
+     */
+    public int getPcrIndex() {
+        return pcrIndex;
+    }
+
+    /**
+     * Returns the PFP defined event type.
+     *
+     * @return the event type
+     */
+    public long getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Returns the number of digests held by the event.  TCG_PCR_EVENT structures always hold a
+     * single SHA1 digest.
+     *
+     * @return the number of digests
+     */
+    public int getDigestCount() {
+        return digestCount;
+    }
+
+    /**
+     * Returns the TCG algorithm identifier of the digest at the given position.
+     *
+     * @param index position of the digest within the event
+     * @return the TCG algorithm identifier
+     */
+    public int getDigestAlgId(final int index) {
+        checkDigestIndex(index);
+        return algIds[index];
+    }
+
+    /**
+     * Returns the length of the digest at the given position.
+     *
+     * @param index position of the digest within the event
+     * @return the digest length in bytes
+     */
+    public int getDigestLength(final int index) {
+        checkDigestIndex(index);
+        return digestLengths[index];
+    }
+
+    /**
+     * Returns the position of the digest with the given TCG algorithm identifier.
+     *
+     * @param algId the TCG algorithm identifier
+     * @return the position of the digest, or -1 if the event holds no such digest
+     */
+    public int indexOfDigest(final int algId) {
+        for (int i = 0; i < digestCount; i++) {
+            if (algIds[i] == algId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Copies the digest at the given position into the destination array without allocating.
+     *
+     * @param index position of the digest within the event
+     * @param dest array to copy the digest into
+     * @param destOffset position in <code>dest</code> to copy to
+     */
+    public void copyDigest(final int index, final byte[] dest, final int destOffset) {
+        checkDigestIndex(index);
+        int offset = digestOffsets[index];
+        for (int i = 0; i < digestLengths[index]; i++) {
+            dest[destOffset + i] = log.get(offset + i);
+        }
+    }
+
+    /**
+     * Returns a copy of the digest at the given position.
+     *
+     * @param index position of the digest within the event
+     * @return the digest
+     */
+    public byte[] getDigest(final int index) {
+        byte[] digest = new byte[getDigestLength(index)];
+        copyDigest(index, digest, 0);
+        return digest;
+    }
+
+    /**
+     * Returns a read-only view of the event content.  No data is copied.
+     *
+     * @return buffer positioned at the start of the content and limited to its end
+     */
+    public ByteBuffer getEventContent() {
+        ByteBuffer content = log.duplicate();
+        content.limit(contentOffset + contentSize);
+        content.position(contentOffset);
+        return content.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the size of the event content.
+     *
+     * @return the content size in bytes
+     */
+    public int getEventContentSize() {
+        return contentSize;
+    }
+
+    /**
+     * Returns the size of the whole event structure, including the content.
+     *
+     * @return the event size in bytes
+     */
+    public int getEventSize() {
+        return end - start;
+    }
+
+    /**
+     * Fully parses the event, decoding its content.  The returned event is independent of
+     * this view and of the underlying log.
+     *
+     * @return the parsed event
+     * @throws CertificateException if a certificate within the event cannot be processed
+     * @throws NoSuchAlgorithmException if an undefined algorithm is encountered
+     * @throws IOException if the event cannot be parsed
+     */
+    public TpmPcrEvent toTpmPcrEvent()
+            throws CertificateException, NoSuchAlgorithmException, IOException {
+        byte[] raw = new byte[end - start];
+        ByteBuffer event = log.duplicate();
+        event.position(start);
+        event.get(raw);
+        ByteArrayInputStream is = new ByteArrayInputStream(raw);
+        if (cryptoAgile) {
+            return new TpmPcrEvent2(is, eventNumber);
+        }
+        return new TpmPcrEvent1(is, eventNumber);
+    }
+
+    /**
+     * Human readable description of the event.  The event content is decoded on each call.
+     *
+     * @return description of the event
+     */
+    @Override
+    public String toString() {
+        try {
+            return toTpmPcrEvent().toString();
+        } catch (CertificateException | NoSuchAlgorithmException | IOException ex) {
+            return "Event #" + eventNumber + " could not be parsed: " + ex.getMessage() + "\n";
+        }
+    }
+
+    private void checkDigestIndex(final int index) {
+        if (index < 0 || index >= digestCount) {
+            throw new IndexOutOfBoundsException("Digest index " + index
+                    + " out of range for event " + eventNumber);
+        }
+    }
+}
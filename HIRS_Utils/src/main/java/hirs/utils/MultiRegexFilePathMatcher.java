@@ -0,0 +1,177 @@
+package hirs.utils;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches file paths against many input patterns at once, returning the values associated with
+ * the patterns that matched.  Each pattern matches a path in the same way as a
+ * {@link RegexFilePathMatcher} holding only that pattern: if the pattern is an initial substring
+ * of the path, or if the whole path matches the pattern as a regular expression.
+ * <p>
+ * The patterns are compiled once:
+ * <ul>
+ *   <li>every pattern is added to a prefix trie, so the initial substring checks of all
+ *       patterns cost a single walk along the path</li>
+ *   <li>patterns without regular expression metacharacters only match as regular expressions
+ *       when they equal the path, which the trie already covers, so they are never evaluated
+ *       as regular expressions</li>
+ *   <li>the remaining patterns are combined into a single alternation, which rules out most
+ *       paths with one evaluation; only when it matches are the individual patterns evaluated to
+ *       find out which ones matched</li>
+ * </ul>
+ * Instances are immutable and may be used by multiple threads.
+ *
+ * @param <T> the type of value associated with each pattern
+ */
+public class MultiRegexFilePathMatcher<T> {
+
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+    // back references, quoting and flags other than lookarounds or non-capturing groups behave
+    // differently once a pattern is embedded in an alternation
+    private static final Pattern UNCOMBINABLE =
+            Pattern.compile("\\\\([1-9]|k<|Q)|\\(\\?(?![:=!>]|<[=!])");
+
+    private final TrieNode<T> prefixes = new TrieNode<>();
+    private final List<Pattern> regexes = new ArrayList<>();
+    private final List<T> regexValues = new ArrayList<>();
+    private final Pattern combinedRegex;
+    private final List<Integer> uncombinedRegexes = new ArrayList<>();
+
+    /**
+     * Compiles the given patterns.
+     *
+     * @param patterns the patterns to match against, each mapped to the value to return when it
+     *                 matches
+     * @throws IllegalArgumentException if a pattern is null or is a malformed regular expression
+     */
+    public MultiRegexFilePathMatcher(final Map<T, String> patterns)
+            throws IllegalArgumentException {
+        StringBuilder combined = new StringBuilder();
+        for (Map.Entry<T, String> entry : patterns.entrySet()) {
+            String pattern = entry.getValue();
+            if (pattern == null) {
+                throw new IllegalArgumentException("Pattern cannot be null");
+            }
+            prefixes.add(pattern, entry.getKey());
+            if (!StringUtils.containsAny(pattern, REGEX_METACHARACTERS)) {
+                continue;
+            }
+
+            regexes.add(Pattern.compile(pattern));
+            regexValues.add(entry.getKey());
+            if (UNCOMBINABLE.matcher(pattern).find()) {
+                uncombinedRegexes.add(regexes.size() - 1);
+            } else {
+                if (combined.length() > 0) {
+                    combined.append('|');
+                }
+                combined.append("(?:").append(pattern).append(')');
+            }
+        }
+        combinedRegex = compileCombined(combined.toString());
+    }
+
+    private Pattern compileCombined(final String combined) {
+        if (combined.isEmpty()) {
+            return null;
+        }
+        try {
+            return Pattern.compile(combined);
+        } catch (PatternSyntaxException e) {
+            // evaluate every pattern on its own rather than fail on a pattern that is only
+            // invalid within the alternation
+            uncombinedRegexes.clear();
+            for (int i = 0; i < regexes.size(); i++) {
+                uncombinedRegexes.add(i);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns the values of the patterns that match the given path.
+     *
+     * @param path the path to match
+     * @return the values of the matching patterns, or an empty set if none match or the path
+     *         is empty
+     */
+    public Set<T> getMatches(final String path) {
+        if (StringUtils.isEmpty(path)) {
+            return Collections.emptySet();
+        }
+
+        Set<T> matches = new HashSet<>();
+        prefixes.addPrefixesOf(path, matches);
+
+        if (combinedRegex != null && combinedRegex.matcher(path).matches()) {
+            for (int i = 0; i < regexes.size(); i++) {
+                addIfMatch(i, path, matches);
+            }
+        } else {
+            for (int i : uncombinedRegexes) {
+                addIfMatch(i, path, matches);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns whether any pattern matches the given path.
+     *
+     * @param path the path to match
+     * @return true if at least one pattern matches the path
+     */
+    public boolean isMatch(final String path) {
+        return !getMatches(path).isEmpty();
+    }
+
+    private void addIfMatch(final int index, final String path, final Set<T> matches) {
+        T value = regexValues.get(index);
+        if (!matches.contains(value)) {
+            Matcher matcher = regexes.get(index).matcher(path);
+            if (matcher.matches()) {
+                matches.add(value);
+            }
+        }
+    }
+
+    /**
+     * A node of the prefix trie, holding the values of the patterns that end at it.
+     *
+     * @param <T> the type of value associated with each pattern
+     */
+    private static final class TrieNode<T> {
+        private final Map<Character, TrieNode<T>> children = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        private void add(final String pattern, final T value) {
+            TrieNode<T> node = this;
+            for (int i = 0; i < pattern.length(); i++) {
+                node = node.children.computeIfAbsent(pattern.charAt(i), c -> new TrieNode<>());
+            }
+            node.values.add(value);
+        }
+
+        private void addPrefixesOf(final String path, final Set<T> matches) {
+            TrieNode<T> node = this;
+            matches.addAll(node.values);
+            for (int i = 0; i < path.length() && node != null; i++) {
+                node = node.children.get(path.charAt(i));
+                if (node != null) {
+                    matches.addAll(node.values);
+                }
+            }
+        }
+    }
+}
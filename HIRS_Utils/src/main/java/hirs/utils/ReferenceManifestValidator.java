@@ -199,6 +199,66 @@ public class ReferenceManifestValidator {
         return false;
     }
 
+    /**
+     * This method returns the subject key identifier of the key that signed the instance's RIM,
+     * so that the signing cert can be looked up directly.  The identifier is taken from the
+     * RIM's embedded certificate if there is one, or from the KeyName element otherwise.
+     *
+     * @return the hex encoded subject key identifier, or null if the RIM does not identify it
+     */
+    public String getSigningKeyIdentifier() {
+        if (rim == null) {
+            return null;
+        }
+        try {
+            NodeList certElement = rim.getElementsByTagName("X509Certificate");
+            if (certElement.getLength() > 0) {
+                X509Certificate embeddedCert = parseCertFromPEMString(
+                        certElement.item(0).getTextContent());
+                if (embeddedCert == null) {
+                    return null;
+                }
+                subjectKeyIdentifier = getCertificateSubjectKeyIdentifier(embeddedCert);
+            } else {
+                subjectKeyIdentifier = getKeyName(rim);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Error while parsing signing key identifier: " + e.getMessage());
+            return null;
+        }
+
+        if (subjectKeyIdentifier == null || subjectKeyIdentifier.isEmpty()) {
+            return null;
+        }
+        return subjectKeyIdentifier;
+    }
+
+    /**
+     * This method returns the encoded public key of the certificate embedded in the instance's
+     * RIM, so that the signing cert can still be looked up when the embedded certificate has
+     * no subject key identifier.
+     *
+     * @return the encoded public key, or null if the RIM does not embed a certificate
+     */
+    public byte[] getEmbeddedPublicKey() {
+        if (rim == null) {
+            return null;
+        }
+        try {
+            NodeList certElement = rim.getElementsByTagName("X509Certificate");
+            if (certElement.getLength() > 0) {
+                X509Certificate embeddedCert = parseCertFromPEMString(
+                        certElement.item(0).getTextContent());
+                if (embeddedCert != null) {
+                    return embeddedCert.getPublicKey().getEncoded();
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Error while parsing embedded certificate: " + e.getMessage());
+        }
+        return null;
+    }
+
     /**
      * This method calculates the SHA256 hash of the input byte array and compares it against
      * the value passed in.
@@ -0,0 +1,168 @@
+package hirs.validation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import hirs.data.persist.ReferenceManifest;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import hirs.persist.CertificateManager;
+import hirs.utils.ReferenceManifestValidator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.util.encoders.DecoderException;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Finds the {@link CertificateAuthorityCredential} that signed a base RIM.
+ * <p>
+ * The signing cert is looked up by the subject key identifier the RIM names in its KeyInfo,
+ * either through its embedded certificate or its KeyName, instead of trying every CA
+ * credential in turn.  An embedded certificate without a subject key identifier is looked up
+ * by its public key.  Base RIMs are shared by every device of the same manufacturer and
+ * model, so once a RIM's signature has been verified the id of its signing cert is cached,
+ * keyed by the RIM's hash.  Later devices validated against the same RIM skip parsing the
+ * RIM and verifying its signature, as long as the signing cert has not been deleted.
+ * <p>
+ * RIMs whose signature cannot be verified are not cached, so that a signing cert uploaded
+ * later is picked up.  Lookups may run concurrently.
+ */
+public class RimSignatureVerifier {
+
+    private static final Logger LOGGER = LogManager.getLogger(RimSignatureVerifier.class);
+
+    /**
+     * The default maximum number of RIMs whose signing cert is cached.
+     */
+    public static final long DEFAULT_MAX_ENTRIES = 1024;
+
+    private final CertificateManager certificateManager;
+    private final Cache<String, UUID> verifiedSigners;
+
+    /**
+     * Creates a verifier caching the signing certs of up to {@link #DEFAULT_MAX_ENTRIES} RIMs.
+     *
+     * @param certificateManager the manager holding the CA credentials
+     */
+    public RimSignatureVerifier(final CertificateManager certificateManager) {
+        this(certificateManager, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a verifier caching the signing certs of up to the given number of RIMs.
+     *
+     * @param certificateManager the manager holding the CA credentials
+     * @param maxEntries the maximum number of RIMs whose signing cert is cached
+     */
+    public RimSignatureVerifier(final CertificateManager certificateManager,
+                                final long maxEntries) {
+        if (certificateManager == null) {
+            throw new IllegalArgumentException("CertificateManager cannot be null");
+        }
+        this.certificateManager = certificateManager;
+        this.verifiedSigners = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the CA credential whose key verifies the signature of the given RIM.  Only the
+     * signature is checked; the caller is responsible for validating the returned credential's
+     * certificate path.
+     *
+     * @param rim the base RIM whose signature should be verified
+     * @return the CA credential that signed the RIM, or null if the signature could not be
+     * verified by any stored CA credential
+     */
+    public CertificateAuthorityCredential getSigningCertificate(final ReferenceManifest rim) {
+        final String hash = rim.getHexDecHash();
+        final boolean cacheable = hash != null && !hash.isEmpty();
+        if (cacheable) {
+            UUID signerId = verifiedSigners.getIfPresent(hash);
+            if (signerId != null) {
+                CertificateAuthorityCredential signer =
+                        CertificateAuthorityCredential.select(certificateManager)
+                                .byEntityId(signerId).getCertificate();
+                if (signer != null) {
+                    return signer;
+                }
+                verifiedSigners.invalidate(hash);
+            }
+        }
+
+        ReferenceManifestValidator validator = new ReferenceManifestValidator();
+        validator.setRim(rim);
+        for (CertificateAuthorityCredential candidate : findCandidates(validator)) {
+            if (validator.validateXmlSignature(candidate)) {
+                if (cacheable) {
+                    verifiedSigners.put(hash, candidate.getId());
+                }
+                return candidate;
+            }
+        }
+        LOGGER.debug("No CA credential verifies the signature of RIM {}", hash);
+        return null;
+    }
+
+    /**
+     * Finds the CA credentials whose subject key identifier matches the one named by the RIM.
+     * If there are none and the RIM embeds its signing cert, the CA credentials with the same
+     * public key as the embedded cert are returned instead, since the embedded cert may not
+     * have a subject key identifier.
+     */
+    private Set<CertificateAuthorityCredential> findCandidates(
+            final ReferenceManifestValidator validator) {
+        Set<CertificateAuthorityCredential> candidates = Collections.emptySet();
+        String keyIdentifier = validator.getSigningKeyIdentifier();
+        if (keyIdentifier != null) {
+            try {
+                candidates = CertificateAuthorityCredential.select(certificateManager)
+                        .bySubjectKeyIdentifier(Hex.decode(keyIdentifier)).getCertificates();
+            } catch (DecoderException ex) {
+                LOGGER.warn("RIM signing key identifier is not hex encoded: {}", keyIdentifier);
+            }
+        }
+        if (!candidates.isEmpty()) {
+            return candidates;
+        }
+
+        byte[] encodedPublicKey = validator.getEmbeddedPublicKey();
+        if (encodedPublicKey != null) {
+            return CertificateAuthorityCredential.select(certificateManager)
+                    .byEncodedPublicKey(encodedPublicKey).getCertificates();
+        }
+        if (keyIdentifier == null) {
+            LOGGER.warn("RIM does not identify its signing key");
+        }
+        return candidates;
+    }
+
+    /**
+     * Discards the cached signing cert of the RIM with the given hash.
+     *
+     * @param hash the hash of the RIM
+     */
+    public void invalidate(final String hash) {
+        verifiedSigners.invalidate(hash);
+    }
+
+    /**
+     * Discards every cached signing cert.
+     */
+    public void invalidateAll() {
+        verifiedSigners.invalidateAll();
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts recorded by the cache.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats getStats() {
+        return verifiedSigners.stats();
+    }
+}
@@ -98,8 +98,6 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
      */
     public static final String FIRMWARE_VALID = "Firmware validated";
 
-    private static List<ComponentResult> componentResultList = new LinkedList<>();;
-
     /**
      * Ensure that BouncyCastle is configured as a javax.security.Security provider, as this
      * class expects it to be available.
@@ -186,15 +184,6 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         return null;
     }
 
-    /**
-     * Getter for the list of the Component Results.
-     * @return a list of results
-     */
-    @Override
-    public List<ComponentResult> getComponentResultList() {
-        return this.componentResultList;
-    }
-
     /**
      * Checks if the platform credential is valid.
      *
@@ -556,11 +545,13 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
 
         String paccorOutputString = deviceInfoReport.getPaccorOutputString();
         String unmatchedComponents;
+        List<ComponentResult> componentResults = new ArrayList<>();
         try {
             List<ComponentInfo> componentInfoList
                     = getComponentInfoFromPaccorOutput(paccorOutputString);
             unmatchedComponents = validateV2p0PlatformCredentialComponentsExpectingExactMatch(
-                    platformCredential.getId(), validPcComponents, componentInfoList);
+                    platformCredential.getId(), validPcComponents, componentInfoList,
+                    componentResults);
             fieldValidation &= unmatchedComponents.isEmpty();
         } catch (IOException e) {
             final String baseErrorMessage = "Error parsing JSON output from PACCOR: ";
@@ -591,7 +582,8 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         if (passesValidation) {
             return new AppraisalStatus(PASS, PLATFORM_ATTRIBUTES_VALID);
         } else {
-            return new AppraisalStatus(FAIL, resultMessage.toString(), additionalInfo.toString());
+            return new AppraisalStatus(FAIL, resultMessage.toString(), additionalInfo.toString(),
+                    componentResults);
         }
     }
 
@@ -721,6 +713,7 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
 
         String paccorOutputString = deviceInfoReport.getPaccorOutputString();
         String unmatchedComponents;
+        List<ComponentResult> componentResults = new ArrayList<>();
         try {
             // compare based on component class
             List<ComponentInfo> componentInfoList = getV2PaccorOutput(paccorOutputString);
@@ -728,7 +721,8 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
             unmatchedComponents = validateV2PlatformCredentialAttributes(
                     certificateId,
                     baseCompList,
-                    componentInfoList);
+                    componentInfoList,
+                    componentResults);
             fieldValidation &= unmatchedComponents.isEmpty();
         } catch (IOException ioEx) {
             final String baseErrorMessage = "Error parsing JSON output from PACCOR: ";
@@ -757,14 +751,16 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         if (fieldValidation) {
             return new AppraisalStatus(PASS, PLATFORM_ATTRIBUTES_VALID);
         } else {
-            return new AppraisalStatus(FAIL, resultMessage.toString(), additionalInfo.toString());
+            return new AppraisalStatus(FAIL, resultMessage.toString(), additionalInfo.toString(),
+                    componentResults);
         }
     }
 
     private static String validateV2PlatformCredentialAttributes(
             final UUID certificateId,
             final List<ComponentIdentifier> fullDeltaChainComponents,
-            final List<ComponentInfo> allDeviceInfoComponents) {
+            final List<ComponentInfo> allDeviceInfoComponents,
+            final List<ComponentResult> componentResults) {
         ComponentIdentifierV2 ciV2;
         StringBuilder invalidPcIds = new StringBuilder();
         List<ComponentIdentifier> subCompIdList = fullDeltaChainComponents
@@ -778,7 +774,7 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
                 ciV2 = (ComponentIdentifierV2) cId;
                 if (cInfo.getComponentClass().contains(
                         ciV2.getComponentClass().getValue())
-                        && isMatch(certificateId, cId, cInfo)) {
+                        && isMatch(certificateId, cId, cInfo, componentResults)) {
                     subCompIdList.remove(cId);
                     subCompInfoList.remove(cInfo);
                 }
@@ -821,12 +817,14 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
      *                              **NEW** this is updated with just the unmatched components
      *                              if there are any failures, otherwise it remains unchanged.
      * @param allDeviceInfoComponents the device info report components
+     * @param componentResults collects the comparisons made between matched components
      * @return true if validation passes
      */
     private static String validateV2p0PlatformCredentialComponentsExpectingExactMatch(
             final UUID certificateId,
             final List<ComponentIdentifier> untrimmedPcComponents,
-            final List<ComponentInfo> allDeviceInfoComponents) {
+            final List<ComponentInfo> allDeviceInfoComponents,
+            final List<ComponentResult> componentResults) {
         // For each manufacturer listed in the platform credential, create two lists:
         // 1. a list of components listed in the platform credential for the manufacturer, and
         // 2. a list of components listed in the device info for the same manufacturer
@@ -896,7 +894,8 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
 
                 if (first.isPresent()) {
                     ComponentInfo potentialMatch = first.get();
-                    if (isMatch(certificateId, pcComponent, potentialMatch)) {
+                    if (isMatch(certificateId, pcComponent, potentialMatch,
+                            componentResults)) {
                         pcComponentsFromManufacturer.remove(pcComponent);
                         deviceInfoComponentsFromManufacturer.remove(potentialMatch);
                     }
@@ -924,7 +923,8 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
 
                 if (first.isPresent()) {
                     ComponentInfo potentialMatch = first.get();
-                    if (isMatch(certificateId, pcComponent, potentialMatch)) {
+                    if (isMatch(certificateId, pcComponent, potentialMatch,
+                            componentResults)) {
                         pcComponentsFromManufacturer.remove(pcComponent);
                         deviceInfoComponentsFromManufacturer.remove(potentialMatch);
                     }
@@ -938,7 +938,7 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
                         = deviceInfoComponentsFromManufacturer.iterator();
                 while (diComponentIter.hasNext()) {
                     ComponentInfo potentialMatch = diComponentIter.next();
-                    if (isMatch(certificateId, ci, potentialMatch)) {
+                    if (isMatch(certificateId, ci, potentialMatch, componentResults)) {
                         pcComponentsFromManufacturer.remove(ci);
                         diComponentIter.remove();
                     }
@@ -1082,6 +1082,23 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
      */
     static boolean isMatch(final UUID certificateId, final ComponentIdentifier pcComponent,
                            final ComponentInfo potentialMatch) {
+        return isMatch(certificateId, pcComponent, potentialMatch, new ArrayList<>());
+    }
+
+    /**
+     * Checks if the fields in the potentialMatch match the fields in the pcComponent,
+     * or if the relevant field in the pcComponent is empty.
+     *
+     * @param certificateId the certificate id
+     * @param pcComponent the platform credential component
+     * @param potentialMatch the component info from a device info report
+     * @param componentResults collects a result for each field that matched
+     * @return true if the fields match exactly (null is considered the same as an empty string)
+     */
+    private static boolean isMatch(final UUID certificateId,
+                                   final ComponentIdentifier pcComponent,
+                                   final ComponentInfo potentialMatch,
+                                   final List<ComponentResult> componentResults) {
         boolean matchesSoFar = true;
 
         matchesSoFar &= isMatchOrEmptyInPlatformCert(
@@ -1090,7 +1107,7 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         );
 
         if (matchesSoFar) {
-            componentResultList.add(new ComponentResult(certificateId, pcComponent.hashCode(),
+            componentResults.add(new ComponentResult(certificateId, pcComponent.hashCode(),
                     potentialMatch.getComponentManufacturer(),
                     pcComponent.getComponentManufacturer().getString()));
         }
@@ -1101,7 +1118,7 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         );
 
         if (matchesSoFar) {
-            componentResultList.add(new ComponentResult(certificateId, pcComponent.hashCode(),
+            componentResults.add(new ComponentResult(certificateId, pcComponent.hashCode(),
                     potentialMatch.getComponentModel(),
                     pcComponent.getComponentModel().getString()));
         }
@@ -1112,7 +1129,7 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         );
 
         if (matchesSoFar) {
-            componentResultList.add(new ComponentResult(certificateId, pcComponent.hashCode(),
+            componentResults.add(new ComponentResult(certificateId, pcComponent.hashCode(),
                     potentialMatch.getComponentSerial(),
                     pcComponent.getComponentSerial().getString()));
         }
@@ -1123,7 +1140,7 @@ public final class SupplyChainCredentialValidator implements CredentialValidator
         );
 
         if (matchesSoFar) {
-            componentResultList.add(new ComponentResult(certificateId, pcComponent.hashCode(),
+            componentResults.add(new ComponentResult(certificateId, pcComponent.hashCode(),
                     potentialMatch.getComponentRevision(),
                     pcComponent.getComponentRevision().getString()));
         }
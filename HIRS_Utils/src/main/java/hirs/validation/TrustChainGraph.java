@@ -0,0 +1,265 @@
+package hirs.validation;
+
+import hirs.data.persist.certificate.Certificate;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import hirs.persist.CertificateManager;
+import hirs.utils.BouncyCastleUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory graph of the trusted {@link CertificateAuthorityCredential}s, used to find the
+ * CA chain of a credential without querying the database for every link of the chain.
+ * <p>
+ * The graph indexes the CA credentials by subject key identifier, subject and sorted subject.
+ * A credential's issuers are looked up by authority key identifier first, falling back to its
+ * issuer, which mirrors the queries previously made against the database.  When more than one
+ * CA could have issued a credential, only the ones whose key verifies the credential's
+ * signature are followed.  Verified CA to CA links and the chain above each CA are cached, so
+ * finding the chain of a credential costs one index lookup per link.
+ * <p>
+ * The graph is rebuilt whenever the CA credentials stored by the {@link CertificateManager}
+ * change, which is detected by comparing
+ * {@link CertificateManager#getVersion(Class)} before every lookup.  This picks up CA
+ * credentials uploaded or deleted through the portal.  Lookups may run concurrently.
+ */
+public class TrustChainGraph {
+
+    private static final Logger LOGGER = LogManager.getLogger(TrustChainGraph.class);
+
+    private final CertificateManager certificateManager;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Creates a graph of the CA credentials stored by the given manager.  The graph is built
+     * on first use.
+     *
+     * @param certificateManager the manager holding the CA credentials
+     */
+    public TrustChainGraph(final CertificateManager certificateManager) {
+        if (certificateManager == null) {
+            throw new IllegalArgumentException("CertificateManager cannot be null");
+        }
+        this.certificateManager = certificateManager;
+    }
+
+    /**
+     * Returns the CA credentials in the chain above the given credential, up to self-signed
+     * roots.  If the chain cannot be completed, the CA credentials that were found are
+     * returned.
+     *
+     * @param credential the credential whose CA chain should be retrieved
+     * @return the CA credentials in the chain, possibly empty
+     */
+    public Set<CertificateAuthorityCredential> getCaChain(final Certificate credential) {
+        Snapshot current = getSnapshot();
+        Set<CertificateAuthorityCredential> chain = new LinkedHashSet<>();
+        for (CertificateAuthorityCredential issuer : current.selectIssuers(credential)) {
+            chain.add(issuer);
+            chain.addAll(current.getChainAbove(issuer));
+        }
+        return chain;
+    }
+
+    /**
+     * Discards the graph so that it is rebuilt on the next lookup.
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot getSnapshot() {
+        String version = certificateManager.getVersion(CertificateAuthorityCredential.class);
+        Snapshot current = snapshot;
+        if (current != null && Objects.equals(current.version, version)) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || !Objects.equals(current.version, version)) {
+                Set<CertificateAuthorityCredential> caCredentials =
+                        CertificateAuthorityCredential.select(certificateManager)
+                                .getCertificates();
+                LOGGER.debug("Building trust chain graph of {} CA credentials",
+                        caCredentials.size());
+                current = new Snapshot(version, caCredentials);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private static String normalize(final String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * An immutable index of the CA credentials at a single version, along with the links and
+     * chains computed from it so far.
+     */
+    private static final class Snapshot {
+        private final String version;
+        private final Map<String, CertificateAuthorityCredential> bySubjectKeyId =
+                new HashMap<>();
+        private final Map<String, List<CertificateAuthorityCredential>> bySubject =
+                new HashMap<>();
+        private final Map<String, List<CertificateAuthorityCredential>> bySubjectSorted =
+                new HashMap<>();
+        private final Map<String, Boolean> verifiedLinks = new ConcurrentHashMap<>();
+        private final Map<UUID, Set<CertificateAuthorityCredential>> chainsAbove =
+                new ConcurrentHashMap<>();
+
+        private Snapshot(final String version,
+                         final Set<CertificateAuthorityCredential> caCredentials) {
+            this.version = version;
+            for (CertificateAuthorityCredential ca : caCredentials) {
+                byte[] subjectKeyId = ca.getSubjectKeyIdentifier();
+                if (subjectKeyId != null && subjectKeyId.length > 0) {
+                    bySubjectKeyId.put(Hex.toHexString(subjectKeyId), ca);
+                }
+                addToIndex(bySubject, ca.getSubject(), ca);
+                addToIndex(bySubjectSorted, ca.getSubjectSorted(), ca);
+            }
+        }
+
+        private static void addToIndex(
+                final Map<String, List<CertificateAuthorityCredential>> index,
+                final String name, final CertificateAuthorityCredential ca) {
+            if (name != null && !name.isEmpty()) {
+                index.computeIfAbsent(normalize(name), key -> new ArrayList<>()).add(ca);
+            }
+        }
+
+        /**
+         * Finds the CA credentials that may have issued the given credential.
+         */
+        private List<CertificateAuthorityCredential> findIssuers(final Certificate credential) {
+            String authKeyId = credential.getAuthKeyId();
+            if (authKeyId != null && !authKeyId.isEmpty()) {
+                CertificateAuthorityCredential skiCa =
+                        bySubjectKeyId.get(Hex.toHexString(Hex.decode(authKeyId)));
+                if (skiCa != null) {
+                    return Collections.singletonList(skiCa);
+                }
+            }
+
+            List<CertificateAuthorityCredential> issuers;
+            String issuerSorted = credential.getIssuerSorted();
+            if (issuerSorted == null || issuerSorted.isEmpty()) {
+                String issuer = credential.getIssuer();
+                if (issuer == null || issuer.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                issuers = bySubject.get(normalize(issuer));
+            } else {
+                issuers = bySubjectSorted.get(normalize(issuerSorted));
+            }
+
+            if (issuers == null) {
+                return Collections.emptyList();
+            }
+            return issuers;
+        }
+
+        /**
+         * Finds the issuers of the given credential, keeping only those that verify its
+         * signature if there is more than one candidate.  If none of the candidates verify
+         * the signature, all of them are returned and the failure is left to chain validation.
+         */
+        private List<CertificateAuthorityCredential> selectIssuers(
+                final Certificate credential) {
+            List<CertificateAuthorityCredential> candidates = findIssuers(credential);
+            if (candidates.size() < 2) {
+                return candidates;
+            }
+
+            List<CertificateAuthorityCredential> verified = new ArrayList<>();
+            for (CertificateAuthorityCredential candidate : candidates) {
+                if (isIssuedBy(credential, candidate)) {
+                    verified.add(candidate);
+                }
+            }
+            if (verified.isEmpty()) {
+                return candidates;
+            }
+            return verified;
+        }
+
+        private boolean isIssuedBy(final Certificate credential,
+                                   final CertificateAuthorityCredential issuer) {
+            if (!(credential instanceof CertificateAuthorityCredential)
+                    || credential.getId() == null) {
+                return verifySignature(credential, issuer);
+            }
+
+            // links between CA credentials are shared by every device, so remember them
+            String link = issuer.getId() + ">" + credential.getId();
+            Boolean verified = verifiedLinks.get(link);
+            if (verified == null) {
+                verified = verifySignature(credential, issuer);
+                verifiedLinks.put(link, verified);
+            }
+            return verified;
+        }
+
+        private static boolean verifySignature(final Certificate credential,
+                                               final CertificateAuthorityCredential issuer) {
+            try {
+                return credential.isIssuer(issuer).isEmpty();
+            } catch (IOException ex) {
+                LOGGER.warn("Unable to verify whether {} issued {}", issuer.getSubject(),
+                        credential.getSubject(), ex);
+                return false;
+            }
+        }
+
+        /**
+         * Returns the CA credentials above the given CA credential, excluding itself.
+         */
+        private Set<CertificateAuthorityCredential> getChainAbove(
+                final CertificateAuthorityCredential ca) {
+            Set<CertificateAuthorityCredential> chain = chainsAbove.get(ca.getId());
+            if (chain == null) {
+                chain = Collections.unmodifiableSet(buildChainAbove(ca, new HashSet<>()));
+                chainsAbove.putIfAbsent(ca.getId(), chain);
+            }
+            return chain;
+        }
+
+        private Set<CertificateAuthorityCredential> buildChainAbove(
+                final CertificateAuthorityCredential ca, final Set<UUID> visited) {
+            Set<CertificateAuthorityCredential> chain = new LinkedHashSet<>();
+            if (BouncyCastleUtils.x500NameCompare(ca.getIssuer(), ca.getSubject())
+                    || !visited.add(ca.getId())) {
+                return chain;
+            }
+
+            for (CertificateAuthorityCredential issuer : selectIssuers(ca)) {
+                chain.add(issuer);
+                Set<CertificateAuthorityCredential> cached = chainsAbove.get(issuer.getId());
+                if (cached == null) {
+                    chain.addAll(buildChainAbove(issuer, visited));
+                } else {
+                    chain.addAll(cached);
+                }
+            }
+            return chain;
+        }
+    }
+}
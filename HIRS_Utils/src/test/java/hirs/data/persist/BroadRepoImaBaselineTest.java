@@ -5,8 +5,10 @@ import hirs.data.persist.baseline.BroadRepoImaBaseline;
 import hirs.data.persist.baseline.Baseline;
 import hirs.data.persist.enums.ReportMatchStatus;
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import hirs.ima.matching.BatchImaMatchStatus;
@@ -370,6 +372,126 @@ public class BroadRepoImaBaselineTest extends SpringPersistenceTest {
         );
     }
 
+    /**
+     * Tests that looking up a report's paths and hashes through the record indexes gives the
+     * same results as iterating over the whole baseline.
+     *
+     * @throws UnsupportedEncodingException
+     *             if an error is encountered while getting the test digest
+     */
+    @Test
+    public final void testContainsIndexedLookup() throws UnsupportedEncodingException {
+        BroadRepoImaBaseline testBaseline = new BroadRepoImaBaseline(BASELINE_NAME);
+        Repository testRepo = new TestRepository("Test Repository", 0);
+        DBRepositoryManager repoManager = new DBRepositoryManager(sessionFactory);
+        testRepo = repoManager.saveRepository(testRepo);
+        RepoPackage testRepoPackage =
+                new RPMRepoPackage(NAME, VERSION1, RELEASE1, ARCHITECTURE, testRepo);
+        Set<IMABaselineRecord> imaRecords = new HashSet<>();
+        imaRecords.add(SimpleImaBaselineTest.createTestIMARecord(FILEPATH1));
+        imaRecords.add(SimpleImaBaselineTest.createTestIMARecord(FILEPATH2));
+        imaRecords.add(SimpleImaBaselineTest.createTestIMARecord(BIN_FILE));
+        testRepoPackage.setAllMeasurements(imaRecords, RepoPackageTest.getTestDigest());
+        repoManager.saveRepoPackage(testRepoPackage);
+        Set<Repository<?>> originalRepositories = new HashSet<>();
+        originalRepositories.add(testRepo);
+        testBaseline.setRepositories(originalRepositories);
+        testBaseline.update(repoManager);
+
+        DBBaselineManager baselineManager = new DBBaselineManager(sessionFactory);
+        BroadRepoImaBaseline savedBaseline =
+                (BroadRepoImaBaseline) baselineManager.save(testBaseline);
+
+        IMABaselineRecord baselineRecord = SimpleImaBaselineTest.createTestIMARecord(FILEPATH1);
+        List<IMAMeasurementRecord> measurementRecords = Arrays.asList(
+                new IMAMeasurementRecord(FILEPATH1, baselineRecord.getHash()),
+                new IMAMeasurementRecord(FILEPATH2,
+                        SimpleImaBaselineTest.getDigest("0d5f3c2f7f3003d2e4baddc46ed4763a4954f648")),
+                new IMAMeasurementRecord("/some/other/file", baselineRecord.getHash()),
+                new IMAMeasurementRecord(FILEPATH3,
+                        SimpleImaBaselineTest.getDigest("1d5f3c2f7f3003d2e4baddc46ed4763a4954f648"))
+        );
+
+        DbImaBaselineRecordManager indexedManager = new DbImaBaselineRecordManager(sessionFactory);
+        indexedManager.setIndexedLookupMaxFraction(measurementRecords.size());
+        DbImaBaselineRecordManager iteratingManager =
+                new DbImaBaselineRecordManager(sessionFactory);
+        iteratingManager.setIndexedLookupMaxFraction(0);
+        IMAPolicy imaPolicy = SimpleImaBaselineTest.getTestImaPolicy(false);
+
+        BatchImaMatchStatus<IMABaselineRecord> indexedPathMatches =
+                savedBaseline.contains(measurementRecords, indexedManager, imaPolicy);
+        Assert.assertEquals(indexedPathMatches,
+                savedBaseline.contains(measurementRecords, iteratingManager, imaPolicy));
+        Assert.assertTrue(indexedPathMatches.foundMatch(measurementRecords.get(0)));
+        Assert.assertTrue(indexedPathMatches.foundMismatch(measurementRecords.get(1)));
+        Assert.assertTrue(indexedPathMatches.foundOnlyUnknown(measurementRecords.get(2)));
+
+        BatchImaMatchStatus<IMABaselineRecord> indexedHashMatches =
+                savedBaseline.containsHashes(measurementRecords, indexedManager, imaPolicy);
+        Assert.assertEquals(indexedHashMatches,
+                savedBaseline.containsHashes(measurementRecords, iteratingManager, imaPolicy));
+        Assert.assertTrue(indexedHashMatches.foundMatch(measurementRecords.get(2)));
+        Assert.assertTrue(indexedHashMatches.foundOnlyUnknown(measurementRecords.get(3)));
+    }
+
+    /**
+     * Tests that looking up a report's paths and partial paths through the indexes on the stored
+     * path and partial path columns gives the same results as iterating over the whole baseline
+     * when partial paths are enabled.
+     *
+     * @throws UnsupportedEncodingException
+     *             if an error is encountered while getting the test digest
+     */
+    @Test
+    public final void testContainsIndexedPartialPathLookup() throws UnsupportedEncodingException {
+        BroadRepoImaBaseline testBaseline = new BroadRepoImaBaseline(BASELINE_NAME);
+        Repository testRepo = new TestRepository("Test Repository", 0);
+        DBRepositoryManager repoManager = new DBRepositoryManager(sessionFactory);
+        testRepo = repoManager.saveRepository(testRepo);
+        RepoPackage testRepoPackage =
+                new RPMRepoPackage(NAME, VERSION1, RELEASE1, ARCHITECTURE, testRepo);
+        Set<IMABaselineRecord> imaRecords = new HashSet<>();
+        imaRecords.add(SimpleImaBaselineTest.createTestIMARecord(FILEPATH1));
+        imaRecords.add(SimpleImaBaselineTest.createTestIMARecord(BIN_FILE));
+        imaRecords.add(SimpleImaBaselineTest.createTestIMARecord("gradle"));
+        testRepoPackage.setAllMeasurements(imaRecords, RepoPackageTest.getTestDigest());
+        repoManager.saveRepoPackage(testRepoPackage);
+        Set<Repository<?>> originalRepositories = new HashSet<>();
+        originalRepositories.add(testRepo);
+        testBaseline.setRepositories(originalRepositories);
+        testBaseline.update(repoManager);
+
+        DBBaselineManager baselineManager = new DBBaselineManager(sessionFactory);
+        BroadRepoImaBaseline savedBaseline =
+                (BroadRepoImaBaseline) baselineManager.save(testBaseline);
+
+        Digest hash = SimpleImaBaselineTest.createTestIMARecord(FILEPATH1).getHash();
+        List<IMAMeasurementRecord> measurementRecords = Arrays.asList(
+                new IMAMeasurementRecord("/usr/bin/gradle", hash),
+                new IMAMeasurementRecord("ls", hash),
+                new IMAMeasurementRecord("/opt/ls", hash),
+                new IMAMeasurementRecord(FILEPATH1,
+                        SimpleImaBaselineTest.getDigest("0d5f3c2f7f3003d2e4baddc46ed4763a4954f648"))
+        );
+
+        DbImaBaselineRecordManager indexedManager = new DbImaBaselineRecordManager(sessionFactory);
+        indexedManager.setIndexedLookupMaxFraction(measurementRecords.size() * 2);
+        DbImaBaselineRecordManager iteratingManager =
+                new DbImaBaselineRecordManager(sessionFactory);
+        iteratingManager.setIndexedLookupMaxFraction(0);
+        IMAPolicy imaPolicy = SimpleImaBaselineTest.getTestImaPolicy(true);
+
+        BatchImaMatchStatus<IMABaselineRecord> indexedMatches =
+                savedBaseline.contains(measurementRecords, indexedManager, imaPolicy);
+        Assert.assertEquals(indexedMatches,
+                savedBaseline.contains(measurementRecords, iteratingManager, imaPolicy));
+        Assert.assertTrue(indexedMatches.foundMatch(measurementRecords.get(0)));
+        Assert.assertTrue(indexedMatches.foundMatch(measurementRecords.get(1)));
+        Assert.assertTrue(indexedMatches.foundOnlyUnknown(measurementRecords.get(2)));
+        Assert.assertTrue(indexedMatches.foundMismatch(measurementRecords.get(3)));
+    }
+
     /**
      * Tests that the <code>Set</code> of <code>Repositories</code>s associated with this baseline
      * can be set, retrieved, and returned.
@@ -0,0 +1,77 @@
+package hirs.data.persist;
+
+import hirs.data.persist.enums.DigestAlgorithm;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link DigestSet} and {@link DigestKey}.
+ */
+public class DigestSetTest {
+    private static final int DIGEST_COUNT = 1000;
+
+    /**
+     * Tests that digests added to a set, which is resized several times, are found and that
+     * digests that were not added are not.
+     */
+    @Test
+    public final void testAddAndContains() {
+        DigestSet set = new DigestSet();
+        for (int i = 0; i < DIGEST_COUNT; i++) {
+            Assert.assertTrue(set.add(getSha1(i)));
+        }
+        Assert.assertEquals(set.size(), DIGEST_COUNT);
+
+        for (int i = 0; i < DIGEST_COUNT; i++) {
+            Assert.assertTrue(set.contains(getSha1(i)));
+            Assert.assertTrue(set.contains(DigestKey.of(getSha1(i))));
+            Assert.assertTrue(set.contains(DigestAlgorithm.SHA1, getSha1(i).getDigest()));
+            Assert.assertFalse(set.contains(getSha1(DIGEST_COUNT + i)));
+        }
+        Assert.assertFalse(set.add(getSha1(0)));
+        Assert.assertEquals(set.size(), DIGEST_COUNT);
+        Assert.assertFalse(set.contains((Digest) null));
+    }
+
+    /**
+     * Tests that digests with the same bytes but different algorithms are distinct, and that
+     * digests too long to be packed are stored.
+     */
+    @Test
+    public final void testAlgorithmsAndLengths() {
+        byte[] md5 = DigestUtils.md5("test");
+        DigestSet set = DigestSet.of(Arrays.asList(new Digest(DigestAlgorithm.MD5, md5),
+                new Digest(DigestAlgorithm.SHA512, DigestUtils.sha512("test")), null));
+        Assert.assertEquals(set.size(), 2);
+        Assert.assertTrue(set.contains(DigestAlgorithm.MD5, md5));
+        Assert.assertFalse(set.contains(DigestAlgorithm.MD2, md5));
+        Assert.assertTrue(set.contains(new Digest(DigestAlgorithm.SHA512,
+                DigestUtils.sha512("test"))));
+        Assert.assertFalse(set.contains(new Digest(DigestAlgorithm.SHA512,
+                DigestUtils.sha512("other"))));
+    }
+
+    /**
+     * Tests that keys are equal when their digests are, and that they hold the digest's bytes.
+     */
+    @Test
+    public final void testDigestKey() {
+        for (Digest digest : Arrays.asList(getSha1(1),
+                new Digest(DigestAlgorithm.SHA256, DigestUtils.sha256("test")),
+                new Digest(DigestAlgorithm.SHA384, DigestUtils.sha384("test")))) {
+            DigestKey key = DigestKey.of(digest);
+            Assert.assertEquals(key, DigestKey.of(digest.getAlgorithm(), digest.getDigest()));
+            Assert.assertEquals(key.hashCode(), DigestKey.of(digest).hashCode());
+            Assert.assertEquals(key.toDigest(), digest);
+            Assert.assertEquals(key.toString(), digest.toString());
+        }
+        Assert.assertNotEquals(DigestKey.of(getSha1(1)), DigestKey.of(getSha1(2)));
+    }
+
+    private static Digest getSha1(final int value) {
+        return new Digest(DigestAlgorithm.SHA1, DigestUtils.sha1(Integer.toString(value)));
+    }
+}
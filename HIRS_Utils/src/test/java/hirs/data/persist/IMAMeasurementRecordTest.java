@@ -2,6 +2,7 @@ package hirs.data.persist;
 
 import hirs.data.persist.enums.ExamineState;
 import hirs.data.persist.enums.DigestAlgorithm;
+import java.nio.file.Paths;
 import java.text.ParseException;
 
 import org.apache.commons.codec.DecoderException;
@@ -59,6 +60,17 @@ public class IMAMeasurementRecordTest {
         Assert.assertEquals(record.getPath(), DEFAULT_PATH);
     }
 
+    /**
+     * Tests that <code>getPartialPath</code> returns the file name of the path.
+     */
+    @Test
+    public final void getPartialPath() {
+        final IMAMeasurementRecord record = getDefaultRecord();
+        Assert.assertEquals(record.getPartialPath(),
+                Paths.get(DEFAULT_PATH).getFileName().toString());
+        Assert.assertSame(record.getPartialPath(), record.getPartialPath());
+    }
+
     /**
      * Tests that <code>getHash</code> returns the correct hash.
      */
@@ -8,6 +8,7 @@ import java.util.Set;
 
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.lang3.StringUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import org.apache.logging.log4j.LogManager;
@@ -310,6 +311,53 @@ public class ImaBaselineRecordTest {
         Assert.assertEquals(filename, "");
     }
 
+    /**
+     * Tests that a partial path longer than can be stored is not stored, but is still returned by
+     * the record.
+     */
+    @Test
+    public final void testLongPartialPathNotStored() {
+        final String filename = StringUtils.repeat('f',
+                IMABaselineRecord.MAX_PARTIAL_PATH_LENGTH + 1);
+        final String path = "/usr/bin/" + filename;
+        Assert.assertNull(IMABaselineRecord.getStoredPartialPath(path));
+        Assert.assertEquals(IMABaselineRecord.getStoredPartialPath("/usr/bin/foo"), "foo");
+        Assert.assertEquals(new IMABaselineRecord(path, getDigest(HASH))
+                .getPartialPath(), filename);
+    }
+
+    /**
+     * Tests that the partitions of the buckets are contiguous, cover every bucket, and differ in
+     * size by at most one bucket.
+     */
+    @Test
+    public final void testFirstBucketOfPartition() {
+        final int partitionCount = 7;
+        final int smallest = IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT / partitionCount;
+        Assert.assertEquals(IMABaselineRecord.getFirstBucketOfPartition(0, partitionCount), 0);
+        for (int i = 0; i < partitionCount; i++) {
+            int size = IMABaselineRecord.getFirstBucketOfPartition(i + 1, partitionCount)
+                    - IMABaselineRecord.getFirstBucketOfPartition(i, partitionCount);
+            Assert.assertTrue(size == smallest || size == smallest + 1);
+        }
+        Assert.assertEquals(
+                IMABaselineRecord.getFirstBucketOfPartition(partitionCount, partitionCount),
+                IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT);
+    }
+
+    /**
+     * Tests that a path's bucket is within the range of buckets and depends only on its file
+     * name.
+     */
+    @Test
+    public final void testGetBucket() {
+        final int bucket = IMABaselineRecord.getBucket("/usr/bin/foo");
+        Assert.assertTrue(bucket >= 0 && bucket < IMABaselineRecord.FILENAME_HASH_BUCKET_COUNT);
+        Assert.assertEquals(IMABaselineRecord.getBucket("/bin/foo"), bucket);
+        Assert.assertEquals(new IMABaselineRecord("/usr/bin/foo", getDigest(HASH))
+                .getStoredBucket(), bucket);
+    }
+
     /**
      * Generate a <code>Digest</code> from a hex string.
      *
@@ -0,0 +1,61 @@
+package hirs.data.persist;
+
+import org.apache.commons.lang3.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tests {@link SearchTokens}.
+ */
+public class SearchTokensTest {
+
+    /**
+     * Tests that values are split into distinct lowercase words, ignoring null values.
+     */
+    @Test
+    public void testGetTokens() {
+        Assert.assertEquals(
+                SearchTokens.getTokens(Arrays.asList("CN=Fake Root CA, O=Acme", null, "acme")),
+                setOf("cn", "fake", "root", "ca", "o", "acme"));
+    }
+
+    /**
+     * Tests that hyphenated words are indexed whole and as their parts.
+     */
+    @Test
+    public void testGetTokensOfHyphenatedWords() {
+        Assert.assertEquals(SearchTokens.getTokens(Collections.singletonList("-host-1.example")),
+                setOf("host-1", "host", "1", "example"));
+    }
+
+    /**
+     * Tests that words longer than the maximum token length are truncated.
+     */
+    @Test
+    public void testGetTokensTruncatesLongWords() {
+        String word = StringUtils.repeat('a', SearchTokens.MAX_TOKEN_LENGTH + 1);
+        Assert.assertEquals(SearchTokens.getTokens(Collections.singletonList(word)),
+                setOf(StringUtils.left(word, SearchTokens.MAX_TOKEN_LENGTH)));
+    }
+
+    /**
+     * Tests that search text is split into its distinct words in order, and that no words are
+     * returned for empty or null text.
+     */
+    @Test
+    public void testGetSearchWords() {
+        Assert.assertEquals(SearchTokens.getSearchWords("Root, ACME root")
+                .toArray(), new String[] {"root", "acme"});
+        Assert.assertTrue(SearchTokens.getSearchWords(" , ").isEmpty());
+        Assert.assertTrue(SearchTokens.getSearchWords(null).isEmpty());
+    }
+
+    private static Set<String> setOf(final String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,90 @@
+package hirs.data.persist.certificate;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.cert.X509Certificate;
+
+/**
+ * Tests {@link ParsedCertificateCache}.
+ */
+public class ParsedCertificateCacheTest {
+
+    /**
+     * Tests that certificates loaded separately from the same bytes share one parsed
+     * certificate, and that the hits and misses are recorded.
+     *
+     * @throws IOException if the test certificates cannot be read
+     */
+    @Test
+    public void testSharedBetweenCertificates() throws IOException {
+        Certificate first = CertificateTest.getTestCertificate(CertificateTest.FAKE_ROOT_CA_FILE);
+        Certificate second = CertificateTest.getTestCertificate(CertificateTest.FAKE_ROOT_CA_FILE);
+        Assert.assertNotSame(first, second);
+        Assert.assertSame(first.getX509Certificate(), second.getX509Certificate());
+
+        PlatformCredential platformCredential = (PlatformCredential) CertificateTest
+                .getTestCertificate(PlatformCredential.class,
+                        PlatformCredentialTest.TEST_PLATFORM_CERT_2);
+        PlatformCredential samePlatformCredential = (PlatformCredential) CertificateTest
+                .getTestCertificate(PlatformCredential.class,
+                        PlatformCredentialTest.TEST_PLATFORM_CERT_2);
+        Assert.assertSame(platformCredential.getAttributeCertificate(),
+                samePlatformCredential.getAttributeCertificate());
+        Assert.assertTrue(ParsedCertificateCache.getInstance().getStats().hitCount() > 0);
+    }
+
+    /**
+     * Tests that a cache returns the same certificate for equal bytes, parses different bytes
+     * separately, and does not keep certificates larger than its bound.
+     *
+     * @throws IOException if the test certificates cannot be read
+     * @throws URISyntaxException if the test files cannot be found
+     */
+    @Test
+    public void testBoundedBySize() throws IOException, URISyntaxException {
+        byte[] rootBytes = readResource(CertificateTest.FAKE_ROOT_CA_FILE);
+        byte[] intelBytes = readResource(CertificateTest.FAKE_INTEL_INT_CA_FILE);
+        ParsedCertificateCache cache = new ParsedCertificateCache();
+
+        X509Certificate root = cache.getX509Certificate(rootBytes);
+        Assert.assertSame(cache.getX509Certificate(rootBytes.clone()), root);
+        Assert.assertNotEquals(cache.getX509Certificate(intelBytes), root);
+        Assert.assertEquals(cache.getStats().hitCount(), 1);
+        Assert.assertEquals(cache.getStats().missCount(), 2);
+        Assert.assertEquals(cache.size(), 2);
+
+        cache.invalidateAll();
+        Assert.assertEquals(cache.size(), 0);
+
+        ParsedCertificateCache smallCache = new ParsedCertificateCache(1);
+        Assert.assertEquals(smallCache.getX509Certificate(rootBytes), root);
+        Assert.assertEquals(smallCache.size(), 0);
+        Assert.assertEquals(smallCache.getStats().evictionCount(), 1);
+    }
+
+    /**
+     * Tests that bytes that are not a certificate fail to parse and are not cached.
+     *
+     * @throws IOException if the bytes cannot be parsed, as expected
+     */
+    @Test(expectedExceptions = IOException.class)
+    public void testInvalidCertificate() throws IOException {
+        ParsedCertificateCache cache = new ParsedCertificateCache();
+        try {
+            cache.getX509Certificate(new byte[] {1, 2, 3});
+        } finally {
+            Assert.assertEquals(cache.size(), 0);
+        }
+    }
+
+    private static byte[] readResource(final String resource)
+            throws IOException, URISyntaxException {
+        return Files.readAllBytes(Paths.get(
+                ParsedCertificateCacheTest.class.getResource(resource).toURI()));
+    }
+}
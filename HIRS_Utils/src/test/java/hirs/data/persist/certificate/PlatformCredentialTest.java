@@ -1,5 +1,6 @@
 package hirs.data.persist.certificate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import hirs.data.persist.certificate.attributes.ComponentIdentifier;
 import hirs.data.persist.certificate.attributes.PlatformConfiguration;
 import hirs.data.persist.certificate.attributes.PlatformProperty;
@@ -806,4 +807,30 @@ public class PlatformCredentialTest {
         PlatformCredential credential = new PlatformCredential(path);
         Assert.assertNotNull(credential);
     }
+
+    /**
+     * Tests that the attributes are parsed once and kept, that the component identifiers are
+     * parsed again for each caller, and that neither is serialized for the listing pages.
+     *
+     * @throws IOException if an IO error occurs during processing
+     * @throws URISyntaxException if there is a problem constructing the cert's URI
+     */
+    @Test
+    public final void testAttributesParsedOnDemand() throws IOException, URISyntaxException {
+        Path certPath = Paths.get(this.getClass().getResource(TEST_PLATFORM_CERT2_1).toURI());
+        PlatformCredential platformCert = new PlatformCredential(certPath);
+
+        Assert.assertSame(platformCert.getAllAttributes(), platformCert.getAllAttributes());
+        Assert.assertSame(platformCert.getPlatformConfiguration(),
+                platformCert.getPlatformConfiguration());
+
+        List<ComponentIdentifier> components = platformCert.getComponentIdentifiers();
+        Assert.assertEquals(components.size(), 7);
+        Assert.assertNotSame(platformCert.getComponentIdentifiers().get(0), components.get(0));
+
+        String json = new ObjectMapper().writeValueAsString(platformCert);
+        Assert.assertTrue(json.contains("\"platformSerial\""));
+        Assert.assertFalse(json.contains("\"componentIdentifiers\""));
+        Assert.assertFalse(json.contains("\"platformConfiguration\""));
+    }
 }
@@ -0,0 +1,183 @@
+package hirs.ima.matching;
+
+import hirs.data.persist.Digest;
+import hirs.data.persist.IMAMeasurementRecord;
+import hirs.data.persist.IMAPolicy;
+import hirs.data.persist.SimpleImaBaselineTest;
+import hirs.data.persist.baseline.IMABaselineRecord;
+import hirs.data.persist.baseline.SimpleImaBaseline;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+
+/**
+ * Tests {@link CompiledImaBaseline} and {@link CompiledImaBaselineStore}, checking that matchers
+ * probing a compiled baseline return the same results as matchers built from the records.
+ */
+public class CompiledImaBaselineTest {
+    private static final Digest HASH_1 =
+            SimpleImaBaselineTest.getDigest("33333c2f7f3003d2e4baddc46ed4763a49543333");
+    private static final Digest HASH_2 =
+            SimpleImaBaselineTest.getDigest("44444c2f7f3003d2e4baddc46ed4763a49543333");
+    private static final Digest HASH_3 =
+            SimpleImaBaselineTest.getDigest("f5555c2f7f3003d2e4baddc46ed4763a49543333");
+    private static final Digest UNKNOWN_HASH =
+            SimpleImaBaselineTest.getDigest("66666c2f7f3003d2e4baddc46ed4763a49543333");
+
+    private static final List<IMABaselineRecord> RECORDS = Arrays.asList(
+            new IMABaselineRecord("/bin/ls", HASH_1),
+            new IMABaselineRecord("/usr/bin/ls", HASH_2),
+            new IMABaselineRecord("/usr/sbin/ls", HASH_3),
+            new IMABaselineRecord("/usr/lib64/ld-2.17.so", HASH_2),
+            new IMABaselineRecord("/home/user/gradle", HASH_1),
+            new IMABaselineRecord("/usr/bin/gradle", HASH_3),
+            new IMABaselineRecord("gradle", HASH_2),
+            new IMABaselineRecord("/opt/app/vu", HASH_1),
+            new IMABaselineRecord("/bin/ls", HASH_1)
+    );
+
+    private static final List<String> PATHS = Arrays.asList(
+            "/bin/ls", "/usr/bin/ls", "/sbin/ls", "/usr/sbin/ls", "ls", "/lib64/ld-2.17.so",
+            "/usr/lib64/ld-2.17.so", "ld-2.17.so", "gradle", "/usr/bin/gradle",
+            "/home/user/gradle", "/home/other/gradle", "/opt/app/vu", "vu", "/", "",
+            "/bin/missing"
+    );
+
+    private Path directory;
+
+    /**
+     * Creates a directory to compile baselines into.
+     *
+     * @throws IOException if the directory cannot be created
+     */
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("compiled-ima-baselines");
+    }
+
+    /**
+     * Deletes the compiled baselines.
+     *
+     * @throws IOException if the directory cannot be deleted
+     */
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    /**
+     * Tests that records are found by hash and exact path, and that duplicates are only stored
+     * once.
+     *
+     * @throws IOException if the compiled baseline cannot be written or read
+     */
+    @Test
+    public void testLookups() throws IOException {
+        CompiledImaBaseline compiled = compile(RECORDS);
+        Assert.assertEquals(compiled.getRecordCount(), RECORDS.size() - 1);
+        Assert.assertEquals(compiled.getRecordsByHash(HASH_1), new HashSet<>(Arrays.asList(
+                new IMABaselineRecord("/bin/ls", HASH_1),
+                new IMABaselineRecord("/home/user/gradle", HASH_1),
+                new IMABaselineRecord("/opt/app/vu", HASH_1))));
+        Assert.assertTrue(compiled.getRecordsByHash(UNKNOWN_HASH).isEmpty());
+        Assert.assertEquals(compiled.getRecordsByPath("/usr/bin/gradle"),
+                Collections.singleton(new IMABaselineRecord("/usr/bin/gradle", HASH_3)));
+        Assert.assertTrue(compiled.getRecordsByPath("/usr/bin").isEmpty());
+    }
+
+    /**
+     * Tests that matchers probing a compiled baseline match the same records as matchers built
+     * from the records, with and without partial paths.
+     *
+     * @throws IOException if the compiled baseline cannot be written or read
+     */
+    @Test
+    public void testMatchersAgreeWithRecordMatchers() throws IOException {
+        CompiledImaBaseline compiled = compile(RECORDS);
+        SimpleImaBaseline baseline = new SimpleImaBaseline("Test Baseline");
+        for (boolean partialPaths : Arrays.asList(false, true)) {
+            IMAPolicy policy = SimpleImaBaselineTest.getTestImaPolicy(partialPaths);
+            assertSameResults(
+                    new ImaAcceptablePathAndHashRecordMatcher(RECORDS, policy, baseline),
+                    new ImaAcceptablePathAndHashRecordMatcher(compiled, policy, baseline));
+            assertSameResults(
+                    new ImaAcceptableHashRecordMatcher(RECORDS, policy, baseline),
+                    new ImaAcceptableHashRecordMatcher(compiled, policy, baseline));
+        }
+    }
+
+    /**
+     * Tests that the store compiles a baseline on first use, keeps using that copy while the
+     * baseline's revision is unchanged without retrieving its records, and compiles it again in
+     * place of the earlier copy once the revision changes.
+     *
+     * @throws IOException if the compiled baseline cannot be written or read
+     */
+    @Test
+    public void testStoreRecompilesOnChange() throws IOException {
+        CompiledImaBaselineStore store = new CompiledImaBaselineStore(directory);
+        UUID baselineId = UUID.randomUUID();
+        String revision = CompiledImaBaselineStore.getRevision(1, 1L);
+
+        CompiledImaBaseline compiled = store.get(baselineId, revision,
+                () -> Collections.singleton(new IMABaselineRecord("/bin/ls", HASH_1)));
+        Assert.assertEquals(compiled.getRecordCount(), 1);
+        Assert.assertSame(store.get(baselineId, revision, () -> {
+            throw new AssertionError("Records retrieved for a compiled revision");
+        }), compiled);
+        CompiledImaBaselineStore reopened = new CompiledImaBaselineStore(directory);
+        Assert.assertEquals(reopened.get(baselineId, revision, () -> {
+            throw new AssertionError("Records retrieved for a compiled revision");
+        }).getRecordCount(), 1);
+
+        Assert.assertEquals(store.get(baselineId,
+                CompiledImaBaselineStore.getRevision(RECORDS.size(), (long) RECORDS.size()),
+                () -> RECORDS).getRecordCount(), RECORDS.size() - 1);
+        Assert.assertEquals(directory.toFile().list().length, 1);
+
+        store.remove(baselineId);
+        Assert.assertEquals(directory.toFile().list().length, 0);
+    }
+
+    private CompiledImaBaseline compile(final List<IMABaselineRecord> records)
+            throws IOException {
+        Path file = directory.resolve("baseline" + CompiledImaBaselineStore.FILE_EXTENSION);
+        CompiledImaBaseline.write(records, file);
+        return CompiledImaBaseline.load(file);
+    }
+
+    private static void assertSameResults(
+            final ImaRecordMatcher<IMABaselineRecord> expected,
+            final ImaRecordMatcher<IMABaselineRecord> actual) {
+        List<IMAMeasurementRecord> measurements = new ArrayList<>();
+        for (String path : PATHS) {
+            for (Digest hash : Arrays.asList(HASH_1, HASH_2, HASH_3, UNKNOWN_HASH)) {
+                measurements.add(new IMAMeasurementRecord(path, hash));
+            }
+        }
+        for (IMAMeasurementRecord measurement : measurements) {
+            IMAMatchStatus<IMABaselineRecord> expectedStatus = expected.contains(measurement);
+            IMAMatchStatus<IMABaselineRecord> actualStatus = actual.contains(measurement);
+            Assert.assertEquals(actualStatus.getStatus(), expectedStatus.getStatus(),
+                    measurement.toString());
+            Set<IMABaselineRecord> expectedRecords =
+                    new HashSet<>(expectedStatus.getBaselineRecords());
+            Assert.assertEquals(new HashSet<>(actualStatus.getBaselineRecords()),
+                    expectedRecords, measurement.toString());
+        }
+    }
+}
@@ -11,9 +11,14 @@ import hirs.data.persist.SimpleImaBaselineTest;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Tests ImaAcceptablePathAndHashRecordMatcher.  These are very basic tests of its functionality;
@@ -206,6 +211,81 @@ public class ImaAcceptablePathAndHashRecordMatcherTest {
         );
     }
 
+    /**
+     * Tests that matching a batch in parallel gives the same results as matching it on a single
+     * thread.
+     */
+    @Test
+    public void testBatchMatchParallel() {
+        SimpleImaBaseline baseline = getTestSimpleImaBaseline();
+        List<IMABaselineRecord> baselineRecords = new ArrayList<>();
+        List<IMAMeasurementRecord> measurementRecords = new ArrayList<>();
+        int recordCount = 5 * ImaRecordMatcher.BATCH_PARTITION_SIZE;
+        for (int i = 0; i < recordCount; i++) {
+            String path = "/usr/bin/file" + i;
+            Digest hash = SimpleImaBaselineTest.getDigest(String.format("%040x", i + 1));
+            if (i % 3 == 0) {
+                baselineRecords.add(new IMABaselineRecord(path, hash));
+            } else if (i % 3 == 1) {
+                baselineRecords.add(new IMABaselineRecord(path, ONES));
+            }
+            measurementRecords.add(new IMAMeasurementRecord(path, hash));
+        }
+        ImaAcceptablePathAndHashRecordMatcher matcher = new ImaAcceptablePathAndHashRecordMatcher(
+                baselineRecords, SimpleImaBaselineTest.getTestImaPolicy(false), baseline);
+
+        ForkJoinPool singleThread = new ForkJoinPool(1);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BatchImaMatchStatus<IMABaselineRecord> parallel =
+                    matcher.batchMatch(measurementRecords, pool);
+            Assert.assertEquals(parallel.getAppraisedMeasurementRecords().size(), recordCount);
+            Assert.assertEquals(parallel, matcher.batchMatch(measurementRecords, singleThread));
+        } finally {
+            singleThread.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that batches matched on a pool are never matched on the common pool, whether they
+     * are matched by the pool's workers or on the calling thread.
+     */
+    @Test
+    public void testBatchMatchNotOnCommonPool() {
+        SimpleImaBaseline baseline = getTestSimpleImaBaseline();
+        Set<ForkJoinPool> pools = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        ImaAcceptablePathAndHashRecordMatcher matcher = new ImaAcceptablePathAndHashRecordMatcher(
+                Collections.emptyList(), SimpleImaBaselineTest.getTestImaPolicy(false),
+                baseline) {
+            @Override
+            public IMAMatchStatus<IMABaselineRecord> contains(final IMAMeasurementRecord record) {
+                ForkJoinPool pool = ForkJoinTask.getPool();
+                if (pool != null) {
+                    pools.add(pool);
+                }
+                return super.contains(record);
+            }
+        };
+        List<IMAMeasurementRecord> measurementRecords = new ArrayList<>();
+        int recordCount = 3 * ImaRecordMatcher.BATCH_PARTITION_SIZE / 2;
+        for (int i = 0; i < recordCount; i++) {
+            measurementRecords.add(new IMAMeasurementRecord("/usr/bin/file" + i, ONES));
+        }
+
+        ForkJoinPool singleThread = new ForkJoinPool(1);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            matcher.batchMatch(measurementRecords, singleThread);
+            matcher.batchMatch(measurementRecords, pool);
+            matcher.batchMatch(measurementRecords.subList(0, 2), pool);
+            Assert.assertFalse(pools.contains(ForkJoinPool.commonPool()));
+        } finally {
+            singleThread.shutdown();
+            pool.shutdown();
+        }
+    }
+
     private static SimpleImaBaseline getTestSimpleImaBaseline() {
         return new SimpleImaBaseline("Test IMA Baseline");
     }
@@ -0,0 +1,272 @@
+package hirs.ima.matching;
+
+import hirs.data.persist.Device;
+import hirs.data.persist.DeviceInfoReport;
+import hirs.data.persist.DeviceGroup;
+import hirs.data.persist.IMADeviceState;
+import hirs.data.persist.IMAMeasurementRecord;
+import hirs.data.persist.IMAReport;
+import hirs.data.persist.IntegrityReport;
+import hirs.data.persist.SimpleImaBaselineTest;
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.TPMReport;
+import hirs.data.persist.baseline.IMABaselineRecord;
+import hirs.data.persist.baseline.SimpleImaBaseline;
+import hirs.data.persist.enums.DigestAlgorithm;
+import hirs.persist.DBDeviceGroupManager;
+import hirs.persist.DBDeviceManager;
+import hirs.persist.DBIMADeviceStateManager;
+import hirs.persist.DBUtility;
+import hirs.persist.IMADeviceStateManager;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.xml.bind.JAXBContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Tests {@link IncrementalImaMatcher} and {@link ImaTemplate}.  The logs and PCR values were
+ * produced outside of the code under test: the legacy IMA log and its PCR 10 value are those of a
+ * report sent by a device, and the ima-ng log holds the first of its measurements as an ima-ng log
+ * would, with template hashes and a PCR value calculated separately from the kernel's template
+ * field layout.
+ */
+public class IncrementalImaMatcherTest extends SpringPersistenceTest {
+    private static final String BOOTCYCLE_ID = "Mon Apr 20 09:32";
+    private static final String NEXT_BOOTCYCLE_ID = "Tue Apr 21 08:15";
+    private static final String LEGACY_REPORT =
+            "/reports/integrity/integrity_report_with_ima_and_tpm_full_t1.xml";
+    private static final String IMA_NG_LOG = "/ima/ima-ng_ascii_runtime_measurements";
+    private static final String IMA_NG_PCR = "6a3022179551ca677999817c6af280f59cb648b6";
+    private static final int IMA_PCR = 10;
+    private static final int LEGACY_LOG_SIZE = 1601;
+    private static final int FIRST_REPORT_SIZE = 600;
+    private static final int IMA_NG_FIELD_COUNT = 5;
+
+    private Device device;
+    private IMADeviceStateManager stateManager;
+    private IncrementalImaMatcher incrementalMatcher;
+    private ImaAcceptableHashRecordMatcher recordMatcher;
+    private List<IMAMeasurementRecord> log;
+    private byte[] logPcr;
+
+    /**
+     * Saves a test device and reads the legacy IMA log and its PCR value, half of which is in the
+     * baseline.
+     *
+     * @throws Exception if the report cannot be read
+     */
+    @BeforeMethod
+    public void setUp() throws Exception {
+        device = new Device("Test Device");
+        device.setDeviceGroup(new DBDeviceGroupManager(sessionFactory)
+                .saveDeviceGroup(new DeviceGroup(DeviceGroup.DEFAULT_GROUP)));
+        device = new DBDeviceManager(sessionFactory).saveDevice(device);
+        stateManager = new DBIMADeviceStateManager(sessionFactory);
+        incrementalMatcher = new IncrementalImaMatcher(stateManager, ImaTemplate.IMA);
+
+        IntegrityReport integrityReport = getIntegrityReport(LEGACY_REPORT);
+        log = new ArrayList<>(integrityReport.extractReport(IMAReport.class).getRecords());
+        Assert.assertEquals(log.size(), LEGACY_LOG_SIZE);
+        logPcr = integrityReport.extractReport(TPMReport.class).getTPMMeasurementRecord(IMA_PCR)
+                .getHash().getDigest();
+        recordMatcher = getRecordMatcher(log);
+    }
+
+    /**
+     * Removes the test device and its state.
+     */
+    @AfterMethod
+    public void tearDown() {
+        DBUtility.removeAllInstances(sessionFactory, IMADeviceState.class);
+        DBUtility.removeAllInstances(sessionFactory, Device.class);
+        DBUtility.removeAllInstances(sessionFactory, DeviceGroup.class);
+    }
+
+    /**
+     * Tests that a delta report only matches the records after the checkpoint, and that the PCR
+     * value extended incrementally equals the one reported by the device.
+     */
+    @Test
+    public void testDeltaReport() {
+        IncrementalImaMatchStatus<IMABaselineRecord> first = incrementalMatcher.match(device,
+                getReport(BOOTCYCLE_ID, 0, FIRST_REPORT_SIZE), recordMatcher, null);
+        Assert.assertEquals(first.getMatchStatus().getAppraisedMeasurementRecords().size(),
+                new HashSet<>(log.subList(0, FIRST_REPORT_SIZE)).size());
+        Assert.assertNull(first.isPcrVerified());
+
+        IncrementalImaMatchStatus<IMABaselineRecord> second = incrementalMatcher.match(device,
+                getReport(BOOTCYCLE_ID, FIRST_REPORT_SIZE, LEGACY_LOG_SIZE), recordMatcher,
+                logPcr);
+        Assert.assertFalse(second.isFullReportRequired());
+        Assert.assertEquals(second.getStartIndex(), FIRST_REPORT_SIZE);
+        Assert.assertEquals(second.getCarriedForwardCount(), 0);
+        Assert.assertEquals(second.getMatchStatus().getAppraisedMeasurementRecords(),
+                new HashSet<>(log.subList(FIRST_REPORT_SIZE, LEGACY_LOG_SIZE)));
+        Assert.assertEquals(second.isPcrVerified(), Boolean.TRUE);
+
+        IMADeviceState state = stateManager.getState(device);
+        Assert.assertEquals(state.getIndex(), LEGACY_LOG_SIZE);
+        Assert.assertEquals(state.getPcrState(), logPcr);
+    }
+
+    /**
+     * Tests that the records of a full report resent within the same boot cycle are carried
+     * forward, and that a report from a new boot cycle is appraised from the start.
+     */
+    @Test
+    public void testFullReportCarriesForward() {
+        incrementalMatcher.match(device, getReport(BOOTCYCLE_ID, 0, FIRST_REPORT_SIZE),
+                recordMatcher, null);
+
+        IncrementalImaMatchStatus<IMABaselineRecord> resent = incrementalMatcher.match(device,
+                getReport(BOOTCYCLE_ID, 0, LEGACY_LOG_SIZE), recordMatcher, logPcr);
+        Assert.assertEquals(resent.getCarriedForwardCount(), FIRST_REPORT_SIZE);
+        Assert.assertEquals(resent.getStartIndex(), FIRST_REPORT_SIZE);
+        Assert.assertEquals(resent.getMatchStatus().getAppraisedMeasurementRecords(),
+                new HashSet<>(log.subList(FIRST_REPORT_SIZE, LEGACY_LOG_SIZE)));
+        Assert.assertEquals(resent.isPcrVerified(), Boolean.TRUE);
+
+        IncrementalImaMatchStatus<IMABaselineRecord> rebooted = incrementalMatcher.match(device,
+                getReport(NEXT_BOOTCYCLE_ID, 0, LEGACY_LOG_SIZE), recordMatcher, logPcr);
+        Assert.assertEquals(rebooted.getCarriedForwardCount(), 0);
+        Assert.assertEquals(rebooted.getMatchStatus().getAppraisedMeasurementRecords(),
+                new HashSet<>(log));
+        Assert.assertEquals(rebooted.isPcrVerified(), Boolean.TRUE);
+        Assert.assertEquals(stateManager.getState(device).getBootcycleId(), NEXT_BOOTCYCLE_ID);
+    }
+
+    /**
+     * Tests that a delta report that skips records requires a full report.
+     */
+    @Test
+    public void testDeltaReportWithGap() {
+        incrementalMatcher.match(device, getReport(BOOTCYCLE_ID, 0, 2), recordMatcher, null);
+
+        IncrementalImaMatchStatus<IMABaselineRecord> status = incrementalMatcher.match(device,
+                getReport(BOOTCYCLE_ID, FIRST_REPORT_SIZE, LEGACY_LOG_SIZE), recordMatcher,
+                null);
+        Assert.assertTrue(status.isFullReportRequired());
+        Assert.assertTrue(status.getMatchStatus().getAllMatches().isEmpty());
+        Assert.assertNull(stateManager.getState(device).getBootcycleId());
+    }
+
+    /**
+     * Tests that a delta report is not matched when the device has no checkpoint.
+     */
+    @Test
+    public void testDeltaReportWithoutCheckpoint() {
+        IncrementalImaMatchStatus<IMABaselineRecord> status = incrementalMatcher.match(device,
+                getReport(BOOTCYCLE_ID, FIRST_REPORT_SIZE, LEGACY_LOG_SIZE), recordMatcher,
+                logPcr);
+        Assert.assertTrue(status.isFullReportRequired());
+        Assert.assertEquals(status.getCarriedForwardCount(), 0);
+        Assert.assertEquals(stateManager.getState(device).getIndex(), 0);
+    }
+
+    /**
+     * Tests that a PCR mismatch resets the checkpoint so the next report is appraised in full.
+     */
+    @Test
+    public void testPcrMismatch() {
+        IncrementalImaMatchStatus<IMABaselineRecord> status = incrementalMatcher.match(device,
+                getReport(BOOTCYCLE_ID, 0, FIRST_REPORT_SIZE), recordMatcher, logPcr);
+        Assert.assertEquals(status.isPcrVerified(), Boolean.FALSE);
+
+        IMADeviceState state = stateManager.getState(device);
+        Assert.assertEquals(state.getIndex(), 0);
+        Assert.assertNull(state.getPcrState());
+    }
+
+    /**
+     * Tests that the template hashes of an ima-ng log are recalculated as they appear in the log,
+     * including its violation, and that the PCR of the log is only verified with the ima-ng
+     * template.
+     *
+     * @throws IOException if the log cannot be read
+     */
+    @Test
+    public void testImaNgLog() throws IOException {
+        List<String> lines;
+        try (InputStream in = getClass().getResourceAsStream(IMA_NG_LOG)) {
+            lines = IOUtils.readLines(in, StandardCharsets.UTF_8);
+        }
+        byte[] violationHash = new byte[DigestAlgorithm.SHA1.getLengthInBytes()];
+        byte[] violationExtension = new byte[violationHash.length];
+        Arrays.fill(violationExtension, (byte) 0xff);
+        int violations = 0;
+        log = new ArrayList<>();
+        for (String line : lines) {
+            String[] fields = line.split(" ", IMA_NG_FIELD_COUNT);
+            Assert.assertEquals(fields[2], ImaTemplate.IMA_NG.getName());
+            IMAMeasurementRecord record = new IMAMeasurementRecord(fields[4],
+                    SimpleImaBaselineTest.getDigest(fields[3].substring("sha1:".length())));
+            byte[] templateHash = ImaTemplate.IMA_NG.getTemplateHash(record);
+            byte[] loggedHash = SimpleImaBaselineTest.getDigest(fields[1]).getDigest();
+            if (Arrays.equals(loggedHash, violationHash)) {
+                violations++;
+                Assert.assertEquals(templateHash, violationExtension);
+            } else {
+                Assert.assertEquals(templateHash, loggedHash, record.getPath());
+            }
+            log.add(record);
+        }
+        Assert.assertEquals(violations, 1);
+
+        IncrementalImaMatcher legacyMatcher = incrementalMatcher;
+        incrementalMatcher = new IncrementalImaMatcher(stateManager, ImaTemplate.IMA_NG);
+        recordMatcher = getRecordMatcher(log);
+        byte[] pcr = SimpleImaBaselineTest.getDigest(IMA_NG_PCR).getDigest();
+        Assert.assertEquals(incrementalMatcher.match(device, getReport(BOOTCYCLE_ID, 0,
+                log.size()), recordMatcher, pcr).isPcrVerified(), Boolean.TRUE);
+        Assert.assertEquals(legacyMatcher.match(device, getReport(NEXT_BOOTCYCLE_ID, 0,
+                log.size()), recordMatcher, pcr).isPcrVerified(), Boolean.FALSE);
+    }
+
+    /**
+     * Tests that templates holding fields that measurement records do not have are rejected.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsupportedTemplate() {
+        ImaTemplate.forName("ima-sig");
+    }
+
+    private IMAReport getReport(final String bootcycleId, final int from, final int to) {
+        IMAReport report = new IMAReport();
+        report.setBootcycleId(bootcycleId);
+        report.setIndex(from);
+        for (IMAMeasurementRecord record : log.subList(from, to)) {
+            report.addRecord(record);
+        }
+        return report;
+    }
+
+    private static ImaAcceptableHashRecordMatcher getRecordMatcher(
+            final List<IMAMeasurementRecord> records) {
+        List<IMABaselineRecord> baselineRecords = new ArrayList<>();
+        for (int i = 0; i < records.size(); i += 2) {
+            baselineRecords.add(new IMABaselineRecord(records.get(i).getPath(),
+                    records.get(i).getHash()));
+        }
+        return new ImaAcceptableHashRecordMatcher(baselineRecords,
+                SimpleImaBaselineTest.getTestImaPolicy(false),
+                new SimpleImaBaseline("Test Baseline"));
+    }
+
+    private IntegrityReport getIntegrityReport(final String path) throws Exception {
+        try (InputStream in = getClass().getResourceAsStream(path)) {
+            JAXBContext context = JAXBContext.newInstance(IntegrityReport.class,
+                    DeviceInfoReport.class, TPMReport.class, IMAReport.class);
+            return (IntegrityReport) context.createUnmarshaller().unmarshal(in);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package hirs.persist;
+
+import hirs.data.persist.Digest;
+import hirs.data.persist.ImaBlacklistRecord;
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.baseline.Baseline;
+import hirs.data.persist.baseline.BroadRepoImaBaseline;
+import hirs.data.persist.baseline.IMABaselineRecord;
+import hirs.data.persist.baseline.ImaAcceptableRecordBaseline;
+import hirs.data.persist.baseline.ImaBlacklistBaseline;
+import hirs.data.persist.baseline.SimpleImaBaseline;
+import hirs.data.persist.enums.DigestAlgorithm;
+import hirs.ima.CSVGenerator;
+import hirs.ima.ImaBlacklistBaselineGenerator;
+import hirs.ima.SimpleImaBaselineGenerator;
+import hirs.repository.RPMRepoPackage;
+import hirs.repository.RepoPackage;
+import hirs.repository.RepoPackageTest;
+import hirs.repository.Repository;
+import hirs.repository.TestRepository;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests {@link BaselineCsvExporter}.
+ */
+public class BaselineCsvExporterTest extends SpringPersistenceTest {
+    private static final String BASELINE_NAME = "Exported Baseline";
+    private static final String HASH = "3d5f3c2f7f3003d2e4baddc46ed4763a4954f648";
+    private static final int RECORD_COUNT = 25;
+
+    /**
+     * Removes the exported baselines and records.
+     */
+    @AfterMethod
+    public void tearDown() {
+        new DBManager<>(Baseline.class, sessionFactory).deleteAll();
+        DBUtility.removeAllInstances(sessionFactory, RepoPackage.class);
+        DBUtility.removeAllInstances(sessionFactory, Repository.class);
+        new DBManager<>(IMABaselineRecord.class, sessionFactory).deleteAll();
+        new DBManager<>(ImaBlacklistRecord.class, sessionFactory).deleteAll();
+    }
+
+    /**
+     * Tests that the records of a simple baseline are exported in order of their paths, in the
+     * format of {@link CSVGenerator#imaRecordsToCsv(ImaAcceptableRecordBaseline)}.
+     *
+     * @throws ImaBaselineImportException if the test records cannot be imported
+     * @throws IOException if the baseline cannot be exported
+     */
+    @Test
+    public void testExportSimpleBaseline() throws ImaBaselineImportException, IOException {
+        SimpleImaBaseline baseline = (SimpleImaBaseline) new DBBaselineManager(sessionFactory)
+                .saveBaseline(new SimpleImaBaseline(BASELINE_NAME));
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            csv.append(String.format("/usr/lib/exported/file%02d,%s%n", i, HASH));
+        }
+        BulkImaBaselineImporter importer = new BulkImaBaselineImporter(sessionFactory);
+        importer.setBatchSize(RECORD_COUNT);
+        importer.importRecords(baseline, SimpleImaBaselineGenerator.newCSVReader(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8))), 0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BaselineCsvExporter(sessionFactory).exportImaRecords(baseline, out);
+        List<String> rows = getRows(out);
+
+        Assert.assertEquals(rows.size(), RECORD_COUNT);
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            Assert.assertEquals(rows.get(i),
+                    String.format("\"/usr/lib/exported/file%02d\",%s", i, HASH));
+        }
+    }
+
+    /**
+     * Tests that the records of a repository baseline are exported once each, even when they
+     * are measured in several of its packages.
+     *
+     * @throws IOException if the baseline cannot be exported
+     * @throws DecoderException if the test digest cannot be decoded
+     */
+    @Test
+    public void testExportRepoBaseline() throws IOException, DecoderException {
+        DBRepositoryManager repoManager = new DBRepositoryManager(sessionFactory);
+        Repository<?> repository = repoManager.saveRepository(new TestRepository("Test Repo", 0));
+        Set<IMABaselineRecord> records = new HashSet<>();
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            records.add(new IMABaselineRecord("/usr/lib/repo/file" + i, getDigest()));
+        }
+        for (String version : Arrays.asList("1.0", "1.1")) {
+            RPMRepoPackage repoPackage = new RPMRepoPackage("test-package", version, "1", "x86",
+                    repository);
+            Set<IMABaselineRecord> packageRecords = new HashSet<>();
+            for (IMABaselineRecord record : records) {
+                packageRecords.add(new IMABaselineRecord(record.getPath(), record.getHash()));
+            }
+            repoPackage.setAllMeasurements(packageRecords, RepoPackageTest.getTestDigest());
+            repoManager.saveRepoPackage(repoPackage);
+        }
+        BroadRepoImaBaseline baseline = new BroadRepoImaBaseline(BASELINE_NAME);
+        baseline.setRepositories(Collections.<Repository<?>>singleton(repository));
+        baseline.update(repoManager);
+        baseline = (BroadRepoImaBaseline) new DBBaselineManager(sessionFactory).save(baseline);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BaselineCsvExporter(sessionFactory).exportImaRecords(baseline, out);
+        List<String> rows = getRows(out);
+
+        Assert.assertEquals(rows.size(), RECORD_COUNT);
+        Set<IMABaselineRecord> exported = new HashSet<>();
+        for (String row : rows) {
+            String[] fields = row.split(",");
+            exported.add(new IMABaselineRecord(fields[0].replace("\"", ""), new Digest(
+                    DigestAlgorithm.SHA1, Hex.decodeHex(fields[1].toCharArray()))));
+        }
+        Assert.assertEquals(exported, records);
+    }
+
+    /**
+     * Tests that a blacklist baseline is exported as {@link CSVGenerator#blacklistToCsv(
+     * ImaBlacklistBaseline)} serializes it, including records without a path or hash.
+     *
+     * @throws ImaBaselineImportException if the test records cannot be imported
+     * @throws IOException if the baseline cannot be exported
+     * @throws DecoderException if the test digest cannot be decoded
+     */
+    @Test
+    public void testExportBlacklist() throws ImaBaselineImportException, IOException,
+            DecoderException {
+        ImaBlacklistBaseline baseline = (ImaBlacklistBaseline) new DBBaselineManager(
+                sessionFactory).saveBaseline(new ImaBlacklistBaseline(BASELINE_NAME));
+        String digest = getDigest().toString();
+        String csv = "/bin/evil,,path only\n," + digest + ",hash only\n/bin/worse," + digest
+                + ",\n";
+        new BulkImaBaselineImporter(sessionFactory).importRecords(baseline,
+                ImaBlacklistBaselineGenerator.newCSVReader(
+                        new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))), 0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BaselineCsvExporter(sessionFactory).exportBlacklist(baseline, out);
+
+        ImaBlacklistBaseline expected = ImaBlacklistBaselineGenerator.generateBaselineFromCSV(
+                BASELINE_NAME, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals(new HashSet<>(getRows(out)),
+                new HashSet<>(Arrays.asList(CSVGenerator.blacklistToCsv(expected)
+                        .split(System.lineSeparator()))));
+    }
+
+    private static List<String> getRows(final ByteArrayOutputStream out)
+            throws UnsupportedEncodingException {
+        return Arrays.asList(out.toString(StandardCharsets.UTF_8.name())
+                .split(System.lineSeparator()));
+    }
+
+    private static Digest getDigest() throws DecoderException {
+        return new Digest(DigestAlgorithm.SHA1, Hex.decodeHex(HASH.toCharArray()));
+    }
+}
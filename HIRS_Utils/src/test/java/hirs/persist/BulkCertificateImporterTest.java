@@ -0,0 +1,194 @@
+package hirs.persist;
+
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.certificate.Certificate;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import hirs.data.persist.certificate.CertificateTest;
+import hirs.data.persist.certificate.PlatformCredential;
+import hirs.data.persist.certificate.PlatformCredentialTest;
+import hirs.persist.BulkCertificateImporter.CertificateFile;
+import hirs.persist.BulkCertificateImporter.ImportJob;
+import hirs.persist.BulkCertificateImporter.ImportResult;
+import hirs.persist.BulkCertificateImporter.ImportStatus;
+import org.hibernate.Session;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Tests {@link BulkCertificateImporter}.
+ */
+public class BulkCertificateImporterTest extends SpringPersistenceTest {
+    private static final String BASE_PLATFORM_CERT =
+            "/validation/platform_credentials/plat_base_cert1.pem";
+    private static final String BASE_PLATFORM_SERIAL = "BQKP99940643";
+    private static final int BATCH_SIZE = 2;
+    private static final long JOB_TIMEOUT_MILLIS = 10000;
+    private static final long JOB_POLL_MILLIS = 50;
+
+    private DBManager<Certificate> certificateManager;
+    private BulkCertificateImporter importer;
+
+    /**
+     * Creates an importer that commits every two certificates.
+     */
+    @BeforeMethod
+    public void setUp() {
+        certificateManager = new DBManager<>(Certificate.class, sessionFactory);
+        importer = new BulkCertificateImporter(sessionFactory);
+        importer.setBatchSize(BATCH_SIZE);
+    }
+
+    /**
+     * Removes the imported certificates.
+     */
+    @AfterMethod
+    public void tearDown() {
+        certificateManager.deleteAll();
+    }
+
+    /**
+     * Tests that the certificates of an import are stored across batches, that a certificate
+     * repeated in a later batch is reported as a duplicate, and that an unparseable file is
+     * reported as invalid.  Each result is given to the listener in the order of the files, and
+     * the stored certificates can be found by searching for the words of their fields.
+     *
+     * @throws URISyntaxException if the test files cannot be found
+     */
+    @Test
+    public void testImport() throws URISyntaxException {
+        List<CertificateFile> files = Arrays.asList(
+                getFile(CertificateTest.FAKE_ROOT_CA_FILE),
+                getFile(CertificateTest.FAKE_INTEL_INT_CA_FILE),
+                CertificateFile.of("garbage.cer", "garbage".getBytes(StandardCharsets.UTF_8)),
+                getFile(CertificateTest.FAKE_ROOT_CA_FILE),
+                getFile(CertificateTest.FAKE_SGI_INT_CA_FILE));
+        List<ImportResult> reported = new ArrayList<>();
+        List<ImportResult> results = importer.importCertificates(
+                CertificateAuthorityCredential.class, files, reported::add);
+
+        Assert.assertEquals(getStatuses(results), Arrays.asList(ImportStatus.STORED,
+                ImportStatus.STORED, ImportStatus.INVALID, ImportStatus.DUPLICATE,
+                ImportStatus.STORED));
+        Assert.assertEquals(reported, results);
+        Assert.assertEquals(results.get(2).getFileName(), "garbage.cer");
+        Assert.assertFalse(results.get(2).isSuccess());
+        Assert.assertEquals(
+                certificateManager.getList(CertificateAuthorityCredential.class).size(), 3);
+        Assert.assertEquals(certificateManager.getOrderedList(
+                CertificateAuthorityCredential.class, Certificate.ID_FIELD, true, 0,
+                Integer.MAX_VALUE, "fake intermediate", Collections.emptyMap()).size(), 2);
+    }
+
+    /**
+     * Tests that a stored certificate is reported as a duplicate and that an archived one is
+     * restored rather than stored again.
+     *
+     * @throws IOException if the test certificates cannot be read
+     * @throws URISyntaxException if the test files cannot be found
+     */
+    @Test
+    public void testImportRestoresArchived() throws IOException, URISyntaxException {
+        certificateManager.save(CertificateTest.getTestCertificate(
+                CertificateTest.FAKE_ROOT_CA_FILE));
+        Certificate archived = certificateManager.save(CertificateTest.getTestCertificate(
+                CertificateTest.FAKE_INTEL_INT_CA_FILE));
+        archived.archive();
+        certificateManager.update(archived);
+
+        List<ImportResult> results = importer.importCertificates(
+                CertificateAuthorityCredential.class,
+                Arrays.asList(getFile(CertificateTest.FAKE_ROOT_CA_FILE),
+                        getFile(CertificateTest.FAKE_INTEL_INT_CA_FILE)), null);
+
+        Assert.assertEquals(getStatuses(results),
+                Arrays.asList(ImportStatus.DUPLICATE, ImportStatus.RESTORED));
+        Assert.assertTrue(results.get(1).isSuccess());
+        List<Certificate> stored = certificateManager.getList(
+                CertificateAuthorityCredential.class);
+        Assert.assertEquals(stored.size(), 2);
+        for (Certificate certificate : stored) {
+            Assert.assertFalse(certificate.isArchived());
+        }
+    }
+
+    /**
+     * Tests that a base platform credential is rejected when its platform already has an
+     * unarchived base platform credential.  The stored base credential is made from a smaller
+     * platform credential, as the base credentials are too large for the test database.
+     *
+     * @throws IOException if the test certificates cannot be read
+     * @throws URISyntaxException if the test files cannot be found
+     */
+    @Test
+    public void testImportRejectsSecondBase() throws IOException, URISyntaxException {
+        Certificate otherBase = certificateManager.save(CertificateTest.getTestCertificate(
+                PlatformCredential.class, PlatformCredentialTest.TEST_PLATFORM_CERT_2));
+        setBasePlatformSerial(otherBase.getId(), BASE_PLATFORM_SERIAL);
+
+        List<ImportResult> results = importer.importCertificates(PlatformCredential.class,
+                Arrays.asList(getFile(BASE_PLATFORM_CERT)), null);
+        Assert.assertEquals(getStatuses(results), Arrays.asList(ImportStatus.REJECTED));
+        Assert.assertEquals(certificateManager.getList(PlatformCredential.class).size(), 1);
+    }
+
+    /**
+     * Tests that a submitted import runs in the background and can be retrieved by its id.
+     *
+     * @throws URISyntaxException if the test files cannot be found
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testSubmit() throws URISyntaxException, InterruptedException {
+        ImportJob job = importer.submit(CertificateAuthorityCredential.class,
+                Arrays.asList(getFile(CertificateTest.FAKE_ROOT_CA_FILE),
+                        getFile(CertificateTest.FAKE_INTEL_INT_CA_FILE),
+                        getFile(CertificateTest.FAKE_SGI_INT_CA_FILE)));
+        Assert.assertSame(importer.getJob(job.getId()), job);
+        Assert.assertNull(importer.getJob(UUID.randomUUID()));
+        Assert.assertEquals(job.getFileCount(), 3);
+
+        long deadline = System.currentTimeMillis() + JOB_TIMEOUT_MILLIS;
+        while (!job.isDone() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(JOB_POLL_MILLIS);
+        }
+        Assert.assertTrue(job.isDone());
+        Assert.assertNull(job.getFailure());
+        Assert.assertEquals(getStatuses(job.getResults()), Arrays.asList(ImportStatus.STORED,
+                ImportStatus.STORED, ImportStatus.STORED));
+    }
+
+    private void setBasePlatformSerial(final UUID id, final String platformSerial) {
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        session.createQuery("update PlatformCredential set "
+                + PlatformCredential.PLATFORM_BASE_FIELD + " = true, "
+                + PlatformCredential.PLATFORM_SERIAL_FIELD + " = :serial where id = :id")
+                .setParameter("serial", platformSerial)
+                .setParameter("id", id)
+                .executeUpdate();
+        session.getTransaction().commit();
+    }
+
+    private static List<ImportStatus> getStatuses(final List<ImportResult> results) {
+        return results.stream().map(ImportResult::getStatus).collect(Collectors.toList());
+    }
+
+    private static CertificateFile getFile(final String resource) throws URISyntaxException {
+        Path path = Paths.get(BulkCertificateImporterTest.class.getResource(resource).toURI());
+        return CertificateFile.of(path);
+    }
+}
@@ -0,0 +1,171 @@
+package hirs.persist;
+
+import hirs.data.persist.Digest;
+import hirs.data.persist.ImaBlacklistRecord;
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.baseline.Baseline;
+import hirs.data.persist.baseline.IMABaselineRecord;
+import hirs.data.persist.baseline.ImaBlacklistBaseline;
+import hirs.data.persist.baseline.SimpleImaBaseline;
+import hirs.data.persist.enums.DigestAlgorithm;
+import hirs.ima.ImaBlacklistBaselineGenerator;
+import hirs.ima.SimpleImaBaselineGenerator;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Tests {@link BulkImaBaselineImporter}.
+ */
+public class BulkImaBaselineImporterTest extends SpringPersistenceTest {
+    private static final String BASELINE_NAME = "Imported Baseline";
+    private static final String HASH = "3d5f3c2f7f3003d2e4baddc46ed4763a4954f648";
+    private static final int ROW_COUNT = 25;
+    private static final int BATCH_SIZE = 10;
+
+    private BaselineManager baselineManager;
+    private BulkImaBaselineImporter importer;
+    private List<BulkImaBaselineImporter.ImportProgress> progress;
+
+    /**
+     * Creates an importer that reports its progress to a list.
+     */
+    @BeforeMethod
+    public void setUp() {
+        baselineManager = new DBBaselineManager(sessionFactory);
+        importer = new BulkImaBaselineImporter(sessionFactory);
+        importer.setBatchSize(BATCH_SIZE);
+        progress = new ArrayList<>();
+        importer.setProgressListener(progress::add);
+    }
+
+    /**
+     * Removes the imported baselines and records.
+     */
+    @AfterMethod
+    public void tearDown() {
+        new DBManager<>(Baseline.class, sessionFactory).deleteAll();
+        new DBManager<>(IMABaselineRecord.class, sessionFactory).deleteAll();
+        new DBManager<>(ImaBlacklistRecord.class, sessionFactory).deleteAll();
+    }
+
+    /**
+     * Tests that every record of a CSV file is imported in batches, with the progress reported
+     * after each batch.
+     *
+     * @throws ImaBaselineImportException if the import fails
+     */
+    @Test
+    public void testImport() throws ImaBaselineImportException {
+        SimpleImaBaseline baseline = (SimpleImaBaseline) baselineManager.saveBaseline(
+                new SimpleImaBaseline(BASELINE_NAME));
+        BulkImaBaselineImporter.ImportProgress result = importer.importRecords(baseline,
+                SimpleImaBaselineGenerator.newCSVReader(getCsv(ROW_COUNT, -1)), 0);
+
+        Assert.assertEquals(result.getImportedRecordCount(), ROW_COUNT);
+        Assert.assertEquals(result.getLastCommittedRow(), ROW_COUNT);
+        Assert.assertEquals(progress.size(), 3);
+        Assert.assertEquals(progress.get(0).getLastCommittedRow(), BATCH_SIZE);
+        Assert.assertEquals(getImportedPaths(), getPaths(ROW_COUNT));
+    }
+
+    /**
+     * Tests that an import that fails on a malformed row keeps the batches committed before it,
+     * and that the import can be resumed after the last committed row.
+     *
+     * @throws ImaBaselineImportException if the resumed import fails
+     */
+    @Test
+    public void testResume() throws ImaBaselineImportException {
+        final int malformedRow = 15;
+        try {
+            ImportBaselineCSV.importBaseline(BASELINE_NAME, getCsv(ROW_COUNT, malformedRow),
+                    "IMA", baselineManager, importer, 0);
+            Assert.fail("import of a malformed row succeeded");
+        } catch (ImaBaselineImportException e) {
+            Assert.assertEquals(e.getLastCommittedRow(), BATCH_SIZE);
+        }
+        Assert.assertEquals(getImportedPaths(), getPaths(BATCH_SIZE));
+
+        Baseline baseline = ImportBaselineCSV.importBaseline(BASELINE_NAME,
+                getCsv(ROW_COUNT, -1), "IMA", baselineManager, importer, BATCH_SIZE);
+        Assert.assertEquals(baseline.getName(), BASELINE_NAME);
+        Assert.assertEquals(new DBManager<>(IMABaselineRecord.class, sessionFactory)
+                .getList(IMABaselineRecord.class).size(), ROW_COUNT);
+        Assert.assertEquals(getImportedPaths(), getPaths(ROW_COUNT));
+    }
+
+    /**
+     * Tests that blacklist records are imported into a blacklist baseline.
+     *
+     * @throws ImaBaselineImportException if the import fails
+     * @throws IOException if the reader cannot be created
+     * @throws DecoderException if the test digest cannot be decoded
+     */
+    @Test
+    public void testImportBlacklist() throws ImaBaselineImportException, IOException,
+            DecoderException {
+        ImaBlacklistBaseline baseline = (ImaBlacklistBaseline) baselineManager.saveBaseline(
+                new ImaBlacklistBaseline(BASELINE_NAME));
+        String digest = new Digest(DigestAlgorithm.SHA1, Hex.decodeHex(HASH.toCharArray()))
+                .toString();
+        String csv = "/bin/evil,,path only\n," + digest + ",hash only\n/bin/worse," + digest
+                + ",\n";
+        BulkImaBaselineImporter.ImportProgress result = importer.importRecords(baseline,
+                ImaBlacklistBaselineGenerator.newCSVReader(toStream(csv)), 0);
+
+        Assert.assertEquals(result.getImportedRecordCount(), 3);
+        List<ImaBlacklistRecord> records = new DBManager<>(ImaBlacklistRecord.class,
+                sessionFactory).getList(ImaBlacklistRecord.class);
+        Assert.assertEquals(records.size(), 3);
+        for (ImaBlacklistRecord record : records) {
+            Assert.assertEquals(record.getBaseline().getId(), baseline.getId());
+        }
+    }
+
+    private HashSet<String> getImportedPaths() {
+        HashSet<String> paths = new HashSet<>();
+        for (IMABaselineRecord record : new DBManager<>(IMABaselineRecord.class, sessionFactory)
+                .getList(IMABaselineRecord.class)) {
+            Assert.assertEquals(record.getBaseline().getName(), BASELINE_NAME);
+            paths.add(record.getPath());
+        }
+        return paths;
+    }
+
+    private static HashSet<String> getPaths(final int count) {
+        HashSet<String> paths = new HashSet<>();
+        for (int i = 1; i <= count; i++) {
+            paths.add("/usr/lib/imported/file" + i);
+        }
+        return paths;
+    }
+
+    private static InputStream getCsv(final int rows, final int malformedRow) {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= rows; i++) {
+            if (i == malformedRow) {
+                csv.append("not a record\n");
+            } else {
+                csv.append("/usr/lib/imported/file").append(i).append(',').append(HASH)
+                        .append('\n');
+            }
+        }
+        return toStream(csv.toString());
+    }
+
+    private static InputStream toStream(final String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,5 +1,6 @@
 package hirs.persist;
 
+import hirs.FilteredRecordsList;
 import hirs.data.persist.Device;
 import hirs.data.persist.DeviceGroup;
 import hirs.data.persist.SpringPersistenceTest;
@@ -27,6 +28,7 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.security.KeyStoreException;
 import java.security.cert.CertificateException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -880,4 +882,133 @@ public class DBCertificateManagerTest extends SpringPersistenceTest {
                 .getCertificate();
         Assert.assertEquals(retrievedSGICert, sgiIntermediateCert);
     }
+
+    /**
+     * Tests that the version of a certificate type changes when a certificate of that type is
+     * saved, archived or deleted, and not when a certificate of another type is saved.
+     *
+     * @throws IOException if there is a problem creating the certificate
+     */
+    @Test
+    public void testGetVersion() throws IOException {
+        CertificateManager certMan = new DBCertificateManager(sessionFactory);
+        String emptyVersion = certMan.getVersion(CertificateAuthorityCredential.class);
+
+        Certificate savedRootCert = certMan.save(rootCert);
+        String savedVersion = certMan.getVersion(CertificateAuthorityCredential.class);
+        Assert.assertNotEquals(savedVersion, emptyVersion);
+
+        certMan.save(intelPlatformCert);
+        Assert.assertEquals(certMan.getVersion(CertificateAuthorityCredential.class),
+                savedVersion);
+
+        savedRootCert.archive();
+        certMan.update(savedRootCert);
+        String archivedVersion = certMan.getVersion(CertificateAuthorityCredential.class);
+        Assert.assertNotEquals(archivedVersion, savedVersion);
+
+        certMan.delete(savedRootCert);
+        Assert.assertEquals(certMan.getVersion(CertificateAuthorityCredential.class),
+                emptyVersion);
+    }
+
+    /**
+     * Tests that certificates are searched by the words of their searchable fields, that a
+     * search word matches the start of a word, and that every search word must match.  The
+     * validity dates are not searchable.
+     */
+    @Test
+    public void testSearchOrderedList() {
+        CertificateManager certMan = new DBCertificateManager(sessionFactory);
+        Certificate savedRootCert = certMan.save(rootCert);
+        Certificate savedIntelCert = certMan.save(intelIntermediateCert);
+        Certificate savedSgiCert = certMan.save(sgiIntermediateCert);
+
+        Assert.assertEquals(searchCertificates(CertificateAuthorityCredential.class, ""),
+                getIds(savedRootCert, savedIntelCert, savedSgiCert));
+        Assert.assertEquals(searchCertificates(CertificateAuthorityCredential.class, "FAKE ROOT"),
+                getIds(savedRootCert, savedIntelCert, savedSgiCert));
+        Assert.assertEquals(searchCertificates(CertificateAuthorityCredential.class, "intel"),
+                getIds(savedIntelCert));
+        Assert.assertEquals(
+                searchCertificates(CertificateAuthorityCredential.class, "intermediate, sgi"),
+                getIds(savedSgiCert));
+        Assert.assertEquals(searchCertificates(CertificateAuthorityCredential.class, "oot"),
+                getIds());
+        Assert.assertEquals(searchCertificates(CertificateAuthorityCredential.class, "root acme"),
+                getIds());
+        Assert.assertEquals(searchCertificates(CertificateAuthorityCredential.class,
+                new SimpleDateFormat("yyyy").format(savedRootCert.getBeginValidity())),
+                getIds());
+    }
+
+    /**
+     * Tests that a certificate's search tokens are updated with the certificate, so that it can
+     * be found by the name of the device it is associated with after it was stored.
+     */
+    @Test
+    public void testSearchOrderedListByDeviceName() {
+        CertificateManager certMan = new DBCertificateManager(sessionFactory);
+        DeviceManager deviceManager = new DBDeviceManager(sessionFactory);
+        DeviceGroupManager deviceGroupManager = new DBDeviceGroupManager(sessionFactory);
+
+        Device device = new Device("test_device");
+        device.setDeviceGroup(deviceGroupManager.saveDeviceGroup(new DeviceGroup("Default")));
+        Device savedDevice = deviceManager.saveDevice(device);
+        Certificate savedCert = certMan.save(hirsClientCert);
+        Assert.assertEquals(searchCertificates(IssuedAttestationCertificate.class, "test"),
+                getIds());
+
+        ((DeviceAssociatedCertificate) savedCert).setDevice(savedDevice);
+        certMan.update(savedCert);
+        Assert.assertEquals(searchCertificates(IssuedAttestationCertificate.class, "test"),
+                getIds(savedCert));
+    }
+
+    /**
+     * Tests that the search tokens of certificates stored without them are stored, so that the
+     * certificates can be found.
+     */
+    @Test
+    public void testUpdateSearchTokens() {
+        CertificateManager certMan = new DBCertificateManager(sessionFactory);
+        Certificate savedRootCert = certMan.save(rootCert);
+        Certificate savedIntelCert = certMan.save(intelIntermediateCert);
+
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        session.createSQLQuery("delete from " + Certificate.SEARCH_TOKEN_TABLE).executeUpdate();
+        session.getTransaction().commit();
+        Assert.assertEquals(searchCertificates(CertificateAuthorityCredential.class, "fake"),
+                getIds());
+
+        Assert.assertEquals(certMan.updateSearchTokens(), 2);
+        Assert.assertEquals(searchCertificates(CertificateAuthorityCredential.class, "fake"),
+                getIds(savedRootCert, savedIntelCert));
+        Assert.assertEquals(certMan.updateSearchTokens(), 0);
+    }
+
+    private Set<UUID> searchCertificates(final Class<? extends Certificate> certificateClass,
+                                         final String search) {
+        Map<String, Boolean> searchableColumns = new HashMap<>();
+        searchableColumns.put("issuer", true);
+        searchableColumns.put("subject", true);
+        FilteredRecordsList<Certificate> records =
+                new DBCertificateManager(sessionFactory).getOrderedList(certificateClass,
+                        Certificate.ID_FIELD, true, 0, Integer.MAX_VALUE, search,
+                        searchableColumns, criteria -> { });
+        Set<UUID> ids = new HashSet<>();
+        for (Certificate certificate : records) {
+            ids.add(certificate.getId());
+        }
+        return ids;
+    }
+
+    private static Set<UUID> getIds(final Certificate... certificates) {
+        Set<UUID> ids = new HashSet<>();
+        for (Certificate certificate : certificates) {
+            ids.add(certificate.getId());
+        }
+        return ids;
+    }
 }
@@ -0,0 +1,74 @@
+package hirs.persist;
+
+import hirs.data.persist.ReferenceDigestValue;
+import hirs.data.persist.SpringPersistenceTest;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * Tests for the {@link DBReferenceEventManager}.
+ */
+public class DBReferenceEventManagerTest extends SpringPersistenceTest {
+
+    private static final String MANUFACTURER = "Intel";
+    private static final String OTHER_MANUFACTURER = "Dell";
+    private static final String MODEL = "S2600KP";
+    private static final String OTHER_MODEL = "R720";
+    private static final String EVENT_TYPE = "EV_POST_CODE";
+    private static final String OTHER_EVENT_TYPE = "EV_SEPARATOR";
+
+    /**
+     * Cleans up the DB after each test.
+     */
+    @AfterMethod
+    public final void afterMethod() {
+        DBUtility.removeAllInstances(sessionFactory, ReferenceDigestValue.class);
+    }
+
+    /**
+     * Tests that values are filtered by manufacturer, model and the combination of both.
+     */
+    @Test
+    public final void testGetValueByManufacturerModel() {
+        ReferenceEventManager manager = new DBReferenceEventManager(sessionFactory);
+        manager.saveValue(createValue(MANUFACTURER, MODEL, "aa", EVENT_TYPE));
+        manager.saveValue(createValue(MANUFACTURER, OTHER_MODEL, "bb", EVENT_TYPE));
+        manager.saveValue(createValue(OTHER_MANUFACTURER, MODEL, "cc", EVENT_TYPE));
+
+        Assert.assertEquals(manager.getValueByManufacturer(MANUFACTURER).size(), 2);
+        Assert.assertEquals(manager.getValueByModel(MODEL).size(), 2);
+
+        List<ReferenceDigestValue> values
+                = manager.getValueByManufacturerModel(MANUFACTURER, MODEL);
+        Assert.assertEquals(values.size(), 1);
+        Assert.assertEquals(values.get(0).getDigestValue(), "aa");
+
+        Assert.assertTrue(manager.getValueByManufacturerModel(
+                OTHER_MANUFACTURER, OTHER_MODEL).isEmpty());
+    }
+
+    /**
+     * Tests that values are filtered by event type.
+     */
+    @Test
+    public final void testGetValueByEventType() {
+        ReferenceEventManager manager = new DBReferenceEventManager(sessionFactory);
+        manager.saveValue(createValue(MANUFACTURER, MODEL, "aa", EVENT_TYPE));
+        manager.saveValue(createValue(MANUFACTURER, MODEL, "bb", OTHER_EVENT_TYPE));
+
+        List<ReferenceDigestValue> values = manager.getValueByEventType(OTHER_EVENT_TYPE);
+        Assert.assertEquals(values.size(), 1);
+        Assert.assertEquals(values.get(0).getDigestValue(), "bb");
+    }
+
+    private static ReferenceDigestValue createValue(final String manufacturer,
+                                                    final String model,
+                                                    final String digest,
+                                                    final String eventType) {
+        return new ReferenceDigestValue(null, null, manufacturer, model,
+                0, digest, eventType, false, false, false, new byte[0]);
+    }
+}
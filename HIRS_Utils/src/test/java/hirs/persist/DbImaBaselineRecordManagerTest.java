@@ -1,21 +1,47 @@
 package hirs.persist;
 
 import hirs.data.persist.baseline.Baseline;
+import hirs.data.persist.baseline.BroadRepoImaBaseline;
 import hirs.data.persist.Digest;
+import hirs.data.persist.IMAMeasurementRecord;
+import hirs.data.persist.IMAPolicy;
+import hirs.data.persist.SimpleImaBaselineTest;
 import hirs.data.persist.enums.DigestAlgorithm;
 import hirs.data.persist.baseline.IMABaselineRecord;
 import hirs.data.persist.baseline.SimpleImaBaseline;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import hirs.data.persist.SpringPersistenceTest;
+import hirs.ima.matching.CompiledImaBaseline;
+import hirs.ima.matching.CompiledImaBaselineStore;
+import hirs.repository.RPMRepoPackage;
+import hirs.repository.RepoPackage;
+import hirs.repository.RepoPackageTest;
+import hirs.repository.Repository;
+import hirs.repository.TestRepository;
+import hirs.utils.Callback;
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
@@ -34,6 +60,7 @@ public class DbImaBaselineRecordManagerTest extends SpringPersistenceTest {
     private static final String BASELINE_NAME2 = "Test Baseline2";
     private static final String PATH = "/this/is/a/file";
     private static final String HASH = "41746eadf23c3bff9c16581c17a12da2ddd87e9b";
+    private static final String REPO_NAME = "Test Repository";
     private static final String HASH_TWO = "55d55d925115d3193e45320bea0b6ef5b2afc99a";
 
     private SimpleImaBaseline baseline;
@@ -74,6 +101,8 @@ public class DbImaBaselineRecordManagerTest extends SpringPersistenceTest {
         LOGGER.debug("deleting all baselines");
         DBManager dbManager = new DBManager<>(Baseline.class, sessionFactory);
         dbManager.deleteAll();
+        DBUtility.removeAllInstances(sessionFactory, RepoPackage.class);
+        DBUtility.removeAllInstances(sessionFactory, Repository.class);
         dbManager = new DBManager<>(IMABaselineRecord.class, sessionFactory);
         dbManager.deleteAll();
         LOGGER.debug("all baselines removed");
@@ -391,6 +420,274 @@ public class DbImaBaselineRecordManagerTest extends SpringPersistenceTest {
         Assert.assertFalse(deleted);
     }
 
+    /**
+     * Tests that iterating over a baseline's records returns every record however many
+     * partitions the iteration is split into, and that the throughput of each range of buckets
+     * is recorded.
+     *
+     * @throws UnsupportedEncodingException if the test package digest cannot be created
+     */
+    @Test
+    public void testIterateOverBaselineRecordsInPartitions() throws UnsupportedEncodingException {
+        final int recordCount = 100;
+        final int partitionCount = 7;
+        DBRepositoryManager repoManager = new DBRepositoryManager(sessionFactory);
+        Repository<?> repository = repoManager.saveRepository(new TestRepository(REPO_NAME, 0));
+        RPMRepoPackage repoPackage = new RPMRepoPackage("test-package", "1.0", "1", "x86",
+                repository);
+        Set<IMABaselineRecord> records = new HashSet<>();
+        for (int i = 0; i < recordCount; i++) {
+            records.add(new IMABaselineRecord("/usr/lib/test/file" + i, createDigest(HASH)));
+        }
+        repoPackage.setAllMeasurements(records, RepoPackageTest.getTestDigest());
+        repoManager.saveRepoPackage(repoPackage);
+        BroadRepoImaBaseline repoBaseline = new BroadRepoImaBaseline(BASELINE_NAME2);
+        repoBaseline.setRepositories(Collections.<Repository<?>>singleton(repository));
+        repoBaseline.update(repoManager);
+        repoBaseline = (BroadRepoImaBaseline) new DBBaselineManager(sessionFactory)
+                .save(repoBaseline);
+
+        ExecutorService executor = DbImaBaselineRecordManager.newIterationExecutor(3);
+        try {
+            DbImaBaselineRecordManager mgr = new DbImaBaselineRecordManager(sessionFactory);
+            mgr.setIterationExecutor(executor);
+            mgr.setMinRecordsPerPartition(1);
+            for (int partitions : new int[] {1, partitionCount}) {
+                mgr.setIterationPartitions(partitions);
+                Collection<IMABaselineRecord> iterated = mgr.iterateOverBaselineRecords(
+                        repoBaseline, new Callback<IMABaselineRecord, IMABaselineRecord>() {
+                            @Override
+                            public IMABaselineRecord call(final IMABaselineRecord record) {
+                                return record;
+                            }
+                        });
+                Assert.assertEquals(iterated.size(), recordCount);
+                Assert.assertEquals(new HashSet<>(iterated), records);
+            }
+
+            List<DbImaBaselineRecordManager.IterationMetrics> metrics =
+                    mgr.getIterationMetrics();
+            Assert.assertEquals(metrics.size(), 1 + partitionCount);
+            long examined = 0;
+            for (DbImaBaselineRecordManager.IterationMetrics rangeMetrics : metrics) {
+                Assert.assertEquals(rangeMetrics.getIterationCount(), 1);
+                examined += rangeMetrics.getRecordCount();
+            }
+            Assert.assertEquals(examined, 2 * recordCount);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that records stored before path digests were, in a bucket other than the one of
+     * their path, are moved into it, and that migrated records are not migrated again.
+     *
+     * @throws ImaBaselineRecordManagerException
+     *          if any unexpected errors occur
+     */
+    @Test
+    public void testRebucketBaselineRecords() throws ImaBaselineRecordManagerException {
+        final int recordCount = 20;
+        final DbImaBaselineRecordManager mgr = new DbImaBaselineRecordManager(sessionFactory);
+        List<IMABaselineRecord> records = new ArrayList<>();
+        for (int i = 0; i < recordCount; i++) {
+            records.add(mgr.saveRecord(
+                    new IMABaselineRecord(PATH + i, createDigest(HASH), baseline)));
+        }
+
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            Transaction tx = session.beginTransaction();
+            session.createQuery("update IMABaselineRecord set bucket = 0, pathDigest = null")
+                    .executeUpdate();
+            tx.commit();
+        } finally {
+            session.close();
+        }
+
+        long misplaced = 0;
+        for (IMABaselineRecord record : records) {
+            if (IMABaselineRecord.getBucket(record.getPath()) != 0) {
+                misplaced++;
+            }
+        }
+        Assert.assertTrue(misplaced > 0);
+        Assert.assertEquals(mgr.rebucketBaselineRecords(), recordCount);
+        for (IMABaselineRecord record : records) {
+            Assert.assertEquals(mgr.getRecord(record.getId()).getStoredBucket(),
+                    IMABaselineRecord.getBucket(record.getPath()));
+        }
+        Assert.assertEquals(mgr.rebucketBaselineRecords(), 0);
+    }
+
+    /**
+     * Tests that the partial paths of records are stored with them, and that the partial paths of
+     * records stored without them are stored.
+     *
+     * @throws ImaBaselineRecordManagerException
+     *          if any unexpected errors occur
+     */
+    @Test
+    public void testRebucketStoresPartialPaths() throws ImaBaselineRecordManagerException {
+        final int recordCount = 5;
+        final DbImaBaselineRecordManager mgr = new DbImaBaselineRecordManager(sessionFactory);
+        for (int i = 0; i < recordCount; i++) {
+            mgr.saveRecord(new IMABaselineRecord(PATH + i, createDigest(HASH), baseline));
+        }
+        Assert.assertEquals(getStoredPartialPaths(),
+                Arrays.asList("file0", "file1", "file2", "file3", "file4"));
+
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            Transaction tx = session.beginTransaction();
+            session.createQuery(
+                    "update IMABaselineRecord set partialPath = null, pathDigest = null")
+                    .executeUpdate();
+            tx.commit();
+        } finally {
+            session.close();
+        }
+
+        Assert.assertEquals(mgr.rebucketBaselineRecords(), recordCount);
+        Assert.assertEquals(getStoredPartialPaths(),
+                Arrays.asList("file0", "file1", "file2", "file3", "file4"));
+        Assert.assertEquals(mgr.rebucketBaselineRecords(), 0);
+    }
+
+    /**
+     * Tests that a record whose partial path is too long to store is saved without it, and is
+     * not updated by the migration of records stored without partial paths.
+     *
+     * @throws ImaBaselineRecordManagerException
+     *          if any unexpected errors occur
+     */
+    @Test
+    public void testLongPartialPathNotStored() throws ImaBaselineRecordManagerException {
+        final DbImaBaselineRecordManager mgr = new DbImaBaselineRecordManager(sessionFactory);
+        String filename = StringUtils.repeat('f', IMABaselineRecord.MAX_PARTIAL_PATH_LENGTH + 1);
+        IMABaselineRecord record = mgr.saveRecord(
+                new IMABaselineRecord("/usr/bin/" + filename, createDigest(HASH), baseline));
+
+        Assert.assertEquals(getStoredPartialPaths(), Collections.singletonList(null));
+        Assert.assertEquals(mgr.getRecord(record.getId()).getPartialPath(), filename);
+        Assert.assertEquals(mgr.rebucketBaselineRecords(), 0);
+    }
+
+    /**
+     * Tests that records are looked up by path by iterating over the baseline while some records
+     * have no path digest, and through the index on the path digest once every record has one.
+     *
+     * @throws UnsupportedEncodingException if the test package digest cannot be created
+     */
+    @Test
+    public void testGetBaselineRecordsByPathWithoutPathDigests()
+            throws UnsupportedEncodingException {
+        final int recordCount = 3;
+        Set<IMABaselineRecord> records = new HashSet<>();
+        for (int i = 0; i < recordCount; i++) {
+            records.add(new IMABaselineRecord("/usr/lib/test/file" + i, createDigest(HASH)));
+        }
+        BroadRepoImaBaseline repoBaseline = saveRepoBaseline(records);
+        executeUpdate("update IMABaselineRecord set pathDigest = null");
+
+        List<String> paths = Arrays.asList("/usr/lib/test/file0", "/usr/lib/test/missing");
+        Set<IMABaselineRecord> expected = Collections.singleton(
+                new IMABaselineRecord("/usr/lib/test/file0", createDigest(HASH)));
+        DbImaBaselineRecordManager iteratingManager =
+                new DbImaBaselineRecordManager(sessionFactory);
+        iteratingManager.setIndexedLookupMaxFraction(1);
+        Assert.assertEquals(
+                new HashSet<>(iteratingManager.getBaselineRecordsByPath(repoBaseline, paths)),
+                expected);
+        Assert.assertFalse(iteratingManager.getIterationMetrics().isEmpty());
+
+        iteratingManager.rebucketBaselineRecords();
+        DbImaBaselineRecordManager indexedManager = new DbImaBaselineRecordManager(sessionFactory);
+        indexedManager.setIndexedLookupMaxFraction(1);
+        Assert.assertEquals(
+                new HashSet<>(indexedManager.getBaselineRecordsByPath(repoBaseline, paths)),
+                expected);
+        Assert.assertTrue(indexedManager.getIterationMetrics().isEmpty());
+    }
+
+    /**
+     * Tests that a simple baseline is matched against its compiled copy, and that it is compiled
+     * again once its stored records change.
+     *
+     * @throws ImaBaselineRecordManagerException
+     *          if any unexpected errors occur
+     * @throws IOException if the compiled baselines cannot be listed or deleted
+     */
+    @Test
+    public void testContainsUsesCompiledBaseline()
+            throws ImaBaselineRecordManagerException, IOException {
+        Path directory = Files.createTempDirectory("compiled-ima-baselines");
+        try {
+            final DbImaBaselineRecordManager mgr = new DbImaBaselineRecordManager(sessionFactory);
+            mgr.setCompiledBaselineStore(new CompiledImaBaselineStore(directory));
+            final BaselineManager baselineMgr = new DBBaselineManager(sessionFactory);
+            final IMAPolicy policy = SimpleImaBaselineTest.getTestImaPolicy(false);
+            final IMAMeasurementRecord measurement =
+                    new IMAMeasurementRecord(PATH, createDigest(HASH));
+            IMABaselineRecord record =
+                    mgr.saveRecord(new IMABaselineRecord(PATH, createDigest(HASH), baseline));
+
+            SimpleImaBaseline imaBaseline =
+                    (SimpleImaBaseline) baselineMgr.getCompleteBaseline(BASELINE_NAME);
+            CompiledImaBaseline compiled = mgr.getCompiledBaseline(baseline.getId());
+            Assert.assertEquals(compiled.getRecordCount(), 1);
+            Assert.assertTrue(imaBaseline.contains(
+                    Collections.singleton(measurement), mgr, policy).foundMatch(measurement));
+            Assert.assertSame(mgr.getCompiledBaseline(baseline.getId()), compiled);
+
+            mgr.deleteRecord(record);
+            mgr.saveRecord(new IMABaselineRecord(PATH, createDigest(HASH_TWO), baseline));
+            imaBaseline = (SimpleImaBaseline) baselineMgr.getCompleteBaseline(BASELINE_NAME);
+            Assert.assertTrue(imaBaseline.contains(
+                    Collections.singleton(measurement), mgr, policy).foundMismatch(measurement));
+            Assert.assertNotSame(mgr.getCompiledBaseline(baseline.getId()), compiled);
+            Assert.assertEquals(directory.toFile().list().length, 1);
+        } finally {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    private BroadRepoImaBaseline saveRepoBaseline(final Set<IMABaselineRecord> records)
+            throws UnsupportedEncodingException {
+        DBRepositoryManager repoManager = new DBRepositoryManager(sessionFactory);
+        Repository<?> repository = repoManager.saveRepository(new TestRepository(REPO_NAME, 0));
+        RPMRepoPackage repoPackage = new RPMRepoPackage("test-package", "1.0", "1", "x86",
+                repository);
+        repoPackage.setAllMeasurements(records, RepoPackageTest.getTestDigest());
+        repoManager.saveRepoPackage(repoPackage);
+        BroadRepoImaBaseline repoBaseline = new BroadRepoImaBaseline(BASELINE_NAME2);
+        repoBaseline.setRepositories(Collections.<Repository<?>>singleton(repository));
+        repoBaseline.update(repoManager);
+        return (BroadRepoImaBaseline) new DBBaselineManager(sessionFactory).save(repoBaseline);
+    }
+
+    private void executeUpdate(final String hql) {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            Transaction tx = session.beginTransaction();
+            session.createQuery(hql).executeUpdate();
+            tx.commit();
+        } finally {
+            session.close();
+        }
+    }
+
+    private List<?> getStoredPartialPaths() {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            return session.createQuery(
+                    "select partialPath from IMABaselineRecord order by partialPath").list();
+        } finally {
+            session.close();
+        }
+    }
+
     private Digest createDigest(final String hash) {
         try {
             final byte[] digestBytes = Hex.decodeHex(hash.toCharArray());
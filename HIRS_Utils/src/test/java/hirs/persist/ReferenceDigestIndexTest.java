@@ -0,0 +1,99 @@
+package hirs.persist;
+
+import hirs.data.persist.DigestSet;
+import hirs.data.persist.ReferenceDigestValue;
+import hirs.data.persist.enums.DigestAlgorithm;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the {@link ReferenceDigestIndex}.
+ */
+public class ReferenceDigestIndexTest {
+
+    private static final UUID BASE_RIM_ID = UUID.randomUUID();
+
+    private ReferenceEventManager referenceEventManager;
+    private ReferenceDigestIndex index;
+
+    /**
+     * Sets up a mocked event manager that returns two digests for the base RIM.
+     */
+    @BeforeMethod
+    public void setUp() {
+        referenceEventManager = mock(ReferenceEventManager.class);
+        when(referenceEventManager.getValuesByBaseRimId(BASE_RIM_ID)).thenReturn(Arrays.asList(
+                createValue("aa"), createValue("bb")));
+        index = new ReferenceDigestIndex(referenceEventManager);
+    }
+
+    /**
+     * Tests that digest values are keyed by digest and loaded only once.
+     */
+    @Test
+    public void testGetDigestValuesLoadsOnce() {
+        Map<String, ReferenceDigestValue> digests = index.getDigestValues(BASE_RIM_ID);
+        Assert.assertEquals(digests.size(), 2);
+        Assert.assertTrue(digests.containsKey("aa"));
+        Assert.assertTrue(digests.containsKey("bb"));
+
+        Assert.assertSame(index.getDigestValues(BASE_RIM_ID), digests);
+        verify(referenceEventManager, times(1)).getValuesByBaseRimId(BASE_RIM_ID);
+    }
+
+    /**
+     * Tests that the digests of the digest values are held in a set loaded with the map.
+     */
+    @Test
+    public void testGetDigestSet() {
+        DigestSet digests = index.getDigestSet(BASE_RIM_ID);
+        Assert.assertEquals(digests.size(), 2);
+        Assert.assertTrue(digests.contains(DigestAlgorithm.UNSPECIFIED, new byte[] {(byte) 0xaa}));
+        Assert.assertFalse(digests.contains(DigestAlgorithm.UNSPECIFIED, new byte[] {0x0c}));
+
+        Assert.assertSame(index.getDigestSet(BASE_RIM_ID), digests);
+        index.getDigestValues(BASE_RIM_ID);
+        verify(referenceEventManager, times(1)).getValuesByBaseRimId(BASE_RIM_ID);
+    }
+
+    /**
+     * Tests that invalidating a base RIM causes its digest values to be reloaded.
+     */
+    @Test
+    public void testInvalidate() {
+        Assert.assertEquals(index.getDigestValues(BASE_RIM_ID).size(), 2);
+
+        when(referenceEventManager.getValuesByBaseRimId(BASE_RIM_ID))
+                .thenReturn(Collections.singletonList(createValue("cc")));
+        index.invalidate(BASE_RIM_ID);
+
+        Map<String, ReferenceDigestValue> digests = index.getDigestValues(BASE_RIM_ID);
+        Assert.assertEquals(digests.size(), 1);
+        Assert.assertTrue(digests.containsKey("cc"));
+        verify(referenceEventManager, times(2)).getValuesByBaseRimId(BASE_RIM_ID);
+    }
+
+    /**
+     * Tests that the returned maps cannot be modified by callers.
+     */
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testDigestValuesAreImmutable() {
+        index.getDigestValues(BASE_RIM_ID).clear();
+    }
+
+    private static ReferenceDigestValue createValue(final String digest) {
+        return new ReferenceDigestValue(BASE_RIM_ID, UUID.randomUUID(), "Intel", "S2600KP",
+                0, digest, "EV_POST_CODE", false, false, false, new byte[0]);
+    }
+}
@@ -0,0 +1,117 @@
+package hirs.persist;
+
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.certificate.Certificate;
+import hirs.data.persist.certificate.CertificateAuthorityCredential;
+import hirs.data.persist.certificate.CertificateTest;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Tests {@link ZipExporter}.
+ */
+public class ZipExporterTest extends SpringPersistenceTest {
+    private static final String ENTRY_NAME_FORMAT = "ca-certificates[%s].cer";
+
+    private CertificateManager certificateManager;
+    private ZipExporter exporter;
+
+    /**
+     * Creates the certificate manager and the exporter.
+     */
+    @BeforeMethod
+    public void setUp() {
+        certificateManager = new DBCertificateManager(sessionFactory);
+        exporter = new ZipExporter(sessionFactory);
+    }
+
+    /**
+     * Removes the exported certificates.
+     */
+    @AfterMethod
+    public void tearDown() {
+        new DBManager<>(Certificate.class, sessionFactory).deleteAll();
+    }
+
+    /**
+     * Tests that each unarchived certificate is written as an entry named by its hash and
+     * holding its raw bytes, and that archived certificates are not written.
+     *
+     * @throws IOException if the certificates cannot be read or exported
+     */
+    @Test
+    public void testExportCertificates() throws IOException {
+        Certificate root = certificateManager.save(CertificateTest.getTestCertificate(
+                CertificateTest.FAKE_ROOT_CA_FILE));
+        Certificate intermediate = certificateManager.save(CertificateTest.getTestCertificate(
+                CertificateTest.FAKE_INTEL_INT_CA_FILE));
+        Certificate archived = certificateManager.save(CertificateTest.getTestCertificate(
+                CertificateTest.FAKE_SGI_INT_CA_FILE));
+        archived.archive();
+        certificateManager.update(archived);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOut = new ZipOutputStream(out)) {
+            Assert.assertEquals(exporter.exportCertificates(
+                    CertificateAuthorityCredential.select(certificateManager),
+                    ENTRY_NAME_FORMAT, zipOut), 2);
+        }
+
+        Map<String, byte[]> entries = readEntries(out.toByteArray());
+        Assert.assertEquals(entries.size(), 2);
+        Assert.assertEquals(entries.get(getEntryName(root)), root.getRawBytes());
+        Assert.assertEquals(entries.get(getEntryName(intermediate)),
+                intermediate.getRawBytes());
+    }
+
+    /**
+     * Tests that only the certificates matched by a selector's criteria are written.
+     *
+     * @throws IOException if the certificates cannot be read or exported
+     */
+    @Test
+    public void testExportSelectedCertificates() throws IOException {
+        Certificate root = certificateManager.save(CertificateTest.getTestCertificate(
+                CertificateTest.FAKE_ROOT_CA_FILE));
+        certificateManager.save(CertificateTest.getTestCertificate(
+                CertificateTest.FAKE_INTEL_INT_CA_FILE));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOut = new ZipOutputStream(out)) {
+            exporter.exportCertificates(CertificateAuthorityCredential.select(certificateManager)
+                    .byHashCode(root.getCertificateHash()), ENTRY_NAME_FORMAT, zipOut);
+        }
+
+        Map<String, byte[]> entries = readEntries(out.toByteArray());
+        Assert.assertEquals(entries.size(), 1);
+        Assert.assertEquals(entries.get(getEntryName(root)), root.getRawBytes());
+    }
+
+    private static String getEntryName(final Certificate certificate) {
+        return String.format(ENTRY_NAME_FORMAT,
+                Integer.toHexString(certificate.getCertificateHash()));
+    }
+
+    private static Map<String, byte[]> readEntries(final byte[] zip) throws IOException {
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                entries.put(entry.getName(), IOUtils.toByteArray(zipIn));
+            }
+        }
+        return entries;
+    }
+}
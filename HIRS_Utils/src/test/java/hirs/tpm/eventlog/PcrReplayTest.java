@@ -0,0 +1,117 @@
+package hirs.tpm.eventlog;
+
+import hirs.utils.HexUtils;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for the {@link PcrReplay}.
+ */
+public class PcrReplayTest {
+    private static final String DEFAULT_EVENT_LOG = "/tcgeventlog/TpmLog.bin";
+    private static final String DEFAULT_EXPECTED_PCRS = "/tcgeventlog/TpmLogExpectedPcrs.txt";
+    private static final int PCR = 4;
+
+    /**
+     * Tests that streaming a log through a replay yields the expected PCR values.
+     *
+     * @throws NoSuchAlgorithmException if SHA-256 is not supported
+     * @throws IOException if the test resources cannot be read
+     */
+    @Test
+    public void testReplayStreamedLog() throws NoSuchAlgorithmException, IOException {
+        PcrReplay replay = new PcrReplay(TcgTpmtHa.TPM_ALG_SHA256);
+        for (TpmPcrEventView event : new TCGEventLogReader(readResource(DEFAULT_EVENT_LOG))) {
+            replay.extend(event);
+        }
+
+        List<String> expected;
+        try (InputStream is = this.getClass().getResourceAsStream(DEFAULT_EXPECTED_PCRS)) {
+            expected = IOUtils.readLines(is, StandardCharsets.UTF_8);
+        }
+        for (int i = 0; i < TCGEventLog.PCR_COUNT; i++) {
+            Assert.assertEquals(
+                    HexUtils.byteArrayToHexString(replay.getPcrValue(TcgTpmtHa.TPM_ALG_SHA256, i)),
+                    expected.get(i).toLowerCase());
+        }
+    }
+
+    /**
+     * Tests that several banks are extended independently.
+     *
+     * @throws NoSuchAlgorithmException if a hash algorithm is not supported
+     */
+    @Test
+    public void testMultipleBanks() throws NoSuchAlgorithmException {
+        PcrReplay replay = new PcrReplay(TcgTpmtHa.TPM_ALG_SHA1, TcgTpmtHa.TPM_ALG_SHA384);
+        byte[] sha1Digest = MessageDigest.getInstance("SHA-1").digest(new byte[] {1});
+        byte[] sha384Digest = MessageDigest.getInstance("SHA-384").digest(new byte[] {1});
+        replay.extend(TcgTpmtHa.TPM_ALG_SHA1, PCR, sha1Digest, 0);
+        replay.extend(TcgTpmtHa.TPM_ALG_SHA384, PCR, sha384Digest, 0);
+
+        Assert.assertEquals(replay.getPcrValue(TcgTpmtHa.TPM_ALG_SHA1, PCR),
+                extend("SHA-1", new byte[TcgTpmtHa.TPM_ALG_SHA1_LENGTH], sha1Digest));
+        Assert.assertEquals(replay.getPcrValue(TcgTpmtHa.TPM_ALG_SHA384, PCR),
+                extend("SHA-384", new byte[TcgTpmtHa.TPM_ALG_SHA384_LENGTH], sha384Digest));
+        Assert.assertFalse(replay.hasBank(TcgTpmtHa.TPM_ALG_SHA256));
+
+        replay.reset();
+        Assert.assertEquals(replay.getPcrValue(TcgTpmtHa.TPM_ALG_SHA1, PCR),
+                new byte[TcgTpmtHa.TPM_ALG_SHA1_LENGTH]);
+    }
+
+    /**
+     * Tests that the first event past the quoted value of a PCR is reported as divergent.
+     *
+     * @throws CertificateException if a certificate in the log cannot be parsed
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered
+     * @throws IOException if an event cannot be parsed
+     */
+    @Test
+    public void testFindFirstDivergentEvent()
+            throws CertificateException, NoSuchAlgorithmException, IOException {
+        TCGEventLog log = new TCGEventLog(readResource(DEFAULT_EVENT_LOG));
+        String[] quote = log.getExpectedPCRValues();
+        Assert.assertEquals(log.findFirstDivergentEvent(quote), -1);
+
+        List<TpmPcrEvent> pcrEvents = new ArrayList<>();
+        for (TpmPcrEvent event : log.getEventList()) {
+            if (event.getPcrIndex() == PCR && event.getEventType() != TCGEventLog.NO_ACTION_EVENT) {
+                pcrEvents.add(event);
+            }
+        }
+        Assert.assertTrue(pcrEvents.size() > 1);
+
+        // quote the PCR as it was after its first event only
+        PcrReplay replay = new PcrReplay(TcgTpmtHa.TPM_ALG_SHA256);
+        replay.extend(pcrEvents.get(0));
+        quote[PCR] = HexUtils.byteArrayToHexString(
+                replay.getPcrValue(TcgTpmtHa.TPM_ALG_SHA256, PCR));
+        Assert.assertEquals(log.findFirstDivergentEvent(quote),
+                pcrEvents.get(1).getEventNumber());
+    }
+
+    private static byte[] extend(final String algorithm, final byte[] pcr, final byte[] digest)
+            throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance(algorithm);
+        md.update(pcr);
+        md.update(digest);
+        return md.digest();
+    }
+
+    private byte[] readResource(final String resource) throws IOException {
+        try (InputStream is = this.getClass().getResourceAsStream(resource)) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+}
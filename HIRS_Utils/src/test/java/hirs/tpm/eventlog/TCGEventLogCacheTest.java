@@ -0,0 +1,80 @@
+package hirs.tpm.eventlog;
+
+import hirs.data.persist.SupportReferenceManifest;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+
+/**
+ * Tests for the {@link TCGEventLogCache}.
+ */
+public class TCGEventLogCacheTest {
+    private static final String DEFAULT_EVENT_LOG = "/tcgeventlog/TpmLog.bin";
+    private static final String SHA1_EVENT_LOG = "/tcgeventlog/TpmLogSHA1.bin";
+
+    private byte[] defaultLog;
+    private byte[] sha1Log;
+
+    /**
+     * Reads the test event logs.
+     *
+     * @throws IOException if the logs cannot be read
+     */
+    @BeforeClass
+    public void setup() throws IOException {
+        defaultLog = readResource(DEFAULT_EVENT_LOG);
+        sha1Log = readResource(SHA1_EVENT_LOG);
+    }
+
+    /**
+     * Tests that a RIM is parsed only once and that the cached log matches a fresh parse.
+     *
+     * @throws CertificateException if a certificate in the log cannot be parsed
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered
+     * @throws IOException if an event cannot be parsed
+     */
+    @Test
+    public void testGetEventLogParsesOnce()
+            throws CertificateException, NoSuchAlgorithmException, IOException {
+        TCGEventLogCache cache = new TCGEventLogCache();
+        SupportReferenceManifest rim = new SupportReferenceManifest(defaultLog);
+
+        TCGEventLog first = cache.getEventLog(rim);
+        TCGEventLog second = cache.getEventLog(new SupportReferenceManifest(defaultLog));
+
+        Assert.assertSame(second, first);
+        Assert.assertEquals(first.getExpectedPCRValues(),
+                new TCGEventLog(defaultLog).getExpectedPCRValues());
+        Assert.assertEquals(cache.getStats().missCount(), 1);
+        Assert.assertEquals(cache.getStats().hitCount(), 1);
+    }
+
+    /**
+     * Tests that logs are evicted once the cache exceeds its size bound.
+     *
+     * @throws CertificateException if a certificate in the log cannot be parsed
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered
+     * @throws IOException if an event cannot be parsed
+     */
+    @Test
+    public void testEviction() throws CertificateException, NoSuchAlgorithmException, IOException {
+        TCGEventLogCache cache = new TCGEventLogCache(defaultLog.length);
+
+        cache.getEventLog(new SupportReferenceManifest(defaultLog));
+        cache.getEventLog(new SupportReferenceManifest(sha1Log));
+
+        Assert.assertTrue(cache.getStats().evictionCount() > 0);
+    }
+
+    private byte[] readResource(final String resource) throws IOException {
+        try (InputStream is = this.getClass().getResourceAsStream(resource)) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package hirs.tpm.eventlog;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Tests for the {@link TCGEventLogReader}.
+ */
+public class TCGEventLogReaderTest {
+    private static final String DEFAULT_EVENT_LOG = "/tcgeventlog/TpmLog.bin";
+    private static final String SHA1_EVENT_LOG = "/tcgeventlog/TpmLogSHA1.bin";
+
+    /**
+     * Tests that streaming a crypto agile log yields the same events as {@link TCGEventLog}.
+     *
+     * @throws CertificateException if a certificate in the log cannot be parsed
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered
+     * @throws IOException if an event cannot be parsed
+     */
+    @Test
+    public void testCryptoAgileLogMatchesTCGEventLog()
+            throws CertificateException, NoSuchAlgorithmException, IOException {
+        byte[] rawLog = readResource(DEFAULT_EVENT_LOG);
+        TCGEventLogReader reader = new TCGEventLogReader(rawLog);
+        Assert.assertTrue(reader.isCryptoAgile());
+        assertMatches(reader, new TCGEventLog(rawLog));
+    }
+
+    /**
+     * Tests that streaming a SHA1 log yields the same events as {@link TCGEventLog}.
+     *
+     * @throws CertificateException if a certificate in the log cannot be parsed
+     * @throws NoSuchAlgorithmException if an unknown algorithm is encountered
+     * @throws IOException if an event cannot be parsed
+     */
+    @Test
+    public void testSha1LogMatchesTCGEventLog()
+            throws CertificateException, NoSuchAlgorithmException, IOException {
+        byte[] rawLog = readResource(SHA1_EVENT_LOG);
+        TCGEventLogReader reader = new TCGEventLogReader(rawLog);
+        Assert.assertFalse(reader.isCryptoAgile());
+        assertMatches(reader, new TCGEventLog(rawLog));
+    }
+
+    /**
+     * Tests reading a memory-mapped log and that the content is exposed without copying.
+     *
+     * @throws IOException if the log cannot be written or mapped
+     */
+    @Test
+    public void testMappedLog() throws IOException {
+        byte[] rawLog = readResource(DEFAULT_EVENT_LOG);
+        Path logFile = Files.createTempFile("TpmLog", ".bin");
+        try {
+            Files.write(logFile, rawLog);
+            TCGEventLogReader reader = TCGEventLogReader.open(logFile);
+            Iterator<TpmPcrEventView> events = reader.iterator();
+            TpmPcrEventView first = events.next();
+            ByteBuffer content = first.getEventContent();
+            Assert.assertTrue(content.isReadOnly());
+            Assert.assertEquals(content.remaining(), first.getEventContentSize());
+
+            int count = 1;
+            while (events.hasNext()) {
+                Assert.assertSame(events.next(), first);
+                count++;
+            }
+            Assert.assertEquals(count, countEvents(new TCGEventLogReader(rawLog)));
+        } finally {
+            Files.delete(logFile);
+        }
+    }
+
+    /**
+     * Tests that a truncated log is rejected.
+     *
+     * @throws IOException if the log cannot be read
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTruncatedLog() throws IOException {
+        byte[] rawLog = readResource(SHA1_EVENT_LOG);
+        countEvents(new TCGEventLogReader(Arrays.copyOf(rawLog, rawLog.length - 1)));
+    }
+
+    private static void assertMatches(final TCGEventLogReader reader, final TCGEventLog log)
+            throws CertificateException, NoSuchAlgorithmException, IOException {
+        Iterator<TpmPcrEvent> expected = log.getEventList().iterator();
+        for (TpmPcrEventView view : reader) {
+            TpmPcrEvent event = expected.next();
+            Assert.assertEquals(view.getEventNumber(), event.getEventNumber());
+            Assert.assertEquals(view.getPcrIndex(), event.getPcrIndex());
+            Assert.assertEquals(view.getEventType(), event.getEventType());
+            // TpmPcrEvent keeps the last digest of the event
+            byte[] digest = view.getDigest(view.getDigestCount() - 1);
+            Assert.assertEquals(Arrays.copyOf(digest, event.getDigestLength()),
+                    event.getEventDigest());
+            Assert.assertEquals(view.toTpmPcrEvent().getEventContent(),
+                    event.getEventContent());
+            Assert.assertEquals(view.toString(), event.toString());
+        }
+        Assert.assertFalse(expected.hasNext());
+    }
+
+    private static int countEvents(final TCGEventLogReader reader) {
+        int count = 0;
+        for (TpmPcrEventView view : reader) {
+            count++;
+        }
+        return count;
+    }
+
+    private byte[] readResource(final String resource) throws IOException {
+        try (InputStream is = this.getClass().getResourceAsStream(resource)) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package hirs.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unit tests for <code>MultiRegexFilePathMatcher</code>.
+ */
+public class MultiRegexFilePathMatcherTest {
+
+    private static final List<String> PATTERNS = Arrays.asList(
+            "/var/lib/my-lib.so",
+            "/var/lib/",
+            "/var/",
+            ".*foo",
+            ".*\\.foo",
+            "\\/usr\\/lib\\/.*.txt",
+            ".*\\/lib\\/.*.txt",
+            "(?i)/ETC/.*",
+            "/(tmp|opt)/(\\w+)/\\2",
+            "/home/(?<user>\\w+)/.*",
+            "/srv/(?<user>\\w+)/.*",
+            "\\Q/weird/.*\\E"
+    );
+
+    private static final List<String> PATHS = Arrays.asList(
+            "/var/lib/my-lib.so", "/var/lib/someone-elses-lib.so", "/var/log/messages",
+            "/usr/bin/foo", "/usr/bin/bar.foo", "/usr/bin/foobar", "/usr/lib/info.txt",
+            "/usr/lib/sub/info.txt", "/opt/lib/info.txt", "/etc/passwd", "/tmp/a/a", "/tmp/a/b",
+            "/home/user/.bashrc", "/srv/www/index.html", "/weird/.*", "/weird/x", "", "/"
+    );
+
+    /**
+     * Tests that each path is matched by the same patterns as individual
+     * <code>RegexFilePathMatcher</code>s holding those patterns.
+     */
+    @Test
+    public final void matchesSameAsRegexFilePathMatcher() {
+        Map<String, String> patterns = new LinkedHashMap<>();
+        for (String pattern : PATTERNS) {
+            patterns.put(pattern, pattern);
+        }
+        MultiRegexFilePathMatcher<String> matcher = new MultiRegexFilePathMatcher<>(patterns);
+
+        for (String path : PATHS) {
+            Set<String> expected = new HashSet<>();
+            for (String pattern : PATTERNS) {
+                if (new RegexFilePathMatcher(pattern).isMatch(path)) {
+                    expected.add(pattern);
+                }
+            }
+            Assert.assertEquals(matcher.getMatches(path), expected, path);
+            Assert.assertEquals(matcher.isMatch(path), !expected.isEmpty(), path);
+        }
+    }
+
+    /**
+     * Tests that every pattern mapped to a value is reported, even if patterns are repeated.
+     */
+    @Test
+    public final void reportsEveryValue() {
+        Map<Integer, String> patterns = new LinkedHashMap<>();
+        patterns.put(1, "/var/lib/");
+        patterns.put(2, "/var/lib/");
+        patterns.put(3, ".*\\.so");
+        patterns.put(4, ".*\\.so");
+        MultiRegexFilePathMatcher<Integer> matcher = new MultiRegexFilePathMatcher<>(patterns);
+
+        Assert.assertEquals(matcher.getMatches("/var/lib/my-lib.so"),
+                new HashSet<>(Arrays.asList(1, 2, 3, 4)));
+        Assert.assertEquals(matcher.getMatches("/usr/lib/my-lib.so"),
+                new HashSet<>(Arrays.asList(3, 4)));
+        Assert.assertTrue(matcher.getMatches("/usr/lib/my-lib.a").isEmpty());
+    }
+
+    /**
+     * Tests that malformed regex is rejected.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public final void malformedRegex() {
+        new MultiRegexFilePathMatcher<>(Collections.singletonMap("bad", "/var/lib/(["));
+    }
+}
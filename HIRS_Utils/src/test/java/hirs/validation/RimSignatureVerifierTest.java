@@ -0,0 +1,162 @@
+package hirs.validation;
+
+import hirs.data.persist.BaseReferenceManifest;
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.certificate.Certificate;
+import hirs.data.persist.certificate.CertificateTest;
+import hirs.persist.CertificateManager;
+import hirs.persist.DBCertificateManager;
+import hirs.persist.DBUtility;
+import org.apache.commons.io.IOUtils;
+import org.hibernate.Session;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for the {@link RimSignatureVerifier}.
+ */
+public class RimSignatureVerifierTest extends SpringPersistenceTest {
+
+    private static final String RIM_SIGNING_CERT = "/certificates/RimSignCert.pem";
+    private static final String KEY_NAME_RIM = "/rims/generated_user_cert.swidtag";
+    private static final String EMBEDDED_CERT_RIM = "/rims/generated_user_cert_embed.swidtag";
+
+    private CertificateManager certificateManager;
+    private RimSignatureVerifier verifier;
+    private Certificate rimSigningCert;
+    private Certificate fakeRootCa;
+
+    /**
+     * Creates a verifier over an empty database and reads the test certificates.
+     *
+     * @throws IOException if the test certificates cannot be read
+     */
+    @BeforeMethod
+    public void setUp() throws IOException {
+        certificateManager = new DBCertificateManager(sessionFactory);
+        verifier = new RimSignatureVerifier(certificateManager);
+        rimSigningCert = CertificateTest.getTestCertificate(RIM_SIGNING_CERT);
+        fakeRootCa = CertificateTest.getTestCertificate(CertificateTest.FAKE_ROOT_CA_FILE);
+    }
+
+    /**
+     * Removes the test certificates.
+     */
+    @AfterMethod
+    public void tearDown() {
+        DBUtility.removeAllInstances(sessionFactory, Certificate.class);
+    }
+
+    /**
+     * Tests that the signing cert named by a RIM's KeyName is found, and that the signature is
+     * only verified once for the same RIM.
+     *
+     * @throws IOException if the test RIM cannot be read
+     */
+    @Test
+    public void testGetSigningCertificate() throws IOException {
+        certificateManager.save(fakeRootCa);
+        certificateManager.save(rimSigningCert);
+        BaseReferenceManifest rim = getTestRim(KEY_NAME_RIM);
+
+        Assert.assertEquals(verifier.getSigningCertificate(rim), rimSigningCert);
+        Assert.assertEquals(verifier.getStats().hitCount(), 0);
+        Assert.assertEquals(verifier.getSigningCertificate(rim), rimSigningCert);
+        Assert.assertEquals(verifier.getStats().hitCount(), 1);
+    }
+
+    /**
+     * Tests that the signing cert of a RIM with an embedded certificate is found.
+     *
+     * @throws IOException if the test RIM cannot be read
+     */
+    @Test
+    public void testGetSigningCertificateEmbedded() throws IOException {
+        certificateManager.save(fakeRootCa);
+        certificateManager.save(rimSigningCert);
+
+        Assert.assertEquals(verifier.getSigningCertificate(getTestRim(EMBEDDED_CERT_RIM)),
+                rimSigningCert);
+    }
+
+    /**
+     * Tests that the signing cert of a RIM with an embedded certificate is found by its public
+     * key when it cannot be found by its subject key identifier.
+     *
+     * @throws IOException if the test RIM cannot be read
+     */
+    @Test
+    public void testGetSigningCertificateEmbeddedByPublicKey() throws IOException {
+        certificateManager.save(fakeRootCa);
+        certificateManager.save(rimSigningCert);
+        Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        session.createSQLQuery("update Certificate set subjectKeyIdentifier = null")
+                .executeUpdate();
+        session.getTransaction().commit();
+
+        Assert.assertEquals(verifier.getSigningCertificate(getTestRim(EMBEDDED_CERT_RIM))
+                .getId(), rimSigningCert.getId());
+        Assert.assertNull(verifier.getSigningCertificate(getTestRim(KEY_NAME_RIM)));
+    }
+
+    /**
+     * Tests that a RIM whose signing cert is not stored is not verified, and that the signing
+     * cert is found once it is stored.
+     *
+     * @throws IOException if the test RIM cannot be read
+     */
+    @Test
+    public void testSigningCertificateNotFound() throws IOException {
+        certificateManager.save(fakeRootCa);
+        BaseReferenceManifest rim = getTestRim(KEY_NAME_RIM);
+        Assert.assertNull(verifier.getSigningCertificate(rim));
+
+        certificateManager.save(rimSigningCert);
+        Assert.assertEquals(verifier.getSigningCertificate(rim), rimSigningCert);
+    }
+
+    /**
+     * Tests that a cached signing cert is no longer returned once it has been archived.
+     *
+     * @throws IOException if the test RIM cannot be read
+     */
+    @Test
+    public void testArchivedSigningCertificate() throws IOException {
+        certificateManager.save(rimSigningCert);
+        BaseReferenceManifest rim = getTestRim(KEY_NAME_RIM);
+        Assert.assertEquals(verifier.getSigningCertificate(rim), rimSigningCert);
+
+        rimSigningCert.archive();
+        certificateManager.update(rimSigningCert);
+        Assert.assertNull(verifier.getSigningCertificate(rim));
+    }
+
+    /**
+     * Tests that a RIM altered after it was signed is not verified.
+     *
+     * @throws IOException if the test RIM cannot be read
+     */
+    @Test
+    public void testAlteredRim() throws IOException {
+        certificateManager.save(rimSigningCert);
+        String swidtag = new String(readResource(KEY_NAME_RIM), StandardCharsets.UTF_8)
+                .replace("Example.com BIOS", "Altered.com BIOS");
+
+        Assert.assertNull(verifier.getSigningCertificate(
+                new BaseReferenceManifest(swidtag.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private BaseReferenceManifest getTestRim(final String resource) throws IOException {
+        return new BaseReferenceManifest(readResource(resource));
+    }
+
+    private byte[] readResource(final String resource) throws IOException {
+        return IOUtils.toByteArray(getClass().getResourceAsStream(resource));
+    }
+}
@@ -8,6 +8,7 @@ import hirs.data.persist.SupplyChainValidation;
 import hirs.data.persist.certificate.Certificate;
 import hirs.data.persist.certificate.CertificateAuthorityCredential;
 import hirs.data.persist.certificate.CertificateTest;
+import hirs.data.persist.certificate.ComponentResult;
 import hirs.data.persist.certificate.EndorsementCredential;
 import hirs.data.persist.certificate.PlatformCredential;
 import hirs.data.persist.certificate.attributes.ComponentClass;
@@ -87,6 +88,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.when;
@@ -1602,6 +1606,47 @@ public class SupplyChainCredentialValidatorTest {
         Assert.assertEquals(appraisalStatus.getAppStatus(), AppraisalStatus.Status.FAIL);
     }
 
+    /**
+     * Tests that each attribute validation returns only the component results of its own
+     * comparisons, including when several validations run concurrently.
+     * @throws Exception if the test resources cannot be read or a validation fails
+     */
+    @Test
+    public final void testValidatePlatformCredentialAttributesV2p0ComponentResultsPerCall()
+            throws Exception {
+        final DeviceInfoReport deviceInfoReport = setupDeviceInfoReportWithNotSpecifiedComponents();
+        final PlatformCredential platformCredential = new PlatformCredential(
+                Files.readAllBytes(Paths.get(CertificateTest.class.
+                getResource((SAMPLE_TEST_PACCOR_CERT)).toURI())));
+
+        AppraisalStatus first = SupplyChainCredentialValidator
+                .validatePlatformCredentialAttributesV2p0(platformCredential, deviceInfoReport);
+        Assert.assertEquals(first.getAppStatus(), AppraisalStatus.Status.FAIL);
+        Assert.assertFalse(first.getComponentResults().isEmpty());
+
+        final int validations = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(validations);
+        try {
+            List<Future<AppraisalStatus>> results = new ArrayList<>();
+            for (int i = 0; i < validations; i++) {
+                results.add(executor.submit(() -> SupplyChainCredentialValidator
+                        .validatePlatformCredentialAttributesV2p0(platformCredential,
+                                deviceInfoReport)));
+            }
+            for (Future<AppraisalStatus> result : results) {
+                List<ComponentResult> componentResults = result.get().getComponentResults();
+                Assert.assertEquals(componentResults.size(),
+                        first.getComponentResults().size());
+                for (ComponentResult componentResult : componentResults) {
+                    Assert.assertEquals(componentResult.getCertificateId(),
+                            platformCredential.getId());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * Tests that the SupplyChainCredentialValidator fails when required fields are null.
      * @throws IOException if unable to set up DeviceInfoReport from resource file
@@ -0,0 +1,107 @@
+package hirs.validation;
+
+import hirs.data.persist.SpringPersistenceTest;
+import hirs.data.persist.certificate.Certificate;
+import hirs.data.persist.certificate.CertificateTest;
+import hirs.data.persist.certificate.PlatformCredential;
+import hirs.persist.CertificateManager;
+import hirs.persist.DBCertificateManager;
+import hirs.persist.DBUtility;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * Tests for the {@link TrustChainGraph}.
+ */
+public class TrustChainGraphTest extends SpringPersistenceTest {
+
+    private CertificateManager certificateManager;
+    private TrustChainGraph graph;
+    private Certificate fakeRootCa;
+    private Certificate fakeIntelIntermediateCa;
+    private Certificate fakeSgiIntermediateCa;
+    private Certificate stmIntermediateCa;
+    private Certificate stmRootCa;
+    private Certificate gsRootCa;
+
+    /**
+     * Creates a graph over an empty database and reads the test certificates.
+     *
+     * @throws IOException if the test certificates cannot be read
+     */
+    @BeforeMethod
+    public void setUp() throws IOException {
+        certificateManager = new DBCertificateManager(sessionFactory);
+        graph = new TrustChainGraph(certificateManager);
+        fakeRootCa = CertificateTest.getTestCertificate(CertificateTest.FAKE_ROOT_CA_FILE);
+        fakeIntelIntermediateCa =
+                CertificateTest.getTestCertificate(CertificateTest.FAKE_INTEL_INT_CA_FILE);
+        fakeSgiIntermediateCa =
+                CertificateTest.getTestCertificate(CertificateTest.FAKE_SGI_INT_CA_FILE);
+        stmIntermediateCa = CertificateTest.getTestCertificate(CertificateTest.STM_INT_02_CA);
+        stmRootCa = CertificateTest.getTestCertificate(CertificateTest.STM_ROOT_CA);
+        gsRootCa = CertificateTest.getTestCertificate(CertificateTest.GS_ROOT_CA);
+    }
+
+    /**
+     * Removes the test certificates.
+     */
+    @AfterMethod
+    public void tearDown() {
+        DBUtility.removeAllInstances(sessionFactory, Certificate.class);
+    }
+
+    /**
+     * Tests that the chain of a credential holds the CAs above it, and not CAs from other
+     * branches of the graph.
+     */
+    @Test
+    public void testGetCaChain() {
+        certificateManager.save(fakeRootCa);
+        certificateManager.save(fakeSgiIntermediateCa);
+        certificateManager.save(stmRootCa);
+        certificateManager.save(gsRootCa);
+
+        Assert.assertEquals(graph.getCaChain(stmIntermediateCa),
+                new HashSet<>(Arrays.asList(stmRootCa, gsRootCa)));
+        Assert.assertEquals(graph.getCaChain(fakeIntelIntermediateCa),
+                Collections.singleton(fakeRootCa));
+        // a self-signed CA is its own trust anchor
+        Assert.assertEquals(graph.getCaChain(gsRootCa), Collections.singleton(gsRootCa));
+    }
+
+    /**
+     * Tests that the graph is rebuilt when CA credentials are saved or archived after it was
+     * first built.
+     */
+    @Test
+    public void testRebuildsOnChange() {
+        certificateManager.save(fakeSgiIntermediateCa);
+        Assert.assertTrue(graph.getCaChain(fakeIntelIntermediateCa).isEmpty());
+
+        certificateManager.save(fakeRootCa);
+        Assert.assertEquals(graph.getCaChain(fakeIntelIntermediateCa),
+                Collections.singleton(fakeRootCa));
+
+        fakeRootCa.archive();
+        certificateManager.update(fakeRootCa);
+        Assert.assertTrue(graph.getCaChain(fakeIntelIntermediateCa).isEmpty());
+    }
+
+    /**
+     * Tests that a credential without any known issuer has an empty chain.
+     */
+    @Test
+    public void testGetCaChainUnknownIssuer() {
+        certificateManager.save(fakeRootCa);
+        certificateManager.save(gsRootCa);
+        Assert.assertTrue(graph.getCaChain(stmIntermediateCa).isEmpty());
+    }
+}